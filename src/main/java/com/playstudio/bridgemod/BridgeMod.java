@@ -2,6 +2,9 @@ package com.playstudio.bridgemod;
 
 import com.playstudio.bridgemod.handler.BotHandler;
 import com.playstudio.bridgemod.handler.QueryHandler;
+import com.playstudio.bridgemod.pathfinding.PrecomputedData;
+import com.playstudio.bridgemod.pathfinding.cache.BlockChangeTracker;
+import com.playstudio.bridgemod.pathfinding.cache.CachedWorldManager;
 import com.playstudio.bridgemod.render.PathRenderer;
 import com.playstudio.bridgemod.state.EventForwarder;
 import com.playstudio.bridgemod.state.StateSyncManager;
@@ -56,6 +59,18 @@ public class BridgeMod {
         botHandler.registerAll(wsServer.getMessageHandler());
         MinecraftForge.EVENT_BUS.register(botHandler);
 
+        // Classify every block state (walkability flags, collision shapes) now that the
+        // registries are frozen, rather than on the first search
+        event.enqueueWork(() -> {
+            PrecomputedData.getInstance();
+        });
+
+        // Track block changes so pathfinding section snapshots can be reused across searches
+        MinecraftForge.EVENT_BUS.register(BlockChangeTracker.getInstance());
+
+        // Keep the 2-bit cached world (planning beyond loaded chunks) up to date
+        MinecraftForge.EVENT_BUS.register(CachedWorldManager.getInstance());
+
         // Register path renderer (Phase 3B - visualize A* paths)
         MinecraftForge.EVENT_BUS.register(new PathRenderer(botHandler));
 
@@ -2,15 +2,35 @@ package com.playstudio.bridgemod.bot;
 
 import com.playstudio.bridgemod.BridgeMod;
 import com.playstudio.bridgemod.pathfinding.CalculationContext;
+import com.playstudio.bridgemod.pathfinding.HdaSearch;
 import com.playstudio.bridgemod.pathfinding.PathExecutor;
 import com.playstudio.bridgemod.pathfinding.PathFinder;
 import com.playstudio.bridgemod.pathfinding.PathNode;
+import com.playstudio.bridgemod.pathfinding.PathPlanningExecutor;
+import com.playstudio.bridgemod.pathfinding.PortfolioSearch;
+import com.playstudio.bridgemod.pathfinding.SearchMode;
+import com.playstudio.bridgemod.pathfinding.SearchSession;
+import com.playstudio.bridgemod.pathfinding.cache.BlockChangeTracker;
+import com.playstudio.bridgemod.pathfinding.cache.CachedWorldManager;
+import com.playstudio.bridgemod.pathfinding.cache.PathCache;
+import com.playstudio.bridgemod.pathfinding.cache.PathChunkLoader;
+import com.playstudio.bridgemod.pathfinding.calibration.CostCalibration;
+import com.playstudio.bridgemod.pathfinding.calibration.CostCalibrationManager;
+import com.playstudio.bridgemod.pathfinding.flow.FlowField;
+import com.playstudio.bridgemod.pathfinding.flow.FlowFieldManager;
 import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.goals.GoalAnyOf;
 import com.playstudio.bridgemod.pathfinding.goals.GoalBlock;
 import com.playstudio.bridgemod.pathfinding.goals.GoalNear;
+import com.playstudio.bridgemod.pathfinding.hpa.HierarchicalPlanner;
+import com.playstudio.bridgemod.pathfinding.threat.ThreatGridManager;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.ChunkPos;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
@@ -28,6 +48,20 @@ import java.util.function.BiConsumer;
  * Lookahead (Baritone-style):
  * When executing a partial path segment, we pre-calculate the next segment
  * before the current one finishes. This eliminates the pause between segments.
+ * The lookahead search resumes the previous segment's search tree through
+ * searchSession, so already-explored terrain isn't expanded again.
+ *
+ * Hierarchical planning (HPA*):
+ * Gotos farther than HIERARCHICAL_MIN_DISTANCE first plan a chunk-portal route on the
+ * cached world's PortalGraph. Each block-level search then only targets the farthest
+ * waypoint within REFINE_DISTANCE of its start, so long trips become a chain of short
+ * searches. If a segment can't be found, the waypoints are dropped and planning falls back
+ * to the flat search towards the real goal.
+ *
+ * Flow fields (bot_rally):
+ * Bots sent to the same destination share one FlowField instead of each searching. Any
+ * search towards the real goal from a cell inside the field takes the field's path instead;
+ * searches from outside it (or towards a waypoint) run as usual.
  */
 public class BotController {
 
@@ -36,12 +70,44 @@ public class BotController {
     // Navigation state
     private volatile boolean navigating = false;
     private Goal goal;
+    // All targets of a bot_goto_any (null otherwise): the snapshot corridor must reach each
+    private List<BlockPos> corridorTargets;
     private int goalRange = 2;
+    private int goalX, goalY, goalZ;
+
+    // Hierarchical planning: abstract route, refined segment by segment
+    private static final int HIERARCHICAL_MIN_DISTANCE = 192;
+    private static final int REFINE_DISTANCE = 64;
+    private static final int WAYPOINT_RANGE = 2;
+    private CompletableFuture<List<BlockPos>> pendingAbstractPlan;
+    private List<BlockPos> waypoints;   // null = search straight for goal
+    private int waypointIndex;          // first waypoint not yet reached
+    private int segmentWaypoint = -1;   // waypoint targeted by segmentGoal
+    private Goal segmentGoal;
 
     // Pathfinding
     private CompletableFuture<PathFinder.PathResult> pendingCalculation;
+    private PathPlanningExecutor.Priority priority = PathPlanningExecutor.Priority.GOTO;
+    private SearchMode searchMode = SearchMode.ASTAR;
     private PathExecutor currentExecutor;
+    private final SearchSession searchSession = new SearchSession();
+    // Node budget of this bot's A* searches (0 = unbounded, see PathFinder.setNodeBudget)
+    private int nodeBudget = PathFinder.DEFAULT_NODE_BUDGET;
     private int recalcCount = 0;
+    // Chunk snapshot corridor half-width; doubled when a partial search ran into its edge
+    private int corridorMargin = CalculationContext.DEFAULT_CORRIDOR_MARGIN;
+    private CalculationContext pendingContext;
+    // PathCache key of the pending search (stored if it reaches the goal) and of the path being
+    // executed (evicted if the bot gets stuck on it)
+    private PathCache.Key pendingCacheKey;
+    private long pendingSnapshotVersion;
+    private boolean pendingFromCache;
+    private PathCache.Key currentCacheKey;
+    // Hostile this bot is pursuing, left out of its searches' threat grids (null when not pursuing)
+    private Entity threatExempt;
+    // Shared field followed towards the goal (bot_rally), and whether the pending result came from it
+    private FlowField flowField;
+    private boolean pendingFromField;
     private static final int MAX_RECALCS = 25; // generous limit for long-distance paths
 
     // Lookahead: start pre-calculating next segment when this many nodes remain
@@ -58,6 +124,9 @@ public class BotController {
 
     public BotController(FakePlayer bot) {
         this.bot = bot;
+
+        // Load the persisted move cost calibration (once per server run)
+        CostCalibrationManager.getInstance().load(bot.getServer().getServerDirectory().toPath());
     }
 
     /**
@@ -65,31 +134,177 @@ public class BotController {
      * The callback will be invoked with (success, reason) when navigation completes.
      */
     public void startGoto(double x, double y, double z, int range, BiConsumer<Boolean, String> callback) {
-        this.goalRange = range;
-        this.pendingCallback = callback;
-        this.recalcCount = 0;
-        this.samePositionDeviationCount = 0;
-        this.currentExecutor = null;
-        this.navigating = true;
+        startGoto(x, y, z, range, PathPlanningExecutor.Priority.GOTO, callback);
+    }
+
+    /**
+     * Start navigating with an explicit scheduling priority for the path searches
+     * (combat pursuit uses PURSUIT so it is planned ahead of idle gotos).
+     */
+    public void startGoto(double x, double y, double z, int range, PathPlanningExecutor.Priority priority,
+                          BiConsumer<Boolean, String> callback) {
+        startGoto(x, y, z, range, priority, SearchMode.ASTAR, callback);
+    }
+
+    /**
+     * Start navigating with an explicit priority and search engine (bot_goto "search").
+     */
+    public void startGoto(double x, double y, double z, int range, PathPlanningExecutor.Priority priority,
+                          SearchMode searchMode, BiConsumer<Boolean, String> callback) {
+        beginNavigation(range, priority, searchMode, callback);
+        setGoal(x, y, z, range);
+        BridgeMod.LOGGER.info("Bot '{}' starting goto {} range={}",
+                bot.getBotName(), goal, range);
+        startTrip();
+    }
 
-        // Create goal
+    /**
+     * Start navigating towards a GoalNear built by the caller (combat pursuit's GoalIntercept).
+     */
+    public void startGoto(GoalNear target, PathPlanningExecutor.Priority priority,
+                          BiConsumer<Boolean, String> callback) {
+        beginNavigation(target.getRange(), priority, SearchMode.ASTAR, callback);
+        this.goalX = target.getX();
+        this.goalY = target.getY();
+        this.goalZ = target.getZ();
+        this.goal = target;
+        BridgeMod.LOGGER.info("Bot '{}' starting goto {}", bot.getBotName(), goal);
+        startTrip();
+    }
+
+    /**
+     * Navigate to (x, y, z) along a flow field shared with every other bot sent there
+     * (bot_rally). The field covers radiusChunks around the destination; outside it the bot
+     * plans as in startGoto.
+     */
+    public void startRally(double x, double y, double z, int range, int radiusChunks,
+                           BiConsumer<Boolean, String> callback) {
+        beginNavigation(range, PathPlanningExecutor.Priority.GOTO, SearchMode.ASTAR, callback);
+        setGoal(x, y, z, range);
+        flowField = FlowFieldManager.getInstance().acquire(bot, goalX, goalY, goalZ, range, radiusChunks);
+        BridgeMod.LOGGER.info("Bot '{}' starting rally to {} ({})", bot.getBotName(), goal, flowField);
+        startTrip();
+    }
+
+    private void setGoal(double x, double y, double z, int range) {
         int bx = BlockPos.containing(x, y, z).getX();
         int by = BlockPos.containing(x, y, z).getY();
         int bz = BlockPos.containing(x, y, z).getZ();
+        this.goalX = bx;
+        this.goalY = by;
+        this.goalZ = bz;
 
         if (range <= 1) {
             this.goal = new GoalBlock(bx, by, bz);
         } else {
             this.goal = new GoalNear(bx, by, bz, range);
         }
+    }
 
-        BridgeMod.LOGGER.info("Bot '{}' starting goto {} range={}",
-                bot.getBotName(), goal, range);
+    private void startTrip() {
+        // Long trip: plan the abstract route first, block-level segments follow
+        double dx = goalX - bot.getX();
+        double dz = goalZ - bot.getZ();
+        if (dx * dx + dz * dz >= (double) HIERARCHICAL_MIN_DISTANCE * HIERARCHICAL_MIN_DISTANCE) {
+            startAbstractPlan();
+            return;
+        }
 
         // Start path calculation
         startPathCalculation();
     }
 
+    /**
+     * Navigate to whichever of several targets is cheapest to reach by path (bot_goto_any):
+     * one search towards a GoalAnyOf instead of a goto per candidate. The corridor snapshot
+     * covers every target; no hierarchical planning (candidates come from nearby block scans).
+     */
+    public void startGotoAny(List<BlockPos> targets, int range, BiConsumer<Boolean, String> callback) {
+        beginNavigation(range, PathPlanningExecutor.Priority.GOTO, SearchMode.ASTAR, callback);
+        this.goal = new GoalAnyOf(targets, range);
+        this.corridorTargets = targets;
+        // Corridor, lookahead and waypoint logic use the Euclidean-nearest target as reference
+        BlockPos botPos = bot.blockPosition();
+        BlockPos nearest = targets.get(0);
+        for (BlockPos target : targets) {
+            if (target.distSqr(botPos) < nearest.distSqr(botPos)) {
+                nearest = target;
+            }
+        }
+        this.goalX = nearest.getX();
+        this.goalY = nearest.getY();
+        this.goalZ = nearest.getZ();
+
+        BridgeMod.LOGGER.info("Bot '{}' starting goto {} (nearest {})", bot.getBotName(), goal, nearest);
+        startPathCalculation();
+    }
+
+    private void beginNavigation(int range, PathPlanningExecutor.Priority priority, SearchMode searchMode,
+                                 BiConsumer<Boolean, String> callback) {
+        this.priority = priority;
+        this.searchMode = searchMode;
+        this.goalRange = range;
+        this.searchSession.invalidate();
+        this.pendingCallback = callback;
+        this.recalcCount = 0;
+        this.samePositionDeviationCount = 0;
+        this.currentExecutor = null;
+        this.navigating = true;
+        this.corridorMargin = CalculationContext.DEFAULT_CORRIDOR_MARGIN;
+        this.corridorTargets = null;
+        releaseFlowField();
+        cancelAbstractPlan();
+        clearWaypoints();
+    }
+
+    /**
+     * Move the goal of the running navigation (combat pursuit of a moving target).
+     * Unlike startGoto the search session is kept: the next search starts where the bot stands,
+     * on the previous search's tree, which SearchSession re-keys for the new goal and repairs
+     * where blocks changed. The current path keeps executing until the new one arrives.
+     *
+     * @return false if not navigating (or still planning an abstract route); call startGoto then
+     */
+    public boolean retarget(double x, double y, double z, int range) {
+        BlockPos pos = BlockPos.containing(x, y, z);
+        return retarget(range <= 1 ? new GoalBlock(pos.getX(), pos.getY(), pos.getZ())
+                : new GoalNear(pos.getX(), pos.getY(), pos.getZ(), range), pos, range);
+    }
+
+    /**
+     * Move the goal of the running navigation to a GoalNear built by the caller
+     * (combat pursuit's GoalIntercept), as retarget(x, y, z, range).
+     */
+    public boolean retarget(GoalNear target) {
+        return retarget(target, new BlockPos(target.getX(), target.getY(), target.getZ()), target.getRange());
+    }
+
+    private boolean retarget(Goal target, BlockPos pos, int range) {
+        if (!navigating || pendingAbstractPlan != null) {
+            return false;
+        }
+        this.goalX = pos.getX();
+        this.goalY = pos.getY();
+        this.goalZ = pos.getZ();
+        this.goalRange = range;
+        this.goal = target;
+        this.corridorTargets = null;
+        this.recalcCount = 0;
+        releaseFlowField();
+        clearWaypoints();
+        cancelPendingCalculation();
+        startPathCalculation();
+        return true;
+    }
+
+    /**
+     * Set the hostile this bot is pursuing (null when it stops), so its searches don't route
+     * around their own target. Set before startGoto / retarget.
+     */
+    public void setThreatExempt(Entity target) {
+        this.threatExempt = target;
+    }
+
     /**
      * Stop current navigation.
      * Always clears physical movement state (even if navigating is already false)
@@ -99,6 +314,10 @@ public class BotController {
         clearMovement(); // Always clear, even if navigating is already false
         if (navigating) {
             navigating = false;
+            searchSession.invalidate();
+            releaseFlowField();
+            cancelAbstractPlan();
+            clearWaypoints();
             if (pendingCalculation != null) {
                 pendingCalculation.cancel(true);
                 pendingCalculation = null;
@@ -142,6 +361,14 @@ public class BotController {
             return;
         }
 
+        // Waiting for the abstract route of a long goto
+        if (pendingAbstractPlan != null) {
+            if (!pendingAbstractPlan.isDone()) {
+                return;
+            }
+            handleCompletedAbstractPlan();
+        }
+
         // 2. Process completed path calculation (if any)
         // This is checked BEFORE executing the path so that lookahead results
         // are picked up immediately, minimizing the gap between segments.
@@ -202,6 +429,10 @@ public class BotController {
                             currentExecutor.getPathIndex(), currentExecutor.getPathLength());
                     currentExecutor = null;
                     cancelPendingCalculation(); // discard stale lookahead
+                    searchSession.invalidate(); // the explored tree evidently doesn't match the world
+                    if (currentCacheKey != null) {
+                        PathCache.getInstance().remove(currentCacheKey);
+                    }
                     recalculate("stuck");
                     break;
 
@@ -230,6 +461,7 @@ public class BotController {
                             bot.getBotName(), dx, dy, dz);
                     currentExecutor = null;
                     cancelPendingCalculation(); // discard stale lookahead
+                    searchSession.invalidate();
                     recalculate("deviated");
                     break;
             }
@@ -245,8 +477,42 @@ public class BotController {
         try {
             PathFinder.PathResult result = pendingCalculation.get();
             pendingCalculation = null;
+            if (pendingContext != null) {
+                // Model cost and terrain of each move, for the executor's calibration samples
+                CostCalibration.annotate(pendingContext, result.path);
+            }
+            widenCorridorIfNeeded(result);
+            if (result.prunedNodes > 0) {
+                BridgeMod.LOGGER.debug("Bot '{}' search pruned {} nodes to stay within {}",
+                        bot.getBotName(), result.prunedNodes, result.nodeBudget);
+            }
+            PathCache.Key cacheKey = pendingCacheKey;
+            pendingCacheKey = null;
+            if (result.reachedGoal && !pendingFromCache && cacheKey != null) {
+                PathCache.getInstance().put(bot.serverLevel(), cacheKey, result.path, pendingSnapshotVersion);
+            }
+            boolean fromField = pendingFromField;
+            pendingFromField = false;
+
+            if (result.path.isEmpty() && fromField) {
+                // Started outside the flow field: the field is published now, so this searches
+                if (currentExecutor == null) {
+                    startPathCalculation();
+                }
+                return;
+            }
 
             if (result.path.isEmpty()) {
+                if (waypoints != null) {
+                    // The coarse route doesn't hold at block level: plan straight for the goal
+                    BridgeMod.LOGGER.info("Bot '{}' no path to waypoint {}/{}, dropping abstract route",
+                            bot.getBotName(), segmentWaypoint + 1, waypoints.size());
+                    clearWaypoints();
+                    if (currentExecutor == null) {
+                        recalculate("waypoint_unreachable");
+                    }
+                    return;
+                }
                 if (currentExecutor == null) {
                     // No path and no current execution - navigation failed
                     clearMovement();
@@ -274,9 +540,11 @@ public class BotController {
 
             // Install the new path executor (replaces current if this is a lookahead)
             currentExecutor = new PathExecutor(bot, result.path);
-            BridgeMod.LOGGER.info("Bot '{}' executing path: {} nodes, reachedGoal={}, {}ms, {} explored",
+            currentCacheKey = cacheKey;
+            BridgeMod.LOGGER.info("Bot '{}' executing path: {} nodes, reachedGoal={}, {}ms, {} explored{}",
                     bot.getBotName(), result.path.size(), result.reachedGoal,
-                    result.timeMs, result.nodesExplored);
+                    result.timeMs, result.nodesExplored,
+                    result.bidirectional ? " (" + result.backwardNodesExplored + " backward)" : "");
 
         } catch (Exception e) {
             BridgeMod.LOGGER.error("Bot '{}' path calculation failed: {}",
@@ -314,16 +582,212 @@ public class BotController {
         ServerLevel level = bot.serverLevel();
         boolean canSprint = bot.getFoodData().getFoodLevel() > 6;
 
+        Goal target = segmentGoalFrom(startX, startZ);
+        BlockPos targetPos = segmentWaypoint >= 0 && waypoints != null
+                ? waypoints.get(segmentWaypoint) : new BlockPos(goalX, goalY, goalZ);
+
         // Create context and pre-cache chunks ON THE SERVER THREAD
         // Pass bot for Depth Strider enchantment reading
+        // Only a corridor towards the segment target is snapshotted; if the target itself isn't
+        // loaded, the server loads the missing corridor chunks for the following segments
+        if (flowField != null && target == goal && followFlowField(startX, startY, startZ)) {
+            return;
+        }
+        pendingFromField = false;
         CalculationContext ctx = new CalculationContext(level, canSprint, bot);
-        ctx.cacheChunksNearby(startX, startZ);
+        // Route around nearby hostiles (but not the one being pursued); a cached path would ignore them
+        ctx.setThreats(ThreatGridManager.getInstance().forBot(bot, threatExempt));
+        ctx.setCalibration(CostCalibrationManager.getInstance().snapshot());
+        PathCache.Key cacheKey = PathCache.key(level, startX, startY, startZ, target, ctx);
+        List<PathNode> cached = ctx.hasThreats() ? null : PathCache.getInstance().get(level, cacheKey);
+        if (cached != null) {
+            // Same trip as an earlier search, through unchanged sections: no search needed
+            cancelPendingCalculation();
+            pendingContext = null;
+            pendingCacheKey = cacheKey;
+            pendingFromCache = true;
+            pendingCalculation = CompletableFuture.completedFuture(
+                    new PathFinder.PathResult(cached, true, 0, 0));
+            return;
+        }
+        // A path bent around this tick's hostiles isn't stored: the next trip won't meet the same ones
+        pendingCacheKey = ctx.hasThreats() ? null : cacheKey;
+        pendingFromCache = false;
+        pendingSnapshotVersion = BlockChangeTracker.getInstance().getLatestVersion();
+        List<ChunkPos> unloaded = ctx.cacheCorridor(startX, startZ, targetPos.getX(), targetPos.getZ(),
+                corridorMargin);
+        if (!unloaded.isEmpty()
+                && level.getChunkSource().getChunkNow(targetPos.getX() >> 4, targetPos.getZ() >> 4) == null) {
+            PathChunkLoader.requestLoad(level, unloaded);
+        }
+        if (corridorTargets != null) {
+            LongOpenHashSet targetChunks = new LongOpenHashSet();
+            for (BlockPos candidate : corridorTargets) {
+                if (targetChunks.add(ChunkPos.asLong(candidate.getX() >> 4, candidate.getZ() >> 4))) {
+                    ctx.cacheCorridor(startX, startZ, candidate.getX(), candidate.getZ(), corridorMargin);
+                }
+            }
+        }
+        pendingContext = ctx;
+
+        // A* search runs on a path planning worker, reading from cached chunk data.
+        // Submitting supersedes (and cancels) any request this bot still has in flight.
+        // Lookahead starts at the previous partial path's end, and a retarget at the bot's cell on
+        // the current path; both resume the previous search via the session
+        if (searchMode == SearchMode.PORTFOLIO) {
+            PortfolioSearch portfolio = new PortfolioSearch(startX, startY, startZ, target, ctx);
+            pendingCalculation = PathPlanningExecutor.get().submit(this, priority, portfolio::calculate);
+            return;
+        }
+        if (searchMode == SearchMode.HDA) {
+            HdaSearch hda = new HdaSearch(startX, startY, startZ, target, ctx, HdaSearch.DEFAULT_THREADS);
+            pendingCalculation = PathPlanningExecutor.get().submit(this, priority, hda::calculate);
+            return;
+        }
+        PathFinder finder = new PathFinder(startX, startY, startZ, target, ctx, searchSession);
+        finder.setNodeBudget(nodeBudget);
+        pendingCalculation = PathPlanningExecutor.get().submit(this, priority, finder);
+    }
+
+    /**
+     * Take the path from (x, y, z) along the flow field instead of searching. If the field is
+     * still being built or refreshed, the result arrives when it is published.
+     *
+     * @return false if the field is ready and doesn't contain the cell (search instead)
+     */
+    private boolean followFlowField(int x, int y, int z) {
+        CompletableFuture<FlowField.Snapshot> ready = flowField.ready();
+        Goal target = goal;
+        if (ready.isDone()) {
+            List<PathNode> path = ready.join().pathFrom(x, y, z, target);
+            if (path == null) {
+                return false;
+            }
+            cancelPendingCalculation();
+            pendingCalculation = CompletableFuture.completedFuture(new PathFinder.PathResult(path, true, 0, 0));
+        } else {
+            cancelPendingCalculation();
+            pendingCalculation = ready.thenApply(field -> {
+                List<PathNode> path = field.pathFrom(x, y, z, target);
+                return path == null
+                        ? new PathFinder.PathResult(Collections.emptyList(), false, 0, 0)
+                        : new PathFinder.PathResult(path, true, 0, 0);
+            });
+        }
+        pendingContext = null;
+        pendingCacheKey = null;
+        pendingFromField = true;
+        return true;
+    }
+
+    private void releaseFlowField() {
+        if (flowField != null) {
+            FlowFieldManager.getInstance().release(flowField, bot);
+            flowField = null;
+        }
+    }
+
+    /**
+     * A partial result whose search left the snapshot corridor means the corridor was too
+     * narrow for this terrain: widen it for the following searches of this goto.
+     */
+    private void widenCorridorIfNeeded(PathFinder.PathResult result) {
+        CalculationContext ctx = pendingContext;
+        pendingContext = null;
+        if (ctx == null || result.reachedGoal || ctx.getLiveMisses() == 0
+                || corridorMargin >= CalculationContext.MAX_CORRIDOR_MARGIN) {
+            return;
+        }
+        corridorMargin = Math.min(corridorMargin * 2, CalculationContext.MAX_CORRIDOR_MARGIN);
+        BridgeMod.LOGGER.debug("Bot '{}' search left the snapshot corridor ({} lookups), margin now {} chunks",
+                bot.getBotName(), ctx.getLiveMisses(), corridorMargin);
+    }
+
+    /**
+     * Submit the HPA* abstract search for the current goal.
+     * The PortalGraph is looked up here on the server thread; the search runs on a worker.
+     */
+    private void startAbstractPlan() {
+        HierarchicalPlanner planner = new HierarchicalPlanner(
+                CachedWorldManager.getInstance().forLevel(bot.serverLevel()).getPortalGraph());
+        int sx = BlockPos.containing(bot.getX(), bot.getY(), bot.getZ()).getX();
+        int sy = BlockPos.containing(bot.getX(), bot.getY(), bot.getZ()).getY();
+        int sz = BlockPos.containing(bot.getX(), bot.getY(), bot.getZ()).getZ();
+        int tx = goalX, ty = goalY, tz = goalZ;
+        pendingAbstractPlan = PathPlanningExecutor.get().submit(this, priority,
+                token -> planner.plan(sx, sy, sz, tx, ty, tz, token));
+    }
 
-        // A* search runs on background thread, reading from cached chunk data
-        pendingCalculation = CompletableFuture.supplyAsync(() -> {
-            PathFinder finder = new PathFinder(startX, startY, startZ, goal, ctx);
-            return finder.calculate();
-        });
+    private void handleCompletedAbstractPlan() {
+        List<BlockPos> route = null;
+        try {
+            route = pendingAbstractPlan.get();
+        } catch (Exception e) {
+            BridgeMod.LOGGER.warn("Bot '{}' abstract planning failed: {}", bot.getBotName(), e.getMessage());
+        }
+        pendingAbstractPlan = null;
+        if (route != null && !route.isEmpty()) {
+            waypoints = route;
+            BridgeMod.LOGGER.info("Bot '{}' following abstract route of {} waypoints",
+                    bot.getBotName(), route.size());
+        } else {
+            BridgeMod.LOGGER.info("Bot '{}' no abstract route, planning directly", bot.getBotName());
+        }
+        startPathCalculation();
+    }
+
+    /**
+     * Goal for a block-level search starting at (x, z): the farthest unreached waypoint
+     * within REFINE_DISTANCE, or the real goal once it is that close (or there is no route).
+     * The goal object is reused while the target waypoint is unchanged, so lookahead
+     * segments towards the same waypoint can resume their search.
+     */
+    private Goal segmentGoalFrom(int x, int z) {
+        if (waypoints == null) {
+            return goal;
+        }
+        long refineSq = (long) REFINE_DISTANCE * REFINE_DISTANCE;
+        while (waypointIndex < waypoints.size()
+                && horizontalDistSq(waypoints.get(waypointIndex), x, z) <= WAYPOINT_RANGE * WAYPOINT_RANGE) {
+            waypointIndex++;
+        }
+        long goalDx = goalX - x;
+        long goalDz = goalZ - z;
+        if (waypointIndex >= waypoints.size() || goalDx * goalDx + goalDz * goalDz <= refineSq) {
+            clearWaypoints();
+            return goal;
+        }
+        int target = waypointIndex;
+        while (target + 1 < waypoints.size() && horizontalDistSq(waypoints.get(target + 1), x, z) <= refineSq) {
+            target++;
+        }
+        if (target != segmentWaypoint) {
+            BlockPos wp = waypoints.get(target);
+            segmentWaypoint = target;
+            segmentGoal = new GoalNear(wp.getX(), wp.getY(), wp.getZ(), WAYPOINT_RANGE);
+            recalcCount = 0; // the recalculation budget is per segment on long routes
+        }
+        return segmentGoal;
+    }
+
+    private static long horizontalDistSq(BlockPos pos, int x, int z) {
+        long dx = pos.getX() - x;
+        long dz = pos.getZ() - z;
+        return dx * dx + dz * dz;
+    }
+
+    private void clearWaypoints() {
+        waypoints = null;
+        waypointIndex = 0;
+        segmentWaypoint = -1;
+        segmentGoal = null;
+    }
+
+    private void cancelAbstractPlan() {
+        if (pendingAbstractPlan != null) {
+            pendingAbstractPlan.cancel(true);
+            pendingAbstractPlan = null;
+        }
     }
 
     /**
@@ -359,8 +823,12 @@ public class BotController {
 
     private void completeNavigation(boolean success, String reason) {
         navigating = false;
+        searchSession.invalidate();
         currentExecutor = null;
         cancelPendingCalculation();
+        releaseFlowField();
+        cancelAbstractPlan();
+        clearWaypoints();
         BiConsumer<Boolean, String> cb = pendingCallback;
         pendingCallback = null;
         if (cb != null) {
@@ -381,6 +849,45 @@ public class BotController {
         return bot;
     }
 
+    /** Node budget of this bot's A* searches (0 = unbounded). */
+    public int getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /**
+     * Bound this bot's A* searches to nodeBudget nodes (raised to PathFinder.MIN_NODE_BUDGET),
+     * or 0 for unbounded. Takes effect from the next search.
+     */
+    public void setNodeBudget(int nodeBudget) {
+        this.nodeBudget = nodeBudget <= 0 ? 0 : Math.max(nodeBudget, PathFinder.MIN_NODE_BUDGET);
+    }
+
+    /** Goal of the current (or last) navigation. */
+    public Goal getGoal() {
+        return goal;
+    }
+
+    /**
+     * Path cost per block of straight-line distance along the path being executed
+     * (ticks per block), or NaN without a path long enough to tell.
+     */
+    public double getPathCostRate() {
+        PathExecutor exec = currentExecutor;
+        if (exec == null) {
+            return Double.NaN;
+        }
+        java.util.List<PathNode> path = exec.getPath();
+        if (path.size() < 2) {
+            return Double.NaN;
+        }
+        PathNode first = path.get(0);
+        PathNode last = path.get(path.size() - 1);
+        double dx = last.x - first.x;
+        double dz = last.z - first.z;
+        double distance = Math.sqrt(dx * dx + dz * dz);
+        return distance < 4 ? Double.NaN : (last.cost - first.cost) / distance;
+    }
+
     /** Get the current path being executed (for rendering). */
     public java.util.List<PathNode> getCurrentPath() {
         PathExecutor exec = currentExecutor;
@@ -21,6 +21,9 @@ import com.playstudio.bridgemod.bot.combat.MobProfileManager;
 import com.playstudio.bridgemod.bot.combat.MobProfileStorage;
 import com.playstudio.bridgemod.bot.combat.ObservationCollector;
 import com.playstudio.bridgemod.bot.combat.ParameterAdapter;
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import com.playstudio.bridgemod.pathfinding.PathPlanningExecutor;
+import com.playstudio.bridgemod.pathfinding.goals.GoalIntercept;
 
 
 import java.nio.file.Path;
@@ -36,7 +39,8 @@ import java.util.function.BiConsumer;
  *
  * State machine: IDLE → PURSUING → MELEE → PURSUING → ...
  *
- * PURSUING: delegates to BotController.startGoto() for A* pathfinding.
+ * PURSUING: delegates to BotController.startGoto() for A* pathfinding, towards a
+ *   GoalIntercept (where the target will be when the bot gets there).
  * MELEE: direct movement control (walk forward + sprint + attack).
  *
  * Advanced techniques (configurable via CombatConfig):
@@ -80,6 +84,13 @@ public class CombatController {
     // Pursuit re-pathfind tracking
     private double lastTargetX, lastTargetY, lastTargetZ;
     private int ticksSinceRepath = 0;
+    // Target velocity (blocks/tick, smoothed) and the one the current pursuit path assumed
+    private int velocityTargetId = -1;
+    private double prevTargetX, prevTargetZ;
+    private double targetVelX, targetVelZ;
+    private double planVelX, planVelZ;
+    // Pursuit plans (first plan and every replan) since startAttack / startAutoAttack
+    private int pursuitPlans = 0;
 
     // Own attack cooldown tracker (vanilla attackStrengthTicker doesn't increment
     // because ServerPlayer.tick() NPEs before reaching Player.tick())
@@ -135,6 +146,15 @@ public class CombatController {
     private static final int REPATH_INTERVAL = 20;         // re-pathfind at most every 20 ticks
     private static final int PURSUIT_RANGE = 2;            // GoalNear range for pathfinding
     private static final double PURSUIT_THREAT_CLOSE = 3.0;  // threats this close → back away
+    // Re-pursuit moves the running navigation's goal (incremental replan) instead of starting a
+    // new goto with a cold search; -Dcraftai.pathfinding.fullPursuitReplan=true restores the latter
+    private static final boolean INCREMENTAL_PURSUIT = !Boolean.getBoolean("craftai.pathfinding.fullPursuitReplan");
+    // Pursuit plans to the predicted intercept point and replans when the target leaves its
+    // predicted track; -Dcraftai.combat.plainPursuit=true plans to its current position instead
+    private static final boolean INTERCEPT_PURSUIT = !Boolean.getBoolean("craftai.combat.plainPursuit");
+    private static final double VELOCITY_SMOOTHING = 0.3;   // weight of the newest tick's movement
+    private static final double SPEED_PRIOR_FACTOR = 1.5;   // cap on speed vs the profile's usual speed
+    private static final double PATH_DETOUR = 1.3;          // path cost vs straight line, without a path yet
 
     // Mob learning: observe mob behavior and adapt combat parameters
     private final MobProfileManager profileManager = new MobProfileManager();
@@ -186,6 +206,7 @@ public class CombatController {
         this.callback = cb;
         this.config = config != null ? config : new CombatConfig();
         this.ticksSinceRepath = 0;
+        this.pursuitPlans = 0;
 
         // Auto-select best weapon
         bot.selectBestWeapon();
@@ -237,6 +258,7 @@ public class CombatController {
         this.autoAttackCallback = cb;
         this.config = config != null ? config : new CombatConfig();
         this.killCount = 0;
+        this.pursuitPlans = 0;
 
         // Initialize mob learning observer
         if (this.config.mobLearning) {
@@ -360,6 +382,7 @@ public class CombatController {
 
         ticksSinceRepath++;
         ticksSinceLastAttack++;
+        updateTargetVelocity();
 
         // === Mob learning: observe, collect data, adapt parameters ===
         if (config.mobLearning && observer != null) {
@@ -548,10 +571,11 @@ public class CombatController {
 
         // === Normal pathfinding pursuit ===
         // Check if target moved significantly → re-pathfind
+        // (moved away from where the current path expects it: its track when intercepting)
         if (ticksSinceRepath >= REPATH_INTERVAL) {
-            double dx = target.getX() - lastTargetX;
+            double dx = target.getX() - (lastTargetX + planVelX * ticksSinceRepath);
             double dy = target.getY() - lastTargetY;
-            double dz = target.getZ() - lastTargetZ;
+            double dz = target.getZ() - (lastTargetZ + planVelZ * ticksSinceRepath);
             double movedSq = dx * dx + dy * dy + dz * dz;
 
             if (movedSq >= REPATH_DIST_SQ || !navController.isNavigating()) {
@@ -1360,38 +1384,115 @@ public class CombatController {
 
     /**
      * Start pathfinding pursuit to target's current position.
-     * Delegates to BotController.startGoto() with GoalNear(range=PURSUIT_RANGE).
+     * Delegates to BotController.startGoto() with GoalNear(range=PURSUIT_RANGE); while already
+     * pursuing, BotController.retarget() moves the goal and the previous search is repaired.
      */
     private void startPursuit() {
+        boolean wasPursuing = state == State.PURSUING;
         state = State.PURSUING;
         lastTargetX = target.getX();
         lastTargetY = target.getY();
         lastTargetZ = target.getZ();
         ticksSinceRepath = 0;
+        pursuitPlans++;
+        // The pursuit's searches route around other hostiles, not the one they're chasing
+        navController.setThreatExempt(target);
+
+        // Plan to where the target will be when the bot can get there, not where it is now
+        GoalIntercept goal = null;
+        planVelX = 0;
+        planVelZ = 0;
+        if (INTERCEPT_PURSUIT) {
+            double vx = targetVelX, vz = targetVelZ;
+            double speed = Math.sqrt(vx * vx + vz * vz);
+            double maxSpeed = profileManager.getProfile(target).getMovementSpeed() * SPEED_PRIOR_FACTOR;
+            if (speed > maxSpeed) {
+                vx *= maxSpeed / speed;
+                vz *= maxSpeed / speed;
+            }
+            goal = GoalIntercept.solve(bot.getX(), bot.getZ(),
+                    target.getX(), target.getY(), target.getZ(),
+                    vx, vz, pursuitTicksPerBlock(), PURSUIT_RANGE);
+            if (goal.getLeadTicks() > 0) {
+                planVelX = vx;
+                planVelZ = vz;
+            }
+        }
+
+        if (wasPursuing && INCREMENTAL_PURSUIT) {
+            boolean retargeted = goal != null
+                    ? navController.retarget(goal)
+                    : navController.retarget(target.getX(), target.getY(), target.getZ(), PURSUIT_RANGE);
+            if (retargeted) {
+                BridgeMod.LOGGER.debug("Bot '{}' pursuit retargeted to {}",
+                        bot.getBotName(), goal != null ? goal : "(" + (int) lastTargetX + ", "
+                                + (int) lastTargetY + ", " + (int) lastTargetZ + ")");
+                return;
+            }
+        }
 
         // Stop any existing navigation
         if (navController.isNavigating()) {
             navController.stop();
         }
 
-        navController.startGoto(
-                target.getX(), target.getY(), target.getZ(),
-                PURSUIT_RANGE,
-                (success, reason) -> {
-                    // Navigation callback — check if we should enter melee.
-                    // Only act if still in PURSUING state (may have been cancelled).
-                    if (state == State.PURSUING && target != null) {
-                        double d = bot.distanceTo(target);
-                        if (d <= MELEE_CLOSE) {
-                            enterMelee();
-                        }
-                        // Otherwise tick() will see !isNavigating() and re-pursue
-                    }
+        BiConsumer<Boolean, String> arrived = (success, reason) -> {
+            // Navigation callback — check if we should enter melee.
+            // Only act if still in PURSUING state (may have been cancelled).
+            if (state == State.PURSUING && target != null) {
+                double d = bot.distanceTo(target);
+                if (d <= MELEE_CLOSE) {
+                    enterMelee();
                 }
-        );
+                // Otherwise tick() will see !isNavigating() and re-pursue
+            }
+        };
+        if (goal != null) {
+            navController.startGoto(goal, PathPlanningExecutor.Priority.PURSUIT, arrived);
+        } else {
+            navController.startGoto(
+                    target.getX(), target.getY(), target.getZ(),
+                    PURSUIT_RANGE,
+                    PathPlanningExecutor.Priority.PURSUIT,
+                    arrived
+            );
+        }
+
+        BridgeMod.LOGGER.debug("Bot '{}' pursuing target at ({}, {}, {}){}",
+                bot.getBotName(), (int) lastTargetX, (int) lastTargetY, (int) lastTargetZ,
+                goal != null ? " via " + goal : "");
+    }
 
-        BridgeMod.LOGGER.debug("Bot '{}' pursuing target at ({}, {}, {})",
-                bot.getBotName(), (int) lastTargetX, (int) lastTargetY, (int) lastTargetZ);
+    /**
+     * Bot's pursuit speed in ticks per block for GoalIntercept: the cost rate of the path it
+     * is following (covers detours and terrain), else straight-line sprint/walk cost × PATH_DETOUR.
+     */
+    private double pursuitTicksPerBlock() {
+        double rate = navController.getPathCostRate();
+        if (!Double.isNaN(rate)) {
+            return Math.max(ActionCosts.SPRINT_ONE_BLOCK_COST,
+                    Math.min(rate, ActionCosts.WALK_ONE_BLOCK_COST * 4));
+        }
+        double base = bot.getFoodData().getFoodLevel() > 6
+                ? ActionCosts.SPRINT_ONE_BLOCK_COST : ActionCosts.WALK_ONE_BLOCK_COST;
+        return base * PATH_DETOUR;
+    }
+
+    /**
+     * Track the target's horizontal velocity (blocks/tick) as an exponential moving average of
+     * its per-tick movement; Entity.getDeltaMovement() is not kept up to date for every mob.
+     */
+    private void updateTargetVelocity() {
+        if (target.getId() != velocityTargetId) {
+            velocityTargetId = target.getId();
+            targetVelX = 0;
+            targetVelZ = 0;
+        } else {
+            targetVelX += VELOCITY_SMOOTHING * ((target.getX() - prevTargetX) - targetVelX);
+            targetVelZ += VELOCITY_SMOOTHING * ((target.getZ() - prevTargetZ) - targetVelZ);
+        }
+        prevTargetX = target.getX();
+        prevTargetZ = target.getZ();
     }
 
     private void enterMelee() {
@@ -1411,6 +1512,7 @@ public class CombatController {
         state = State.IDLE;
         targetEntityId = -1;
         target = null;
+        navController.setThreatExempt(null);
         ticksSinceRepath = 0;
         ticksSinceLastAttack = 100; // ready for next fight
 
@@ -1466,7 +1568,8 @@ public class CombatController {
                 if (aaCb != null) {
                     aaCb.accept(true, "all_clear:" + killCount);
                 }
-                BridgeMod.LOGGER.info("Bot '{}' auto-attack: area clear ({} kills)", bot.getBotName(), killCount);
+                BridgeMod.LOGGER.info("Bot '{}' auto-attack: area clear ({} kills, {} pursuit plans)",
+                        bot.getBotName(), killCount, pursuitPlans);
                 return;
             } else if ("target_gone".equals(reason) || "target_escaped".equals(reason)) {
                 // Target disappeared, try to find another
@@ -1488,8 +1591,8 @@ public class CombatController {
                 if (aaCb != null) {
                     aaCb.accept(false, reason + ":" + killCount);
                 }
-                BridgeMod.LOGGER.info("Bot '{}' auto-attack ended: {} ({} kills)",
-                        bot.getBotName(), reason, killCount);
+                BridgeMod.LOGGER.info("Bot '{}' auto-attack ended: {} ({} kills, {} pursuit plans)",
+                        bot.getBotName(), reason, killCount, pursuitPlans);
                 return;
             }
         }
@@ -1502,7 +1605,7 @@ public class CombatController {
             cb.accept(success, reason);
         }
 
-        BridgeMod.LOGGER.info("Bot '{}' combat ended: {}", bot.getBotName(), reason);
+        BridgeMod.LOGGER.info("Bot '{}' combat ended: {} ({} pursuit plans)", bot.getBotName(), reason, pursuitPlans);
     }
 
     private void resetCritState() {
@@ -1606,4 +1709,13 @@ public class CombatController {
     public CombatConfig getConfig() {
         return config;
     }
+
+    /** Pursuit paths planned (first plans and replans) since the last startAttack / startAutoAttack. */
+    public int getPursuitPlans() {
+        return pursuitPlans;
+    }
+
+    public static boolean isInterceptPursuit() {
+        return INTERCEPT_PURSUIT;
+    }
 }
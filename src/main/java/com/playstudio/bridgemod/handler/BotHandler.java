@@ -8,7 +8,28 @@ import com.playstudio.bridgemod.bot.BotManager;
 import com.playstudio.bridgemod.bot.CombatConfig;
 import com.playstudio.bridgemod.bot.CombatController;
 import com.playstudio.bridgemod.bot.FakePlayer;
+import com.playstudio.bridgemod.bot.combat.MobProfile;
 import com.playstudio.bridgemod.bot.combat.MobProfileStorage;
+import com.playstudio.bridgemod.pathfinding.CalculationContext;
+import com.playstudio.bridgemod.pathfinding.NodeStoreTrace;
+import com.playstudio.bridgemod.pathfinding.OpenSet;
+import com.playstudio.bridgemod.pathfinding.OpenSetTrace;
+import com.playstudio.bridgemod.pathfinding.PathBenchmark;
+import com.playstudio.bridgemod.pathfinding.PathFinder;
+import com.playstudio.bridgemod.pathfinding.PathPlanningExecutor;
+import com.playstudio.bridgemod.pathfinding.ReachableSet;
+import com.playstudio.bridgemod.pathfinding.SearchMode;
+import com.playstudio.bridgemod.pathfinding.cache.BlockChangeTracker;
+import com.playstudio.bridgemod.pathfinding.cache.PathCache;
+import com.playstudio.bridgemod.pathfinding.calibration.CostCalibrationManager;
+import com.playstudio.bridgemod.pathfinding.calibration.CostCalibrationStorage;
+import com.playstudio.bridgemod.pathfinding.flow.FlowField;
+import com.playstudio.bridgemod.pathfinding.flow.FlowFieldManager;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.goals.GoalAnyOf;
+import com.playstudio.bridgemod.pathfinding.goals.GoalBlock;
+import com.playstudio.bridgemod.pathfinding.goals.GoalNear;
+import com.playstudio.bridgemod.pathfinding.threat.ThreatGridManager;
 import com.playstudio.bridgemod.websocket.BridgeWebSocketServer;
 import com.playstudio.bridgemod.websocket.MessageHandler;
 import com.playstudio.bridgemod.websocket.Protocol;
@@ -18,14 +39,23 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.java_websocket.WebSocket;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Handles all bot-related WebSocket commands and tick updates.
@@ -33,10 +63,20 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class BotHandler {
 
+    // bot_goto_any: the goal cell set holds up to ~257 cells per target at GoalAnyOf.MAX_RANGE
+    private static final int MAX_GOTO_TARGETS = 4096;
+
+    // bot_reachable: default and largest flood budget (ticks); positions per query
+    private static final double DEFAULT_REACH_BUDGET = 300;
+    private static final double MAX_REACH_BUDGET = 2000;
+    private static final int MAX_REACH_POSITIONS = 4096;
+
     private final BridgeWebSocketServer server;
     private final BotManager botManager;
     private final Map<String, BotController> controllers = new ConcurrentHashMap<>();
     private final Map<String, CombatController> combatControllers = new ConcurrentHashMap<>();
+    // Last bot_reachable flood per bot, reused while the bot stays put and its sections are unchanged
+    private final Map<String, ReachableSet> reachableSets = new ConcurrentHashMap<>();
 
     public BotHandler(BridgeWebSocketServer server) {
         this.server = server;
@@ -51,6 +91,8 @@ public class BotHandler {
         messageHandler.registerHandler("bot_despawn", this::handleDespawn);
         messageHandler.registerHandler("bot_list", this::handleList);
         messageHandler.registerHandler("bot_goto", this::handleGoto);
+        messageHandler.registerHandler("bot_goto_any", this::handleGotoAny);
+        messageHandler.registerHandler("bot_rally", this::handleRally);
         messageHandler.registerHandler("bot_stop", this::handleStop);
         messageHandler.registerHandler("bot_break", this::handleBreak);
         messageHandler.registerHandler("bot_dig", this::handleDig);
@@ -64,6 +106,14 @@ public class BotHandler {
         messageHandler.registerHandler("bot_attack_cancel", this::handleAttackCancel);
         messageHandler.registerHandler("bot_mob_profiles", this::handleMobProfiles);
         messageHandler.registerHandler("bot_reset_profiles", this::handleResetProfiles);
+        messageHandler.registerHandler("bot_node_budget", this::handleNodeBudget);
+        messageHandler.registerHandler("bot_pathing_stats", this::handlePathingStats);
+        messageHandler.registerHandler("bot_cost_calibration", this::handleCostCalibration);
+        messageHandler.registerHandler("bot_path_benchmark", this::handlePathBenchmark);
+        messageHandler.registerHandler("bot_replan_benchmark", this::handleReplanBenchmark);
+        messageHandler.registerHandler("bot_openset_benchmark", this::handleOpenSetBenchmark);
+        messageHandler.registerHandler("bot_nodestore_benchmark", this::handleNodeStoreBenchmark);
+        messageHandler.registerHandler("bot_reachable", this::handleReachable);
     }
 
     /**
@@ -73,6 +123,19 @@ public class BotHandler {
     public void onServerTick(TickEvent.ServerTickEvent event) {
         if (event.phase != TickEvent.Phase.END) return;
 
+        // Publish finished flow field refreshes before the bots following them tick
+        FlowFieldManager.getInstance().tick();
+
+        // Hostile cost layer for the searches started this tick, around every navigating bot
+        // (bots starting a search elsewhere get their own grid, see ThreatGridManager.forBot)
+        List<FakePlayer> navigating = new ArrayList<>();
+        for (BotController controller : controllers.values()) {
+            if (controller.isNavigating()) {
+                navigating.add(controller.getBot());
+            }
+        }
+        ThreatGridManager.getInstance().tick(navigating, this::threatProfile);
+
         for (Map.Entry<String, BotController> entry : controllers.entrySet()) {
             try {
                 String name = entry.getKey();
@@ -94,6 +157,28 @@ public class BotHandler {
         }
     }
 
+    /**
+     * The learned profile of a hostile's type, from whichever bot's CombatController is most
+     * confident about it, or null if no bot has met the type yet.
+     */
+    private MobProfile threatProfile(LivingEntity entity) {
+        String typeId = EntityType.getKey(entity.getType()).toString();
+        MobProfile best = null;
+        for (CombatController combat : combatControllers.values()) {
+            MobProfile profile = combat.getProfileManager().getProfileIfExists(typeId);
+            if (profile != null && (best == null || profile.getOverallConfidence() > best.getOverallConfidence())) {
+                best = profile;
+            }
+        }
+        return best;
+    }
+
+    /** Persist the cost calibration table when the integrated server stops (leaving a world). */
+    @SubscribeEvent
+    public void onServerStopping(ServerStoppingEvent event) {
+        CostCalibrationManager.getInstance().save();
+    }
+
     /**
      * Clean up all bots (called on server/mod shutdown).
      */
@@ -101,6 +186,8 @@ public class BotHandler {
         combatControllers.values().forEach(CombatController::stop);
         combatControllers.clear();
         controllers.clear();
+        CostCalibrationManager.getInstance().save();
+        reachableSets.clear();
         botManager.despawnAll();
     }
 
@@ -216,6 +303,7 @@ public class BotHandler {
             if (controller != null) {
                 controller.stop();
             }
+            reachableSets.remove(name);
 
             boolean removed = botManager.despawnBot(name);
             if (removed) {
@@ -254,7 +342,9 @@ public class BotHandler {
 
     /**
      * bot_goto: Navigate bot to target position.
-     * params: {name, x, y, z, range?}
+     * params: {name, x, y, z, range?, search?}
+     * search: "astar" (default), "portfolio" (race several search variants on spare cores)
+     *         or "hda" (one search spread over several threads)
      * This is a blocking command - response is sent when navigation completes.
      */
     private void handleGoto(WebSocket conn, String id, JsonObject params) {
@@ -268,6 +358,12 @@ public class BotHandler {
         double y = params.get("y").getAsDouble();
         double z = params.get("z").getAsDouble();
         int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        SearchMode searchMode = params.has("search")
+                ? SearchMode.parse(params.get("search").getAsString()) : SearchMode.ASTAR;
+        if (searchMode == null) {
+            server.sendResponse(conn, id, false, null, "Unknown search mode '" + params.get("search").getAsString() + "'");
+            return;
+        }
 
         BotController controller = controllers.get(name);
         if (controller == null) {
@@ -288,7 +384,7 @@ public class BotHandler {
             }
 
             // Start new navigation with callback
-            controller.startGoto(x, y, z, range, (success, reason) -> {
+            controller.startGoto(x, y, z, range, PathPlanningExecutor.Priority.GOTO, searchMode, (success, reason) -> {
                 JsonObject data = new JsonObject();
                 data.addProperty("arrived", success);
                 if (reason != null) {
@@ -303,6 +399,166 @@ public class BotHandler {
         });
     }
 
+    /**
+     * bot_goto_any: Navigate to whichever target is cheapest to reach by path, in one search
+     * (e.g. the positions returned by findBlocks). Responds like bot_goto, plus the target reached.
+     * params: {name, targets: [{x, y, z}, ...], range? (default 2, at most GoalAnyOf.MAX_RANGE)}
+     */
+    private void handleGotoAny(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name") || !params.has("targets") || !params.get("targets").isJsonArray()) {
+            server.sendResponse(conn, id, false, null, "Missing required params (name, targets)");
+            return;
+        }
+        JsonArray array = params.getAsJsonArray("targets");
+        if (array.isEmpty() || array.size() > MAX_GOTO_TARGETS) {
+            server.sendResponse(conn, id, false, null, "targets must hold 1 to " + MAX_GOTO_TARGETS + " positions");
+            return;
+        }
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        if (range > GoalAnyOf.MAX_RANGE) {
+            server.sendResponse(conn, id, false, null, "range must be at most " + GoalAnyOf.MAX_RANGE);
+            return;
+        }
+        List<BlockPos> targets = new ArrayList<>(array.size());
+        for (var element : array) {
+            JsonObject target = element.getAsJsonObject();
+            if (!target.has("x") || !target.has("y") || !target.has("z")) {
+                server.sendResponse(conn, id, false, null, "Each target needs x, y, z");
+                return;
+            }
+            targets.add(BlockPos.containing(target.get("x").getAsDouble(),
+                    target.get("y").getAsDouble(), target.get("z").getAsDouble()));
+        }
+
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+
+        mcServer.execute(() -> {
+            if (controller.isNavigating()) {
+                controller.stop();
+            }
+
+            controller.startGotoAny(targets, range, (success, reason) -> {
+                FakePlayer bot = controller.getBot();
+                JsonObject data = new JsonObject();
+                data.addProperty("arrived", success);
+                if (reason != null) {
+                    data.addProperty("reason", reason);
+                }
+                data.add("position", Protocol.vec3(bot.getX(), bot.getY(), bot.getZ()));
+                if (success && controller.getGoal() instanceof GoalAnyOf goal) {
+                    BlockPos pos = bot.blockPosition();
+                    BlockPos reached = goal.targetAt(pos.getX(), pos.getY(), pos.getZ());
+                    if (reached != null) {
+                        data.add("target", Protocol.vec3(reached.getX(), reached.getY(), reached.getZ()));
+                    }
+                }
+                server.sendResponse(conn, id, success, data, success ? null : reason);
+            });
+        });
+    }
+
+    /**
+     * bot_rally: Send several bots to one destination along a shared flow field: one reverse
+     * search from the destination instead of a search per bot. The field covers the bots'
+     * distance from the destination (up to FlowField.MAX_RADIUS_CHUNKS); bots starting farther
+     * out plan on their own until they reach it.
+     * Responds once every bot has arrived or failed, with one bot_goto-style entry per bot.
+     * params: {names: [...], x, y, z, range? (default 2)}
+     */
+    private void handleRally(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("names") || !params.get("names").isJsonArray()
+                || !params.has("x") || !params.has("y") || !params.has("z")) {
+            server.sendResponse(conn, id, false, null, "Missing required params (names, x, y, z)");
+            return;
+        }
+        double x = params.get("x").getAsDouble();
+        double y = params.get("y").getAsDouble();
+        double z = params.get("z").getAsDouble();
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        List<String> names = new ArrayList<>();
+        List<BotController> rallied = new ArrayList<>();
+        for (var element : params.getAsJsonArray("names")) {
+            String name = element.getAsString();
+            BotController controller = controllers.get(name);
+            if (controller == null) {
+                server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+                return;
+            }
+            if (!names.contains(name)) {
+                names.add(name);
+                rallied.add(controller);
+            }
+        }
+        if (rallied.isEmpty()) {
+            server.sendResponse(conn, id, false, null, "names must not be empty");
+            return;
+        }
+
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+
+        mcServer.execute(() -> {
+            BlockPos target = BlockPos.containing(x, y, z);
+            int radiusChunks = 1;
+            for (BotController controller : rallied) {
+                double dx = controller.getBot().getX() - target.getX();
+                double dz = controller.getBot().getZ() - target.getZ();
+                radiusChunks = Math.max(radiusChunks, (int) Math.ceil(Math.sqrt(dx * dx + dz * dz) / 16) + 1);
+            }
+            radiusChunks = Math.min(radiusChunks, FlowField.MAX_RADIUS_CHUNKS);
+
+            JsonObject[] results = new JsonObject[rallied.size()];
+            AtomicInteger remaining = new AtomicInteger(rallied.size());
+            for (int i = 0; i < rallied.size(); i++) {
+                BotController controller = rallied.get(i);
+                int slot = i;
+                if (controller.isNavigating()) {
+                    controller.stop();
+                }
+                controller.startRally(x, y, z, range, radiusChunks, (success, reason) -> {
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("name", names.get(slot));
+                    entry.addProperty("arrived", success);
+                    if (reason != null) {
+                        entry.addProperty("reason", reason);
+                    }
+                    entry.add("position", Protocol.vec3(
+                            controller.getBot().getX(),
+                            controller.getBot().getY(),
+                            controller.getBot().getZ()));
+                    results[slot] = entry;
+                    if (remaining.decrementAndGet() == 0) {
+                        JsonArray bots = new JsonArray();
+                        int arrived = 0;
+                        for (JsonObject result : results) {
+                            bots.add(result);
+                            if (result.get("arrived").getAsBoolean()) arrived++;
+                        }
+                        JsonObject data = new JsonObject();
+                        data.add("bots", bots);
+                        data.addProperty("arrived", arrived);
+                        boolean all = arrived == results.length;
+                        server.sendResponse(conn, id, all, data, all ? null : "not all bots arrived");
+                    }
+                });
+            }
+        });
+    }
+
     /**
      * bot_stop: Stop bot's current navigation.
      * params: {name}
@@ -749,6 +1005,8 @@ public class BotHandler {
                 JsonObject data = new JsonObject();
                 data.addProperty("targetDead", success);
                 data.addProperty("reason", reason != null ? reason : "");
+                data.addProperty("pursuitPlans", combat.getPursuitPlans());
+                data.addProperty("intercept", CombatController.isInterceptPursuit());
                 if (bot != null) {
                     data.add("position", Protocol.vec3(bot.getX(), bot.getY(), bot.getZ()));
                 }
@@ -833,6 +1091,9 @@ public class BotHandler {
                 data.addProperty("reason", parts[0]);
                 int kills = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
                 data.addProperty("killCount", kills);
+                data.addProperty("pursuitPlans", combat.getPursuitPlans());
+                data.addProperty("plansPerKill", kills > 0 ? (double) combat.getPursuitPlans() / kills : 0.0);
+                data.addProperty("intercept", CombatController.isInterceptPursuit());
                 if (bot != null) {
                     data.add("position", Protocol.vec3(bot.getX(), bot.getY(), bot.getZ()));
                 }
@@ -922,6 +1183,536 @@ public class BotHandler {
         server.sendResponse(conn, id, true, data, null);
     }
 
+    /**
+     * bot_node_budget: Bound a bot's A* searches to a number of nodes, pruning the worst
+     * frontier when it is reached (PathFinder.setNodeBudget), so failing searches can't grow
+     * without limit. Without nodes, just reports the current budget. 0 removes the bound.
+     * params: {name, nodes?}
+     */
+    private void handleNodeBudget(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name")) {
+            server.sendResponse(conn, id, false, null, "Missing 'name' parameter");
+            return;
+        }
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        Integer nodes = params.has("nodes") ? params.get("nodes").getAsInt() : null;
+
+        mcServer.execute(() -> {
+            if (nodes != null) {
+                controller.setNodeBudget(nodes);
+            }
+            JsonObject data = new JsonObject();
+            data.addProperty("nodeBudget", controller.getNodeBudget());
+            data.addProperty("minNodeBudget", PathFinder.MIN_NODE_BUDGET);
+            server.sendResponse(conn, id, true, data, null);
+        });
+    }
+
+    /**
+     * bot_pathing_stats: Path planning executor metrics (queue depth, wait times, coalescing)
+     * and PathCache counters (pathCache: hits, misses, entries, stored, invalidated, rejectedStale).
+     * params: {}
+     */
+    private void handlePathingStats(WebSocket conn, String id, JsonObject params) {
+        PathPlanningExecutor.Stats stats = PathPlanningExecutor.get().getStats();
+        JsonObject data = new JsonObject();
+        data.addProperty("workers", stats.workers);
+        data.addProperty("queueDepth", stats.queueDepth);
+        data.addProperty("maxQueueDepth", stats.maxQueueDepth);
+        data.addProperty("running", stats.running);
+        data.addProperty("submitted", stats.submitted);
+        data.addProperty("completed", stats.completed);
+        data.addProperty("coalesced", stats.coalesced);
+        data.addProperty("cancelled", stats.cancelled);
+        data.addProperty("rejected", stats.rejected);
+        data.addProperty("avgWaitMs", stats.avgWaitMs);
+        data.addProperty("maxWaitMs", stats.maxWaitMs);
+        PathCache pathCache = PathCache.getInstance();
+        JsonObject cache = new JsonObject();
+        cache.addProperty("hits", pathCache.getHitCount());
+        cache.addProperty("misses", pathCache.getMissCount());
+        cache.addProperty("entries", pathCache.size());
+        cache.addProperty("stored", pathCache.getStoredCount());
+        cache.addProperty("invalidated", pathCache.getInvalidatedCount());
+        cache.addProperty("rejectedStale", pathCache.getRejectedStaleCount());
+        data.add("pathCache", cache);
+        FlowFieldManager flowFields = FlowFieldManager.getInstance();
+        JsonObject flow = new JsonObject();
+        flow.addProperty("active", flowFields.size());
+        flow.addProperty("cells", flowFields.getCellCount());
+        flow.addProperty("built", flowFields.getBuiltCount());
+        flow.addProperty("shared", flowFields.getSharedCount());
+        flow.addProperty("refreshes", flowFields.getRefreshCount());
+        data.add("flowFields", flow);
+        ThreatGridManager threatGrids = ThreatGridManager.getInstance();
+        JsonObject threat = new JsonObject();
+        threat.addProperty("coveredAreas", threatGrids.getCoveredAreas());
+        threat.addProperty("threatenedAreas", threatGrids.getThreatenedAreas());
+        threat.addProperty("hostiles", threatGrids.getThreatCount());
+        threat.addProperty("builds", threatGrids.getBuildCount());
+        threat.addProperty("botBuilds", threatGrids.getBotBuildCount());
+        data.add("threatGrid", threat);
+        server.sendResponse(conn, id, true, data, null);
+    }
+
+    /**
+     * bot_path_benchmark: Plan from the bot to a target with single-threaded A* and with HDA*
+     * at several thread counts over the same snapshot, and report time, nodes and speedup.
+     * Doesn't move the bot. Runs on a path planning worker; can take several seconds per run.
+     * params: {name, x, y, z, range?, threads? (array, default [2, 4, 8])}
+     */
+    private void handlePathBenchmark(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name") || !params.has("x") || !params.has("y") || !params.has("z")) {
+            server.sendResponse(conn, id, false, null, "Missing required params (name, x, y, z)");
+            return;
+        }
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        BlockPos target = BlockPos.containing(params.get("x").getAsDouble(),
+                params.get("y").getAsDouble(), params.get("z").getAsDouble());
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        int[] threadCounts = {2, 4, 8};
+        if (params.has("threads")) {
+            JsonArray array = params.getAsJsonArray("threads");
+            threadCounts = new int[array.size()];
+            for (int i = 0; i < array.size(); i++) {
+                threadCounts[i] = array.get(i).getAsInt();
+            }
+        }
+        int[] counts = threadCounts;
+
+        mcServer.execute(() -> {
+            FakePlayer bot = controller.getBot();
+            BlockPos start = bot.blockPosition();
+            Goal goal = range <= 1
+                    ? new GoalBlock(target.getX(), target.getY(), target.getZ())
+                    : new GoalNear(target.getX(), target.getY(), target.getZ(), range);
+            CalculationContext ctx = new CalculationContext(bot.serverLevel(),
+                    bot.getFoodData().getFoodLevel() > 6, bot);
+            ctx.cacheCorridor(start.getX(), start.getZ(), target.getX(), target.getZ(),
+                    CalculationContext.MAX_CORRIDOR_MARGIN);
+
+            PathPlanningExecutor.get().submit(new Object(), PathPlanningExecutor.Priority.GOTO,
+                    token -> PathBenchmark.run(start.getX(), start.getY(), start.getZ(), goal, ctx, counts, token)
+            ).whenComplete((runs, error) -> {
+                if (error != null) {
+                    server.sendResponse(conn, id, false, null, "Benchmark failed: " + error.getMessage());
+                    return;
+                }
+                JsonArray results = new JsonArray();
+                for (PathBenchmark.Run run : runs) {
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("engine", run.engine);
+                    entry.addProperty("threads", run.threads);
+                    entry.addProperty("timeMs", run.result.timeMs);
+                    entry.addProperty("nodes", run.result.nodesExplored);
+                    entry.addProperty("reachedGoal", run.result.reachedGoal);
+                    entry.addProperty("pathLength", run.result.path.size());
+                    entry.addProperty("pathCost", run.pathCost());
+                    entry.addProperty("speedup", run.speedup);
+                    results.add(entry);
+                }
+                JsonObject data = new JsonObject();
+                data.add("runs", results);
+                server.sendResponse(conn, id, true, data, null);
+            });
+        });
+    }
+
+    /**
+     * bot_replan_benchmark: Pursue a target moving by (stepX, stepZ) per replan, replanning from
+     * scratch and incrementally (SearchSession) at each step, and report both per step.
+     * Doesn't move the bot. Runs on a path planning worker.
+     * params: {name, x, y, z, stepX? (default 2), stepZ? (0), steps? (10), range? (2), advance? (2)}
+     */
+    private void handleReplanBenchmark(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name") || !params.has("x") || !params.has("y") || !params.has("z")) {
+            server.sendResponse(conn, id, false, null, "Missing required params (name, x, y, z)");
+            return;
+        }
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        BlockPos target = BlockPos.containing(params.get("x").getAsDouble(),
+                params.get("y").getAsDouble(), params.get("z").getAsDouble());
+        int stepX = params.has("stepX") ? params.get("stepX").getAsInt() : 2;
+        int stepZ = params.has("stepZ") ? params.get("stepZ").getAsInt() : 0;
+        int steps = params.has("steps") ? params.get("steps").getAsInt() : 10;
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        int advance = params.has("advance") ? params.get("advance").getAsInt() : 2;
+
+        mcServer.execute(() -> {
+            FakePlayer bot = controller.getBot();
+            BlockPos start = bot.blockPosition();
+            CalculationContext ctx = new CalculationContext(bot.serverLevel(),
+                    bot.getFoodData().getFoodLevel() > 6, bot);
+            ctx.cacheCorridor(start.getX(), start.getZ(), target.getX() + steps * stepX,
+                    target.getZ() + steps * stepZ, CalculationContext.MAX_CORRIDOR_MARGIN);
+
+            PathPlanningExecutor.get().submit(new Object(), PathPlanningExecutor.Priority.GOTO,
+                    token -> PathBenchmark.replan(start.getX(), start.getY(), start.getZ(),
+                            target.getX(), target.getY(), target.getZ(), stepX, stepZ,
+                            range, steps, advance, ctx, token)
+            ).whenComplete((results, error) -> {
+                if (error != null) {
+                    server.sendResponse(conn, id, false, null, "Benchmark failed: " + error.getMessage());
+                    return;
+                }
+                JsonArray array = new JsonArray();
+                long fullMicros = 0, incrementalMicros = 0;
+                for (PathBenchmark.ReplanStep step : results) {
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("targetX", step.targetX);
+                    entry.addProperty("targetZ", step.targetZ);
+                    entry.addProperty("fullMicros", step.fullMicros);
+                    entry.addProperty("fullNodes", step.full.nodesExplored);
+                    entry.addProperty("fullCost", PathBenchmark.ReplanStep.pathCost(step.full));
+                    entry.addProperty("incrementalMicros", step.incrementalMicros);
+                    entry.addProperty("incrementalNodes", step.incremental.nodesExplored);
+                    entry.addProperty("incrementalCost", PathBenchmark.ReplanStep.pathCost(step.incremental));
+                    entry.addProperty("reachedGoal", step.incremental.reachedGoal);
+                    array.add(entry);
+                    fullMicros += step.fullMicros;
+                    incrementalMicros += step.incrementalMicros;
+                }
+                JsonObject data = new JsonObject();
+                data.add("steps", array);
+                data.addProperty("fullMicros", fullMicros);
+                data.addProperty("incrementalMicros", incrementalMicros);
+                data.addProperty("speedup", Math.max(1, fullMicros) / (double) Math.max(1, incrementalMicros));
+                server.sendResponse(conn, id, true, data, null);
+            });
+        });
+    }
+
+    /**
+     * bot_openset_benchmark: Record the open set operations of one search from the bot to a
+     * target and replay them against the binary heap and the bucket queue, and report the time
+     * per operation of each. Doesn't move the bot. Runs on a path planning worker.
+     * params: {name, x, y, z, range? (default 2), repeat? (5, max 50)}
+     */
+    private void handleOpenSetBenchmark(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name") || !params.has("x") || !params.has("y") || !params.has("z")) {
+            server.sendResponse(conn, id, false, null, "Missing required params (name, x, y, z)");
+            return;
+        }
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        BlockPos target = BlockPos.containing(params.get("x").getAsDouble(),
+                params.get("y").getAsDouble(), params.get("z").getAsDouble());
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        int repeat = Math.max(1, Math.min(50, params.has("repeat") ? params.get("repeat").getAsInt() : 5));
+
+        mcServer.execute(() -> {
+            FakePlayer bot = controller.getBot();
+            BlockPos start = bot.blockPosition();
+            Goal goal = range <= 1
+                    ? new GoalBlock(target.getX(), target.getY(), target.getZ())
+                    : new GoalNear(target.getX(), target.getY(), target.getZ(), range);
+            CalculationContext ctx = new CalculationContext(bot.serverLevel(),
+                    bot.getFoodData().getFoodLevel() > 6, bot);
+            ctx.cacheCorridor(start.getX(), start.getZ(), target.getX(), target.getZ(),
+                    CalculationContext.MAX_CORRIDOR_MARGIN);
+
+            PathPlanningExecutor.get().submit(new Object(), PathPlanningExecutor.Priority.GOTO,
+                    token -> PathBenchmark.openSets(start.getX(), start.getY(), start.getZ(), goal, ctx, repeat, token)
+            ).whenComplete((run, error) -> {
+                if (error != null) {
+                    server.sendResponse(conn, id, false, null, "Benchmark failed: " + error.getMessage());
+                    return;
+                }
+                JsonObject data = new JsonObject();
+                data.addProperty("nodes", run.search.nodesExplored);
+                data.addProperty("reachedGoal", run.search.reachedGoal);
+                data.addProperty("ops", run.trace.size());
+                data.addProperty("peakOpen", run.trace.getPeakOpen());
+                data.addProperty("truncated", run.trace.isTruncated());
+                JsonArray replays = new JsonArray();
+                double heapNanos = 0;
+                for (OpenSetTrace.Replay replay : run.replays) {
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("kind", replay.kind.name().toLowerCase());
+                    entry.addProperty("nanosPerOp", replay.bestNanosPerOp);
+                    entry.addProperty("mismatches", replay.mismatches);
+                    if (replay.kind == OpenSet.Kind.HEAP) {
+                        heapNanos = replay.bestNanosPerOp;
+                    } else if (heapNanos > 0 && replay.bestNanosPerOp > 0) {
+                        entry.addProperty("speedup", heapNanos / replay.bestNanosPerOp);
+                    }
+                    replays.add(entry);
+                }
+                data.add("replays", replays);
+                server.sendResponse(conn, id, true, data, null);
+            });
+        });
+    }
+
+    /**
+     * bot_nodestore_benchmark: Record the node bookkeeping of one search from the bot to a
+     * target and replay it against NodeStore (parallel arrays) and against the PathNode object
+     * store it replaced, and report time per event and bytes allocated for each.
+     * Doesn't move the bot. Runs on a path planning worker.
+     * params: {name, x, y, z, range? (default 2), repeat? (5, max 50)}
+     */
+    private void handleNodeStoreBenchmark(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name") || !params.has("x") || !params.has("y") || !params.has("z")) {
+            server.sendResponse(conn, id, false, null, "Missing required params (name, x, y, z)");
+            return;
+        }
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        BlockPos target = BlockPos.containing(params.get("x").getAsDouble(),
+                params.get("y").getAsDouble(), params.get("z").getAsDouble());
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        int repeat = Math.max(1, Math.min(50, params.has("repeat") ? params.get("repeat").getAsInt() : 5));
+
+        mcServer.execute(() -> {
+            FakePlayer bot = controller.getBot();
+            BlockPos start = bot.blockPosition();
+            Goal goal = range <= 1
+                    ? new GoalBlock(target.getX(), target.getY(), target.getZ())
+                    : new GoalNear(target.getX(), target.getY(), target.getZ(), range);
+            CalculationContext ctx = new CalculationContext(bot.serverLevel(),
+                    bot.getFoodData().getFoodLevel() > 6, bot);
+            ctx.cacheCorridor(start.getX(), start.getZ(), target.getX(), target.getZ(),
+                    CalculationContext.MAX_CORRIDOR_MARGIN);
+
+            PathPlanningExecutor.get().submit(new Object(), PathPlanningExecutor.Priority.GOTO,
+                    token -> PathBenchmark.nodeStores(start.getX(), start.getY(), start.getZ(), goal, ctx, repeat, token)
+            ).whenComplete((run, error) -> {
+                if (error != null) {
+                    server.sendResponse(conn, id, false, null, "Benchmark failed: " + error.getMessage());
+                    return;
+                }
+                JsonObject data = new JsonObject();
+                data.addProperty("nodes", run.search.nodesExplored);
+                data.addProperty("reachedGoal", run.search.reachedGoal);
+                data.addProperty("events", run.trace.size());
+                data.addProperty("expansions", run.trace.getExpansions());
+                data.addProperty("truncated", run.trace.isTruncated());
+                JsonArray replays = new JsonArray();
+                double arrayNanos = 0, objectNanos = 0;
+                for (NodeStoreTrace.Replay replay : run.replays) {
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("kind", replay.kind.name().toLowerCase());
+                    entry.addProperty("nanosPerEvent", replay.bestNanosPerEvent);
+                    entry.addProperty("allocatedBytes", replay.allocatedBytes);
+                    entry.addProperty("mismatches", replay.mismatches);
+                    if (replay.kind == NodeStoreTrace.Kind.ARRAYS) {
+                        arrayNanos = replay.bestNanosPerEvent;
+                    } else {
+                        objectNanos = replay.bestNanosPerEvent;
+                    }
+                    replays.add(entry);
+                }
+                data.add("replays", replays);
+                if (arrayNanos > 0 && objectNanos > 0) {
+                    // PathNode object store time / NodeStore time
+                    data.addProperty("speedup", objectNanos / arrayNanos);
+                }
+                server.sendResponse(conn, id, true, data, null);
+            });
+        });
+    }
+
+    /**
+     * bot_cost_calibration: The learned move cost calibration table, one entry per move kind
+     * and terrain class with samples (scale, average model cost vs ticks taken, p50/p90 ticks).
+     * reset clears the table and its saved copy.
+     * params: {reset?}
+     */
+    private void handleCostCalibration(WebSocket conn, String id, JsonObject params) {
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        boolean reset = params.has("reset") && params.get("reset").getAsBoolean();
+
+        mcServer.execute(() -> {
+            CostCalibrationManager calibration = CostCalibrationManager.getInstance();
+            if (reset) {
+                calibration.reset();
+            }
+            JsonObject data = CostCalibrationStorage.toJsonResponse(calibration);
+            server.sendResponse(conn, id, true, data, null);
+        });
+    }
+
+    /**
+     * bot_reachable: Everything the bot can reach within a cost budget (ticks), by the same
+     * cost model as bot_goto. Answers "nearest reachable <block>" (cheapest by path first)
+     * and the cost to reach given positions. The flood (ReachableSet) is cached per bot and
+     * reused while the bot hasn't moved and no block changed around the reachable area.
+     * params: {name, budget? (default 300, max 2000), blocks?: [names], count? (10),
+     *          positions?: [{x,y,z}], range? (2)}
+     */
+    private void handleReachable(WebSocket conn, String id, JsonObject params) {
+        if (!params.has("name")) {
+            server.sendResponse(conn, id, false, null, "Missing 'name' parameter");
+            return;
+        }
+        String name = params.get("name").getAsString();
+        BotController controller = controllers.get(name);
+        if (controller == null) {
+            server.sendResponse(conn, id, false, null, "No bot named '" + name + "'");
+            return;
+        }
+        MinecraftServer mcServer = getServer();
+        if (mcServer == null) {
+            server.sendResponse(conn, id, false, null, "No server available");
+            return;
+        }
+        double budget = params.has("budget") ? params.get("budget").getAsDouble() : DEFAULT_REACH_BUDGET;
+        if (!(budget > 0) || budget > MAX_REACH_BUDGET) {
+            server.sendResponse(conn, id, false, null, "'budget' must be in (0, " + MAX_REACH_BUDGET + "]");
+            return;
+        }
+        Set<String> blockNames = new HashSet<>();
+        if (params.has("blocks")) {
+            for (var elem : params.getAsJsonArray("blocks")) {
+                blockNames.add(Protocol.stripNamespace(elem.getAsString()));
+            }
+        }
+        int count = params.has("count") ? params.get("count").getAsInt() : 10;
+        int range = params.has("range") ? params.get("range").getAsInt() : 2;
+        List<BlockPos> positions = new ArrayList<>();
+        if (params.has("positions")) {
+            JsonArray array = params.getAsJsonArray("positions");
+            if (array.size() > MAX_REACH_POSITIONS) {
+                server.sendResponse(conn, id, false, null, "Too many positions (max " + MAX_REACH_POSITIONS + ")");
+                return;
+            }
+            for (var elem : array) {
+                JsonObject p = elem.getAsJsonObject();
+                positions.add(BlockPos.containing(p.get("x").getAsDouble(),
+                        p.get("y").getAsDouble(), p.get("z").getAsDouble()));
+            }
+        }
+        if (range > GoalAnyOf.MAX_RANGE) {
+            server.sendResponse(conn, id, false, null, "'range' must be at most " + GoalAnyOf.MAX_RANGE);
+            return;
+        }
+        Set<Block> blocks = new HashSet<>();
+        for (Block block : BuiltInRegistries.BLOCK) {
+            if (blockNames.contains(BuiltInRegistries.BLOCK.getKey(block).getPath())) {
+                blocks.add(block);
+            }
+        }
+
+        mcServer.execute(() -> {
+            FakePlayer bot = controller.getBot();
+            BlockPos start = bot.blockPosition();
+            long snapshotVersion = BlockChangeTracker.getInstance().getLatestVersion();
+            CalculationContext ctx = new CalculationContext(bot.serverLevel(),
+                    bot.getFoodData().getFoodLevel() > 6, bot);
+            ReachableSet cached = reachableSets.get(name);
+            boolean reuse = cached != null
+                    && cached.covers(start.getX(), start.getY(), start.getZ(), budget, ctx.capabilityFingerprint())
+                    && cached.isCurrent(bot.serverLevel());
+            if (!reuse) {
+                int radius = ReachableSet.snapshotRadius(budget);
+                ctx.cacheCorridor(start.getX(), start.getZ(), start.getX(), start.getZ(), radius);
+            }
+
+            PathPlanningExecutor.get().submit(new Object(), PathPlanningExecutor.Priority.GOTO, token -> {
+                ReachableSet set = reuse ? cached
+                        : ReachableSet.flood(start.getX(), start.getY(), start.getZ(), ctx, budget,
+                                snapshotVersion, token);
+                if (set == null) {
+                    throw new IllegalStateException("cancelled");
+                }
+                if (!reuse) {
+                    reachableSets.put(name, set);
+                }
+
+                JsonObject data = new JsonObject();
+                data.add("start", Protocol.vec3(start.getX(), start.getY(), start.getZ()));
+                data.addProperty("budget", budget);
+                data.addProperty("cells", set.countWithin(budget));
+                data.addProperty("truncated", set.isTruncated() && budget >= set.getBudget());
+                data.addProperty("cached", reuse);
+                data.addProperty("computeMs", set.getComputeMs());
+                if (!blocks.isEmpty()) {
+                    JsonArray hits = new JsonArray();
+                    for (ReachableSet.BlockHit hit : set.nearestBlocks(blocks, count, budget)) {
+                        JsonObject entry = Protocol.vec3(hit.pos.getX(), hit.pos.getY(), hit.pos.getZ());
+                        entry.addProperty("block", BuiltInRegistries.BLOCK.getKey(hit.state.getBlock()).getPath());
+                        entry.addProperty("cost", hit.cost);
+                        entry.add("standAt", Protocol.vec3(hit.standAt.getX(), hit.standAt.getY(), hit.standAt.getZ()));
+                        hits.add(entry);
+                    }
+                    data.add("blocks", hits);
+                }
+                if (!positions.isEmpty()) {
+                    JsonArray costs = new JsonArray();
+                    for (BlockPos pos : positions) {
+                        double cost = set.costNear(pos.getX(), pos.getY(), pos.getZ(), range, budget);
+                        JsonObject entry = Protocol.vec3(pos.getX(), pos.getY(), pos.getZ());
+                        entry.addProperty("reachable", cost >= 0);
+                        if (cost >= 0) {
+                            entry.addProperty("cost", cost);
+                        }
+                        costs.add(entry);
+                    }
+                    data.add("positions", costs);
+                }
+                return data;
+            }).whenComplete((data, error) -> {
+                if (error != null) {
+                    server.sendResponse(conn, id, false, null, "Reachability query failed: " + error.getMessage());
+                    return;
+                }
+                server.sendResponse(conn, id, true, data, null);
+            });
+        });
+    }
+
     /**
      * bot_reset_profiles: Reset learned mob profiles for a bot.
      * params: {name, entityType?} — if entityType omitted, reset all
@@ -4,49 +4,76 @@ import java.util.Arrays;
 
 /**
  * A binary min-heap for the A* open set, ordered by combinedCost.
- * 100% ported from Baritone's BinaryHeapOpenSet.
+ * Ported from Baritone's BinaryHeapOpenSet, adapted to int node ids:
+ * the heap array holds ids into a NodeStore, and costs / heap positions are
+ * read from the store's parallel arrays instead of PathNode fields.
  * Uses 1-based indexing for simpler parent/child arithmetic.
+ * The default OpenSet.
  */
-public final class BinaryHeapOpenSet {
+public final class BinaryHeapOpenSet implements OpenSet {
 
     private static final int INITIAL_CAPACITY = 1024;
 
-    private PathNode[] array;
+    private final NodeStore store;
+    private int[] array;
     private int size;
 
-    public BinaryHeapOpenSet() {
-        this(INITIAL_CAPACITY);
+    public BinaryHeapOpenSet(NodeStore store) {
+        this(store, INITIAL_CAPACITY);
     }
 
-    public BinaryHeapOpenSet(int size) {
+    public BinaryHeapOpenSet(NodeStore store, int size) {
+        this.store = store;
         this.size = 0;
-        this.array = new PathNode[size];
+        this.array = new int[size];
     }
 
     public int size() {
         return size;
     }
 
-    public final void insert(PathNode value) {
+    /** Empty the heap, keeping its grown array (ids need no clearing). */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Current array length, used by SearchArena to decide when to trim. */
+    public int capacity() {
+        return array.length;
+    }
+
+    /** Drop back to the default array size if the heap grew past maxSize. */
+    public boolean trim(int maxSize) {
+        if (array.length <= maxSize) {
+            return false;
+        }
+        size = 0;
+        array = new int[INITIAL_CAPACITY];
+        return true;
+    }
+
+    public final void insert(int value) {
         if (size >= array.length - 1) {
             array = Arrays.copyOf(array, array.length << 1);
         }
         size++;
-        value.heapPosition = size;
+        store.heapPosition[value] = size;
         array[size] = value;
         update(value);
     }
 
-    public final void update(PathNode val) {
-        int index = val.heapPosition;
+    public final void update(int val) {
+        double[] combinedCost = store.combinedCost;
+        int[] heapPosition = store.heapPosition;
+        int index = heapPosition[val];
         int parentInd = index >>> 1;
-        double cost = val.combinedCost;
-        PathNode parentNode = array[parentInd];
-        while (index > 1 && parentNode.combinedCost > cost) {
+        double cost = combinedCost[val];
+        int parentNode = array[parentInd];
+        while (index > 1 && combinedCost[parentNode] > cost) {
             array[index] = parentNode;
             array[parentInd] = val;
-            val.heapPosition = parentInd;
-            parentNode.heapPosition = index;
+            heapPosition[val] = parentInd;
+            heapPosition[parentNode] = index;
             index = parentInd;
             parentInd = index >>> 1;
             parentNode = array[parentInd];
@@ -57,29 +84,38 @@ public final class BinaryHeapOpenSet {
         return size == 0;
     }
 
-    public final PathNode removeLowest() {
+    /** The node removeLowest() would return, without removing it. */
+    public final int peekLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        return array[1];
+    }
+
+    public final int removeLowest() {
         if (size == 0) {
             throw new IllegalStateException();
         }
-        PathNode result = array[1];
-        PathNode val = array[size];
+        double[] combinedCost = store.combinedCost;
+        int[] heapPosition = store.heapPosition;
+        int result = array[1];
+        int val = array[size];
         array[1] = val;
-        val.heapPosition = 1;
-        array[size] = null;
+        heapPosition[val] = 1;
         size--;
-        result.heapPosition = -1;
+        heapPosition[result] = -1;
         if (size < 2) {
             return result;
         }
         int index = 1;
         int smallerChild = 2;
-        double cost = val.combinedCost;
+        double cost = combinedCost[val];
         do {
-            PathNode smallerChildNode = array[smallerChild];
-            double smallerChildCost = smallerChildNode.combinedCost;
+            int smallerChildNode = array[smallerChild];
+            double smallerChildCost = combinedCost[smallerChildNode];
             if (smallerChild < size) {
-                PathNode rightChildNode = array[smallerChild + 1];
-                double rightChildCost = rightChildNode.combinedCost;
+                int rightChildNode = array[smallerChild + 1];
+                double rightChildCost = combinedCost[rightChildNode];
                 if (smallerChildCost > rightChildCost) {
                     smallerChild++;
                     smallerChildCost = rightChildCost;
@@ -91,8 +127,8 @@ public final class BinaryHeapOpenSet {
             }
             array[index] = smallerChildNode;
             array[smallerChild] = val;
-            val.heapPosition = smallerChild;
-            smallerChildNode.heapPosition = index;
+            heapPosition[val] = smallerChild;
+            heapPosition[smallerChildNode] = index;
             index = smallerChild;
         } while ((smallerChild <<= 1) <= size);
         return result;
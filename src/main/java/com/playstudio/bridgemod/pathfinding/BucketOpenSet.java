@@ -0,0 +1,301 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A two-level bucket queue for the A* open set: keys (combinedCost, in ticks) are split into
+ * buckets BUCKET_WIDTH wide. Only the lowest non-empty bucket is kept ordered, as a binary
+ * heap; every later bucket is an unordered array, so inserting or decreasing a key that
+ * lands above the current bucket is O(1) (append, or swap-remove and append). When the heap
+ * runs empty, the next non-empty bucket is heapified in O(bucket size).
+ *
+ * Ordering is exact, not approximate: a key at or below the current bucket (including keys
+ * below every bucket seen so far, from inconsistent heuristics or greedy ordering) goes
+ * into the heap, so everything in the heap is always lower than everything in the buckets.
+ * Keys past MAX_BUCKETS buckets above the first key share the last bucket.
+ *
+ * Open nodes keep a heap index or an index within their bucket in store.heapPosition
+ * (never -1 while open); which one is tracked in nodeBucket.
+ */
+public final class BucketOpenSet implements OpenSet {
+
+    /** Width of one bucket in combinedCost units (ticks). */
+    static final double BUCKET_WIDTH = 1.0;
+
+    private static final int MAX_BUCKETS = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_BUCKETS = 256;
+    private static final int INITIAL_BUCKET_SIZE = 8;
+    private static final int IN_HEAP = -1;
+
+    private final NodeStore store;
+
+    // The current bucket, as a 1-based binary heap (as in BinaryHeapOpenSet)
+    private int[] heap = new int[INITIAL_CAPACITY];
+    private int heapSize;
+
+    // buckets[i] holds keys in [(origin + i) * BUCKET_WIDTH, (origin + i + 1) * BUCKET_WIDTH)
+    private int[][] buckets = new int[INITIAL_BUCKETS][];
+    private int[] bucketSize = new int[INITIAL_BUCKETS];
+    private int bucketSlots;
+    private long origin;
+    private boolean hasOrigin;
+    // Index of the bucket in the heap (-1 before the first one is taken); buckets at or below
+    // it are empty, and so is every bucket between it and lowest
+    private int current = -1;
+    private int lowest;
+    private int highest = -1;
+    private int bucketed;
+
+    // Bucket index of each open node, or IN_HEAP
+    private int[] nodeBucket = new int[0];
+
+    public BucketOpenSet(NodeStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public int size() {
+        return heapSize + bucketed;
+    }
+
+    @Override
+    public void clear() {
+        if (highest >= 0) {
+            Arrays.fill(bucketSize, 0, highest + 1, 0);
+        }
+        heapSize = 0;
+        bucketed = 0;
+        hasOrigin = false;
+        current = -1;
+        lowest = 0;
+        highest = -1;
+    }
+
+    @Override
+    public int capacity() {
+        return heap.length + bucketSlots;
+    }
+
+    @Override
+    public boolean trim(int maxSize) {
+        if (capacity() <= maxSize) {
+            return false;
+        }
+        clear();
+        heap = new int[INITIAL_CAPACITY];
+        buckets = new int[INITIAL_BUCKETS][];
+        bucketSize = new int[INITIAL_BUCKETS];
+        bucketSlots = 0;
+        nodeBucket = new int[0];
+        return true;
+    }
+
+    @Override
+    public void insert(int node) {
+        if (node >= nodeBucket.length) {
+            nodeBucket = Arrays.copyOf(nodeBucket, Math.max(node + 1, store.heapPosition.length));
+        }
+        int bucket = bucketOf(store.combinedCost[node]);
+        if (bucket <= current) {
+            heapInsert(node);
+        } else {
+            bucketAdd(bucket, node);
+        }
+    }
+
+    @Override
+    public void update(int node) {
+        int bucket = nodeBucket[node];
+        if (bucket == IN_HEAP) {
+            siftUp(store.heapPosition[node]);
+            return;
+        }
+        int target = bucketOf(store.combinedCost[node]);
+        if (target == bucket) {
+            return;
+        }
+        bucketRemove(bucket, store.heapPosition[node]);
+        if (target <= current) {
+            heapInsert(node);
+        } else {
+            bucketAdd(target, node);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heapSize == 0 && bucketed == 0;
+    }
+
+    @Override
+    public int peekLowest() {
+        if (heapSize == 0) {
+            advance();
+        }
+        return heap[1];
+    }
+
+    @Override
+    public int removeLowest() {
+        if (heapSize == 0) {
+            advance();
+        }
+        int[] heapPosition = store.heapPosition;
+        int result = heap[1];
+        int last = heap[heapSize];
+        heap[1] = last;
+        heapPosition[last] = 1;
+        heapSize--;
+        heapPosition[result] = -1;
+        if (heapSize >= 2) {
+            siftDown(1);
+        }
+        return result;
+    }
+
+    /**
+     * Bucket index for a key, relative to the first key's bucket: at most MAX_BUCKETS - 1,
+     * and current (heap-bound) for keys below it.
+     */
+    private int bucketOf(double key) {
+        long absolute = (long) Math.floor(key / BUCKET_WIDTH);
+        if (!hasOrigin) {
+            origin = absolute;
+            hasOrigin = true;
+        }
+        long relative = absolute - origin;
+        if (relative < 0) {
+            return current;
+        }
+        return (int) Math.min(relative, MAX_BUCKETS - 1);
+    }
+
+    /** Heapify the lowest non-empty bucket. */
+    private void advance() {
+        if (bucketed == 0) {
+            throw new IllegalStateException();
+        }
+        int bucket = Math.max(lowest, current + 1);
+        while (bucketSize[bucket] == 0) {
+            bucket++;
+        }
+        current = bucket;
+        lowest = bucket + 1;
+        int count = bucketSize[bucket];
+        int[] nodes = buckets[bucket];
+        if (count >= heap.length) {
+            heap = new int[Integer.highestOneBit(count) << 1];
+        }
+        int[] heapPosition = store.heapPosition;
+        for (int i = 0; i < count; i++) {
+            int node = nodes[i];
+            heap[i + 1] = node;
+            heapPosition[node] = i + 1;
+            nodeBucket[node] = IN_HEAP;
+        }
+        heapSize = count;
+        bucketSize[bucket] = 0;
+        bucketed -= count;
+        for (int index = heapSize >>> 1; index >= 1; index--) {
+            siftDown(index);
+        }
+    }
+
+    private void bucketAdd(int bucket, int node) {
+        if (bucket >= buckets.length) {
+            int length = Math.min(Math.max(buckets.length << 1, bucket + 1), MAX_BUCKETS);
+            buckets = Arrays.copyOf(buckets, length);
+            bucketSize = Arrays.copyOf(bucketSize, length);
+        }
+        int[] nodes = buckets[bucket];
+        int size = bucketSize[bucket];
+        if (nodes == null) {
+            nodes = new int[INITIAL_BUCKET_SIZE];
+            buckets[bucket] = nodes;
+            bucketSlots += nodes.length;
+        } else if (size == nodes.length) {
+            bucketSlots += nodes.length;
+            nodes = Arrays.copyOf(nodes, nodes.length << 1);
+            buckets[bucket] = nodes;
+        }
+        nodes[size] = node;
+        bucketSize[bucket] = size + 1;
+        store.heapPosition[node] = size;
+        nodeBucket[node] = bucket;
+        bucketed++;
+        if (bucket < lowest) {
+            lowest = bucket;
+        }
+        if (bucket > highest) {
+            highest = bucket;
+        }
+    }
+
+    private void bucketRemove(int bucket, int index) {
+        int[] nodes = buckets[bucket];
+        int last = nodes[--bucketSize[bucket]];
+        nodes[index] = last;
+        store.heapPosition[last] = index;
+        bucketed--;
+    }
+
+    private void heapInsert(int node) {
+        if (heapSize >= heap.length - 1) {
+            heap = Arrays.copyOf(heap, heap.length << 1);
+        }
+        heapSize++;
+        heap[heapSize] = node;
+        store.heapPosition[node] = heapSize;
+        nodeBucket[node] = IN_HEAP;
+        siftUp(heapSize);
+    }
+
+    private void siftUp(int index) {
+        double[] combinedCost = store.combinedCost;
+        int[] heapPosition = store.heapPosition;
+        int node = heap[index];
+        double cost = combinedCost[node];
+        while (index > 1) {
+            int parentIndex = index >>> 1;
+            int parent = heap[parentIndex];
+            if (combinedCost[parent] <= cost) {
+                break;
+            }
+            heap[index] = parent;
+            heapPosition[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = node;
+        heapPosition[node] = index;
+    }
+
+    private void siftDown(int index) {
+        double[] combinedCost = store.combinedCost;
+        int[] heapPosition = store.heapPosition;
+        int node = heap[index];
+        double cost = combinedCost[node];
+        int child;
+        while ((child = index << 1) <= heapSize) {
+            int childNode = heap[child];
+            double childCost = combinedCost[childNode];
+            if (child < heapSize) {
+                int rightNode = heap[child + 1];
+                double rightCost = combinedCost[rightNode];
+                if (rightCost < childCost) {
+                    child++;
+                    childNode = rightNode;
+                    childCost = rightCost;
+                }
+            }
+            if (cost <= childCost) {
+                break;
+            }
+            heap[index] = childNode;
+            heapPosition[childNode] = index;
+            index = child;
+        }
+        heap[index] = node;
+        heapPosition[node] = index;
+    }
+}
@@ -1,6 +1,15 @@
 package com.playstudio.bridgemod.pathfinding;
 
 import com.playstudio.bridgemod.bot.FakePlayer;
+import com.playstudio.bridgemod.pathfinding.cache.CachedChunk;
+import com.playstudio.bridgemod.pathfinding.cache.CachedWorld;
+import com.playstudio.bridgemod.pathfinding.cache.CachedWorldManager;
+import com.playstudio.bridgemod.pathfinding.cache.SectionSnapshot;
+import com.playstudio.bridgemod.pathfinding.cache.SectionSnapshotCache;
+import com.playstudio.bridgemod.pathfinding.cache.SectionWalkability;
+import com.playstudio.bridgemod.pathfinding.calibration.CostCalibration;
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+import com.playstudio.bridgemod.pathfinding.threat.ThreatGrid;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerChunkCache;
@@ -8,36 +17,95 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.effect.MobEffectUtil;
 import net.minecraft.world.effect.MobEffects;
 import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.item.AxeItem;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.PickaxeItem;
+import net.minecraft.world.item.ShovelItem;
+import net.minecraft.world.item.TieredItem;
 import net.minecraft.world.item.enchantment.EnchantmentHelper;
 import net.minecraft.world.item.enchantment.Enchantments;
 import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.LevelChunk;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * World state accessor for pathfinding calculations.
  * Adapted from Baritone's CalculationContext + BlockStateInterface.
  *
  * Optimizations:
- * 1. Pre-caches LevelChunk references on server thread (avoids ServerChunkCache thread dispatch)
+ * 1. Captures immutable SectionSnapshots on the server thread (no ServerChunkCache thread
+ *    dispatch, no racing the server thread's writes to live chunks); unchanged sections are
+ *    shared between searches through SectionSnapshotCache
  * 2. Single-chunk hot-cache (Baritone's BlockStateInterface.prev pattern) - eliminates ~85% of map lookups
  * 3. Long2ObjectOpenHashMap for chunk cache (no Long autoboxing)
  * 4. PrecomputedData reference for fast block state flag lookups
+ * 5. Position-dependent (MAYBE) walkability results are memoized per snapshot and shared
+ *    by every search (see walkabilityAt)
+ * 6. Outside the live snapshot, columns fall back to the 2-bit CachedWorld (air / stone /
+ *    water / lava placeholders), so long routes can be planned in one search
+ * 7. The live snapshot is a corridor around the start→goal line (cacheCorridor) rather than
+ *    a fixed square, so short searches capture few chunks; getLiveMisses() tells the caller
+ *    whether the search ran into the corridor's edge and it should be widened
+ * 8. Expansion window: PathFinder loads the 3x6x3 neighbourhood of each expanded node once
+ *    (beginExpansion), and every move's block reads and flag lookups inside it are array reads
+ *    instead of repeated snapshot reads and registry-id hash lookups
+ * 9. Optional threat cost layer (setThreats): a ThreatGrid of nearby hostiles whose cost
+ *    threatCost() adds to every move ending in a threatened cell, looked up through a
+ *    one-area hot-cache
+ * 10. Optional cost calibration (setCalibration): calibrate() scales each move's model cost
+ *    by how long moves of its kind and terrain class actually took (CostCalibrationManager);
+ *    each destination cell's terrain class is memoized (terrainAt), and heuristicScale()
+ *    scales goal heuristics down by the smallest calibrated scale
+ *
+ * A context is used by one search at a time (hot-cache, expansion window and mining cost table
+ * are unsynchronized). Concurrent searches over the same snapshot each take a fork().
  */
 public class CalculationContext {
 
     private final ServerLevel level;
-    private final Long2ObjectOpenHashMap<LevelChunk> chunkCache;
+    // Chunk column → section snapshots (index = (y - minY) >> 4)
+    private final Long2ObjectOpenHashMap<SectionSnapshot[]> chunkCache;
+
+    // Fallback for columns outside chunkCache, read lazily on the search thread.
+    // A null value means the column was looked up and isn't cached.
+    // Entries are views over CachedWorld's mapped region files, not copies of the column
+    private static final int MAX_FALLBACK_COLUMNS = 2048;
+    private final CachedWorld cachedWorld;
+    private final Long2ObjectOpenHashMap<CachedChunk> fallbackCache;
 
     // Single-chunk hot-cache (Baritone's BlockStateInterface.prev pattern).
     // A* has extreme spatial locality - consecutive lookups are almost always in the same chunk.
     // This avoids the hash map lookup ~85% of the time.
-    private LevelChunk prevChunk;
+    private SectionSnapshot[] prevChunk;
+    private CachedChunk prevCached;
     private int prevChunkX = Integer.MIN_VALUE;
     private int prevChunkZ = Integer.MIN_VALUE;
 
+    // Corridor prefetch (in chunks)
+    public static final int DEFAULT_CORRIDOR_MARGIN = 3;
+    public static final int MAX_CORRIDOR_MARGIN = 8;
+    private static final int MAX_CORRIDOR_LENGTH = 24;
+    // Column lookups that found no live snapshot (search reached the corridor's edge)
+    private int liveMisses;
+
+    // Expansion window: x/z within ±1 and y from -WINDOW_BELOW to +2 of the expanded node.
+    // Covers the feet/head/floor blocks every traverse, ascend, descend, diagonal and pillar
+    // move probes; reads outside it (parkour, long falls) take the normal path.
+    private static final int WINDOW_BELOW = 3;
+    private static final int WINDOW_HEIGHT = 6;
+    private final BlockState[] windowStates = new BlockState[3 * WINDOW_HEIGHT * 3];
+    private final int[] windowFlags = new int[3 * WINDOW_HEIGHT * 3];
+    private int windowX = Integer.MIN_VALUE >> 1; // min corner; far away until the first expansion
+    private int windowY;
+    private int windowZ;
+    private final int voidAirFlags;
+
     // Pre-computed block state flags (eliminates instanceof chains in MovementHelper)
     public final PrecomputedData precomputed;
 
@@ -58,17 +126,34 @@ public class CalculationContext {
     // mining costs using the best available tool (matching FakePlayer.selectBestTool).
     private final ItemStack[] hotbarSnapshot;  // nullable if no player
     private final float playerMiningMultiplier; // Haste/Fatigue combined
+    // Mining cost in ticks per block state registry id, filled lazily. The hotbar and effects
+    // above are fixed for the search, so each state's cost is computed once. Stored as
+    // ticks + 1 so the zero-initialised array means "not computed yet".
+    private float[] miningTicks;
 
     // Water features (Baritone)
     public final boolean assumeWalkOnWater;       // Jesus mode / Frost Walker
     public final double walkOnWaterOnePenalty;     // Extra cost for walking on water surface in Jesus mode
 
+    // Hostile influence added to move costs (null = none), and its last looked-up area
+    private ThreatGrid threats;
+    private long prevThreatArea = Long.MIN_VALUE;
+    private float[] prevThreatCells;
+
+    // Learned multipliers on the model move costs (null = model costs)
+    private CostCalibration calibration;
+    // Terrain class memo for calibrate(), direct-mapped by cell hash: a cell is the destination
+    // of up to ~20 relaxations, so it's classified once instead of on every one of them.
+    // Value is terrain + 1 (0 = empty slot). Allocated on first use, cleared on every capture
+    private static final int TERRAIN_MEMO_SIZE = 4096;
+    private long[] terrainKeys;
+    private byte[] terrainValues;
+
     // Y bounds cached
     private final int minY;
     private final int maxY;
 
-    // Reusable positions to avoid GC pressure in hot path
-    private final BlockPos.MutableBlockPos pos1 = new BlockPos.MutableBlockPos();
+    // Reusable position to avoid GC pressure in hot path
     private final BlockPos.MutableBlockPos pos2 = new BlockPos.MutableBlockPos();
 
     public CalculationContext(ServerLevel level, boolean canSprint) {
@@ -78,7 +163,10 @@ public class CalculationContext {
     public CalculationContext(ServerLevel level, boolean canSprint, LivingEntity player) {
         this.level = level;
         this.chunkCache = new Long2ObjectOpenHashMap<>(512, 0.5f);
+        this.cachedWorld = CachedWorldManager.getInstance().forLevel(level);
+        this.fallbackCache = new Long2ObjectOpenHashMap<>(512, 0.5f);
         this.precomputed = PrecomputedData.getInstance();
+        this.voidAirFlags = precomputed.getFlags(Blocks.VOID_AIR.defaultBlockState());
         this.canSprint = canSprint;
         this.player = (player instanceof FakePlayer fp) ? fp : null;
         this.hasThrowawayBlock = (this.player != null && this.player.hasThrowawayBlock());
@@ -131,53 +219,283 @@ public class CalculationContext {
         this.maxY = level.getMaxBuildHeight();
     }
 
+    private CalculationContext(CalculationContext base) {
+        this.level = base.level;
+        this.chunkCache = base.chunkCache;
+        this.cachedWorld = base.cachedWorld;
+        this.fallbackCache = new Long2ObjectOpenHashMap<>(512, 0.5f);
+        this.precomputed = base.precomputed;
+        this.voidAirFlags = base.voidAirFlags;
+        this.canSprint = base.canSprint;
+        this.player = base.player;
+        this.hasThrowawayBlock = base.hasThrowawayBlock;
+        this.hotbarSnapshot = base.hotbarSnapshot;
+        this.playerMiningMultiplier = base.playerMiningMultiplier;
+        this.allowDiagonalDescend = base.allowDiagonalDescend;
+        this.allowDiagonalAscend = base.allowDiagonalAscend;
+        this.maxFallHeightNoWater = base.maxFallHeightNoWater;
+        this.jumpPenalty = base.jumpPenalty;
+        this.assumeWalkOnWater = base.assumeWalkOnWater;
+        this.walkOnWaterOnePenalty = base.walkOnWaterOnePenalty;
+        this.waterWalkSpeed = base.waterWalkSpeed;
+        this.threats = base.threats;
+        this.calibration = base.calibration;
+        this.minY = base.minY;
+        this.maxY = base.maxY;
+    }
+
     /**
-     * Pre-cache loaded chunks around the starting position.
+     * A context for another search running concurrently over the same snapshot.
+     * Shares the captured chunk snapshots (read-only once caching is done), the player
+     * snapshot and settings; has its own hot-cache, CachedWorld fallback columns, expansion
+     * window and mining cost table. Call after cacheCorridor / cacheChunksNearby.
+     */
+    public CalculationContext fork() {
+        return new CalculationContext(this);
+    }
+
+    /**
+     * Add a fork's live misses to this context's, once the fork's search has finished.
+     */
+    public void mergeLiveMisses(CalculationContext fork) {
+        liveMisses += fork.liveMisses;
+    }
+
+    /**
+     * Snapshot loaded chunks around the starting position.
      * MUST be called on the server thread before starting the A* search.
-     * This is the key to making background-thread pathfinding fast:
-     * LevelChunk objects are safe to read from any thread (array-backed),
-     * but ServerChunkCache.getChunk() dispatches to the main thread.
+     * This is the key to making background-thread pathfinding fast and safe:
+     * ServerChunkCache.getChunk() dispatches to the main thread, and live LevelChunks are
+     * mutated by the server thread while the search reads them. Snapshots are immutable,
+     * and sections unchanged since an earlier search are reused instead of copied.
      */
     public void cacheChunksNearby(int centerX, int centerZ) {
         ServerChunkCache chunkSource = level.getChunkSource();
+        SectionSnapshotCache snapshots = SectionSnapshotCache.getInstance();
         int radiusChunks = 8; // ~128 blocks in each direction
         int centerCX = centerX >> 4;
         int centerCZ = centerZ >> 4;
+        clearTerrainMemo();
         for (int cx = centerCX - radiusChunks; cx <= centerCX + radiusChunks; cx++) {
             for (int cz = centerCZ - radiusChunks; cz <= centerCZ + radiusChunks; cz++) {
                 LevelChunk chunk = chunkSource.getChunkNow(cx, cz);
                 if (chunk != null) {
-                    chunkCache.put(ChunkPos.asLong(cx, cz), chunk);
+                    chunkCache.put(ChunkPos.asLong(cx, cz), snapshots.captureColumn(level, chunk));
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot loaded chunks in a capsule around the line from the start to the goal:
+     * every chunk within marginChunks of the segment. The segment is cut at
+     * MAX_CORRIDOR_LENGTH chunks; beyond that the search relies on the CachedWorld.
+     * MUST be called on the server thread before starting the A* search.
+     *
+     * @return corridor chunks that aren't loaded, nearest to the start first
+     *         (candidates for PathChunkLoader)
+     */
+    public List<ChunkPos> cacheCorridor(int startX, int startZ, int goalX, int goalZ, int marginChunks) {
+        ServerChunkCache chunkSource = level.getChunkSource();
+        SectionSnapshotCache snapshots = SectionSnapshotCache.getInstance();
+        int sx = startX >> 4;
+        int sz = startZ >> 4;
+        int gx = goalX >> 4;
+        int gz = goalZ >> 4;
+        clearTerrainMemo();
+        double length = Math.sqrt((double) (gx - sx) * (gx - sx) + (double) (gz - sz) * (gz - sz));
+        if (length > MAX_CORRIDOR_LENGTH) {
+            gx = sx + (int) Math.round((gx - sx) * MAX_CORRIDOR_LENGTH / length);
+            gz = sz + (int) Math.round((gz - sz) * MAX_CORRIDOR_LENGTH / length);
+        }
+        int dx = gx - sx;
+        int dz = gz - sz;
+        double lengthSq = (double) dx * dx + (double) dz * dz;
+        double marginSq = (double) marginChunks * marginChunks;
+
+        List<ChunkPos> missing = new ArrayList<>();
+        for (int cx = Math.min(sx, gx) - marginChunks; cx <= Math.max(sx, gx) + marginChunks; cx++) {
+            for (int cz = Math.min(sz, gz) - marginChunks; cz <= Math.max(sz, gz) + marginChunks; cz++) {
+                // Squared distance from the chunk to the nearest point of the segment
+                double t = lengthSq > 0 ? ((cx - sx) * (double) dx + (cz - sz) * (double) dz) / lengthSq : 0;
+                t = Math.max(0, Math.min(1, t));
+                double ex = cx - (sx + t * dx);
+                double ez = cz - (sz + t * dz);
+                if (ex * ex + ez * ez > marginSq) continue;
+
+                LevelChunk chunk = chunkSource.getChunkNow(cx, cz);
+                if (chunk != null) {
+                    chunkCache.put(ChunkPos.asLong(cx, cz), snapshots.captureColumn(level, chunk));
+                } else {
+                    missing.add(new ChunkPos(cx, cz));
                 }
             }
         }
+        missing.sort((a, b) -> Integer.compare(
+                Math.abs(a.x - sx) + Math.abs(a.z - sz), Math.abs(b.x - sx) + Math.abs(b.z - sz)));
+        return missing;
+    }
+
+    /**
+     * Number of column lookups that found no live snapshot. Read after the search finished.
+     */
+    public int getLiveMisses() {
+        return liveMisses;
     }
 
     /**
      * Get the block state at (x,y,z).
      * Uses single-chunk hot-cache to avoid hash map lookup for consecutive
      * same-chunk accesses (which is ~85% of all accesses during A*).
-     * Safe to call from background thread (reads from pre-cached LevelChunk objects).
+     * Safe to call from background thread (reads only from immutable section snapshots).
      */
     public BlockState get(int x, int y, int z) {
+        int w = windowIndex(x, y, z);
+        if (w >= 0) {
+            return windowStates[w];
+        }
         if (y < minY || y >= maxY) {
             return Blocks.VOID_AIR.defaultBlockState();
         }
         int cx = x >> 4;
         int cz = z >> 4;
-        LevelChunk chunk;
+        if (cx != prevChunkX || cz != prevChunkZ) {
+            selectColumn(cx, cz);
+        } // else: hot-cache hit (~85% of calls)
+        SectionSnapshot[] chunk = prevChunk;
+        if (chunk != null) {
+            return chunk[(y - minY) >> 4].get(x & 15, y & 15, z & 15);
+        }
+        CachedChunk cached = prevCached;
+        if (cached != null) {
+            return CachedChunk.placeholder(cached.getType(x & 15, y, z & 15));
+        }
+        return Blocks.VOID_AIR.defaultBlockState();
+    }
+
+    /**
+     * Load the neighbourhood of the node about to be expanded into the expansion window.
+     * Reads each of its columns once and keeps states and precomputed flags side by side,
+     * so the ~20 moves evaluated next share one read per block.
+     */
+    public void beginExpansion(int x, int y, int z) {
+        windowX = x - 1;
+        windowY = y - WINDOW_BELOW;
+        windowZ = z - 1;
+        BlockState voidAir = Blocks.VOID_AIR.defaultBlockState();
+        for (int dz = 0; dz < 3; dz++) {
+            for (int dx = 0; dx < 3; dx++) {
+                int bx = windowX + dx;
+                int bz = windowZ + dz;
+                if (bx >> 4 != prevChunkX || bz >> 4 != prevChunkZ) {
+                    selectColumn(bx >> 4, bz >> 4);
+                }
+                SectionSnapshot[] chunk = prevChunk;
+                CachedChunk cached = prevCached;
+                for (int dy = 0; dy < WINDOW_HEIGHT; dy++) {
+                    int by = windowY + dy;
+                    int w = (dy * 3 + dz) * 3 + dx;
+                    if (by < minY || by >= maxY || (chunk == null && cached == null)) {
+                        windowStates[w] = voidAir;
+                        windowFlags[w] = voidAirFlags;
+                    } else if (chunk != null) {
+                        int id = chunk[(by - minY) >> 4].getId(bx & 15, by & 15, bz & 15);
+                        windowStates[w] = Block.BLOCK_STATE_REGISTRY.byId(id);
+                        windowFlags[w] = precomputed.getFlagsById(id);
+                    } else {
+                        BlockState state = CachedChunk.placeholder(cached.getType(bx & 15, by, bz & 15));
+                        windowStates[w] = state;
+                        windowFlags[w] = precomputed.getFlags(state);
+                    }
+                }
+            }
+        }
+    }
+
+    private int windowIndex(int x, int y, int z) {
+        int dx = x - windowX;
+        int dy = y - windowY;
+        int dz = z - windowZ;
+        if ((dx | dy | dz) < 0 || dx > 2 || dz > 2 || dy >= WINDOW_HEIGHT) {
+            return -1;
+        }
+        return (dy * 3 + dz) * 3 + dx;
+    }
+
+    /**
+     * PrecomputedData flags of state, which was read at (x, y, z).
+     * Served from the expansion window when possible (no registry-id lookup).
+     */
+    public int flagsAt(int x, int y, int z, BlockState state) {
+        int w = windowIndex(x, y, z);
+        if (w >= 0 && windowStates[w] == state) {
+            return windowFlags[w];
+        }
+        return precomputed.getFlags(state);
+    }
+
+    /**
+     * Point the hot-cache at column (cx, cz): the live snapshot if captured,
+     * otherwise the CachedWorld copy (or neither).
+     */
+    private void selectColumn(int cx, int cz) {
+        long key = ChunkPos.asLong(cx, cz);
+        SectionSnapshot[] chunk = chunkCache.get(key);
+        prevChunk = chunk;
+        prevCached = null;
+        if (chunk == null) {
+            liveMisses++;
+            prevCached = fallbackColumn(key, cx, cz);
+        }
+        prevChunkX = cx;
+        prevChunkZ = cz;
+    }
+
+    private CachedChunk fallbackColumn(long key, int cx, int cz) {
+        CachedChunk cached = fallbackCache.get(key);
+        if (cached != null || fallbackCache.containsKey(key)) {
+            return cached;
+        }
+        if (fallbackCache.size() >= MAX_FALLBACK_COLUMNS) {
+            return null;
+        }
+        cached = cachedWorld.getChunk(cx, cz);
+        fallbackCache.put(key, cached);
+        return cached;
+    }
+
+    /**
+     * Shared memo of resolved MAYBE walkability bits for the section containing (x,y,z),
+     * or null if results at this position must not be shared.
+     *
+     * Results depend on the block, the block above and the four horizontal neighbours, so
+     * they are only shared when every one of those comes from a captured snapshot
+     * (an uncached neighbour column reads as VOID_AIR or a CachedWorld placeholder here,
+     * which must not leak into other searches), and only for the default water rules
+     * (assumeWalkOnWater flips them).
+     */
+    public SectionWalkability walkabilityAt(int x, int y, int z) {
+        if (assumeWalkOnWater || y < minY || y >= maxY) {
+            return null;
+        }
+        int lx = x & 15;
+        int lz = z & 15;
+        if ((lx == 0 && !isLive(x - 1, z)) || (lx == 15 && !isLive(x + 1, z))
+                || (lz == 0 && !isLive(x, z - 1)) || (lz == 15 && !isLive(x, z + 1))) {
+            return null;
+        }
+        int cx = x >> 4;
+        int cz = z >> 4;
+        SectionSnapshot[] chunk;
         if (cx == prevChunkX && cz == prevChunkZ) {
-            chunk = prevChunk; // Hot-cache hit (~85% of calls)
+            chunk = prevChunk;
         } else {
             chunk = chunkCache.get(ChunkPos.asLong(cx, cz));
-            prevChunk = chunk;
-            prevChunkX = cx;
-            prevChunkZ = cz;
         }
         if (chunk == null) {
-            return Blocks.VOID_AIR.defaultBlockState();
+            return null;
         }
-        return chunk.getBlockState(pos1.set(x, y, z));
+        return chunk[(y - minY) >> 4].walkability();
     }
 
     /**
@@ -185,14 +503,16 @@ public class CalculationContext {
      * Returns true only for full solid cubes (stone, dirt, planks, etc.).
      *
      * Uses canOcclude() as a fast path - this is a cached boolean property
-     * that's true for all opaque full cubes. For non-occluding full blocks
-     * (glass etc.), we fall back to collision shape check.
+     * that's true for all opaque full cubes. For non-occluding blocks (glass etc.)
+     * the precomputed shape class answers, unless the shape is position-dependent.
      */
     public boolean isFullBlock(int x, int y, int z) {
         BlockState state = get(x, y, z);
         // Fast path: canOcclude() is cached and covers stone, dirt, logs, ores, etc.
         if (state.canOcclude()) return true;
-        // Slow path: collision shape check for non-opaque full blocks
+        int shape = flagsAt(x, y, z, state) & PrecomputedData.SHAPE_MASK;
+        if (shape != PrecomputedData.SHAPE_DYNAMIC) return shape == PrecomputedData.SHAPE_FULL;
+        // Slow path: collision shape check for position-dependent shapes
         pos2.set(x, y, z);
         return state.isCollisionShapeFullBlock(level, pos2);
     }
@@ -206,16 +526,31 @@ public class CalculationContext {
         // Fast paths
         if (state.isAir()) return true;
         if (state.canOcclude()) return false;
-        // Collision shape check for remaining blocks
+        int shape = flagsAt(x, y, z, state) & PrecomputedData.SHAPE_MASK;
+        if (shape != PrecomputedData.SHAPE_DYNAMIC) return shape == PrecomputedData.SHAPE_EMPTY;
+        // Collision shape check for position-dependent shapes
         pos2.set(x, y, z);
         return state.getCollisionShape(level, pos2).isEmpty();
     }
 
     /**
-     * Check if a chunk is loaded (i.e., cached) at the given XZ coordinates.
-     * Also uses hot-cache for the common case.
+     * Check if block data is available at the given XZ coordinates, either from a live
+     * snapshot or from the CachedWorld. Also uses hot-cache for the common case.
      */
     public boolean isLoaded(int x, int z) {
+        int cx = x >> 4;
+        int cz = z >> 4;
+        if (cx != prevChunkX || cz != prevChunkZ) {
+            selectColumn(cx, cz);
+        }
+        return prevChunk != null || prevCached != null;
+    }
+
+    /**
+     * Check if the column at the given XZ coordinates has a live snapshot
+     * (exact block states, not CachedWorld placeholders).
+     */
+    public boolean isLive(int x, int z) {
         int cx = x >> 4;
         int cz = z >> 4;
         if (cx == prevChunkX && cz == prevChunkZ) {
@@ -224,6 +559,133 @@ public class CalculationContext {
         return chunkCache.containsKey(ChunkPos.asLong(cx, cz));
     }
 
+    /**
+     * Add this ThreatGrid's costs to the searched moves (null for none). Set on the server
+     * thread before the search starts; forks taken afterwards share it.
+     */
+    public void setThreats(ThreatGrid threats) {
+        this.threats = threats;
+        this.prevThreatArea = Long.MIN_VALUE;
+        this.prevThreatCells = null;
+    }
+
+    public boolean hasThreats() {
+        return threats != null;
+    }
+
+    /** The threat layer set by setThreats, or null. */
+    public ThreatGrid getThreats() {
+        return threats;
+    }
+
+    /**
+     * Scale the model move costs by this calibration table (null for none). Set on the server
+     * thread before the search starts; forks taken afterwards share it.
+     */
+    public void setCalibration(CostCalibration calibration) {
+        this.calibration = calibration;
+    }
+
+    /** The calibration table set by setCalibration, or null. */
+    public CostCalibration getCalibration() {
+        return calibration;
+    }
+
+    /**
+     * Multiplier on goal heuristics for searches with this context: the calibration's smallest
+     * scale (1 without one), so a heuristic estimating model costs never exceeds the calibrated
+     * cost of a path.
+     */
+    public double heuristicScale() {
+        return calibration == null ? 1.0 : calibration.minScale();
+    }
+
+    /**
+     * Calibrated cost of a move whose model cost is cost, ending at (x, y, z).
+     */
+    public double calibrate(Moves move, int x, int y, int z, double cost) {
+        return calibration == null ? cost : calibration.apply(this, move, x, y, z, cost);
+    }
+
+    /**
+     * Terrain class of the cell (x, y, z) as a move destination (CostCalibration.cellTerrain),
+     * memoized per context.
+     */
+    public int terrainAt(int x, int y, int z) {
+        if (terrainKeys == null) {
+            terrainKeys = new long[TERRAIN_MEMO_SIZE];
+            terrainValues = new byte[TERRAIN_MEMO_SIZE];
+        }
+        long key = PathNode.longHash(x, y, z);
+        int slot = (int) (key ^ (key >>> 32)) * 0x9E3779B9 >>> 20; // top 12 bits: 4096 slots
+        if (terrainValues[slot] != 0 && terrainKeys[slot] == key) {
+            return terrainValues[slot] - 1;
+        }
+        int terrain = CostCalibration.cellTerrain(this, x, y, z);
+        terrainKeys[slot] = key;
+        terrainValues[slot] = (byte) (terrain + 1);
+        return terrain;
+    }
+
+    private void clearTerrainMemo() {
+        if (terrainValues != null) {
+            Arrays.fill(terrainValues, (byte) 0);
+        }
+    }
+
+    /**
+     * Extra cost (ticks) of a move ending at (x, z) from hostiles nearby, 0 without a threat layer.
+     */
+    public double threatCost(int x, int z) {
+        if (threats == null) {
+            return 0;
+        }
+        long area = ThreatGrid.areaKey(x, z);
+        if (area != prevThreatArea) {
+            prevThreatArea = area;
+            prevThreatCells = threats.area(area);
+        }
+        return prevThreatCells == null ? 0 : prevThreatCells[ThreatGrid.cellIndex(x, z)];
+    }
+
+    /**
+     * Snapshot version of the section at section coordinates (sx, sy, sz), or -1 if its column
+     * wasn't captured. Equal versions in two contexts mean the section didn't change between
+     * their captures (see SearchSession). Sections outside the build height never change (0).
+     */
+    public long sectionVersion(int sx, int sy, int sz) {
+        int index = sy - (minY >> 4);
+        if (index < 0 || sy >= (maxY + 15) >> 4) {
+            return 0;
+        }
+        SectionSnapshot[] chunk = chunkCache.get(ChunkPos.asLong(sx, sz));
+        if (chunk == null) {
+            return -1;
+        }
+        return chunk[index].getVersion();
+    }
+
+    /**
+     * The capabilities a path's validity depends on, packed into a long (PathCache key):
+     * bit 0 canSprint, bit 1 hasThrowawayBlock, then 4 bits each for the best pickaxe, axe
+     * and shovel tier in the hotbar (tier level + 1, 0 = none). Two contexts with the same
+     * fingerprint plan the same moves, up to the small cost differences of enchantments and effects.
+     */
+    public long capabilityFingerprint() {
+        long fingerprint = (canSprint ? 1 : 0) | (hasThrowawayBlock ? 2 : 0);
+        int pickaxe = 0, axe = 0, shovel = 0;
+        if (hotbarSnapshot != null) {
+            for (ItemStack stack : hotbarSnapshot) {
+                if (!(stack.getItem() instanceof TieredItem tiered)) continue;
+                int tier = tiered.getTier().getLevel() + 1;
+                if (tiered instanceof PickaxeItem) pickaxe = Math.max(pickaxe, tier);
+                else if (tiered instanceof AxeItem) axe = Math.max(axe, tier);
+                else if (tiered instanceof ShovelItem) shovel = Math.max(shovel, tier);
+            }
+        }
+        return fingerprint | (long) (pickaxe & 15) << 2 | (long) (axe & 15) << 6 | (long) (shovel & 15) << 10;
+    }
+
     /**
      * Compute the destroy progress using the best tool in the player's hotbar.
      * Replicates vanilla's Player.getDestroySpeed() + BlockState.getDestroyProgress()
@@ -267,6 +729,26 @@ public class CalculationContext {
         return bestProgress;
     }
 
+    /**
+     * Cached mining cost for a block state id (see MovementHelper.getMiningDurationTicks),
+     * or -1 if it hasn't been computed in this context yet.
+     */
+    public double getMiningTicks(int stateId) {
+        if (miningTicks == null || stateId < 0 || stateId >= miningTicks.length) {
+            return -1;
+        }
+        return miningTicks[stateId] - 1.0;
+    }
+
+    public void putMiningTicks(int stateId, double ticks) {
+        if (miningTicks == null) {
+            miningTicks = new float[Block.BLOCK_STATE_REGISTRY.size()];
+        }
+        if (stateId >= 0 && stateId < miningTicks.length) {
+            miningTicks[stateId] = (float) (ticks + 1.0);
+        }
+    }
+
     public ServerLevel getLevel() {
         return level;
     }
@@ -0,0 +1,24 @@
+package com.playstudio.bridgemod.pathfinding;
+
+/**
+ * Cooperative cancellation flag for a running search.
+ * PathFinder polls it every TIME_CHECK_INTERVAL nodes and stops early once it is set,
+ * so a superseded or stopped request frees its worker thread within a few milliseconds.
+ */
+public final class CancellationToken {
+
+    /** Token that is never cancelled (default for direct PathFinder use). */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,448 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.moves.MoveResult;
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash-distributed parallel A* (HDA*) for single large searches.
+ *
+ * Every node is owned by one worker, chosen by a hash of its PathNode.longHash position.
+ * Each worker has its own NodeStore and open set (from its thread's SearchArena) and its own
+ * CalculationContext.fork(). A worker expands its best open node; successors it owns are
+ * relaxed locally, the others are sent to their owner's inbox (a lock-free
+ * ConcurrentLinkedQueue, one consumer per queue) and relaxed there. Parents are recorded
+ * as position hashes, so the path is rebuilt across stores once the search has stopped.
+ *
+ * Unlike sequential A*, the first goal node popped isn't necessarily the cheapest: it becomes
+ * the incumbent, nodes with f >= incumbent are pruned, and the search only ends once no
+ * worker has anything cheaper left. Termination is detected with one counter, work =
+ * busy workers + messages in flight:
+ * - a message is counted before it is enqueued and uncounted after its owner relaxed it;
+ * - an idle worker that finds mail counts itself busy before uncounting the message.
+ * A worker can only become busy through a counted message, so work == 0 means every worker
+ * is idle with no mail anywhere, and nothing can restart the search.
+ *
+ * Timeouts, cancellation and the bestSoFar partial path follow PathFinder (each worker keeps
+ * bestSoFar candidates for its own nodes; the best across workers is returned).
+ */
+public final class HdaSearch {
+
+    public static final int MAX_THREADS = 8;
+    public static final int DEFAULT_THREADS = Math.max(2, Math.min(MAX_THREADS,
+            Runtime.getRuntime().availableProcessors() / 2));
+
+    // Idle workers spin this many times before parking
+    private static final int IDLE_SPINS = 64;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    // Workers of one search must all run at once (each waits on the others' mail),
+    // so the pool grows on demand instead of queueing them
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "CraftAI-HDA-" + THREAD_COUNT.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int startX, startY, startZ;
+    private final Goal goal;
+    private final CalculationContext ctx;
+    private final int threads;
+    private final Worker[] workers;
+
+    // Busy workers + undelivered messages; 0 = terminated
+    private final AtomicLong work = new AtomicLong();
+    // Cheapest goal node found so far (written under this object's monitor)
+    private volatile double incumbent = ActionCosts.COST_INF;
+    private volatile long incumbentHash;
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+    // Workers keep their arenas until the coordinator has read the result out of them
+    private CountDownLatch searchDone;
+    private final CountDownLatch resultRead = new CountDownLatch(1);
+    private volatile boolean progress;   // some bestSoFar candidate moved away from the start
+    private CancellationToken cancellationToken = CancellationToken.NONE;
+
+    public HdaSearch(int startX, int startY, int startZ, Goal goal, CalculationContext ctx, int threads) {
+        this.startX = startX;
+        this.startY = startY;
+        this.startZ = startZ;
+        this.goal = goal;
+        this.ctx = ctx;
+        this.threads = Math.max(1, Math.min(MAX_THREADS, threads));
+        this.workers = new Worker[this.threads];
+    }
+
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * Run the search on `threads` workers and wait for it.
+     * Signature matches PathPlanningExecutor.submit(owner, priority, job).
+     */
+    public PathFinder.PathResult calculate(CancellationToken token) {
+        setCancellationToken(token);
+        return calculate();
+    }
+
+    public PathFinder.PathResult calculate() {
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, ctx.fork(), startTime);
+        }
+        // Seed the start node as a message to its owner; every worker starts out busy
+        long startHash = PathNode.longHash(startX, startY, startZ);
+        work.set(threads + 1);
+        workers[ownerOf(startHash)].inbox.add(new Message(startX, startY, startZ, 0, startHash, -1));
+
+        searchDone = new CountDownLatch(threads);
+        for (Worker worker : workers) {
+            POOL.execute(worker);
+        }
+        try {
+            searchDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+            awaitUninterruptibly(searchDone);
+        }
+        try {
+            return result(startTime);
+        } finally {
+            resultRead.countDown();
+        }
+    }
+
+    private PathFinder.PathResult result(long startTime) {
+        for (Worker worker : workers) {
+            ctx.mergeLiveMisses(worker.ctx);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("HdaSearch worker failed", failure);
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        int numNodes = 0;
+        long sent = 0;
+        for (Worker worker : workers) {
+            numNodes += worker.expanded;
+            sent += worker.sent;
+        }
+        if (cancellationToken.isCancelled()) {
+            return new PathFinder.PathResult(Collections.emptyList(), false, numNodes, elapsed);
+        }
+        if (incumbent < ActionCosts.COST_INF) {
+            List<PathNode> path = reconstructPath(incumbentHash);
+            BridgeMod.LOGGER.info("HdaSearch found goal in {}ms on {} threads: {} nodes, {} messages, cost {}",
+                    elapsed, threads, numNodes, sent, String.format("%.1f", incumbent));
+            return new PathFinder.PathResult(path, true, numNodes, elapsed);
+        }
+        List<PathNode> partial = bestSoFar();
+        BridgeMod.LOGGER.info("HdaSearch: {} in {}ms on {} threads, {} nodes, {} messages",
+                partial.isEmpty() ? "no path" : "partial path with " + partial.size() + " nodes",
+                elapsed, threads, numNodes, sent);
+        return new PathFinder.PathResult(partial, false, numNodes, elapsed);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int ownerOf(long hash) {
+        // Fibonacci hashing spreads the polynomial longHash's low bits across workers
+        return (int) (((hash * 0x9E3779B97F4A7C15L) >>> 32) % threads);
+    }
+
+    /**
+     * Lower the incumbent to cost if it is cheaper.
+     */
+    private synchronized void offerIncumbent(double cost, long hash) {
+        if (cost < incumbent) {
+            incumbentHash = hash;
+            incumbent = cost;
+        }
+    }
+
+    /**
+     * Follow parent hashes from the node at hash back to the start, across worker stores.
+     * Only called after every worker has stopped.
+     */
+    private List<PathNode> reconstructPath(long hash) {
+        List<PathNode> path = new ArrayList<>();
+        while (true) {
+            Worker owner = workers[ownerOf(hash)];
+            int node = owner.store.find(hash);
+            NodeStore s = owner.store;
+            PathNode pathNode = new PathNode(s.x[node], s.y[node], s.z[node], s.estimatedCostToGoal[node]);
+            pathNode.cost = s.cost[node];
+            pathNode.combinedCost = s.combinedCost[node];
+            pathNode.moveType = s.getMoveType(node);
+            path.add(pathNode);
+            long parent = owner.parents[node];
+            if (parent == hash) {
+                break; // start node is its own parent
+            }
+            hash = parent;
+        }
+        Collections.reverse(path);
+        for (int i = 1; i < path.size(); i++) {
+            path.get(i).previous = path.get(i - 1);
+        }
+        return path;
+    }
+
+    /**
+     * PathFinder.bestSoFar() across workers: for each coefficient, the best candidate of all
+     * workers; the first coefficient whose candidate gives a path of 2+ nodes wins.
+     */
+    private List<PathNode> bestSoFar() {
+        for (int i = 0; i < PathFinder.COEFFICIENTS.length; i++) {
+            Worker best = null;
+            for (Worker worker : workers) {
+                if (worker.bestSoFar[i] == NodeStore.NO_NODE) continue;
+                if (best == null || worker.bestHeuristicSoFar[i] < best.bestHeuristicSoFar[i]) {
+                    best = worker;
+                }
+            }
+            if (best == null) continue;
+            int node = best.bestSoFar[i];
+            if (best.store.x[node] == startX && best.store.y[node] == startY && best.store.z[node] == startZ) {
+                continue;
+            }
+            List<PathNode> path = reconstructPath(PathNode.longHash(
+                    best.store.x[node], best.store.y[node], best.store.z[node]));
+            if (path.size() > 1) {
+                return path;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /** A successor handed to its owning worker. */
+    private static final class Message {
+        final int x, y, z;
+        final double cost;
+        final long parent;
+        final int move;     // Moves ordinal, -1 for the start node
+
+        Message(int x, int y, int z, double cost, long parent, int move) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.cost = cost;
+            this.parent = parent;
+            this.move = move;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final int id;
+        final CalculationContext ctx;
+        final long startTime;
+        final ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<>();
+        SearchArena arena;
+        NodeStore store;
+        OpenSet openSet;
+        long[] parents = new long[1024];
+        final int[] bestSoFar = new int[PathFinder.COEFFICIENTS.length];
+        final double[] bestHeuristicSoFar = new double[PathFinder.COEFFICIENTS.length];
+        int expanded;
+        long sent;
+
+        Worker(int id, CalculationContext ctx, long startTime) {
+            this.id = id;
+            this.ctx = ctx;
+            this.startTime = startTime;
+            Arrays.fill(bestSoFar, NodeStore.NO_NODE);
+            Arrays.fill(bestHeuristicSoFar, Double.POSITIVE_INFINITY);
+        }
+
+        @Override
+        public void run() {
+            arena = SearchArena.acquire();
+            store = arena.getStore();
+            store.setHeuristicScale(ctx.heuristicScale());
+            openSet = arena.getOpenSet();
+            try {
+                search();
+            } catch (Throwable t) {
+                failure = t;
+                stopped = true;
+            } finally {
+                searchDone.countDown();
+                awaitUninterruptibly(resultRead);
+                arena.release();
+            }
+        }
+
+        private void search() {
+            MoveResult res = new MoveResult();
+            Moves[] allMoves = Moves.values();
+            int minY = ctx.getLevel().getMinBuildHeight();
+            int maxY = ctx.getLevel().getMaxBuildHeight();
+            long primaryTimeoutTime = startTime + PathFinder.PRIMARY_TIMEOUT_MS;
+            long failureTimeoutTime = startTime + PathFinder.FAILURE_TIMEOUT_MS;
+            boolean busy = true;
+            int idleSpins = 0;
+
+            while (!stopped) {
+                Message message = inbox.poll();
+                if (message != null) {
+                    if (!busy) {
+                        busy = true;
+                        work.incrementAndGet();
+                    }
+                    idleSpins = 0;
+                    receive(message);
+                    work.decrementAndGet();
+                    continue;
+                }
+
+                if (!openSet.isEmpty() && store.combinedCost[openSet.peekLowest()] < incumbent) {
+                    if (!busy) {
+                        busy = true;
+                        work.incrementAndGet();
+                    }
+                    idleSpins = 0;
+                    expand(openSet.removeLowest(), res, allMoves, minY, maxY);
+                    if ((expanded & (PathFinder.TIME_CHECK_INTERVAL - 1)) == 0) {
+                        long now = System.currentTimeMillis();
+                        if (cancellationToken.isCancelled() || now - failureTimeoutTime >= 0
+                                || (progress && now - primaryTimeoutTime >= 0)) {
+                            BridgeMod.LOGGER.debug("HdaSearch stopping after {}ms (cancelled={})",
+                                    now - startTime, cancellationToken.isCancelled());
+                            stopped = true;
+                        }
+                    }
+                    continue;
+                }
+
+                // Nothing to do until mail arrives
+                if (busy) {
+                    busy = false;
+                    if (work.decrementAndGet() == 0) {
+                        stopped = true;
+                        break;
+                    }
+                }
+                if (++idleSpins < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        private void receive(Message message) {
+            long hash = PathNode.longHash(message.x, message.y, message.z);
+            int node = store.getOrCreate(message.x, message.y, message.z, hash, goal);
+            if (store.cost[node] - message.cost <= PathFinder.MIN_IMPROVEMENT) {
+                return;
+            }
+            double combined = message.cost + store.estimatedCostToGoal[node];
+            if (combined >= incumbent) {
+                return; // can't beat the goal already found
+            }
+            if (node >= parents.length) {
+                parents = Arrays.copyOf(parents, Math.max(node + 1, parents.length << 1));
+            }
+            parents[node] = message.parent;
+            store.cost[node] = message.cost;
+            store.combinedCost[node] = combined;
+            store.moveType[node] = (byte) message.move;
+            if (store.isOpen(node)) {
+                openSet.update(node);
+            } else {
+                openSet.insert(node);
+            }
+            updateBestSoFar(node, message.cost);
+        }
+
+        private void expand(int node, MoveResult res, Moves[] allMoves, int minY, int maxY) {
+            int curX = store.x[node];
+            int curY = store.y[node];
+            int curZ = store.z[node];
+            double curCost = store.cost[node];
+            long curHash = PathNode.longHash(curX, curY, curZ);
+            expanded++;
+
+            if (goal.isInGoal(curX, curY, curZ)) {
+                offerIncumbent(curCost, curHash);
+                return;
+            }
+
+            ctx.beginExpansion(curX, curY, curZ);
+            for (Moves moves : allMoves) {
+                int newX = curX + moves.xOffset;
+                int newZ = curZ + moves.zOffset;
+                if ((newX >> 4 != curX >> 4 || newZ >> 4 != curZ >> 4) && !ctx.isLoaded(newX, newZ)) {
+                    continue;
+                }
+                if (curY + moves.yOffset > maxY || curY + moves.yOffset < minY) {
+                    continue;
+                }
+                res.reset();
+                moves.apply(ctx, curX, curY, curZ, res);
+                double actionCost = res.cost;
+                if (actionCost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                    throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+                }
+                actionCost = ctx.calibrate(moves, res.x, res.y, res.z, actionCost);
+                actionCost += ctx.threatCost(res.x, res.z);
+                Message message = new Message(res.x, res.y, res.z, curCost + actionCost, curHash, moves.ordinal());
+                int owner = ownerOf(PathNode.longHash(res.x, res.y, res.z));
+                if (owner == id) {
+                    receive(message);
+                } else {
+                    work.incrementAndGet();
+                    workers[owner].inbox.add(message);
+                    sent++;
+                }
+            }
+        }
+
+        private void updateBestSoFar(int node, double cost) {
+            double estimatedCostToGoal = store.estimatedCostToGoal[node];
+            for (int i = 0; i < PathFinder.COEFFICIENTS.length; i++) {
+                double heuristic = estimatedCostToGoal + cost / PathFinder.COEFFICIENTS[i];
+                if (bestHeuristicSoFar[i] - heuristic > PathFinder.MIN_IMPROVEMENT) {
+                    bestHeuristicSoFar[i] = heuristic;
+                    bestSoFar[i] = node;
+                    if (!progress && (store.x[node] != startX || store.y[node] != startY
+                            || store.z[node] != startZ)) {
+                        progress = true;
+                    }
+                }
+            }
+        }
+    }
+}
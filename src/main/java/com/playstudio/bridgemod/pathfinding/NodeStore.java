@@ -0,0 +1,329 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays node storage for the A* search.
+ *
+ * Replaces one PathNode object per visited position with parallel primitive arrays
+ * indexed by an int node id. Positions are looked up through a long→int open-addressing
+ * table keyed by PathNode.longHash, so a search allocates nothing per node: the arrays
+ * only grow (by doubling) when the search outgrows them.
+ *
+ * PathNode objects are only materialized for the final path (see PathFinder.reconstructPath).
+ * bot_nodestore_benchmark replays a recorded search against this store and against the
+ * PathNode object store it replaced (NodeStoreTrace).
+ *
+ * Stores are pooled (see SearchArena) and cleared in O(1) between searches:
+ * every table slot carries a generation stamp, and a slot only counts as occupied
+ * when its stamp equals the current generation. clear() just bumps the generation,
+ * so the grown arrays are reused without being wiped.
+ *
+ * Not thread-safe: one store belongs to one search at a time.
+ */
+public final class NodeStore {
+
+    public static final int NO_NODE = -1;
+
+    static final int INITIAL_NODES = 4096;
+    private static final Moves[] MOVES = Moves.values();
+
+    // Per-node data (index = node id)
+    public int[] x;
+    public int[] y;
+    public int[] z;
+    /** Total cost of getting from start to here (COST_INF until relaxed). */
+    public double[] cost;
+    /** Should always be equal to estimatedCostToGoal + cost. */
+    public double[] combinedCost;
+    /** Cached goal.heuristic(x, y, z) × heuristicScale. */
+    public double[] estimatedCostToGoal;
+    /** Node id of the node that contributed to cost, or NO_NODE. */
+    public int[] previous;
+    /** Ordinal of the Moves constant that led here, or -1 for the start node. */
+    public byte[] moveType;
+    /** Position in the binary heap array, or -1 when not in the open set. */
+    public int[] heapPosition;
+    /**
+     * Set when this node, as a parent, has a successor whose best parent is some other node.
+     * Only such nodes can lose successors when the tree is re-rooted (see SearchSession.resume).
+     */
+    public boolean[] sharedSuccessor;
+    /** Set when a successor of this node was pruned from the store (PathFinder.prune). */
+    public boolean[] prunedSuccessor;
+
+    private int size;
+    // Multiplier on goal.heuristic (the context's calibration, see setHeuristicScale)
+    private double heuristicScale = 1.0;
+
+    // Open-addressing table: longHash → node id.
+    // A slot is occupied only if slotGeneration[slot] == generation.
+    private long[] slotKey;
+    private int[] slotValue;
+    private int[] slotGeneration;
+    private int generation = 1;
+    private int mask;
+
+    public NodeStore() {
+        this(INITIAL_NODES);
+    }
+
+    public NodeStore(int expectedNodes) {
+        int capacity = capacityFor(expectedNodes);
+        allocateNodes(capacity);
+        allocateTable(capacity << 1);
+    }
+
+    private static int capacityFor(int expectedNodes) {
+        return Math.max(16, Integer.highestOneBit(Math.max(expectedNodes, 16) - 1) << 1);
+    }
+
+    private void allocateNodes(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        z = new int[capacity];
+        cost = new double[capacity];
+        combinedCost = new double[capacity];
+        estimatedCostToGoal = new double[capacity];
+        previous = new int[capacity];
+        moveType = new byte[capacity];
+        heapPosition = new int[capacity];
+        sharedSuccessor = new boolean[capacity];
+        prunedSuccessor = new boolean[capacity];
+    }
+
+    private void allocateTable(int tableSize) {
+        slotKey = new long[tableSize];
+        slotValue = new int[tableSize];
+        slotGeneration = new int[tableSize];
+        generation = 1;
+        mask = tableSize - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Number of nodes the arrays can hold before growing. */
+    public int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Forget all nodes in O(1), keeping the grown arrays.
+     * Node slots are overwritten on creation, so only the table needs invalidating.
+     */
+    public void clear() {
+        size = 0;
+        heuristicScale = 1.0;
+        if (++generation == 0) {
+            // Wrapped after 2^32 searches: stale stamps could match again, wipe once
+            Arrays.fill(slotGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Release memory grown by an unusually large search.
+     * Drops back to the default capacity if the store holds room for more than maxNodes.
+     *
+     * @return true if the store was shrunk
+     */
+    public boolean trim(int maxNodes) {
+        if (x.length <= maxNodes) {
+            return false;
+        }
+        size = 0;
+        allocateNodes(INITIAL_NODES);
+        allocateTable(INITIAL_NODES << 1);
+        return true;
+    }
+
+    /**
+     * Keep only the nodes with keep[id] set, renumbering them densely (in id order).
+     * previous links are remapped; links to dropped nodes become NO_NODE.
+     * All other per-node data, including heapPosition, is copied unchanged, so callers
+     * must rebuild any open set that referenced the old ids.
+     *
+     * @return mapping from old id to new id (NO_NODE for dropped nodes)
+     */
+    public int[] compact(boolean[] keep) {
+        int oldSize = size;
+        int[] remap = new int[oldSize];
+        int newSize = 0;
+        for (int id = 0; id < oldSize; id++) {
+            remap[id] = keep[id] ? newSize++ : NO_NODE;
+        }
+        clear();
+        for (int id = 0; id < oldSize; id++) {
+            int to = remap[id];
+            if (to == NO_NODE) continue;
+            // to <= id, so moving down never overwrites a node that is still to be read
+            x[to] = x[id];
+            y[to] = y[id];
+            z[to] = z[id];
+            cost[to] = cost[id];
+            combinedCost[to] = combinedCost[id];
+            estimatedCostToGoal[to] = estimatedCostToGoal[id];
+            previous[to] = previous[id] == NO_NODE ? NO_NODE : remap[previous[id]];
+            moveType[to] = moveType[id];
+            heapPosition[to] = heapPosition[id];
+            sharedSuccessor[to] = sharedSuccessor[id];
+            prunedSuccessor[to] = prunedSuccessor[id];
+
+            long hashCode = PathNode.longHash(x[to], y[to], z[to]);
+            int slot = slot(hashCode);
+            while (slotGeneration[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            slotKey[slot] = hashCode;
+            slotValue[slot] = to;
+            slotGeneration[slot] = generation;
+        }
+        size = newSize;
+        return remap;
+    }
+
+    /**
+     * Scale the heuristic of nodes created from now on (CalculationContext.heuristicScale),
+     * so it stays below the calibrated cost of reaching the goal. Reset to 1 by clear().
+     */
+    public void setHeuristicScale(double heuristicScale) {
+        this.heuristicScale = heuristicScale;
+    }
+
+    public double getHeuristicScale() {
+        return heuristicScale;
+    }
+
+    /**
+     * Get or create the node at the given position.
+     * Equivalent to Baritone's AbstractNodeCostSearch.getNodeAtPosition(), returning an id.
+     */
+    public int getOrCreate(int nx, int ny, int nz, long hashCode, Goal goal) {
+        int slot = slot(hashCode);
+        while (slotGeneration[slot] == generation) {
+            if (slotKey[slot] == hashCode) {
+                return slotValue[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        double heuristic = goal.heuristic(nx, ny, nz);
+        if (Double.isNaN(heuristic)) {
+            throw new IllegalStateException(goal + " calculated implausible heuristic");
+        }
+        if (size == x.length) {
+            growNodes();
+        }
+        int id = size++;
+        x[id] = nx;
+        y[id] = ny;
+        z[id] = nz;
+        cost[id] = ActionCosts.COST_INF;
+        combinedCost[id] = ActionCosts.COST_INF;
+        estimatedCostToGoal[id] = heuristic * heuristicScale;
+        previous[id] = NO_NODE;
+        moveType[id] = -1;
+        heapPosition[id] = -1;
+        sharedSuccessor[id] = false;
+        prunedSuccessor[id] = false;
+        slotKey[slot] = hashCode;
+        slotValue[slot] = id;
+        slotGeneration[slot] = generation;
+        // Keep the table at most half full: linear probing degrades quickly past that
+        if (size << 1 > mask) {
+            rehash(slotKey.length << 1);
+        }
+        return id;
+    }
+
+    /**
+     * Look up an existing node without creating it.
+     *
+     * @return node id, or NO_NODE if the position was never visited
+     */
+    public int find(long hashCode) {
+        int slot = slot(hashCode);
+        while (slotGeneration[slot] == generation) {
+            if (slotKey[slot] == hashCode) {
+                return slotValue[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_NODE;
+    }
+
+    public boolean isOpen(int node) {
+        return heapPosition[node] != -1;
+    }
+
+    /** The Moves constant that led to this node, or null for the start node. */
+    public Moves getMoveType(int node) {
+        int ordinal = moveType[node];
+        return ordinal < 0 ? null : MOVES[ordinal];
+    }
+
+    public void setMoveType(int node, Moves move) {
+        moveType[node] = (byte) move.ordinal();
+    }
+
+    /** Approximate retained size in bytes (node arrays + hash table). */
+    public long footprintBytes() {
+        long perNode = 4L * 3 + 8L * 3 + 4 + 1 + 4 + 1 + 1;
+        return perNode * x.length + 16L * slotKey.length;
+    }
+
+    private int slot(long hashCode) {
+        return (int) mix(hashCode) & mask;
+    }
+
+    /**
+     * longHash is a polynomial hash: nearby positions produce nearby values, so the low bits
+     * alone would cluster. Finalize with the MurmurHash3 64-bit mixer before masking.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void growNodes() {
+        int capacity = x.length << 1;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        cost = Arrays.copyOf(cost, capacity);
+        combinedCost = Arrays.copyOf(combinedCost, capacity);
+        estimatedCostToGoal = Arrays.copyOf(estimatedCostToGoal, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        moveType = Arrays.copyOf(moveType, capacity);
+        heapPosition = Arrays.copyOf(heapPosition, capacity);
+        sharedSuccessor = Arrays.copyOf(sharedSuccessor, capacity);
+        prunedSuccessor = Arrays.copyOf(prunedSuccessor, capacity);
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = slotKey;
+        int[] oldValues = slotValue;
+        int[] oldGenerations = slotGeneration;
+        int oldGeneration = generation;
+        allocateTable(tableSize);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldGenerations[i] != oldGeneration) continue;
+            long key = oldKeys[i];
+            int slot = slot(key);
+            while (slotGeneration[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            slotKey[slot] = key;
+            slotValue[slot] = oldValues[i];
+            slotGeneration[slot] = generation;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * The node bookkeeping of one real search (every expansion, and every relaxation with the
+ * tentative cost it offered), recorded so it can be replayed against the current NodeStore
+ * and against the PathNode object store it replaced (bot_nodestore_benchmark).
+ *
+ * A replay does exactly what the search did to its nodes, without the move cost calculations
+ * (identical for both stores): look up or create the node, lower its cost and parent, insert
+ * or update it in the open set, and pop the lowest node at each expansion.
+ *   - ARRAYS: NodeStore + BinaryHeapOpenSet over int ids (PathFinder today)
+ *   - OBJECTS: Long2ObjectOpenHashMap of PathNode objects + a PathNode binary heap, as
+ *     PathFinder stored nodes before NodeStore
+ *
+ * Recording stops after MAX_EVENTS events; replaying a truncated trace replays its prefix.
+ */
+public final class NodeStoreTrace {
+
+    private static final int MAX_EVENTS = 1 << 21;
+    // cost of an expansion event (relaxations offer costs >= 0)
+    private static final double EXPAND = -1;
+
+    public enum Kind { ARRAYS, OBJECTS }
+
+    /** Outcome of replaying the trace against one store. */
+    public static final class Replay {
+        public final Kind kind;
+        /** Fastest repetition, in nanoseconds per event. */
+        public final double bestNanosPerEvent;
+        /** Bytes the replaying thread allocated in that repetition, or -1 if not measurable. */
+        public final long allocatedBytes;
+        /** Expansions that popped a node other than the recorded one, summed over repetitions. */
+        public final long mismatches;
+
+        Replay(Kind kind, double bestNanosPerEvent, long allocatedBytes, long mismatches) {
+            this.kind = kind;
+            this.bestNanosPerEvent = bestNanosPerEvent;
+            this.allocatedBytes = allocatedBytes;
+            this.mismatches = mismatches;
+        }
+    }
+
+    private final Goal goal;
+    private int[] xs = new int[4096];
+    private int[] ys = new int[4096];
+    private int[] zs = new int[4096];
+    private double[] costs = new double[4096];
+    private int size;
+    private int expansions;
+    private boolean truncated;
+
+    public NodeStoreTrace(Goal goal) {
+        this.goal = goal;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** The search popped (x, y, z) from its open set. */
+    void expand(int x, int y, int z) {
+        if (add(x, y, z, EXPAND)) {
+            expansions++;
+        }
+    }
+
+    /** The search offered (x, y, z) the tentative cost from the node expanded last. */
+    void relax(int x, int y, int z, double tentativeCost) {
+        add(x, y, z, tentativeCost);
+    }
+
+    /**
+     * Replay the trace repetitions times against one store. ARRAYS keeps its store and open
+     * set across repetitions (cleared, so its arrays are already grown after the first, as with
+     * a SearchArena); OBJECTS starts every repetition with a new map, as each search did.
+     */
+    public Replay replay(Kind kind, int repetitions) {
+        NodeStore store = new NodeStore();
+        BinaryHeapOpenSet heap = new BinaryHeapOpenSet(store);
+        long best = Long.MAX_VALUE;
+        long bestAllocated = -1;
+        long mismatches = 0;
+        for (int rep = 0; rep < Math.max(1, repetitions); rep++) {
+            long allocatedBefore = threadAllocatedBytes();
+            long start = System.nanoTime();
+            mismatches += kind == Kind.ARRAYS ? replayArrays(store, heap) : replayObjects();
+            long elapsed = System.nanoTime() - start;
+            long allocatedAfter = threadAllocatedBytes();
+            if (elapsed < best) {
+                best = elapsed;
+                bestAllocated = allocatedBefore >= 0 && allocatedAfter >= 0 ? allocatedAfter - allocatedBefore : -1;
+            }
+        }
+        return new Replay(kind, size == 0 ? 0 : best / (double) size, bestAllocated, mismatches);
+    }
+
+    private long replayArrays(NodeStore store, BinaryHeapOpenSet heap) {
+        store.clear();
+        heap.clear();
+        long mismatches = 0;
+        int current = NodeStore.NO_NODE;
+        for (int i = 0; i < size; i++) {
+            int x = xs[i], y = ys[i], z = zs[i];
+            if (costs[i] == EXPAND) {
+                if (heap.isEmpty()) {
+                    mismatches++;
+                    continue;
+                }
+                current = heap.removeLowest();
+                if (store.x[current] != x || store.y[current] != y || store.z[current] != z) {
+                    mismatches++;
+                }
+                continue;
+            }
+            int node = store.getOrCreate(x, y, z, PathNode.longHash(x, y, z), goal);
+            double tentativeCost = costs[i];
+            if (store.cost[node] - tentativeCost > PathFinder.MIN_IMPROVEMENT) {
+                store.previous[node] = current;
+                store.cost[node] = tentativeCost;
+                store.combinedCost[node] = tentativeCost + store.estimatedCostToGoal[node];
+                if (store.isOpen(node)) {
+                    heap.update(node);
+                } else {
+                    heap.insert(node);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private long replayObjects() {
+        Long2ObjectOpenHashMap<PathNode> map = new Long2ObjectOpenHashMap<>(4096, 0.75f);
+        ObjectHeap heap = new ObjectHeap();
+        long mismatches = 0;
+        PathNode current = null;
+        for (int i = 0; i < size; i++) {
+            int x = xs[i], y = ys[i], z = zs[i];
+            if (costs[i] == EXPAND) {
+                if (heap.isEmpty()) {
+                    mismatches++;
+                    continue;
+                }
+                current = heap.removeLowest();
+                if (current.x != x || current.y != y || current.z != z) {
+                    mismatches++;
+                }
+                continue;
+            }
+            long hashCode = PathNode.longHash(x, y, z);
+            PathNode node = map.get(hashCode);
+            if (node == null) {
+                node = new PathNode(x, y, z, goal);
+                map.put(hashCode, node);
+            }
+            double tentativeCost = costs[i];
+            if (node.cost - tentativeCost > PathFinder.MIN_IMPROVEMENT) {
+                node.previous = current;
+                node.cost = tentativeCost;
+                node.combinedCost = tentativeCost + node.estimatedCostToGoal;
+                if (node.isOpen()) {
+                    heap.update(node);
+                } else {
+                    heap.insert(node);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private boolean add(int x, int y, int z, double cost) {
+        if (size == MAX_EVENTS) {
+            truncated = true;
+            return false;
+        }
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size << 1);
+            ys = Arrays.copyOf(ys, size << 1);
+            zs = Arrays.copyOf(zs, size << 1);
+            costs = Arrays.copyOf(costs, size << 1);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        zs[size] = z;
+        costs[size] = cost;
+        size++;
+        return true;
+    }
+
+    private static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+            return sunBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * The binary heap over PathNode objects that PathFinder used before NodeStore
+     * (Baritone's BinaryHeapOpenSet), kept only as the replay baseline.
+     */
+    private static final class ObjectHeap {
+        private PathNode[] array = new PathNode[1024];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void insert(PathNode value) {
+            if (size >= array.length - 1) {
+                array = Arrays.copyOf(array, array.length << 1);
+            }
+            size++;
+            value.heapPosition = size;
+            array[size] = value;
+            update(value);
+        }
+
+        void update(PathNode val) {
+            int index = val.heapPosition;
+            int parentInd = index >>> 1;
+            double cost = val.combinedCost;
+            PathNode parentNode = array[parentInd];
+            while (index > 1 && parentNode.combinedCost > cost) {
+                array[index] = parentNode;
+                array[parentInd] = val;
+                val.heapPosition = parentInd;
+                parentNode.heapPosition = index;
+                index = parentInd;
+                parentInd = index >>> 1;
+                parentNode = array[parentInd];
+            }
+        }
+
+        PathNode removeLowest() {
+            PathNode result = array[1];
+            PathNode val = array[size];
+            array[1] = val;
+            val.heapPosition = 1;
+            array[size] = null;
+            size--;
+            result.heapPosition = -1;
+            if (size < 2) {
+                return result;
+            }
+            int index = 1;
+            int smallerChild = 2;
+            double cost = val.combinedCost;
+            do {
+                PathNode smallerChildNode = array[smallerChild];
+                double smallerChildCost = smallerChildNode.combinedCost;
+                if (smallerChild < size) {
+                    PathNode rightChildNode = array[smallerChild + 1];
+                    double rightChildCost = rightChildNode.combinedCost;
+                    if (smallerChildCost > rightChildCost) {
+                        smallerChild++;
+                        smallerChildCost = rightChildCost;
+                        smallerChildNode = rightChildNode;
+                    }
+                }
+                if (cost <= smallerChildCost) {
+                    break;
+                }
+                array[index] = smallerChildNode;
+                array[smallerChild] = val;
+                val.heapPosition = smallerChild;
+                smallerChildNode.heapPosition = index;
+                index = smallerChild;
+            } while ((smallerChild <<= 1) <= size);
+            return result;
+        }
+    }
+}
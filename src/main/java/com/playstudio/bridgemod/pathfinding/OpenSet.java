@@ -0,0 +1,55 @@
+package com.playstudio.bridgemod.pathfinding;
+
+/**
+ * The A* open set over node ids of a NodeStore, ordered by the store's combinedCost.
+ *
+ * Implementations mark open nodes through store.heapPosition (anything but -1 while open,
+ * -1 once removed), which NodeStore.isOpen() and SearchSession rely on. update() must be
+ * called after a node's combinedCost decreased.
+ *
+ * BinaryHeapOpenSet is the default. -Dcraftai.pathfinding.openSet=bucket switches every
+ * search to BucketOpenSet, for comparing the two (bot_openset_benchmark replays a recorded
+ * search against both).
+ */
+public interface OpenSet {
+
+    enum Kind {
+        HEAP,
+        BUCKET;
+
+        static final Kind DEFAULT = "bucket".equalsIgnoreCase(System.getProperty("craftai.pathfinding.openSet"))
+                ? BUCKET : HEAP;
+
+        public OpenSet create(NodeStore store) {
+            return this == BUCKET ? new BucketOpenSet(store) : new BinaryHeapOpenSet(store);
+        }
+    }
+
+    /** An open set of the configured kind. */
+    static OpenSet create(NodeStore store) {
+        return Kind.DEFAULT.create(store);
+    }
+
+    int size();
+
+    /** Empty the set, keeping grown arrays. */
+    void clear();
+
+    /** Current slot capacity, used by SearchArena to decide when to trim. */
+    int capacity();
+
+    /** Drop back to the default size if grown past maxSize (the set is then empty). */
+    boolean trim(int maxSize);
+
+    void insert(int node);
+
+    /** Restore the order after node's combinedCost decreased. */
+    void update(int node);
+
+    boolean isEmpty();
+
+    /** The node removeLowest() would return, without removing it. */
+    int peekLowest();
+
+    int removeLowest();
+}
@@ -0,0 +1,182 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The open-set operations of one real search (insert, update and removeLowest, with the key
+ * each one saw), recorded so they can be replayed against every OpenSet.Kind on identical
+ * input (bot_openset_benchmark).
+ *
+ * Recording stops after MAX_OPS operations; replaying a truncated trace replays its prefix.
+ * Keys are stored as floats, so a replay orders by the float keys, the same for every kind.
+ */
+public final class OpenSetTrace {
+
+    private static final int MAX_OPS = 1 << 22;
+
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int REMOVE = 2;
+    private static final int NODE_BITS = 30;
+    private static final int NODE_MASK = (1 << NODE_BITS) - 1;
+
+    /** Outcome of replaying the trace against one kind. */
+    public static final class Replay {
+        public final OpenSet.Kind kind;
+        /** Fastest repetition, in nanoseconds per operation. */
+        public final double bestNanosPerOp;
+        /** Removals that returned a key different from the recorded one, summed over repetitions. */
+        public final long mismatches;
+
+        Replay(OpenSet.Kind kind, double bestNanosPerOp, long mismatches) {
+            this.kind = kind;
+            this.bestNanosPerOp = bestNanosPerOp;
+            this.mismatches = mismatches;
+        }
+    }
+
+    // Operation in the top two bits, node id in the rest
+    private int[] ops = new int[4096];
+    private float[] keys = new float[4096];
+    private int size;
+    private int maxNode = -1;
+    private int peakOpen;
+    private boolean truncated;
+
+    /** Wrap target so that every operation on it is also recorded here. */
+    OpenSet record(NodeStore store, OpenSet target) {
+        return new Recorder(store, target);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Largest number of nodes open at once during the recorded search. */
+    public int getPeakOpen() {
+        return peakOpen;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Replay the trace repetitions times on one open set of this kind over a fresh store
+     * (cleared between repetitions, so its arrays are already grown after the first).
+     */
+    public Replay replay(OpenSet.Kind kind, int repetitions) {
+        NodeStore store = new NodeStore(maxNode + 1);
+        double[] combinedCost = store.combinedCost;
+        int[] heapPosition = store.heapPosition;
+        OpenSet set = kind.create(store);
+        long best = Long.MAX_VALUE;
+        long mismatches = 0;
+        for (int rep = 0; rep < Math.max(1, repetitions); rep++) {
+            set.clear();
+            Arrays.fill(heapPosition, 0, maxNode + 1, -1);
+            long start = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                int op = ops[i] >>> NODE_BITS;
+                int node = ops[i] & NODE_MASK;
+                if (op == REMOVE) {
+                    if (set.isEmpty()) {
+                        mismatches++;
+                        continue;
+                    }
+                    if ((float) combinedCost[set.removeLowest()] != keys[i]) {
+                        mismatches++;
+                    }
+                } else {
+                    combinedCost[node] = keys[i];
+                    // After a tie was broken differently, a node can still be open (or already
+                    // closed) here when the recorded search saw the opposite
+                    if (heapPosition[node] != -1) {
+                        set.update(node);
+                    } else {
+                        set.insert(node);
+                    }
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return new Replay(kind, size == 0 ? 0 : best / (double) size, mismatches);
+    }
+
+    private void add(int op, int node, double key) {
+        if (size == MAX_OPS) {
+            truncated = true;
+            return;
+        }
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size << 1);
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        ops[size] = (op << NODE_BITS) | node;
+        keys[size] = (float) key;
+        size++;
+        if (node > maxNode) {
+            maxNode = node;
+        }
+    }
+
+    private final class Recorder implements OpenSet {
+        private final NodeStore store;
+        private final OpenSet target;
+
+        Recorder(NodeStore store, OpenSet target) {
+            this.store = store;
+            this.target = target;
+        }
+
+        @Override
+        public int size() {
+            return target.size();
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+        }
+
+        @Override
+        public int capacity() {
+            return target.capacity();
+        }
+
+        @Override
+        public boolean trim(int maxSize) {
+            return target.trim(maxSize);
+        }
+
+        @Override
+        public void insert(int node) {
+            add(INSERT, node, store.combinedCost[node]);
+            target.insert(node);
+            peakOpen = Math.max(peakOpen, target.size());
+        }
+
+        @Override
+        public void update(int node) {
+            add(UPDATE, node, store.combinedCost[node]);
+            target.update(node);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return target.isEmpty();
+        }
+
+        @Override
+        public int peekLowest() {
+            return target.peekLowest();
+        }
+
+        @Override
+        public int removeLowest() {
+            int node = target.removeLowest();
+            add(REMOVE, node, store.combinedCost[node]);
+            return node;
+        }
+    }
+}
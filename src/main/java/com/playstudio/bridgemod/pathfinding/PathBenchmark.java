@@ -0,0 +1,261 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.goals.GoalBlock;
+import com.playstudio.bridgemod.pathfinding.goals.GoalNear;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the same search with single-threaded PathFinder and with HdaSearch at several
+ * thread counts, over one chunk snapshot, and reports time, nodes and speedup
+ * (bot_path_benchmark).
+ *
+ * Every run gets a fresh CalculationContext.fork(), so none of them profits from another's
+ * hot-cache or mining cost table. The baseline is unidirectional, like HdaSearch.
+ *
+ * replan() benchmarks pursuit replanning instead (bot_replan_benchmark): a target moving a
+ * fixed step per replan, searched from scratch each time versus resumed through a SearchSession.
+ *
+ * openSets() benchmarks the open set implementations (bot_openset_benchmark): one real search
+ * is recorded as an OpenSetTrace and replayed against every OpenSet.Kind.
+ *
+ * nodeStores() benchmarks NodeStore against the PathNode object store it replaced
+ * (bot_nodestore_benchmark): one real search is recorded as a NodeStoreTrace and replayed
+ * against both.
+ */
+public final class PathBenchmark {
+
+    /** Outcome of one run. */
+    public static final class Run {
+        public final String engine;
+        public final int threads;
+        public final PathFinder.PathResult result;
+        /** Baseline time / this run's time (1 for the baseline). */
+        public final double speedup;
+
+        Run(String engine, int threads, PathFinder.PathResult result, double speedup) {
+            this.engine = engine;
+            this.threads = threads;
+            this.result = result;
+            this.speedup = speedup;
+        }
+
+        public double pathCost() {
+            return result.path.isEmpty() ? 0 : result.path.get(result.path.size() - 1).cost;
+        }
+    }
+
+    /** One replan of replan(): the same search from scratch and resumed. */
+    public static final class ReplanStep {
+        public final int targetX, targetY, targetZ;
+        public final PathFinder.PathResult full;
+        public final PathFinder.PathResult incremental;
+        /** Wall time of each search in microseconds (PathResult.timeMs is too coarse here). */
+        public final long fullMicros;
+        public final long incrementalMicros;
+
+        ReplanStep(int targetX, int targetY, int targetZ, PathFinder.PathResult full, long fullMicros,
+                   PathFinder.PathResult incremental, long incrementalMicros) {
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.targetZ = targetZ;
+            this.full = full;
+            this.fullMicros = fullMicros;
+            this.incremental = incremental;
+            this.incrementalMicros = incrementalMicros;
+        }
+
+        public static double pathCost(PathFinder.PathResult result) {
+            return result.path.isEmpty() ? 0 : result.path.get(result.path.size() - 1).cost;
+        }
+    }
+
+    /** Result of openSets(): the recorded search and one replay per OpenSet.Kind. */
+    public static final class OpenSetRun {
+        public final PathFinder.PathResult search;
+        public final OpenSetTrace trace;
+        public final List<OpenSetTrace.Replay> replays;
+
+        OpenSetRun(PathFinder.PathResult search, OpenSetTrace trace, List<OpenSetTrace.Replay> replays) {
+            this.search = search;
+            this.trace = trace;
+            this.replays = replays;
+        }
+    }
+
+    /** Result of nodeStores(): the recorded search and one replay per NodeStoreTrace.Kind. */
+    public static final class NodeStoreRun {
+        public final PathFinder.PathResult search;
+        public final NodeStoreTrace trace;
+        public final List<NodeStoreTrace.Replay> replays;
+
+        NodeStoreRun(PathFinder.PathResult search, NodeStoreTrace trace, List<NodeStoreTrace.Replay> replays) {
+            this.search = search;
+            this.trace = trace;
+            this.replays = replays;
+        }
+    }
+
+    private PathBenchmark() {}
+
+    /**
+     * @param ctx context with the corridor already cached (server thread); only forks are searched
+     */
+    public static List<Run> run(int startX, int startY, int startZ, Goal goal, CalculationContext ctx,
+                                int[] threadCounts, CancellationToken token) {
+        List<Run> runs = new ArrayList<>();
+        PathFinder baseline = new PathFinder(startX, startY, startZ, goal, ctx.fork());
+        baseline.setBidirectional(false);
+        baseline.setCancellationToken(token);
+        PathFinder.PathResult base = baseline.calculate();
+        runs.add(new Run("astar", 1, base, 1.0));
+
+        for (int threads : threadCounts) {
+            if (token.isCancelled()) {
+                break;
+            }
+            HdaSearch hda = new HdaSearch(startX, startY, startZ, goal, ctx.fork(), threads);
+            PathFinder.PathResult result = hda.calculate(token);
+            runs.add(new Run("hda", threads, result,
+                    Math.max(1, base.timeMs) / (double) Math.max(1, result.timeMs)));
+        }
+
+        StringBuilder summary = new StringBuilder();
+        for (Run run : runs) {
+            summary.append(String.format(" %s/%d: %dms %d nodes%s x%.2f;", run.engine, run.threads,
+                    run.result.timeMs, run.result.nodesExplored, run.result.reachedGoal ? "" : " (partial)",
+                    run.speedup));
+        }
+        BridgeMod.LOGGER.info("PathBenchmark {}:{}", goal, summary);
+        return runs;
+    }
+
+    /**
+     * Pursue a target starting at (targetX, targetY, targetZ) and moving (stepX, stepZ) per replan,
+     * for steps + 1 searches. Each step searches towards GoalNear(target, range) once from scratch
+     * and once through a SearchSession that carries the previous step's tree. Between steps the
+     * start advances `advance` nodes along the incremental path, as the bot would while walking.
+     * Both engines are unidirectional; the first step is cold for both.
+     *
+     * @param ctx context with the corridor already cached (server thread); only forks are searched
+     */
+    public static List<ReplanStep> replan(int startX, int startY, int startZ,
+                                          int targetX, int targetY, int targetZ, int stepX, int stepZ,
+                                          int range, int steps, int advance,
+                                          CalculationContext ctx, CancellationToken token) {
+        List<ReplanStep> results = new ArrayList<>();
+        SearchSession session = new SearchSession();
+        int x = startX, y = startY, z = startZ;
+        for (int step = 0; step <= steps && !token.isCancelled(); step++) {
+            int tx = targetX + step * stepX;
+            int tz = targetZ + step * stepZ;
+            Goal goal = range <= 1 ? new GoalBlock(tx, targetY, tz) : new GoalNear(tx, targetY, tz, range);
+
+            PathFinder fullFinder = new PathFinder(x, y, z, goal, ctx.fork());
+            fullFinder.setBidirectional(false);
+            fullFinder.setCancellationToken(token);
+            long begin = System.nanoTime();
+            PathFinder.PathResult full = fullFinder.calculate();
+            long fullMicros = (System.nanoTime() - begin) / 1000;
+
+            PathFinder incrementalFinder = new PathFinder(x, y, z, goal, ctx.fork(), session);
+            incrementalFinder.setBidirectional(false);
+            incrementalFinder.setCancellationToken(token);
+            begin = System.nanoTime();
+            PathFinder.PathResult incremental = incrementalFinder.calculate();
+            long incrementalMicros = (System.nanoTime() - begin) / 1000;
+
+            results.add(new ReplanStep(tx, targetY, tz, full, fullMicros, incremental, incrementalMicros));
+            if (!incremental.path.isEmpty()) {
+                PathNode next = incremental.path.get(Math.min(advance, incremental.path.size() - 1));
+                x = next.x;
+                y = next.y;
+                z = next.z;
+            }
+        }
+
+        long fullTotal = 0, incrementalTotal = 0;
+        long fullNodes = 0, incrementalNodes = 0;
+        int costMismatches = 0;
+        for (ReplanStep step : results) {
+            fullTotal += step.fullMicros;
+            incrementalTotal += step.incrementalMicros;
+            fullNodes += step.full.nodesExplored;
+            incrementalNodes += step.incremental.nodesExplored;
+            if (step.full.reachedGoal != step.incremental.reachedGoal
+                    || Math.abs(ReplanStep.pathCost(step.full) - ReplanStep.pathCost(step.incremental)) > 1e-6) {
+                costMismatches++;
+            }
+        }
+        BridgeMod.LOGGER.info("PathBenchmark replan: {} steps, full {}us / {} nodes, incremental {}us / {} nodes, "
+                        + "{} steps with a different result",
+                results.size(), fullTotal, fullNodes, incrementalTotal, incrementalNodes, costMismatches);
+        return results;
+    }
+
+    /**
+     * Record the open set operations of one unidirectional search (with the configured
+     * OpenSet.Kind) and replay them repetitions times against every kind. Replays run on
+     * this thread, back to back, on identical input.
+     *
+     * @param ctx context with the corridor already cached (server thread); only a fork is searched
+     */
+    public static OpenSetRun openSets(int startX, int startY, int startZ, Goal goal, CalculationContext ctx,
+                                      int repetitions, CancellationToken token) {
+        OpenSetTrace trace = new OpenSetTrace();
+        PathFinder finder = new PathFinder(startX, startY, startZ, goal, ctx.fork());
+        finder.setBidirectional(false);
+        finder.setCancellationToken(token);
+        finder.setOpenSetTrace(trace);
+        PathFinder.PathResult search = finder.calculate();
+
+        List<OpenSetTrace.Replay> replays = new ArrayList<>();
+        StringBuilder summary = new StringBuilder();
+        for (OpenSet.Kind kind : OpenSet.Kind.values()) {
+            if (token.isCancelled()) {
+                break;
+            }
+            OpenSetTrace.Replay replay = trace.replay(kind, repetitions);
+            replays.add(replay);
+            summary.append(String.format(" %s: %.1fns/op, %d mismatches;", kind, replay.bestNanosPerOp,
+                    replay.mismatches));
+        }
+        BridgeMod.LOGGER.info("PathBenchmark open sets {}: {} ops, peak {} open{}:{}", goal, trace.size(),
+                trace.getPeakOpen(), trace.isTruncated() ? " (truncated)" : "", summary);
+        return new OpenSetRun(search, trace, replays);
+    }
+
+    /**
+     * Record the node bookkeeping of one unidirectional search and replay it repetitions times
+     * against each NodeStoreTrace.Kind, on this thread, back to back, on identical input.
+     *
+     * @param ctx context with the corridor already cached (server thread); only a fork is searched
+     */
+    public static NodeStoreRun nodeStores(int startX, int startY, int startZ, Goal goal, CalculationContext ctx,
+                                          int repetitions, CancellationToken token) {
+        NodeStoreTrace trace = new NodeStoreTrace(goal);
+        PathFinder finder = new PathFinder(startX, startY, startZ, goal, ctx.fork());
+        finder.setBidirectional(false);
+        finder.setCancellationToken(token);
+        finder.setNodeStoreTrace(trace);
+        PathFinder.PathResult search = finder.calculate();
+
+        List<NodeStoreTrace.Replay> replays = new ArrayList<>();
+        StringBuilder summary = new StringBuilder();
+        for (NodeStoreTrace.Kind kind : NodeStoreTrace.Kind.values()) {
+            if (token.isCancelled()) {
+                break;
+            }
+            NodeStoreTrace.Replay replay = trace.replay(kind, repetitions);
+            replays.add(replay);
+            summary.append(String.format(" %s: %.1fns/event, %d bytes allocated, %d mismatches;", kind,
+                    replay.bestNanosPerEvent, replay.allocatedBytes, replay.mismatches));
+        }
+        BridgeMod.LOGGER.info("PathBenchmark node stores {}: {} events, {} expansions{}:{}", goal, trace.size(),
+                trace.getExpansions(), trace.isTruncated() ? " (truncated)" : "", summary);
+        return new NodeStoreRun(search, trace, replays);
+    }
+}
@@ -2,6 +2,7 @@ package com.playstudio.bridgemod.pathfinding;
 
 import com.playstudio.bridgemod.BridgeMod;
 import com.playstudio.bridgemod.bot.FakePlayer;
+import com.playstudio.bridgemod.pathfinding.calibration.CostCalibrationManager;
 import com.playstudio.bridgemod.pathfinding.movement.*;
 import com.playstudio.bridgemod.pathfinding.moves.Moves;
 import net.minecraft.core.BlockPos;
@@ -30,6 +31,10 @@ import java.util.List;
  *   (loop, not recursion, to avoid stack overflow)
  * - Forward scan skips from pathPosition+3 onward (not +1 or +2, to let current movement finish)
  * - Stuck detection: both velocity-based (no movement for 40 ticks) and per-movement timeout
+ *
+ * Every movement that completes is reported to CostCalibrationManager with the ticks it took
+ * and its model cost (PathNode.modelCost), except the first of a path (the bot may start
+ * anywhere in its cell) and one the bot was snapped forward onto.
  */
 public class PathExecutor {
 
@@ -40,6 +45,8 @@ public class PathExecutor {
     private int pathPosition = 0;
     private int ticksOnCurrent = 0;
     private int totalTicks = 0;
+    // Movement the bot was snapped forward onto: its ticks don't measure the whole move
+    private int unmeasuredPosition = 0;
 
     // Stuck detection
     private double lastX, lastY, lastZ;
@@ -101,6 +108,7 @@ public class PathExecutor {
                     movements[j].reset();
                 }
                 pathPosition = i;
+                unmeasuredPosition = i;
                 ticksOnCurrent = 0;
                 stuckTicks = 0;
                 break;
@@ -173,6 +181,7 @@ public class PathExecutor {
                 BridgeMod.LOGGER.debug("PathExecutor: movement {}/{} SUCCESS ({} → {})",
                         pathPosition, movements.length,
                         formatPos(movement.getSrc()), formatPos(movement.getDest()));
+                recordTiming();
                 pathPosition++;
                 ticksOnCurrent = 0;
                 stuckTicks = 0;
@@ -202,6 +211,21 @@ public class PathExecutor {
         return Status.IN_PROGRESS;
     }
 
+    /**
+     * Report the movement that just completed (path[pathPosition] → path[pathPosition + 1])
+     * to the cost calibration, if its model cost is known.
+     */
+    private void recordTiming() {
+        if (pathPosition == unmeasuredPosition) {
+            return;
+        }
+        PathNode dest = path.get(pathPosition + 1);
+        if (dest.moveType == null || Double.isNaN(dest.modelCost)) {
+            return;
+        }
+        CostCalibrationManager.getInstance().record(dest.moveType, dest.terrain, dest.modelCost, ticksOnCurrent);
+    }
+
     // ==================== Movement Factory ====================
 
     /**
@@ -2,29 +2,58 @@ package com.playstudio.bridgemod.pathfinding;
 
 import com.playstudio.bridgemod.BridgeMod;
 import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.goals.GoalBlock;
 import com.playstudio.bridgemod.pathfinding.moves.MoveResult;
 import com.playstudio.bridgemod.pathfinding.moves.Moves;
 
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-
+import java.lang.management.ManagementFactory;
 import java.util.*;
 
 /**
  * A* pathfinder.
  * Ported from Baritone's AStarPathFinder + AbstractNodeCostSearch.
  *
- * Uses Long2ObjectOpenHashMap (fastutil, bundled with Minecraft) for node storage.
- * This avoids Long autoboxing that HashMap<Long, PathNode> creates on every lookup,
- * and provides better cache locality via open-addressing.
+ * Node data lives in a NodeStore (struct-of-arrays: x/y/z, cost, combinedCost,
+ * previous id, move ordinal and heap position in parallel primitive arrays, indexed
+ * through a long→int open-addressing table). A search therefore allocates no per-node
+ * objects; PathNodes are only created for the returned path.
+ *
+ * The store and open set come from the calling thread's SearchArena, so consecutive
+ * searches on a worker thread reuse the same grown arrays. With a SearchSession they come
+ * from the session instead, and a search that starts on a node of the previous search's tree
+ * (a lookahead segment, or a pursuit replan after the target moved) resumes that search
+ * (re-rooted and repaired tree, open set, bestSoFar) instead of starting cold.
+ *
+ * For a GoalBlock the search is bidirectional: a second search grows backwards from the goal
+ * in its own store, and each iteration expands the side with the smaller open set.
+ * Backward expansion is a conservative reverse rule rather than reversed cost functions:
+ * for each move it enumerates the cells the move could have started from (fixed offset,
+ * ±1 Y for diagonals, 1..maxFallHeightNoWater drops for descend/downward, 2-4 blocks for
+ * parkour), runs the forward cost function there and keeps the cell only if the move lands
+ * on the node. Every backward edge is therefore a real forward edge with its exact cost;
+ * moves the rule doesn't enumerate (long falls into water, ladder catches) are only found
+ * by the forward side. The searches meet when either side relaxes a node the other has
+ * reached, and stop once the best meeting cost is no higher than the larger of the two
+ * open sets' minimum f (the standard bidirectional A* bound). If they never meet, the
+ * forward side's bestSoFar gives the partial path as usual.
+ *
+ * With a node budget (setNodeBudget) the search is memory-bounded, SMA*-style: whenever the
+ * store reaches the budget, the leaves of the search tree with the highest f are forgotten
+ * until it is back to PRUNE_TARGET of the budget. An open leaf's f is backed up to its parent,
+ * which is reopened with that f and regenerates the leaf if the search comes back to it.
+ * bestSoFar nodes are never pruned, and neither are their ancestors (which are not leaves),
+ * so the partial path of a failing search is still the best one seen. Bounded searches run
+ * unidirectionally.
  */
 public class PathFinder {
 
-    // Timeouts (Baritone uses configurable timeouts, we use fixed defaults)
-    private static final long PRIMARY_TIMEOUT_MS = 2000;
-    private static final long FAILURE_TIMEOUT_MS = 5000;
+    // Timeouts (Baritone uses configurable timeouts, we use fixed defaults). These and the
+    // constants below are shared with HdaSearch
+    static final long PRIMARY_TIMEOUT_MS = 2000;
+    static final long FAILURE_TIMEOUT_MS = 5000;
 
     // bestSoFar coefficients (from Baritone's AbstractNodeCostSearch)
-    private static final double[] COEFFICIENTS = {1.5, 2.0, 2.5, 3.0, 4.0, 5.0, 10.0};
+    static final double[] COEFFICIENTS = {1.5, 2.0, 2.5, 3.0, 4.0, 5.0, 10.0};
 
     // Minimum distance from start for bestSoFar to count as a valid partial path.
     // Set to 0: accept any partial path that makes progress toward the goal.
@@ -35,49 +64,146 @@ public class PathFinder {
     private static final double MIN_DIST_PATH = 0;
 
     // Minimum improvement for node relaxation (Baritone setting)
-    private static final double MIN_IMPROVEMENT = 0.01;
+    static final double MIN_IMPROVEMENT = 0.01;
 
     // Timeout check interval: every 64 nodes (Baritone: 1 << 6)
-    private static final int TIME_CHECK_INTERVAL = 1 << 6;
+    static final int TIME_CHECK_INTERVAL = 1 << 6;
+
+    // Load each node's neighbourhood once before evaluating its moves (CalculationContext
+    // expansion window). -Dcraftai.pathfinding.perMoveExpansion=true reverts to per-move reads
+    // so the two can be compared from the search stats logged below.
+    private static final boolean BATCHED_EXPANSION = !Boolean.getBoolean("craftai.pathfinding.perMoveExpansion");
+
+    // Bidirectional search for GoalBlock goals. -Dcraftai.pathfinding.unidirectional=true turns
+    // it off, for comparing against the plain search (PathResult reports which one ran).
+    private static final boolean BIDIRECTIONAL_DEFAULT = !Boolean.getBoolean("craftai.pathfinding.unidirectional");
+
+    // Node budget of searches started by bots that didn't set their own (0 = unbounded).
+    // -Dcraftai.pathfinding.nodeBudget=N bounds every bot's searches to N nodes
+    public static final int DEFAULT_NODE_BUDGET = Integer.getInteger("craftai.pathfinding.nodeBudget", 0);
+    // Smallest accepted budget: below this a search can't hold a useful frontier
+    public static final int MIN_NODE_BUDGET = 1024;
+    // A full store is pruned back to this fraction of the budget
+    private static final double PRUNE_TARGET = 0.75;
 
     private final int startX, startY, startZ;
     private final Goal goal;
     private final CalculationContext ctx;
 
-    // Node storage (fastutil open-addressing map: no Long autoboxing, better cache locality)
-    private final Long2ObjectOpenHashMap<PathNode> map;
-    private final PathNode[] bestSoFar;
+    // Optional: carry the search tree across lookahead segments
+    private final SearchSession session;
+
+    // Node storage (struct-of-arrays, borrowed from the thread's SearchArena or the session)
+    private NodeStore store;
+    // Node at the end of the returned path (NO_NODE if none), recorded into the session
+    private int resultEndNode = NodeStore.NO_NODE;
+    private final int[] bestSoFar;
     private final double[] bestHeuristicSoFar;
 
+    // Backward half of a bidirectional search (null when unidirectional)
+    private NodeStore reverseStore;
+    private OpenSet reverseOpenSet;
+    private final Goal reverseGoal;
+    private boolean bidirectional = BIDIRECTIONAL_DEFAULT;
+    // Open set ordering: cost + heuristicWeight * estimatedCostToGoal (see setHeuristicWeight)
+    private double heuristicWeight = 1.0;
+    // Cheapest start→goal connection found so far: forward and backward node of the meeting cell
+    private double bestMeetCost;
+    private int meetForward;
+    private int meetReverse;
+
+    private int numMovementsConsidered;
+    private int reverseNodes;
+
+    private CancellationToken cancellationToken = CancellationToken.NONE;
+    private OpenSetTrace openSetTrace;
+    private NodeStoreTrace nodeStoreTrace;
+    // Memory-bounded search (0 = unbounded) and the nodes it forgot
+    private int nodeBudget;
+    private int prunedNodes;
+
     public PathFinder(int startX, int startY, int startZ, Goal goal, CalculationContext ctx) {
+        this(startX, startY, startZ, goal, ctx, null);
+    }
+
+    public PathFinder(int startX, int startY, int startZ, Goal goal, CalculationContext ctx,
+                      SearchSession session) {
+        this.session = session;
         this.startX = startX;
         this.startY = startY;
         this.startZ = startZ;
         this.goal = goal;
         this.ctx = ctx;
-        this.map = new Long2ObjectOpenHashMap<>(4096, 0.75f);
-        this.bestSoFar = new PathNode[COEFFICIENTS.length];
+        this.bestSoFar = new int[COEFFICIENTS.length];
         this.bestHeuristicSoFar = new double[COEFFICIENTS.length];
+        this.reverseGoal = new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return x == startX && y == startY && z == startZ;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                // Estimated cost of getting from the start to (x, y, z), same model as GoalBlock
+                return GoalBlock.calculate(startX - x, startY - y, startZ - z);
+            }
+        };
+    }
+
+    /**
+     * Allow (default) or forbid the bidirectional search. Only GoalBlock goals use it.
+     */
+    public void setBidirectional(boolean bidirectional) {
+        this.bidirectional = bidirectional;
     }
 
     /**
-     * Get or create a PathNode at the given position.
-     * Equivalent to Baritone's AbstractNodeCostSearch.getNodeAtPosition().
+     * Weighted A*: order the open set by cost + weight * heuristic. 1 is the plain search,
+     * POSITIVE_INFINITY orders by the heuristic alone (greedy best-first).
+     * Weighted searches run unidirectionally and must not use a SearchSession
+     * (re-rooting recomputes unweighted combined costs).
      */
-    private PathNode getNodeAtPosition(int x, int y, int z, long hashCode) {
-        PathNode existing = map.get(hashCode);
-        if (existing != null) {
-            return existing;
-        }
-        PathNode newNode = new PathNode(x, y, z, goal);
-        map.put(hashCode, newNode);
-        return newNode;
+    public void setHeuristicWeight(double heuristicWeight) {
+        this.heuristicWeight = heuristicWeight;
     }
 
-    private double getDistFromStartSq(PathNode node) {
-        int dx = node.x - startX;
-        int dy = node.y - startY;
-        int dz = node.z - startZ;
+    private double combinedCost(double cost, double estimatedCostToGoal) {
+        if (heuristicWeight == 1.0) {
+            return cost + estimatedCostToGoal;
+        }
+        return Double.isInfinite(heuristicWeight) ? estimatedCostToGoal : cost + heuristicWeight * estimatedCostToGoal;
+    }
+
+    /**
+     * Token polled every TIME_CHECK_INTERVAL nodes; once cancelled the search returns
+     * an empty result. Set by PathPlanningExecutor.
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /** Record the forward open set's operations into trace (PathBenchmark.openSets()). */
+    void setOpenSetTrace(OpenSetTrace trace) {
+        this.openSetTrace = trace;
+    }
+
+    /** Record the forward search's expansions and relaxations into trace (PathBenchmark.nodeStores()). */
+    void setNodeStoreTrace(NodeStoreTrace trace) {
+        this.nodeStoreTrace = trace;
+    }
+
+    /**
+     * Bound the search to nodeBudget nodes (at least MIN_NODE_BUDGET), pruning the worst
+     * leaves when it is reached (see class comment). 0 (default) leaves it unbounded.
+     */
+    public void setNodeBudget(int nodeBudget) {
+        this.nodeBudget = nodeBudget <= 0 ? 0 : Math.max(nodeBudget, MIN_NODE_BUDGET);
+    }
+
+    private double getDistFromStartSq(int node) {
+        int dx = store.x[node] - startX;
+        int dy = store.y[node] - startY;
+        int dz = store.z[node] - startZ;
         return dx * dx + dy * dy + dz * dz;
     }
 
@@ -86,37 +212,125 @@ public class PathFinder {
      * 100% ported from Baritone's AStarPathFinder.calculate0().
      */
     public PathResult calculate() {
-        long startTime = System.currentTimeMillis();
+        SearchArena reverseArena = bidirectional && nodeBudget == 0 && heuristicWeight == 1.0 && goal instanceof GoalBlock
+                ? SearchArena.acquireReverse() : null;
+        NodeStore reverse = reverseArena != null ? reverseArena.getStore() : null;
+        OpenSet reverseHeap = reverseArena != null ? reverseArena.getOpenSet() : null;
+        try {
+            if (session != null) {
+                synchronized (session) {
+                    try {
+                        long startTime = System.currentTimeMillis();
+                        int resumedStart = session.prepare(startX, startY, startZ, goal, ctx);
+                        return calculate0(session.store, session.openSet, reverse, reverseHeap,
+                                resumedStart, startTime);
+                    } finally {
+                        session.finish(goal, cancellationToken.isCancelled() ? NodeStore.NO_NODE : resultEndNode, ctx);
+                        store = null;
+                    }
+                }
+            }
+            SearchArena arena = SearchArena.acquire();
+            try {
+                return calculate0(arena.getStore(), arena.getOpenSet(), reverse, reverseHeap,
+                        NodeStore.NO_NODE, System.currentTimeMillis());
+            } finally {
+                store = null;
+                arena.release();
+            }
+        } finally {
+            reverseStore = null;
+            reverseOpenSet = null;
+            if (reverseArena != null) {
+                reverseArena.release();
+            }
+        }
+    }
+
+    /**
+     * @param reverseStore store for the backward search, or null for a unidirectional search
+     * @param resumedStart start node of a re-rooted tree already in store/openSet,
+     *                     or NO_NODE to start a fresh search
+     */
+    private PathResult calculate0(NodeStore store, OpenSet openSet,
+                                  NodeStore reverseStore, OpenSet reverseOpenSet,
+                                  int resumedStart, long startTime) {
+        if (openSetTrace != null) {
+            openSet = openSetTrace.record(store, openSet);
+        }
+        this.store = store;
+        this.reverseStore = reverseStore;
+        this.reverseOpenSet = reverseOpenSet;
+        store.setHeuristicScale(ctx.heuristicScale());
+        if (reverseStore != null) {
+            reverseStore.setHeuristicScale(ctx.heuristicScale());
+        }
+        long startAllocated = threadAllocatedBytes();
+        numMovementsConsidered = 0;
+        reverseNodes = 0;
+        prunedNodes = 0;
+        bestMeetCost = ActionCosts.COST_INF;
 
-        BridgeMod.LOGGER.debug("PathFinder starting from ({},{},{}) to {}", startX, startY, startZ, goal);
+        BridgeMod.LOGGER.debug("PathFinder starting from ({},{},{}) to {}{}", startX, startY, startZ, goal,
+                resumedStart != NodeStore.NO_NODE ? " (resumed, " + store.size() + " nodes)" : "");
 
         // Initialize start node
-        PathNode startNode = getNodeAtPosition(startX, startY, startZ, PathNode.longHash(startX, startY, startZ));
-        startNode.cost = 0;
-        startNode.combinedCost = startNode.estimatedCostToGoal;
+        int startNode;
+        if (resumedStart != NodeStore.NO_NODE) {
+            startNode = resumedStart;
+        } else {
+            startNode = store.getOrCreate(startX, startY, startZ, PathNode.longHash(startX, startY, startZ), goal);
+            store.cost[startNode] = 0;
+            store.combinedCost[startNode] = combinedCost(0, store.estimatedCostToGoal[startNode]);
+            openSet.insert(startNode);
+            if (nodeStoreTrace != null) {
+                nodeStoreTrace.relax(startX, startY, startZ, 0);
+            }
+        }
 
-        BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
-        openSet.insert(startNode);
+        if (reverseStore != null) {
+            GoalBlock target = (GoalBlock) goal;
+            long goalHash = PathNode.longHash(target.x, target.y, target.z);
+            int goalNode = reverseStore.getOrCreate(target.x, target.y, target.z, goalHash, reverseGoal);
+            reverseStore.cost[goalNode] = 0;
+            reverseStore.combinedCost[goalNode] = reverseStore.estimatedCostToGoal[goalNode];
+            reverseOpenSet.insert(goalNode);
+            checkMeet(store.find(goalHash), goalNode);
+        }
 
         // Initialize bestSoFar tracking
         for (int i = 0; i < bestHeuristicSoFar.length; i++) {
-            bestHeuristicSoFar[i] = startNode.estimatedCostToGoal;
+            bestHeuristicSoFar[i] = store.estimatedCostToGoal[startNode];
             bestSoFar[i] = startNode;
         }
 
+        boolean failing = true;
+        if (resumedStart != NodeStore.NO_NODE) {
+            // Carry bestSoFar over: rescan the kept nodes with their re-rooted costs
+            for (int node = 0; node < store.size(); node++) {
+                if (node != startNode && updateBestSoFar(node, store.cost[node])) {
+                    failing = false;
+                }
+            }
+        }
+
         MoveResult res = new MoveResult();
         long primaryTimeoutTime = startTime + PRIMARY_TIMEOUT_MS;
         long failureTimeoutTime = startTime + FAILURE_TIMEOUT_MS;
-        boolean failing = true;
         int numNodes = 0;
-        int numMovementsConsidered = 0;
         Moves[] allMoves = Moves.values();
         int minY = ctx.getLevel().getMinBuildHeight();
         int maxY = ctx.getLevel().getMaxBuildHeight();
 
         while (!openSet.isEmpty()) {
-            // Timeout check every TIME_CHECK_INTERVAL nodes (Baritone: every 64)
+            // Timeout and cancellation check every TIME_CHECK_INTERVAL nodes (Baritone: every 64)
             if ((numNodes & (TIME_CHECK_INTERVAL - 1)) == 0 && numNodes > 0) {
+                if (cancellationToken.isCancelled()) {
+                    long elapsed = System.currentTimeMillis() - startTime;
+                    BridgeMod.LOGGER.debug("PathFinder cancelled after {}ms, {} nodes explored",
+                            elapsed, numNodes);
+                    return finish(Collections.emptyList(), false, numNodes, elapsed, startAllocated);
+                }
                 long now = System.currentTimeMillis();
                 if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
                     BridgeMod.LOGGER.debug("PathFinder timed out after {}ms, {} nodes explored",
@@ -125,36 +339,75 @@ public class PathFinder {
                 }
             }
 
-            PathNode currentNode = openSet.removeLowest();
+            if (nodeBudget > 0 && store.size() >= nodeBudget) {
+                if (!prune(openSet)) {
+                    BridgeMod.LOGGER.debug("PathFinder node budget {} exhausted after {} nodes ({} pruned)",
+                            nodeBudget, numNodes, prunedNodes);
+                    break;
+                }
+                continue;
+            }
+
+            if (reverseStore != null) {
+                // Meet-in-the-middle termination: no unexpanded node on either side can lead to
+                // a cheaper connection than the best one found
+                boolean reverseOpen = !reverseOpenSet.isEmpty();
+                double bound = store.combinedCost[openSet.peekLowest()];
+                if (reverseOpen) {
+                    bound = Math.max(bound, reverseStore.combinedCost[reverseOpenSet.peekLowest()]);
+                }
+                if (bestMeetCost < ActionCosts.COST_INF && bestMeetCost <= bound) {
+                    return finishMeet(numNodes, startTime, startAllocated);
+                }
+                // Expand the side with the smaller frontier
+                if (reverseOpen && reverseOpenSet.size() < openSet.size()) {
+                    numNodes++;
+                    reverseNodes++;
+                    expandBackward(res, allMoves, minY, maxY);
+                    continue;
+                }
+            }
+
+            int currentNode = openSet.removeLowest();
+            int curX = store.x[currentNode];
+            int curY = store.y[currentNode];
+            int curZ = store.z[currentNode];
+            double curCost = store.cost[currentNode];
             numNodes++;
+            if (nodeStoreTrace != null) {
+                nodeStoreTrace.expand(curX, curY, curZ);
+            }
 
             // Goal check
-            if (goal.isInGoal(currentNode.x, currentNode.y, currentNode.z)) {
+            if (goal.isInGoal(curX, curY, curZ)) {
                 long elapsed = System.currentTimeMillis() - startTime;
                 BridgeMod.LOGGER.info("PathFinder found goal at ({},{},{}) in {}ms, {} movements",
-                        currentNode.x, currentNode.y, currentNode.z, elapsed, numMovementsConsidered);
-                List<PathNode> path = reconstructPath(startNode, currentNode);
-                return new PathResult(path, true, numNodes, elapsed);
+                        curX, curY, curZ, elapsed, numMovementsConsidered);
+                List<PathNode> path = reconstructPath(currentNode);
+                return finish(path, true, numNodes, elapsed, startAllocated);
             }
 
             // Explore neighbors
+            if (BATCHED_EXPANSION) {
+                ctx.beginExpansion(curX, curY, curZ);
+            }
             for (Moves moves : allMoves) {
-                int newX = currentNode.x + moves.xOffset;
-                int newZ = currentNode.z + moves.zOffset;
+                int newX = curX + moves.xOffset;
+                int newZ = curZ + moves.zOffset;
 
                 // Chunk loading check (only if crossing chunk boundary)
-                if ((newX >> 4 != currentNode.x >> 4 || newZ >> 4 != currentNode.z >> 4)
+                if ((newX >> 4 != curX >> 4 || newZ >> 4 != curZ >> 4)
                         && !ctx.isLoaded(newX, newZ)) {
                     continue;
                 }
 
                 // Y bounds check
-                if (currentNode.y + moves.yOffset > maxY || currentNode.y + moves.yOffset < minY) {
+                if (curY + moves.yOffset > maxY || curY + moves.yOffset < minY) {
                     continue;
                 }
 
                 res.reset();
-                moves.apply(ctx, currentNode.x, currentNode.y, currentNode.z, res);
+                moves.apply(ctx, curX, curY, curZ, res);
                 numMovementsConsidered++;
                 double actionCost = res.cost;
 
@@ -164,50 +417,335 @@ public class PathFinder {
                 if (actionCost <= 0 || Double.isNaN(actionCost)) {
                     throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
                 }
+                actionCost = ctx.calibrate(moves, res.x, res.y, res.z, actionCost);
+                actionCost += ctx.threatCost(res.x, res.z);
 
                 long hashCode = PathNode.longHash(res.x, res.y, res.z);
-                PathNode neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
-                double tentativeCost = currentNode.cost + actionCost;
-
-                if (neighbor.cost - tentativeCost > MIN_IMPROVEMENT) {
-                    neighbor.previous = currentNode;
-                    neighbor.cost = tentativeCost;
-                    neighbor.moveType = moves;
-                    neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
-                    if (neighbor.isOpen()) {
+                int neighbor = store.getOrCreate(res.x, res.y, res.z, hashCode, goal);
+                double tentativeCost = curCost + actionCost;
+                if (nodeStoreTrace != null) {
+                    nodeStoreTrace.relax(res.x, res.y, res.z, tentativeCost);
+                }
+
+                if (store.cost[neighbor] - tentativeCost > MIN_IMPROVEMENT) {
+                    // Track parents that lose (or never get) a successor, for SearchSession.resume
+                    int oldPrevious = store.previous[neighbor];
+                    if (oldPrevious != NodeStore.NO_NODE && oldPrevious != currentNode) {
+                        store.sharedSuccessor[oldPrevious] = true;
+                    }
+                    store.previous[neighbor] = currentNode;
+                    store.cost[neighbor] = tentativeCost;
+                    store.setMoveType(neighbor, moves);
+                    store.combinedCost[neighbor] = combinedCost(tentativeCost, store.estimatedCostToGoal[neighbor]);
+                    if (store.isOpen(neighbor)) {
                         openSet.update(neighbor);
                     } else {
                         openSet.insert(neighbor);
                     }
-                    // Update bestSoFar
-                    for (int i = 0; i < COEFFICIENTS.length; i++) {
-                        double heuristic = neighbor.estimatedCostToGoal + neighbor.cost / COEFFICIENTS[i];
-                        if (bestHeuristicSoFar[i] - heuristic > MIN_IMPROVEMENT) {
-                            bestHeuristicSoFar[i] = heuristic;
-                            bestSoFar[i] = neighbor;
-                            if (failing && getDistFromStartSq(neighbor) > MIN_DIST_PATH * MIN_DIST_PATH) {
-                                failing = false;
-                            }
-                        }
+                    if (updateBestSoFar(neighbor, tentativeCost)) {
+                        failing = false;
+                    }
+                    if (reverseStore != null) {
+                        checkMeet(neighbor, reverseStore.find(hashCode));
                     }
+                } else if (store.previous[neighbor] != currentNode) {
+                    store.sharedSuccessor[currentNode] = true;
                 }
             }
         }
 
+        if (bestMeetCost < ActionCosts.COST_INF) {
+            // Timed out (or ran out of forward nodes) after the two searches met
+            return finishMeet(numNodes, startTime, startAllocated);
+        }
+
         long elapsed = System.currentTimeMillis() - startTime;
         BridgeMod.LOGGER.info("PathFinder: {} movements considered, {} nodes, map size {}",
-                numMovementsConsidered, numNodes, map.size());
+                numMovementsConsidered, numNodes, store.size());
 
         // Return best partial path (bestSoFar mechanism)
         Optional<List<PathNode>> bestPath = bestSoFar(numNodes);
         if (bestPath.isPresent()) {
             BridgeMod.LOGGER.info("PathFinder: partial path with {} nodes in {}ms",
                     bestPath.get().size(), elapsed);
-            return new PathResult(bestPath.get(), false, numNodes, elapsed);
+            return finish(bestPath.get(), false, numNodes, elapsed, startAllocated);
         }
 
         BridgeMod.LOGGER.warn("PathFinder: no path found in {}ms ({} explored)", elapsed, numNodes);
-        return new PathResult(Collections.emptyList(), false, numNodes, elapsed);
+        return finish(Collections.emptyList(), false, numNodes, elapsed, startAllocated);
+    }
+
+    /**
+     * Forget the leaves with the highest f until the store is back to PRUNE_TARGET of the
+     * node budget. Leaves are nodes no other node links to through previous, other than
+     * roots and bestSoFar nodes. An open leaf backs its f up to its parent: a closed parent
+     * is reopened with max(own f, leaf f), an open one keeps the lower of its f and that.
+     * Parents of pruned leaves are flagged prunedSuccessor, so a resumed SearchSession
+     * reopens them too. The open set is rebuilt over the compacted store.
+     *
+     * @return false if too few leaves could be pruned to continue within the budget
+     */
+    private boolean prune(OpenSet openSet) {
+        int n = store.size();
+        int target = n - (int) (nodeBudget * PRUNE_TARGET);
+        boolean[] keep = new boolean[n];
+        for (int node = 0; node < n; node++) {
+            int parent = store.previous[node];
+            if (parent == NodeStore.NO_NODE) {
+                keep[node] = true;
+            } else {
+                keep[parent] = true;
+            }
+        }
+        for (int node : bestSoFar) {
+            keep[node] = true;
+        }
+        int leaves = 0;
+        for (int node = 0; node < n; node++) {
+            if (!keep[node]) {
+                leaves++;
+            }
+        }
+        // Too few leaves to free even a quarter of what's needed: pruning would run every node
+        if (leaves == 0 || leaves < target / 4) {
+            return false;
+        }
+        double[] leafCosts = new double[leaves];
+        for (int node = 0, i = 0; node < n; node++) {
+            if (!keep[node]) {
+                leafCosts[i++] = store.combinedCost[node];
+            }
+        }
+        Arrays.sort(leafCosts);
+        int drop = Math.min(target, leaves);
+        double cutoff = leafCosts[leaves - drop];
+
+        boolean[] reopen = new boolean[n];
+        int dropped = 0;
+        for (int node = 0; node < n; node++) {
+            if (keep[node]) continue;
+            if (dropped == drop || store.combinedCost[node] < cutoff) {
+                keep[node] = true;
+                continue;
+            }
+            dropped++;
+            int parent = store.previous[node];
+            store.prunedSuccessor[parent] = true;
+            if (store.isOpen(node)) {
+                double backedUp = Math.max(combinedCost(store.cost[parent], store.estimatedCostToGoal[parent]),
+                        store.combinedCost[node]);
+                if (store.isOpen(parent) || reopen[parent]) {
+                    store.combinedCost[parent] = Math.min(store.combinedCost[parent], backedUp);
+                } else {
+                    store.combinedCost[parent] = backedUp;
+                    reopen[parent] = true;
+                }
+            }
+        }
+
+        int[] remap = store.compact(keep);
+        for (int i = 0; i < bestSoFar.length; i++) {
+            bestSoFar[i] = remap[bestSoFar[i]];
+        }
+        // Rebuild the open set once every stale heap position is cleared
+        int[] open = new int[store.size()];
+        int count = 0;
+        for (int old = 0; old < n; old++) {
+            int id = remap[old];
+            if (id == NodeStore.NO_NODE) continue;
+            if (store.heapPosition[id] != -1 || reopen[old]) {
+                open[count++] = id;
+            }
+            store.heapPosition[id] = -1;
+        }
+        openSet.clear();
+        for (int i = 0; i < count; i++) {
+            openSet.insert(open[i]);
+        }
+        prunedNodes += dropped;
+        return true;
+    }
+
+    /**
+     * Expand the cheapest node of the backward search: find every cell with a move that
+     * lands on it (see class comment) and relax it with that move's forward cost.
+     */
+    private void expandBackward(MoveResult res, Moves[] allMoves, int minY, int maxY) {
+        int node = reverseOpenSet.removeLowest();
+        int x = reverseStore.x[node];
+        int y = reverseStore.y[node];
+        int z = reverseStore.z[node];
+        int maxDrop = ctx.maxFallHeightNoWater;
+        for (Moves move : allMoves) {
+            if (move.dynamicXZ) {
+                // Parkour: jumped 2-4 blocks along the move's direction
+                int dirX = Integer.signum(move.xOffset);
+                int dirZ = Integer.signum(move.zOffset);
+                for (int dist = 2; dist <= 4; dist++) {
+                    relaxBackward(move, x - dirX * dist, y, z - dirZ * dist, node, res, minY, maxY);
+                }
+            } else if (move.dynamicY && move.xOffset != 0 && move.zOffset != 0) {
+                // Diagonal: level, or one block up or down
+                for (int dy = -1; dy <= 1; dy++) {
+                    relaxBackward(move, x - move.xOffset, y - dy, z - move.zOffset, node, res, minY, maxY);
+                }
+            } else if (move.dynamicY) {
+                // Descend / downward: dropped 1..maxFallHeightNoWater blocks
+                for (int drop = 1; drop <= maxDrop; drop++) {
+                    relaxBackward(move, x - move.xOffset, y + drop, z - move.zOffset, node, res, minY, maxY);
+                }
+            } else {
+                relaxBackward(move, x - move.xOffset, y - move.yOffset, z - move.zOffset, node, res, minY, maxY);
+            }
+        }
+    }
+
+    /**
+     * Relax the backward edge (px, py, pz) → node if the forward move from there lands on node.
+     */
+    private void relaxBackward(Moves move, int px, int py, int pz, int node, MoveResult res,
+                               int minY, int maxY) {
+        if (py > maxY || py < minY) {
+            return;
+        }
+        int x = reverseStore.x[node];
+        int y = reverseStore.y[node];
+        int z = reverseStore.z[node];
+        if ((px >> 4 != x >> 4 || pz >> 4 != z >> 4) && !ctx.isLoaded(px, pz)) {
+            return;
+        }
+        res.reset();
+        move.apply(ctx, px, py, pz, res);
+        numMovementsConsidered++;
+        double actionCost = res.cost;
+        if (actionCost >= ActionCosts.COST_INF || res.x != x || res.y != y || res.z != z) {
+            return;
+        }
+        if (actionCost <= 0 || Double.isNaN(actionCost)) {
+            throw new IllegalStateException(move + " calculated implausible cost " + actionCost);
+        }
+        actionCost = ctx.calibrate(move, x, y, z, actionCost);
+        actionCost += ctx.threatCost(x, z);
+
+        long hashCode = PathNode.longHash(px, py, pz);
+        int predecessor = reverseStore.getOrCreate(px, py, pz, hashCode, reverseGoal);
+        double tentativeCost = reverseStore.cost[node] + actionCost;
+        if (reverseStore.cost[predecessor] - tentativeCost > MIN_IMPROVEMENT) {
+            // previous points towards the goal; moveType is the move taken from this cell
+            reverseStore.previous[predecessor] = node;
+            reverseStore.cost[predecessor] = tentativeCost;
+            reverseStore.setMoveType(predecessor, move);
+            reverseStore.combinedCost[predecessor] = tentativeCost + reverseStore.estimatedCostToGoal[predecessor];
+            if (reverseStore.isOpen(predecessor)) {
+                reverseOpenSet.update(predecessor);
+            } else {
+                reverseOpenSet.insert(predecessor);
+            }
+            checkMeet(store.find(hashCode), predecessor);
+        }
+    }
+
+    /**
+     * Record a connection through a cell both searches have reached, if it's the cheapest yet.
+     */
+    private void checkMeet(int forward, int reverse) {
+        if (forward == NodeStore.NO_NODE || reverse == NodeStore.NO_NODE) {
+            return;
+        }
+        double cost = store.cost[forward] + reverseStore.cost[reverse];
+        if (cost < bestMeetCost) {
+            bestMeetCost = cost;
+            meetForward = forward;
+            meetReverse = reverse;
+        }
+    }
+
+    /**
+     * Join the forward path to the meeting cell with the backward chain from there to the goal.
+     */
+    private PathResult finishMeet(int numNodes, long startTime, long startAllocated) {
+        List<PathNode> path = reconstructPath(meetForward);
+        PathNode last = path.get(path.size() - 1);
+        double meetCost = last.cost;
+        double meetRemaining = reverseStore.cost[meetReverse];
+        int node = meetReverse;
+        while (reverseStore.previous[node] != NodeStore.NO_NODE) {
+            int next = reverseStore.previous[node];
+            int x = reverseStore.x[next];
+            int y = reverseStore.y[next];
+            int z = reverseStore.z[next];
+            PathNode pathNode = new PathNode(x, y, z, goal.heuristic(x, y, z));
+            pathNode.cost = meetCost + meetRemaining - reverseStore.cost[next];
+            pathNode.combinedCost = pathNode.cost + pathNode.estimatedCostToGoal;
+            pathNode.moveType = reverseStore.getMoveType(node);
+            pathNode.previous = last;
+            path.add(pathNode);
+            last = pathNode;
+            node = next;
+        }
+        // A complete path: nothing for a following lookahead segment to resume
+        resultEndNode = NodeStore.NO_NODE;
+        long elapsed = System.currentTimeMillis() - startTime;
+        BridgeMod.LOGGER.info("PathFinder met at ({},{},{}) in {}ms, {} movements, {} forward + {} backward nodes",
+                reverseStore.x[meetReverse], reverseStore.y[meetReverse], reverseStore.z[meetReverse],
+                elapsed, numMovementsConsidered, numNodes - reverseNodes, reverseNodes);
+        return finish(path, true, numNodes, elapsed, startAllocated);
+    }
+
+    /**
+     * Update bestSoFar with a node whose cost just improved.
+     *
+     * @return true if the node became a bestSoFar candidate far enough from start
+     *         to count as progress (clears the failing state)
+     */
+    private boolean updateBestSoFar(int node, double cost) {
+        boolean progress = false;
+        double estimatedCostToGoal = store.estimatedCostToGoal[node];
+        for (int i = 0; i < COEFFICIENTS.length; i++) {
+            double heuristic = estimatedCostToGoal + cost / COEFFICIENTS[i];
+            if (bestHeuristicSoFar[i] - heuristic > MIN_IMPROVEMENT) {
+                bestHeuristicSoFar[i] = heuristic;
+                bestSoFar[i] = node;
+                if (getDistFromStartSq(node) > MIN_DIST_PATH * MIN_DIST_PATH) {
+                    progress = true;
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Build the PathResult and log the search's throughput and allocation, so node-store
+     * changes can be compared from the server log (nodes/sec and bytes allocated per node).
+     */
+    private PathResult finish(List<PathNode> path, boolean reachedGoal, int numNodes, long elapsed,
+                              long startAllocated) {
+        if (path.isEmpty()) {
+            resultEndNode = NodeStore.NO_NODE;
+        }
+        long endAllocated = threadAllocatedBytes();
+        long allocated = (startAllocated >= 0 && endAllocated >= 0) ? endAllocated - startAllocated : -1;
+        PathResult result = new PathResult(path, reachedGoal, numNodes, elapsed, allocated,
+                reverseStore != null, reverseNodes, nodeBudget, prunedNodes);
+        BridgeMod.LOGGER.debug("PathFinder stats ({}): {} nodes, {} nodes/sec, {} bytes allocated ({} B/node), store {} KB{}",
+                result.bidirectional ? "bidirectional, " + reverseNodes + " backward" : "unidirectional",
+                numNodes, (long) result.nodesPerSecond(), allocated,
+                numNodes > 0 && allocated >= 0 ? allocated / numNodes : -1,
+                store.footprintBytes() / 1024,
+                nodeBudget > 0 ? ", budget " + nodeBudget + " (" + prunedNodes + " pruned)" : "");
+        return result;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or -1 if the JVM doesn't support it.
+     */
+    private static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+            return sunBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
     }
 
     /**
@@ -220,12 +758,11 @@ public class PathFinder {
      * If none are far enough, returns empty (no partial path).
      */
     private Optional<List<PathNode>> bestSoFar(int numNodes) {
-        PathNode startNode = getNodeAtPosition(startX, startY, startZ, PathNode.longHash(startX, startY, startZ));
         double minDistSq = MIN_DIST_PATH * MIN_DIST_PATH;
         for (int i = 0; i < COEFFICIENTS.length; i++) {
-            if (bestSoFar[i] == null) continue;
+            if (bestSoFar[i] == NodeStore.NO_NODE) continue;
             if (getDistFromStartSq(bestSoFar[i]) <= minDistSq) continue;
-            List<PathNode> path = reconstructPath(startNode, bestSoFar[i]);
+            List<PathNode> path = reconstructPath(bestSoFar[i]);
             if (path.size() <= 1) continue;
             return Optional.of(path);
         }
@@ -234,15 +771,25 @@ public class PathFinder {
 
     /**
      * Reconstruct path from start to end node.
+     * This is the only place PathNode objects are created: one per node on the path.
      */
-    private List<PathNode> reconstructPath(PathNode startNode, PathNode endNode) {
+    private List<PathNode> reconstructPath(int endNode) {
+        resultEndNode = endNode;
         List<PathNode> path = new ArrayList<>();
-        PathNode node = endNode;
-        while (node != null) {
-            path.add(node);
-            node = node.previous;
+        int node = endNode;
+        while (node != NodeStore.NO_NODE) {
+            PathNode pathNode = new PathNode(store.x[node], store.y[node], store.z[node],
+                    store.estimatedCostToGoal[node]);
+            pathNode.cost = store.cost[node];
+            pathNode.combinedCost = store.combinedCost[node];
+            pathNode.moveType = store.getMoveType(node);
+            path.add(pathNode);
+            node = store.previous[node];
         }
         Collections.reverse(path);
+        for (int i = 1; i < path.size(); i++) {
+            path.get(i).previous = path.get(i - 1);
+        }
         return path;
     }
 
@@ -254,12 +801,47 @@ public class PathFinder {
         public final boolean reachedGoal;
         public final int nodesExplored;
         public final long timeMs;
+        /** Bytes allocated by the searching thread during the search, or -1 if unavailable. */
+        public final long allocatedBytes;
+        /** Whether the bidirectional search ran (GoalBlock goals); nodesExplored counts both sides. */
+        public final boolean bidirectional;
+        /** Nodes expanded by the backward half of a bidirectional search. */
+        public final int backwardNodesExplored;
+        /** Node budget the search ran under (0 = unbounded). */
+        public final int nodeBudget;
+        /** Nodes forgotten to stay within nodeBudget; some may have been generated again. */
+        public final int prunedNodes;
 
         public PathResult(List<PathNode> path, boolean reachedGoal, int nodesExplored, long timeMs) {
+            this(path, reachedGoal, nodesExplored, timeMs, -1);
+        }
+
+        public PathResult(List<PathNode> path, boolean reachedGoal, int nodesExplored, long timeMs,
+                          long allocatedBytes) {
+            this(path, reachedGoal, nodesExplored, timeMs, allocatedBytes, false, 0);
+        }
+
+        public PathResult(List<PathNode> path, boolean reachedGoal, int nodesExplored, long timeMs,
+                          long allocatedBytes, boolean bidirectional, int backwardNodesExplored) {
+            this(path, reachedGoal, nodesExplored, timeMs, allocatedBytes, bidirectional, backwardNodesExplored, 0, 0);
+        }
+
+        public PathResult(List<PathNode> path, boolean reachedGoal, int nodesExplored, long timeMs,
+                          long allocatedBytes, boolean bidirectional, int backwardNodesExplored,
+                          int nodeBudget, int prunedNodes) {
             this.path = path;
             this.reachedGoal = reachedGoal;
             this.nodesExplored = nodesExplored;
             this.timeMs = timeMs;
+            this.allocatedBytes = allocatedBytes;
+            this.bidirectional = bidirectional;
+            this.backwardNodesExplored = backwardNodesExplored;
+            this.nodeBudget = nodeBudget;
+            this.prunedNodes = prunedNodes;
+        }
+
+        public double nodesPerSecond() {
+            return nodesExplored * 1000.0 / Math.max(1, timeMs);
         }
     }
 }
@@ -6,6 +6,10 @@ import com.playstudio.bridgemod.pathfinding.moves.Moves;
 /**
  * A node in the A* search graph, representing a block position.
  * 100% ported from Baritone's PathNode.
+ *
+ * The search itself keeps node data in a NodeStore (parallel primitive arrays);
+ * PathNode objects are only created for the nodes of a returned path, which is
+ * what PathExecutor, BotController and PathRenderer consume.
  */
 public final class PathNode {
 
@@ -43,6 +47,14 @@ public final class PathNode {
      */
     public Moves moveType;
 
+    /**
+     * Model cost (ticks) of the move that led here, before cost calibration and threat cost,
+     * and the terrain class it was calibrated under (CostCalibration.annotate).
+     * NaN / -1 if not known; PathExecutor only reports timed moves that have them.
+     */
+    public double modelCost = Double.NaN;
+    public byte terrain = -1;
+
     /**
      * Where is this node in the array flattenization of the binary heap?
      * Needed for decrease-key operations.
@@ -50,12 +62,20 @@ public final class PathNode {
     public int heapPosition;
 
     public PathNode(int x, int y, int z, Goal goal) {
-        this.previous = null;
-        this.cost = ActionCosts.COST_INF;
-        this.estimatedCostToGoal = goal.heuristic(x, y, z);
+        this(x, y, z, goal.heuristic(x, y, z));
         if (Double.isNaN(estimatedCostToGoal)) {
             throw new IllegalStateException(goal + " calculated implausible heuristic");
         }
+    }
+
+    /**
+     * Materialize a node whose heuristic was already computed by the search
+     * (PathFinder keeps node data in a NodeStore and only builds PathNodes for the result path).
+     */
+    public PathNode(int x, int y, int z, double estimatedCostToGoal) {
+        this.previous = null;
+        this.cost = ActionCosts.COST_INF;
+        this.estimatedCostToGoal = estimatedCostToGoal;
         this.heapPosition = -1;
         this.x = x;
         this.y = y;
@@ -0,0 +1,233 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.BridgeMod;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Dedicated scheduler for A* searches.
+ *
+ * Replaces CompletableFuture.supplyAsync (the JVM-wide common ForkJoinPool) with a small,
+ * named pool of daemon workers ("CraftAI-PathPlanner-N") so path planning neither starves
+ * nor is starved by unrelated work.
+ *
+ * - Priority: queued requests run in Priority order (combat pursuit before idle gotos),
+ *   FIFO within the same priority.
+ * - Coalescing: each owner (one BotController) has at most one live request. Submitting a
+ *   new one cancels the previous request, whether it is still queued or already running.
+ * - Cancellation: cancelling the returned future sets the search's CancellationToken,
+ *   which PathFinder checks every TIME_CHECK_INTERVAL nodes.
+ * - Bounded: at most MAX_QUEUED requests wait at once; beyond that submit() fails the
+ *   new future with RejectedExecutionException and leaves the owner's previous request running.
+ *
+ * Besides block-level PathFinder searches, any planning job that polls a CancellationToken
+ * (e.g. the HPA* abstract search) can be scheduled through the same queue.
+ *
+ * Queue depth and wait-time metrics are available through getStats().
+ */
+public final class PathPlanningExecutor {
+
+    /** Scheduling priority. Lower ordinal runs first. */
+    public enum Priority {
+        PURSUIT,    // combat pursuit: target is moving, stale paths are useless
+        GOTO        // bot_goto and other idle navigation
+    }
+
+    private static final int WORKERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int MAX_QUEUED = 64;
+
+    private static final PathPlanningExecutor INSTANCE = new PathPlanningExecutor(WORKERS);
+
+    private final int workers;
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final Map<Object, Task<?>> latestByOwner = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Metrics
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private PathPlanningExecutor(int workers) {
+        this.workers = workers;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::workerLoop, "CraftAI-PathPlanner-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        BridgeMod.LOGGER.info("PathPlanningExecutor started with {} workers", workers);
+    }
+
+    public static PathPlanningExecutor get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a search for the given owner, superseding the owner's previous request.
+     *
+     * @param owner    coalescing key (one live request per owner), typically the BotController
+     * @param priority scheduling priority
+     * @param finder   search to run; its cancellation token is set by the executor
+     * @return future completed with the search result, or cancelled if superseded
+     */
+    public CompletableFuture<PathFinder.PathResult> submit(Object owner, Priority priority, PathFinder finder) {
+        return submit(owner, priority, token -> {
+            finder.setCancellationToken(token);
+            return finder.calculate();
+        });
+    }
+
+    /**
+     * Queue a planning job for the given owner, superseding the owner's previous request.
+     * The job receives the request's CancellationToken and should poll it regularly.
+     */
+    public <T> CompletableFuture<T> submit(Object owner, Priority priority, Function<CancellationToken, T> job) {
+        Task<T> task = new Task<>(owner, priority, job, sequence.incrementAndGet());
+        submitted.incrementAndGet();
+
+        // Check capacity before superseding: a rejected request must leave the owner's previous
+        // one alive. A still-queued previous request frees its slot when superseded.
+        Task<?> previous = latestByOwner.get(owner);
+        boolean live = previous != null && !previous.future.isDone();
+        int queued = queue.size() - (live && queue.contains(previous) ? 1 : 0);
+        if (queued >= MAX_QUEUED) {
+            rejected.incrementAndGet();
+            task.future.completeExceptionally(new RejectedExecutionException(
+                    "Path planning queue full (" + MAX_QUEUED + " requests)"));
+            return task.future;
+        }
+
+        latestByOwner.put(owner, task);
+        if (live) {
+            coalesced.incrementAndGet();
+            previous.future.cancel(true);
+            queue.remove(previous);
+        }
+
+        queue.add(task);
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        return task.future;
+    }
+
+    private void workerLoop() {
+        while (true) {
+            Task<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task.future.isDone()) {
+                continue; // cancelled or superseded while queued
+            }
+
+            long wait = System.nanoTime() - task.submittedNanos;
+            started.incrementAndGet();
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+
+            running.incrementAndGet();
+            try {
+                if (task.run()) {
+                    completed.incrementAndGet();
+                }
+            } catch (Throwable t) {
+                task.future.completeExceptionally(t);
+            } finally {
+                running.decrementAndGet();
+                latestByOwner.remove(task.owner, task);
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long startedCount = started.get();
+        return new Stats(workers, queue.size(), maxQueueDepth.get(), running.get(),
+                submitted.get(), completed.get(), coalesced.get(), cancelled.get(), rejected.get(),
+                startedCount > 0 ? totalWaitNanos.get() / startedCount / 1_000_000.0 : 0,
+                maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    private final class Task<T> implements Comparable<Task<?>> {
+        final Object owner;
+        final Priority priority;
+        final Function<CancellationToken, T> job;
+        final long seq;
+        final long submittedNanos = System.nanoTime();
+        final CancellationToken token = new CancellationToken();
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Object owner, Priority priority, Function<CancellationToken, T> job, long seq) {
+            this.owner = owner;
+            this.priority = priority;
+            this.job = job;
+            this.seq = seq;
+            // CompletableFuture.cancel() can't interrupt anything: forward it to the search
+            future.whenComplete((result, error) -> {
+                if (future.isCancelled()) {
+                    token.cancel();
+                    cancelled.incrementAndGet();
+                    queue.remove(this);
+                    latestByOwner.remove(owner, this);
+                }
+            });
+        }
+
+        /** Run the job; false if the future was completed (cancelled) meanwhile. */
+        boolean run() {
+            return future.complete(job.apply(token));
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int c = priority.compareTo(other.priority);
+            return c != 0 ? c : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of the executor's metrics.
+     */
+    public static final class Stats {
+        public final int workers;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final int running;
+        public final long submitted;
+        public final long completed;
+        public final long coalesced;
+        public final long cancelled;
+        public final long rejected;
+        public final double avgWaitMs;
+        public final double maxWaitMs;
+
+        Stats(int workers, int queueDepth, int maxQueueDepth, int running, long submitted, long completed,
+              long coalesced, long cancelled, long rejected, double avgWaitMs, double maxWaitMs) {
+            this.workers = workers;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.running = running;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.coalesced = coalesced;
+            this.cancelled = cancelled;
+            this.rejected = rejected;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+}
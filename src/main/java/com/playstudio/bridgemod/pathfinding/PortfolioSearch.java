@@ -0,0 +1,203 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races several configurations of the same search on separate cores.
+ *
+ * A failing search keeps one worker busy until PathFinder's failure timeout while the other
+ * cores idle, and plain A* is often the slowest way to find *a* path through awkward terrain.
+ * The portfolio runs plain A*, weighted A* (1.5 / 2 / 3) and greedy best-first side by side,
+ * each with its own CalculationContext.fork() of the shared chunk snapshot and its own
+ * SearchArena (one per portfolio thread):
+ *
+ * - the first variant to reach the goal wins, and the others are cancelled;
+ * - otherwise, once every variant has given up (or the deadline passes), the partial path
+ *   ending closest to the goal by heuristic wins.
+ *
+ * The calling thread (a PathPlanningExecutor worker) only waits, and forwards its own
+ * cancellation to the variants. Portfolio searches don't use a SearchSession.
+ */
+public final class PortfolioSearch {
+
+    /** One search configuration of the portfolio. */
+    public static final class Variant {
+        public final String name;
+        /** PathFinder.setHeuristicWeight: 1 = A*, POSITIVE_INFINITY = greedy best-first. */
+        public final double heuristicWeight;
+
+        public Variant(String name, double heuristicWeight) {
+            this.name = name;
+            this.heuristicWeight = heuristicWeight;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final List<Variant> DEFAULT_VARIANTS = List.of(
+            new Variant("astar", 1.0),
+            new Variant("weighted-1.5", 1.5),
+            new Variant("weighted-2", 2.0),
+            new Variant("weighted-3", 3.0),
+            new Variant("greedy", Double.POSITIVE_INFINITY));
+
+    // Longest the portfolio waits for a complete path (PathFinder's own failure timeout)
+    private static final long DEFAULT_DEADLINE_MS = 5000;
+    private static final long POLL_MS = 5;
+
+    private static final int THREADS = Math.max(2, Math.min(16, Runtime.getRuntime().availableProcessors() - 1));
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "CraftAI-Portfolio-" + THREAD_COUNT.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int startX, startY, startZ;
+    private final Goal goal;
+    private final CalculationContext ctx;
+    private final List<Variant> variants;
+    private final long deadlineMs;
+
+    public PortfolioSearch(int startX, int startY, int startZ, Goal goal, CalculationContext ctx) {
+        this(startX, startY, startZ, goal, ctx, DEFAULT_VARIANTS, DEFAULT_DEADLINE_MS);
+    }
+
+    public PortfolioSearch(int startX, int startY, int startZ, Goal goal, CalculationContext ctx,
+                           List<Variant> variants, long deadlineMs) {
+        this.startX = startX;
+        this.startY = startY;
+        this.startZ = startZ;
+        this.goal = goal;
+        this.ctx = ctx;
+        this.variants = variants;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Run the portfolio and wait for its result.
+     * Signature matches PathPlanningExecutor.submit(owner, priority, job).
+     */
+    public PathFinder.PathResult calculate(CancellationToken token) {
+        long startTime = System.currentTimeMillis();
+        int n = variants.size();
+        CalculationContext[] contexts = new CalculationContext[n];
+        CancellationToken[] tokens = new CancellationToken[n];
+        List<Future<PathFinder.PathResult>> futures = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Variant variant = variants.get(i);
+            contexts[i] = ctx.fork();
+            tokens[i] = new CancellationToken();
+            PathFinder finder = new PathFinder(startX, startY, startZ, goal, contexts[i]);
+            finder.setHeuristicWeight(variant.heuristicWeight);
+            finder.setCancellationToken(tokens[i]);
+            futures.add(POOL.submit(finder::calculate));
+        }
+
+        PathFinder.PathResult[] results = new PathFinder.PathResult[n];
+        int winner = -1;
+        int remaining = n;
+        long deadline = startTime + deadlineMs;
+        try {
+            while (remaining > 0 && winner < 0 && !token.isCancelled()
+                    && System.currentTimeMillis() - deadline < 0) {
+                for (int i = 0; i < n; i++) {
+                    if (results[i] == null && futures.get(i).isDone()) {
+                        results[i] = resultOf(futures.get(i));
+                        remaining--;
+                        if (results[i].reachedGoal) {
+                            winner = i;
+                            break;
+                        }
+                    }
+                }
+                if (remaining > 0 && winner < 0) {
+                    Thread.sleep(POLL_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Stop the losers and wait for them to leave their arenas and contexts
+            for (int i = 0; i < n; i++) {
+                tokens[i].cancel();
+            }
+            for (int i = 0; i < n; i++) {
+                PathFinder.PathResult result = resultOf(futures.get(i));
+                if (results[i] == null) {
+                    results[i] = result;
+                }
+                ctx.mergeLiveMisses(contexts[i]);
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        if (token.isCancelled()) {
+            return new PathFinder.PathResult(Collections.emptyList(), false, totalNodes(results), elapsed);
+        }
+        if (winner < 0) {
+            winner = bestPartial(results);
+        }
+        if (winner < 0) {
+            BridgeMod.LOGGER.info("PortfolioSearch: no variant found a path in {}ms", elapsed);
+            return new PathFinder.PathResult(Collections.emptyList(), false, totalNodes(results), elapsed);
+        }
+        PathFinder.PathResult best = results[winner];
+        BridgeMod.LOGGER.info("PortfolioSearch: {} won in {}ms (reachedGoal={}, {} nodes, cost {}), {} nodes across {} variants",
+                variants.get(winner), elapsed, best.reachedGoal, best.path.size(),
+                String.format("%.1f", best.path.get(best.path.size() - 1).cost), totalNodes(results), n);
+        return new PathFinder.PathResult(best.path, best.reachedGoal, totalNodes(results), elapsed, best.allocatedBytes);
+    }
+
+    /**
+     * Partial path whose end is estimated closest to the goal, or -1 if every variant came back empty.
+     */
+    private int bestPartial(PathFinder.PathResult[] results) {
+        int best = -1;
+        double bestHeuristic = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < results.length; i++) {
+            List<PathNode> path = results[i].path;
+            if (path.isEmpty()) continue;
+            double heuristic = path.get(path.size() - 1).estimatedCostToGoal;
+            if (heuristic < bestHeuristic) {
+                bestHeuristic = heuristic;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int totalNodes(PathFinder.PathResult[] results) {
+        int total = 0;
+        for (PathFinder.PathResult result : results) {
+            if (result != null) {
+                total += result.nodesExplored;
+            }
+        }
+        return total;
+    }
+
+    /** Wait for a variant; a variant that threw counts as an empty result. */
+    private static PathFinder.PathResult resultOf(Future<PathFinder.PathResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            BridgeMod.LOGGER.warn("PortfolioSearch: variant failed: {}", e.getMessage());
+        }
+        return new PathFinder.PathResult(Collections.emptyList(), false, 0, 0);
+    }
+}
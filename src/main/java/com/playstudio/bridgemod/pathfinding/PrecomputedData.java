@@ -1,11 +1,14 @@
 package com.playstudio.bridgemod.pathfinding;
 
 import com.playstudio.bridgemod.BridgeMod;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.EmptyBlockGetter;
 import net.minecraft.world.level.block.*;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.SlabType;
 import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.level.material.Fluids;
+import net.minecraft.world.phys.shapes.VoxelShape;
 
 /**
  * Pre-computed block state flags for fast pathfinding lookups.
@@ -19,6 +22,12 @@ import net.minecraft.world.level.material.Fluids;
  *
  * ~85% of block states resolve to YES or NO, eliminating 10+ instanceof checks per call.
  * The remaining ~15% (MAYBE) fall through to the position-dependent slow path.
+ *
+ * Each state's collision shape is also classified once (bits 4-5):
+ *   - EMPTY / FULL / PARTIAL: same shape at every position, answered without a level lookup
+ *   - DYNAMIC: shape varies with position (random offsets like bamboo, blocks flagged
+ *     hasDynamicShape, or shapes that can't be computed without a level)
+ * so CalculationContext.isPassable / isFullBlock only call getCollisionShape for DYNAMIC states.
  */
 public class PrecomputedData {
 
@@ -34,6 +43,16 @@ public class PrecomputedData {
     public static final int WON_NO    = 2 << 2;   // definitely not walkable
     public static final int WON_MASK  = 3 << 2;
 
+    // collision shape class: bits 4-5
+    public static final int SHAPE_DYNAMIC = 0;        // position-dependent, needs a level lookup
+    public static final int SHAPE_EMPTY   = 1 << 4;   // no collision
+    public static final int SHAPE_FULL    = 2 << 4;   // full cube
+    public static final int SHAPE_PARTIAL = 3 << 4;   // fixed partial shape (slab, fence, pane, ...)
+    public static final int SHAPE_MASK    = 3 << 4;
+
+    // Second probe position for detecting position-dependent shapes (arbitrary, odd offsets)
+    private static final BlockPos SHAPE_PROBE = new BlockPos(13, 71, -29);
+
     private static volatile PrecomputedData instance;
 
     private final int[] flags;
@@ -43,10 +62,11 @@ public class PrecomputedData {
         flags = new int[size];
         int yesWth = 0, noWth = 0, maybeWth = 0;
         int yesWon = 0, noWon = 0, maybeWon = 0;
+        int shapeEmpty = 0, shapeFull = 0, shapePartial = 0, shapeDynamic = 0;
         for (int i = 0; i < size; i++) {
             BlockState state = Block.BLOCK_STATE_REGISTRY.byId(i);
             if (state != null) {
-                flags[i] = computeFlags(state);
+                flags[i] = computeFlags(state) | computeShape(state);
                 int wth = flags[i] & WTH_MASK;
                 if (wth == WTH_YES) yesWth++;
                 else if (wth == WTH_NO) noWth++;
@@ -55,10 +75,21 @@ public class PrecomputedData {
                 if (won == WON_YES) yesWon++;
                 else if (won == WON_NO) noWon++;
                 else maybeWon++;
+                switch (flags[i] & SHAPE_MASK) {
+                    case SHAPE_EMPTY -> shapeEmpty++;
+                    case SHAPE_FULL -> shapeFull++;
+                    case SHAPE_PARTIAL -> shapePartial++;
+                    default -> shapeDynamic++;
+                }
             }
         }
         BridgeMod.LOGGER.info("PrecomputedData: {} states, walkThrough(Y={} N={} M={}), walkOn(Y={} N={} M={})",
                 size, yesWth, noWth, maybeWth, yesWon, noWon, maybeWon);
+        int classified = shapeEmpty + shapeFull + shapePartial;
+        BridgeMod.LOGGER.info("PrecomputedData: collision shapes empty={} full={} partial={} dynamic={} "
+                        + "({}% resolved without a level lookup)",
+                shapeEmpty, shapeFull, shapePartial, shapeDynamic,
+                String.format("%.1f", 100.0 * classified / Math.max(1, classified + shapeDynamic)));
     }
 
     public static PrecomputedData getInstance() {
@@ -81,13 +112,44 @@ public class PrecomputedData {
         if (id >= 0 && id < flags.length) {
             return flags[id];
         }
-        return WTH_MAYBE | WON_MAYBE; // Unknown state, fall through to position check
+        return WTH_MAYBE | WON_MAYBE | SHAPE_DYNAMIC; // Unknown state, fall through to position check
+    }
+
+    /**
+     * Flags by block state registry id (for callers that already have the id).
+     */
+    public int getFlagsById(int id) {
+        if (id >= 0 && id < flags.length) {
+            return flags[id];
+        }
+        return WTH_MAYBE | WON_MAYBE | SHAPE_DYNAMIC;
     }
 
     private static int computeFlags(BlockState state) {
         return computeCanWalkThrough(state) | computeCanWalkOn(state);
     }
 
+    // ==================== collision shape ====================
+
+    private static int computeShape(BlockState state) {
+        if (state.getBlock().hasDynamicShape()) return SHAPE_DYNAMIC;
+        VoxelShape shape;
+        VoxelShape probe;
+        try {
+            shape = state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO);
+            probe = state.getCollisionShape(EmptyBlockGetter.INSTANCE, SHAPE_PROBE);
+        } catch (RuntimeException e) {
+            return SHAPE_DYNAMIC; // shape needs a real level (some modded blocks)
+        }
+        // Random offsets (bamboo, pointed dripstone, ...) move the shape between positions
+        if (shape.isEmpty() != probe.isEmpty()
+                || (!shape.isEmpty() && !shape.bounds().equals(probe.bounds()))) {
+            return SHAPE_DYNAMIC;
+        }
+        if (shape.isEmpty()) return SHAPE_EMPTY;
+        return Block.isShapeFullBlock(shape) ? SHAPE_FULL : SHAPE_PARTIAL;
+    }
+
     // ==================== canWalkThrough ====================
     // Mirrors MovementHelper.canWalkThrough logic, but without position-dependent checks.
 
@@ -0,0 +1,344 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.pathfinding.cache.BlockChangeTracker;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.moves.MoveResult;
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Every cell the bot can stand on within a cost budget, with the cheapest cost to get there
+ * (bot_reachable).
+ *
+ * flood() is a Dijkstra search from the start over the same Moves cost model as PathFinder,
+ * on a CalculationContext snapshot, until the cheapest open node costs more than the budget.
+ * Cells are kept in settle order (ascending cost) as packed BlockPos longs with float costs,
+ * plus a Long2FloatOpenHashMap for point lookups. "Nearest reachable X" queries walk the cells
+ * in that order, so the first hits are the cheapest by path, not by straight-line distance.
+ *
+ * A set is reusable until a block changes in a section holding the floor, feet or head of one
+ * of its cells (isCurrent); BlockChangeTracker also bumps the section across a border, so
+ * changes right next to the set count too. It keeps its context, so block queries read the
+ * same snapshot the flood ran on.
+ */
+public final class ReachableSet {
+
+    /** Stop settling cells beyond this; the set is then marked truncated. */
+    public static final int MAX_CELLS = 1 << 18;
+
+    // Dijkstra: no goal to reach and no heuristic
+    private static final Goal NO_GOAL = new Goal() {
+        @Override
+        public boolean isInGoal(int x, int y, int z) {
+            return false;
+        }
+
+        @Override
+        public double heuristic(int x, int y, int z) {
+            return 0;
+        }
+    };
+
+    /** A matching block next to a reachable cell, and the cost to reach that cell. */
+    public static final class BlockHit {
+        public final BlockPos pos;
+        public final BlockState state;
+        public final BlockPos standAt;
+        public final double cost;
+
+        BlockHit(BlockPos pos, BlockState state, BlockPos standAt, double cost) {
+            this.pos = pos;
+            this.state = state;
+            this.standAt = standAt;
+            this.cost = cost;
+        }
+    }
+
+    private final int startX, startY, startZ;
+    private final double budget;
+    private final boolean truncated;
+    private final long capabilities;
+    private final long computeMs;
+
+    private final long[] cells;
+    private final float[] costs;
+    private final Long2FloatOpenHashMap index;
+    private final long[] sections;
+    private final long snapshotVersion;
+    private final CalculationContext ctx;
+
+    private ReachableSet(int startX, int startY, int startZ, double budget, boolean truncated,
+                         long[] cells, float[] costs, long snapshotVersion, CalculationContext ctx,
+                         long computeMs) {
+        this.startX = startX;
+        this.startY = startY;
+        this.startZ = startZ;
+        this.budget = budget;
+        this.truncated = truncated;
+        this.cells = cells;
+        this.costs = costs;
+        this.snapshotVersion = snapshotVersion;
+        this.ctx = ctx;
+        this.capabilities = ctx.capabilityFingerprint();
+        this.computeMs = computeMs;
+        index = new Long2FloatOpenHashMap(cells.length);
+        index.defaultReturnValue(-1);
+        for (int i = 0; i < cells.length; i++) {
+            index.put(cells[i], costs[i]);
+        }
+        sections = sectionsOf(cells);
+    }
+
+    /**
+     * Snapshot radius (chunks around the start) that covers everything a flood with this
+     * budget can reach at sprint speed.
+     */
+    public static int snapshotRadius(double budget) {
+        int chunks = (int) Math.ceil(budget / ActionCosts.SPRINT_ONE_BLOCK_COST / 16) + 1;
+        return Math.min(chunks, CalculationContext.MAX_CORRIDOR_MARGIN + 1);
+    }
+
+    /**
+     * Flood from (x, y, z) until every cell within budget ticks is settled.
+     * Runs on a worker thread, after the context's chunks were captured.
+     *
+     * @param snapshotVersion BlockChangeTracker.getLatestVersion() from before the capture
+     * @return the set, or null if cancelled
+     */
+    public static ReachableSet flood(int x, int y, int z, CalculationContext ctx, double budget,
+                                     long snapshotVersion, CancellationToken token) {
+        long startTime = System.currentTimeMillis();
+        long[] cells = new long[1024];
+        float[] costs = new float[1024];
+        int n = 0;
+        boolean truncated = false;
+
+        SearchArena arena = SearchArena.acquire();
+        try {
+            NodeStore store = arena.getStore();
+            OpenSet openSet = arena.getOpenSet();
+            int start = store.getOrCreate(x, y, z, PathNode.longHash(x, y, z), NO_GOAL);
+            store.cost[start] = 0;
+            store.combinedCost[start] = 0;
+            openSet.insert(start);
+
+            MoveResult res = new MoveResult();
+            Moves[] allMoves = Moves.values();
+            int minY = ctx.getLevel().getMinBuildHeight();
+            int maxY = ctx.getLevel().getMaxBuildHeight();
+
+            while (!openSet.isEmpty()) {
+                if ((n & (PathFinder.TIME_CHECK_INTERVAL - 1)) == 0 && token.isCancelled()) {
+                    return null;
+                }
+                int node = openSet.removeLowest();
+                double curCost = store.cost[node];
+                if (curCost > budget) {
+                    break;
+                }
+                if (n == MAX_CELLS) {
+                    truncated = true;
+                    break;
+                }
+                int curX = store.x[node];
+                int curY = store.y[node];
+                int curZ = store.z[node];
+                if (n == cells.length) {
+                    cells = Arrays.copyOf(cells, n << 1);
+                    costs = Arrays.copyOf(costs, n << 1);
+                }
+                cells[n] = BlockPos.asLong(curX, curY, curZ);
+                costs[n] = (float) curCost;
+                n++;
+
+                ctx.beginExpansion(curX, curY, curZ);
+                for (Moves moves : allMoves) {
+                    int newX = curX + moves.xOffset;
+                    int newZ = curZ + moves.zOffset;
+                    if ((newX >> 4 != curX >> 4 || newZ >> 4 != curZ >> 4)
+                            && !ctx.isLoaded(newX, newZ)) {
+                        continue;
+                    }
+                    if (curY + moves.yOffset > maxY || curY + moves.yOffset < minY) {
+                        continue;
+                    }
+
+                    res.reset();
+                    moves.apply(ctx, curX, curY, curZ, res);
+                    double actionCost = res.cost;
+                    if (actionCost >= ActionCosts.COST_INF) {
+                        continue;
+                    }
+                    if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                        throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+                    }
+
+                    int neighbor = store.getOrCreate(res.x, res.y, res.z,
+                            PathNode.longHash(res.x, res.y, res.z), NO_GOAL);
+                    double tentativeCost = curCost + actionCost;
+                    if (store.cost[neighbor] - tentativeCost > PathFinder.MIN_IMPROVEMENT) {
+                        store.previous[neighbor] = node;
+                        store.cost[neighbor] = tentativeCost;
+                        store.setMoveType(neighbor, moves);
+                        store.combinedCost[neighbor] = tentativeCost;
+                        if (store.isOpen(neighbor)) {
+                            openSet.update(neighbor);
+                        } else {
+                            openSet.insert(neighbor);
+                        }
+                    }
+                }
+            }
+        } finally {
+            arena.release();
+        }
+
+        return new ReachableSet(x, y, z, budget, truncated, Arrays.copyOf(cells, n),
+                Arrays.copyOf(costs, n), snapshotVersion, ctx, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Cost to stand at (x, y, z), or -1 if it isn't reachable within maxCost.
+     */
+    public double costAt(int x, int y, int z, double maxCost) {
+        float cost = index.get(BlockPos.asLong(x, y, z));
+        return cost < 0 || cost > maxCost ? -1 : cost;
+    }
+
+    /**
+     * Cheapest cost to stand within range of (x, y, z) (on the cell itself if range <= 1),
+     * or -1 if no such cell is reachable within maxCost.
+     */
+    public double costNear(int x, int y, int z, int range, double maxCost) {
+        int radius = range <= 1 ? 0 : range;
+        int radiusSq = radius * radius;
+        double best = -1;
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    if (dx * dx + dy * dy + dz * dz > radiusSq) continue;
+                    double cost = costAt(x + dx, y + dy, z + dz, maxCost);
+                    if (cost >= 0 && (best < 0 || cost < best)) {
+                        best = cost;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The cheapest-to-reach blocks of the given types, at most limit of them, cheapest first.
+     * A block counts as reached from a cell if it is within one block horizontally, from the
+     * floor below up to one above the head (where the bot can mine or use it).
+     * Safe to call from any thread; reads the flood's snapshot through a forked context.
+     */
+    public List<BlockHit> nearestBlocks(Set<Block> blocks, int limit, double maxCost) {
+        List<BlockHit> hits = new ArrayList<>();
+        if (blocks.isEmpty() || limit <= 0) return hits;
+        CalculationContext view = ctx.fork();
+        LongOpenHashSet seen = new LongOpenHashSet();
+        for (int i = 0; i < cells.length && costs[i] <= maxCost; i++) {
+            int cx = BlockPos.getX(cells[i]);
+            int cy = BlockPos.getY(cells[i]);
+            int cz = BlockPos.getZ(cells[i]);
+            for (int dy = -1; dy <= 2; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        BlockState state = view.get(cx + dx, cy + dy, cz + dz);
+                        if (!blocks.contains(state.getBlock())) continue;
+                        if (!seen.add(BlockPos.asLong(cx + dx, cy + dy, cz + dz))) continue;
+                        hits.add(new BlockHit(new BlockPos(cx + dx, cy + dy, cz + dz), state,
+                                new BlockPos(cx, cy, cz), costs[i]));
+                        if (hits.size() >= limit) return hits;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Whether no block changed since the flood in a section holding one of its cells' floor,
+     * feet or head. Server thread only.
+     */
+    public boolean isCurrent(ServerLevel level) {
+        if (level != ctx.getLevel()) return false;
+        BlockChangeTracker tracker = BlockChangeTracker.getInstance();
+        for (long section : sections) {
+            if (tracker.getVersion(level, SectionPos.x(section), SectionPos.y(section), SectionPos.z(section))
+                    > snapshotVersion) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether this set answers a query from (x, y, z) with this budget and these capabilities.
+     */
+    public boolean covers(int x, int y, int z, double budget, long capabilities) {
+        return x == startX && y == startY && z == startZ && budget <= this.budget
+                && capabilities == this.capabilities;
+    }
+
+    /** Distinct sections holding the floor, feet or head block of any cell. */
+    private static long[] sectionsOf(long[] cells) {
+        long[] sections = new long[cells.length * 3];
+        int n = 0;
+        for (long cell : cells) {
+            int sx = BlockPos.getX(cell) >> 4;
+            int y = BlockPos.getY(cell);
+            int sz = BlockPos.getZ(cell) >> 4;
+            sections[n++] = SectionPos.asLong(sx, (y - 1) >> 4, sz);
+            sections[n++] = SectionPos.asLong(sx, y >> 4, sz);
+            sections[n++] = SectionPos.asLong(sx, (y + 1) >> 4, sz);
+        }
+        Arrays.sort(sections);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || sections[i] != sections[i - 1]) {
+                sections[unique++] = sections[i];
+            }
+        }
+        return Arrays.copyOf(sections, unique);
+    }
+
+    /** Cells within maxCost. */
+    public int countWithin(double maxCost) {
+        int lo = 0, hi = costs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (costs[mid] <= maxCost) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public long getComputeMs() {
+        return computeMs;
+    }
+}
@@ -0,0 +1,98 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.BridgeMod;
+
+/**
+ * Reusable working memory for one A* search: a NodeStore plus its open set.
+ *
+ * Each worker thread keeps one arena in a ThreadLocal, so back-to-back replans on the
+ * same thread reuse the node arrays, hash table and open set that earlier searches already
+ * grew instead of reallocating them. Acquiring an arena clears it in O(1)
+ * (see NodeStore.clear()).
+ *
+ * A single huge search would otherwise pin its memory on the thread forever, so on
+ * release an arena that grew past MAX_RETAINED_NODES is trimmed back to the default size.
+ *
+ * A bidirectional search needs a second store for its backward half; acquireReverse()
+ * hands out that thread's second pooled arena.
+ *
+ * Usage:
+ * <pre>
+ * SearchArena arena = SearchArena.acquire();
+ * try { ... } finally { arena.release(); }
+ * </pre>
+ */
+public final class SearchArena {
+
+    // Largest store kept across searches. ~45 bytes/node in the store plus 32 bytes/node
+    // in the hash table, so this retains at most ~20 MB per worker thread.
+    private static final int MAX_RETAINED_NODES = 1 << 18;
+
+    private static final ThreadLocal<SearchArena> POOL = ThreadLocal.withInitial(SearchArena::new);
+    private static final ThreadLocal<SearchArena> REVERSE_POOL = ThreadLocal.withInitial(SearchArena::new);
+
+    private final NodeStore store;
+    private final OpenSet openSet;
+    private final boolean pooled;
+    private boolean inUse;
+
+    private SearchArena() {
+        this(true);
+    }
+
+    private SearchArena(boolean pooled) {
+        this.store = new NodeStore();
+        this.openSet = OpenSet.create(store);
+        this.pooled = pooled;
+    }
+
+    /**
+     * Get the calling thread's arena, cleared and ready for a new search.
+     * If that arena is already in use (a nested search on the same thread),
+     * a fresh unpooled arena is returned instead.
+     */
+    public static SearchArena acquire() {
+        return acquire(POOL);
+    }
+
+    /**
+     * Like acquire(), for the backward search of a bidirectional PathFinder.
+     */
+    public static SearchArena acquireReverse() {
+        return acquire(REVERSE_POOL);
+    }
+
+    private static SearchArena acquire(ThreadLocal<SearchArena> pool) {
+        SearchArena arena = pool.get();
+        if (arena.inUse) {
+            arena = new SearchArena(false);
+        }
+        arena.inUse = true;
+        arena.store.clear();
+        arena.openSet.clear();
+        return arena;
+    }
+
+    /**
+     * Return the arena to its thread. Oversized arenas are trimmed back to the default size.
+     */
+    public void release() {
+        inUse = false;
+        if (!pooled) {
+            return;
+        }
+        int capacity = store.capacity();
+        if (store.trim(MAX_RETAINED_NODES) | openSet.trim(MAX_RETAINED_NODES)) {
+            BridgeMod.LOGGER.debug("SearchArena: trimmed {} node arena on {}",
+                    capacity, Thread.currentThread().getName());
+        }
+    }
+
+    public NodeStore getStore() {
+        return store;
+    }
+
+    public OpenSet getOpenSet() {
+        return openSet;
+    }
+}
@@ -0,0 +1,25 @@
+package com.playstudio.bridgemod.pathfinding;
+
+/**
+ * Search engine for a goto's block-level searches (bot_goto "search" parameter).
+ */
+public enum SearchMode {
+    /** One PathFinder per segment, resuming the previous segment's tree (SearchSession). */
+    ASTAR,
+    /** PortfolioSearch: plain, weighted and greedy variants raced on several cores. */
+    PORTFOLIO,
+    /** HdaSearch: one search spread over HdaSearch.DEFAULT_THREADS workers. */
+    HDA;
+
+    /**
+     * Parse a bot_goto "search" value (case-insensitive), or null if unknown.
+     */
+    public static SearchMode parse(String name) {
+        for (SearchMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
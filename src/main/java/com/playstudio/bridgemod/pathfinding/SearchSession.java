@@ -0,0 +1,338 @@
+package com.playstudio.bridgemod.pathfinding;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Arrays;
+
+/**
+ * Search state carried across consecutive searches of one navigation.
+ *
+ * When a search starts on a node of the previous search's tree (a lookahead segment starting
+ * where the previous partial path ended, or a pursuit replan starting where the bot now
+ * stands), the tree is repaired and resumed instead of searching from scratch, in the spirit
+ * of LPA* / D* Lite:
+ *
+ * 1. Re-root: keep only the start node S's subtree (nodes whose previous-chain passes
+ *    through S); everything else was reached through the old start and has no valid cost
+ *    relative to S. Kept costs shift by -cost(S). Closed nodes in the subtree keep optimal
+ *    costs: any path S→X costs at least cost(X) - cost(S) in the old search.
+ * 2. Block changes: a section changed if its snapshot version differs between the previous
+ *    search's context and this one (or a context didn't capture it). A node whose move from
+ *    its parent touches a changed section is dropped with its subtree, since its cost may have
+ *    gone up, and the parent is reopened to regenerate it. Closed nodes in or next to a changed
+ *    section are reopened too, to find moves that became possible or cheaper.
+ *    Threat costs are compared the same way: a move's threat cost is that of the cell it ends
+ *    in, so a node whose cell cost differs between the two contexts' ThreatGrids (a hostile
+ *    moved, came or went) is dropped with its subtree and its parent reopened, so a pursuit
+ *    replanning among moving hostiles only searches again where they moved. A different
+ *    CostCalibration changes every cost, so the search starts over (prepare).
+ * 3. Goal moved: costs from the start don't depend on the goal, so kept nodes only get new
+ *    heuristics and the open set is re-keyed. Closed nodes inside the new goal are reopened so
+ *    the search can end on them.
+ * 4. Rebuild the open set from the subtree's open nodes, the nodes reopened above, closed
+ *    nodes flagged prunedSuccessor, and closed nodes flagged sharedSuccessor that lie next to a
+ *    dropped node: only a sharedSuccessor node can have had a successor outside the subtree,
+ *    and that successor is within one move of it, so it is reopened to regenerate it. In open
+ *    terrain nearly every closed node is flagged sharedSuccessor; the proximity test keeps the
+ *    reopening to the seam between the kept subtree and the dropped part of the tree.
+ *
+ * Only the region around the changes is searched again: when a pursued target moved a few
+ * blocks, most of the tree towards it is still closed with valid costs.
+ *
+ * One session belongs to one BotController. Searches hold the session's monitor while they run,
+ * so a superseded search that has not yet noticed its cancellation finishes before the next
+ * one touches the store. invalidate() only bumps a volatile counter, so the server thread can
+ * call it while a search is running.
+ */
+public final class SearchSession {
+
+    // Don't carry trees larger than this into the next segment, and trim back when invalidated
+    private static final int MAX_RETAINED_NODES = 1 << 18;
+
+    // Dropped nodes are bucketed by (x >> DROP_SHIFT, z >> DROP_SHIFT); no move reaches more than
+    // 4 blocks sideways, so a node's own bucket and the 8 around it hold every successor it has
+    private static final int DROP_SHIFT = 2;
+
+    // sectionFlags bits
+    private static final long CHANGE_KNOWN = 1;
+    private static final long CHANGED = 2;
+    private static final long NEAR_KNOWN = 4;
+    private static final long NEAR_CHANGE = 8;
+
+    final NodeStore store = new NodeStore();
+    final OpenSet openSet = OpenSet.create(store);
+
+    // State of the last finished search (guarded by this)
+    private Goal lastGoal;
+    private int lastEndNode = NodeStore.NO_NODE;
+    private int lastEpoch;
+    private CalculationContext lastContext;
+
+    // Bumped by invalidate(); a resume is only allowed if no invalidation happened since
+    private volatile int epoch;
+    private int searchEpoch;
+
+    // Scratch for resume(): 0 = unknown, 1 = kept, 2 = dropped; an ancestor stack
+    private byte[] mark = new byte[0];
+    private int[] stack = new int[0];
+    // Per-section change flags for the resume in progress, and the contexts compared
+    private final Long2LongOpenHashMap sectionFlags = new Long2LongOpenHashMap();
+    private CalculationContext before;
+    private CalculationContext after;
+    private int changedSections;
+    // Whether the two contexts have different threat grids, and kept nodes whose threat cost changed
+    private boolean threatsDiffer;
+    private int threatChanges;
+    // Buckets (DROP_SHIFT) holding a node dropped by the resume in progress
+    private final LongOpenHashSet droppedBuckets = new LongOpenHashSet();
+
+    /**
+     * Forget the carried search (bot stuck or deviated, navigation ended).
+     * The store itself is cleared by the next search.
+     */
+    public void invalidate() {
+        epoch++;
+    }
+
+    /**
+     * Prepare the store for a search from (x, y, z) towards goal.
+     * Must be called while holding this session's monitor.
+     *
+     * @return the re-rooted start node if the previous search could be resumed,
+     *         otherwise NO_NODE (the store and open set are then empty)
+     */
+    int prepare(int x, int y, int z, Goal goal, CalculationContext ctx) {
+        searchEpoch = epoch;
+        int root = NodeStore.NO_NODE;
+        // A new calibration table rescales every cost and heuristic in the tree
+        if (lastEndNode != NodeStore.NO_NODE && lastEpoch == searchEpoch
+                && lastContext.getCalibration() == ctx.getCalibration()) {
+            root = store.find(PathNode.longHash(x, y, z));
+        }
+        Goal previousGoal = lastGoal;
+        CalculationContext previousContext = lastContext;
+        lastEndNode = NodeStore.NO_NODE;
+        lastGoal = null;
+        lastContext = null;
+        if (root != NodeStore.NO_NODE) {
+            return resume(root, goal, previousGoal, previousContext, ctx);
+        }
+        if (store.trim(MAX_RETAINED_NODES)) {
+            BridgeMod.LOGGER.debug("SearchSession: trimmed oversized node store");
+        }
+        openSet.trim(MAX_RETAINED_NODES);
+        store.clear();
+        openSet.clear();
+        return NodeStore.NO_NODE;
+    }
+
+    /**
+     * Record how the search ended. endNode is the last node of the returned path,
+     * or NO_NODE if the search can't be resumed (no path, cancelled, too large).
+     */
+    void finish(Goal goal, int endNode, CalculationContext ctx) {
+        if (store.size() > MAX_RETAINED_NODES) {
+            endNode = NodeStore.NO_NODE;
+        }
+        lastGoal = goal;
+        lastEndNode = endNode;
+        lastEpoch = searchEpoch;
+        lastContext = endNode == NodeStore.NO_NODE ? null : ctx;
+    }
+
+    private int resume(int root, Goal goal, Goal previousGoal, CalculationContext previousContext,
+                       CalculationContext ctx) {
+        NodeStore s = store;
+        int n = s.size();
+        if (mark.length < n) {
+            mark = new byte[Math.max(n, mark.length << 1)];
+            stack = new int[mark.length];
+        } else {
+            Arrays.fill(mark, 0, n, (byte) 0);
+        }
+        sectionFlags.clear();
+        before = previousContext;
+        after = ctx;
+        changedSections = 0;
+        threatsDiffer = previousContext.getThreats() != ctx.getThreats();
+        threatChanges = 0;
+        boolean[] reopen = new boolean[n];
+
+        // Classify every node by walking up its previous-chain until a classified node.
+        // Unwinding from the classified ancestor down, a node whose move touches a changed
+        // section is dropped along with everything below it
+        mark[root] = 1;
+        int dropped = 0;
+        for (int i = 0; i < n; i++) {
+            if (mark[i] != 0) continue;
+            int depth = 0;
+            int node = i;
+            while (node != NodeStore.NO_NODE && mark[node] == 0) {
+                stack[depth++] = node;
+                node = s.previous[node];
+            }
+            byte result = node == NodeStore.NO_NODE ? 2 : mark[node];
+            while (depth > 0) {
+                int child = stack[--depth];
+                int parent = s.previous[child];
+                if (result == 1 && (moveTouchesChange(parent, child) || threatChanged(child))) {
+                    reopen[parent] = true;
+                    result = 2;
+                    dropped++;
+                }
+                mark[child] = result;
+            }
+        }
+
+        boolean[] keep = new boolean[n];
+        droppedBuckets.clear();
+        for (int i = 0; i < n; i++) {
+            keep[i] = mark[i] == 1;
+            if (!keep[i]) {
+                droppedBuckets.add(ChunkPos.asLong(s.x[i] >> DROP_SHIFT, s.z[i] >> DROP_SHIFT));
+            }
+        }
+        double base = s.cost[root];
+        int[] remap = s.compact(keep);
+        int newRoot = remap[root];
+        int kept = s.size();
+
+        s.previous[newRoot] = NodeStore.NO_NODE;
+        s.moveType[newRoot] = -1;
+
+        // Shift costs and re-key, then rebuild the open set once every stale heap position is cleared
+        boolean retarget = !goal.equals(previousGoal);
+        int reopened = 0;
+        for (int old = 0; old < n; old++) {
+            int id = remap[old];
+            if (id == NodeStore.NO_NODE) continue;
+            s.cost[id] -= base;
+            if (retarget) {
+                double heuristic = goal.heuristic(s.x[id], s.y[id], s.z[id]);
+                if (Double.isNaN(heuristic)) {
+                    throw new IllegalStateException(goal + " calculated implausible heuristic");
+                }
+                s.estimatedCostToGoal[id] = heuristic * s.getHeuristicScale();
+            }
+            s.combinedCost[id] = s.cost[id] + s.estimatedCostToGoal[id];
+            boolean open = s.heapPosition[id] != -1;
+            s.heapPosition[id] = -1;
+            if (open || reopen[old] || s.prunedSuccessor[id]
+                    || (s.sharedSuccessor[id] && nearDropped(s.x[id], s.z[id]))
+                    || (retarget && goal.isInGoal(s.x[id], s.y[id], s.z[id]))
+                    || nearChange(s.x[id], s.y[id], s.z[id])) {
+                s.sharedSuccessor[id] = false;
+                s.prunedSuccessor[id] = false;
+                stack[reopened++] = id;
+            }
+        }
+        openSet.clear();
+        for (int i = 0; i < reopened; i++) {
+            openSet.insert(stack[i]);
+        }
+        before = null;
+        after = null;
+        droppedBuckets.clear();
+
+        BridgeMod.LOGGER.debug("SearchSession: resumed at ({},{},{}){}, kept {} of {} nodes "
+                        + "({} subtrees dropped, {} changed sections, {} changed threat costs), {} open",
+                s.x[newRoot], s.y[newRoot], s.z[newRoot], retarget ? " for " + goal : "",
+                kept, n, dropped, changedSections, threatChanges, reopened);
+        return newRoot;
+    }
+
+    /**
+     * Whether the move from -> to may have a different cost now: true if any section its
+     * blocks can lie in (floor below the lower node up to head room above the higher one)
+     * changed.
+     */
+    private boolean moveTouchesChange(int from, int to) {
+        NodeStore s = store;
+        int minX = Math.min(s.x[from], s.x[to]) >> 4;
+        int maxX = Math.max(s.x[from], s.x[to]) >> 4;
+        int minY = (Math.min(s.y[from], s.y[to]) - 1) >> 4;
+        int maxY = (Math.max(s.y[from], s.y[to]) + 2) >> 4;
+        int minZ = Math.min(s.z[from], s.z[to]) >> 4;
+        int maxZ = Math.max(s.z[from], s.z[to]) >> 4;
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    if (sectionChanged(sx, sy, sz)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether the threat cost of moves ending at this node differs between the two contexts. */
+    private boolean threatChanged(int node) {
+        if (!threatsDiffer) {
+            return false;
+        }
+        int x = store.x[node];
+        int z = store.z[node];
+        if (before.threatCost(x, z) != after.threatCost(x, z)) {
+            threatChanges++;
+            return true;
+        }
+        return false;
+    }
+
+    /** Whether a node dropped by this resume may be one move away from (x, z). */
+    private boolean nearDropped(int x, int z) {
+        int bx = x >> DROP_SHIFT;
+        int bz = z >> DROP_SHIFT;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (droppedBuckets.contains(ChunkPos.asLong(bx + dx, bz + dz))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether (x, y, z)'s section or one of its 26 neighbours changed. */
+    private boolean nearChange(int x, int y, int z) {
+        int sx = x >> 4;
+        int sy = y >> 4;
+        int sz = z >> 4;
+        long key = SectionPos.asLong(sx, sy, sz);
+        long flags = sectionFlags.get(key);
+        if ((flags & NEAR_KNOWN) == 0) {
+            boolean near = false;
+            for (int dx = -1; dx <= 1 && !near; dx++) {
+                for (int dy = -1; dy <= 1 && !near; dy++) {
+                    for (int dz = -1; dz <= 1 && !near; dz++) {
+                        near = sectionChanged(sx + dx, sy + dy, sz + dz);
+                    }
+                }
+            }
+            flags = sectionFlags.get(key) | NEAR_KNOWN | (near ? NEAR_CHANGE : 0);
+            sectionFlags.put(key, flags);
+        }
+        return (flags & NEAR_CHANGE) != 0;
+    }
+
+    private boolean sectionChanged(int sx, int sy, int sz) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        long flags = sectionFlags.get(key);
+        if ((flags & CHANGE_KNOWN) == 0) {
+            long version = before.sectionVersion(sx, sy, sz);
+            boolean changed = version == -1 || version != after.sectionVersion(sx, sy, sz);
+            if (changed) {
+                changedSections++;
+            }
+            flags |= CHANGE_KNOWN | (changed ? CHANGED : 0);
+            sectionFlags.put(key, flags);
+        }
+        return (flags & CHANGED) != 0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.pathfinding.flow.FlowFieldManager;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-section modification counters for server levels.
+ * Must be registered on MinecraftForge.EVENT_BUS.
+ *
+ * Every block change bumps its section's version to a fresh value from a global counter,
+ * so a cached SectionSnapshot is valid exactly while its version still matches.
+ * Sections never seen changing report version 0.
+ *
+ * A change on a section border also bumps the section across that face: walkability of a
+ * block depends on its face neighbours (see SectionWalkability), so the neighbouring
+ * section's memoized bits must be dropped too.
+ *
+ * Sources of changes:
+ * - BlockEvent.NeighborNotifyEvent: fired by Level.setBlock with neighbour updates, which
+ *   covers almost all gameplay changes (players, explosions, fluids, pistons, redstone)
+ * - BlockEvent.BreakEvent / EntityPlaceEvent: player and bot breaking/placing
+ * - ChunkEvent.Load / Unload: chunk contents replaced wholesale
+ *
+ * Every bumped section is also reported to PathCache, which evicts the paths through it,
+ * and to FlowFieldManager, which schedules a repair of the flow fields watching it.
+ *
+ * Changes made with setBlock flags that skip neighbour updates fire none of these: doors,
+ * trapdoors and fence gates opening or closing, crops growing, and some commands. The blocks
+ * that change that way are checked against the live world whenever a snapshot or cached path
+ * is reused (SectionSnapshotCache), and a mismatch is reported through onSilentChange.
+ * All methods run on the server thread.
+ */
+public final class BlockChangeTracker {
+
+    private static final BlockChangeTracker INSTANCE = new BlockChangeTracker();
+
+    private final Map<ResourceKey<Level>, Long2LongOpenHashMap> versions = new HashMap<>();
+    private long nextVersion = 1;
+
+    private BlockChangeTracker() {
+    }
+
+    public static BlockChangeTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Current version of the section at section coordinates (sx, sy, sz).
+     */
+    public long getVersion(Level level, int sx, int sy, int sz) {
+        Long2LongOpenHashMap levelVersions = versions.get(level.dimension());
+        return levelVersions == null ? 0 : levelVersions.get(SectionPos.asLong(sx, sy, sz));
+    }
+
+    private Long2LongOpenHashMap forLevel(Level level) {
+        return versions.computeIfAbsent(level.dimension(), k -> new Long2LongOpenHashMap());
+    }
+
+    /**
+     * Latest version handed out to any section. A section whose version is greater changed
+     * after this call.
+     */
+    public long getLatestVersion() {
+        return nextVersion - 1;
+    }
+
+    private void bumpSection(Level level, Long2LongOpenHashMap levelVersions, int sx, int sy, int sz) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        levelVersions.put(key, nextVersion++);
+        PathCache.getInstance().onSectionChanged(level, key);
+        FlowFieldManager.getInstance().onSectionChanged(level, key);
+    }
+
+    private void bump(LevelAccessor accessor, BlockPos pos) {
+        if (!(accessor instanceof ServerLevel level)) return;
+        Long2LongOpenHashMap levelVersions = forLevel(level);
+        int sx = pos.getX() >> 4;
+        int sy = pos.getY() >> 4;
+        int sz = pos.getZ() >> 4;
+        bumpSection(level, levelVersions, sx, sy, sz);
+        int lx = pos.getX() & 15;
+        int ly = pos.getY() & 15;
+        int lz = pos.getZ() & 15;
+        if (lx == 0) bumpSection(level, levelVersions, sx - 1, sy, sz);
+        if (lx == 15) bumpSection(level, levelVersions, sx + 1, sy, sz);
+        if (ly == 0) bumpSection(level, levelVersions, sx, sy - 1, sz);
+        if (ly == 15) bumpSection(level, levelVersions, sx, sy + 1, sz);
+        if (lz == 0) bumpSection(level, levelVersions, sx, sy, sz - 1);
+        if (lz == 15) bumpSection(level, levelVersions, sx, sy, sz + 1);
+    }
+
+    /**
+     * A block changed without an event (found by SectionSnapshotCache): bump as for any change.
+     */
+    void onSilentChange(ServerLevel level, int x, int y, int z) {
+        bump(level, new BlockPos(x, y, z));
+    }
+
+    @SubscribeEvent
+    public void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        bump(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onBlockBreak(BlockEvent.BreakEvent event) {
+        bump(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        bump(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        ChunkAccess chunk = event.getChunk();
+        ChunkPos pos = chunk.getPos();
+        Long2LongOpenHashMap levelVersions = forLevel(level);
+        for (int sy = chunk.getMinSection(); sy < chunk.getMinSection() + chunk.getSectionsCount(); sy++) {
+            bumpSection(level, levelVersions, pos.x, sy, pos.z);
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        ChunkAccess chunk = event.getChunk();
+        ChunkPos pos = chunk.getPos();
+        Long2LongOpenHashMap levelVersions = versions.get(level.dimension());
+        if (levelVersions != null) {
+            for (int sy = chunk.getMinSection(); sy < chunk.getMinSection() + chunk.getSectionsCount(); sy++) {
+                levelVersions.remove(SectionPos.asLong(pos.x, sy, pos.z));
+            }
+        }
+        for (int sy = chunk.getMinSection(); sy < chunk.getMinSection() + chunk.getSectionsCount(); sy++) {
+            long key = SectionPos.asLong(pos.x, sy, pos.z);
+            PathCache.getInstance().onSectionChanged(level, key);
+            FlowFieldManager.getInstance().onSectionChanged(level, key);
+        }
+        SectionSnapshotCache.getInstance().evictChunk(level, pos.x, pos.z,
+                chunk.getMinSection(), chunk.getSectionsCount());
+    }
+
+    @SubscribeEvent
+    public void onLevelUnload(LevelEvent.Unload event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        versions.remove(level.dimension());
+        SectionSnapshotCache.getInstance().evictLevel(level);
+        PathCache.getInstance().evictLevel(level);
+        FlowFieldManager.getInstance().evictLevel(level);
+    }
+}
@@ -0,0 +1,160 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.pathfinding.PrecomputedData;
+import com.playstudio.bridgemod.pathfinding.moves.MovementHelper;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.EmptyBlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Coarse 2-bit-per-block copy of a chunk column, in the style of Baritone's CachedChunk.
+ *
+ * Each block is one of AIR / SOLID / WATER / AVOID, packed 4 to a byte in
+ * ((y - minY) << 8) | (z << 4) | x order, so a 384-block-tall column is 24 KB.
+ * CachedWorld keeps these for chunks that are no longer (or not yet) loaded, and
+ * CalculationContext reads them back as placeholder block states (see placeholder())
+ * when a search leaves the live snapshot area.
+ *
+ * A captured chunk owns its bytes; a chunk read back from CachedWorld is a view over its
+ * slot in the mapped region file, so reading a column allocates no 24 KB copy.
+ */
+public final class CachedChunk {
+
+    public static final int AIR = 0;
+    public static final int SOLID = 1;
+    public static final int WATER = 2;
+    public static final int AVOID = 3;
+
+    public static final int BYTES_PER_SECTION = 4096 / 4;
+
+    // Block type per registry id, filled lazily (-1 = not classified yet)
+    private static byte[] typeById;
+
+    private final int minY;
+    private final byte[] data;      // captured copy (null for a view)
+    private final ByteBuffer view;  // slot of a mapped region file (null for a captured copy)
+
+    CachedChunk(int minY, byte[] data) {
+        this.minY = minY;
+        this.data = data;
+        this.view = null;
+    }
+
+    /** View over a region slot's data bytes; only absolute reads are used, so it is thread-safe. */
+    CachedChunk(int minY, ByteBuffer view) {
+        this.minY = minY;
+        this.data = null;
+        this.view = view;
+    }
+
+    /**
+     * Classify every block of a loaded chunk. MUST be called on the server thread.
+     */
+    public static CachedChunk capture(LevelChunk chunk) {
+        LevelChunkSection[] sections = chunk.getSections();
+        byte[] data = new byte[sections.length * BYTES_PER_SECTION];
+        for (int s = 0; s < sections.length; s++) {
+            LevelChunkSection section = sections[s];
+            if (section == null || section.hasOnlyAir()) continue; // AIR = 0
+            int base = s * BYTES_PER_SECTION;
+            BlockState first = section.getBlockState(0, 0, 0);
+            if (!section.getStates().maybeHas(state -> state != first)) {
+                int type = typeOf(first);
+                if (type != AIR) {
+                    Arrays.fill(data, base, base + BYTES_PER_SECTION, (byte) (type * 0b01010101));
+                }
+                continue;
+            }
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int type = typeOf(section.getBlockState(x, y, z));
+                        if (type == AIR) continue;
+                        int index = (y << 8) | (z << 4) | x;
+                        data[base + (index >> 2)] |= (byte) (type << ((index & 3) << 1));
+                    }
+                }
+            }
+        }
+        return new CachedChunk(chunk.getMinBuildHeight(), data);
+    }
+
+    /**
+     * Block type at chunk-local x/z (0-15) and absolute y.
+     */
+    public int getType(int x, int y, int z) {
+        int index = ((y - minY) << 8) | (z << 4) | x;
+        int packed = data != null ? data[index >> 2] : view.get(index >> 2);
+        return (packed >> ((index & 3) << 1)) & 3;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    /** Column height in blocks. */
+    public int getHeight() {
+        return (data != null ? data.length : view.capacity()) / BYTES_PER_SECTION * 16;
+    }
+
+    /** The captured bytes, or null for a view over a region file. */
+    byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Stand-in block state for a type: AIR → air, SOLID → stone, WATER → water source,
+     * AVOID → lava source. Movement costs computed on these are the coarse estimate
+     * used beyond the live snapshot.
+     */
+    public static BlockState placeholder(int type) {
+        return switch (type) {
+            case SOLID -> Blocks.STONE.defaultBlockState();
+            case WATER -> Blocks.WATER.defaultBlockState();
+            case AVOID -> Blocks.LAVA.defaultBlockState();
+            default -> Blocks.AIR.defaultBlockState();
+        };
+    }
+
+    /**
+     * Coarse type of a block state. Per-state only (no position), so results are memoized by id.
+     */
+    static int typeOf(BlockState state) {
+        byte[] types = typeById;
+        if (types == null) {
+            types = new byte[Block.BLOCK_STATE_REGISTRY.size()];
+            Arrays.fill(types, (byte) -1);
+            typeById = types;
+        }
+        int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+        if (id < 0 || id >= types.length) {
+            return classify(state);
+        }
+        int type = types[id];
+        if (type < 0) {
+            type = classify(state);
+            types[id] = (byte) type;
+        }
+        return type;
+    }
+
+    private static int classify(BlockState state) {
+        if (state.isAir()) return AIR;
+        if (MovementHelper.avoidWalkingInto(state) && !MovementHelper.isWater(state)) return AVOID;
+        if (MovementHelper.isWater(state)) return WATER;
+        int flags = PrecomputedData.getInstance().getFlags(state);
+        int wth = flags & PrecomputedData.WTH_MASK;
+        if (wth == PrecomputedData.WTH_YES) return AIR;
+        if (wth == PrecomputedData.WTH_NO) return SOLID;
+        int shape = flags & PrecomputedData.SHAPE_MASK;
+        if (shape != PrecomputedData.SHAPE_DYNAMIC) return shape == PrecomputedData.SHAPE_EMPTY ? AIR : SOLID;
+        return state.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO).isEmpty() ? AIR : SOLID;
+    }
+}
@@ -0,0 +1,133 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.BridgeMod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One 32x32-chunk region of the cached world, stored in a memory-mapped file.
+ *
+ * Layout (fixed size, so the file is mapped once and every chunk has a fixed slot):
+ *   header:  int magic, int format, int minY, int height
+ *   1024 slots in (z << 5) | x order, each: 1 presence byte + height * 16 * 16 / 4 data bytes
+ *
+ * Untouched slots are never written, so on filesystems with sparse files a region only
+ * occupies disk space for chunks that were actually cached.
+ *
+ * Writes happen on the server thread; searches read concurrently. A reader can observe a
+ * slot while it is being rewritten, which at worst yields a mix of old and new block types:
+ * acceptable for a planning hint that is replaced by live snapshots as soon as the chunk loads.
+ */
+final class CachedRegion {
+
+    static final int SHIFT = 5;
+    static final int SIZE = 1 << SHIFT;
+
+    private static final int MAGIC = 0x43414943; // "CAIC"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final int minY;
+    private final int dataBytes;
+    private final int slotBytes;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private CachedRegion(FileChannel channel, int minY, int height) throws IOException {
+        this.channel = channel;
+        this.minY = minY;
+        this.dataBytes = height / 16 * CachedChunk.BYTES_PER_SECTION;
+        this.slotBytes = 1 + dataBytes;
+        long fileSize = HEADER_BYTES + (long) SIZE * SIZE * slotBytes;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+    }
+
+    /**
+     * Open (or create) the region file. A file written for a different world height or an older
+     * format is discarded and recreated.
+     *
+     * @param create if false and the file doesn't exist, returns null
+     */
+    static CachedRegion open(Path file, int minY, int height, boolean create) throws IOException {
+        boolean exists = Files.exists(file);
+        if (!exists && !create) {
+            return null;
+        }
+        Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            boolean valid = header.remaining() == HEADER_BYTES && header.getInt(0) == MAGIC
+                    && header.getInt(4) == FORMAT && header.getInt(8) == minY && header.getInt(12) == height;
+            if (!valid) {
+                if (exists) {
+                    BridgeMod.LOGGER.info("CachedRegion: discarding incompatible cache file {}", file);
+                }
+                // Truncating zeroes every presence byte once the file is mapped back to full size
+                channel.truncate(0);
+            }
+            CachedRegion region = new CachedRegion(channel, minY, height);
+            if (!valid) {
+                region.buffer.putInt(0, MAGIC);
+                region.buffer.putInt(4, FORMAT);
+                region.buffer.putInt(8, minY);
+                region.buffer.putInt(12, height);
+            }
+            return region;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_BYTES + slot * slotBytes;
+    }
+
+    private static int slot(int cx, int cz) {
+        return ((cz & (SIZE - 1)) << SHIFT) | (cx & (SIZE - 1));
+    }
+
+    /**
+     * Read a cached chunk, or null if this slot was never written. The chunk is a view over
+     * the slot (no copy): it sees later writes to the slot, like any other reader.
+     */
+    CachedChunk read(int cx, int cz) {
+        int offset = slotOffset(slot(cx, cz));
+        if (buffer.get(offset) == 0) {
+            return null;
+        }
+        return new CachedChunk(minY, buffer.slice(offset + 1, dataBytes));
+    }
+
+    /**
+     * Store a chunk. Server thread only.
+     */
+    void write(int cx, int cz, CachedChunk chunk) {
+        byte[] data = chunk.getData();
+        if (data == null || data.length != dataBytes) {
+            return; // different world height than the file was created for
+        }
+        int offset = slotOffset(slot(cx, cz));
+        buffer.put(offset + 1, data);
+        buffer.put(offset, (byte) 1);
+    }
+
+    void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            BridgeMod.LOGGER.warn("CachedRegion: failed to close cache file: {}", e.getMessage());
+        }
+    }
+}
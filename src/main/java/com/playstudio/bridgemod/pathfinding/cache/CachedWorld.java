@@ -0,0 +1,86 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.hpa.PortalGraph;
+import net.minecraft.world.level.ChunkPos;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 2-bit cached copy of one dimension, persisted as memory-mapped region files
+ * (see CachedRegion) under {@code <world>/craftai/cache/<namespace>/<dimension>/}.
+ *
+ * Chunks are written by CachedWorldManager as they load and change, and kept after they
+ * unload, so searches can plan through terrain outside the live snapshot radius
+ * (CalculationContext falls back to getChunk() for columns it has no snapshot for).
+ *
+ * It also carries the PortalGraph (HPA* abstraction) built on top of it, which put() keeps
+ * in sync.
+ *
+ * getChunk() is safe from any thread; put() and close() run on the server thread.
+ */
+public final class CachedWorld {
+
+    private final Path directory;
+    private final int minY;
+    private final int height;
+    // Region key → mapped region, or empty if no file existed when a reader asked
+    private final ConcurrentHashMap<Long, Optional<CachedRegion>> regions = new ConcurrentHashMap<>();
+    // Set on level unload; searches still holding this world then see no cached chunks
+    private volatile boolean closed;
+    private final PortalGraph portalGraph = new PortalGraph(this);
+
+    CachedWorld(Path directory, int minY, int height) {
+        this.directory = directory;
+        this.minY = minY;
+        this.height = height;
+    }
+
+    /**
+     * Cached copy of chunk (cx, cz), or null if it was never cached.
+     */
+    public CachedChunk getChunk(int cx, int cz) {
+        if (closed) {
+            return null;
+        }
+        long key = ChunkPos.asLong(cx >> CachedRegion.SHIFT, cz >> CachedRegion.SHIFT);
+        Optional<CachedRegion> region = regions.computeIfAbsent(key,
+                k -> Optional.ofNullable(open(cx >> CachedRegion.SHIFT, cz >> CachedRegion.SHIFT, false)));
+        return region.map(r -> r.read(cx, cz)).orElse(null);
+    }
+
+    void put(int cx, int cz, CachedChunk chunk) {
+        long key = ChunkPos.asLong(cx >> CachedRegion.SHIFT, cz >> CachedRegion.SHIFT);
+        Optional<CachedRegion> region = regions.compute(key, (k, existing) ->
+                existing != null && existing.isPresent()
+                        ? existing
+                        : Optional.ofNullable(open(cx >> CachedRegion.SHIFT, cz >> CachedRegion.SHIFT, true)));
+        region.ifPresent(r -> r.write(cx, cz, chunk));
+        portalGraph.invalidate(cx, cz);
+    }
+
+    public PortalGraph getPortalGraph() {
+        return portalGraph;
+    }
+
+    private CachedRegion open(int rx, int rz, boolean create) {
+        Path file = directory.resolve("r." + rx + "." + rz + ".bin");
+        try {
+            return CachedRegion.open(file, minY, height, create);
+        } catch (IOException e) {
+            BridgeMod.LOGGER.warn("CachedWorld: can't open {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    void close() {
+        closed = true;
+        for (Optional<CachedRegion> region : regions.values()) {
+            region.ifPresent(CachedRegion::close);
+        }
+        regions.clear();
+    }
+}
@@ -0,0 +1,139 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.BridgeMod;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one CachedWorld per server dimension up to date.
+ * Must be registered on MinecraftForge.EVENT_BUS.
+ *
+ * Loaded and modified chunks are queued and classified on server ticks within a time budget
+ * (BUILD_BUDGET_NANOS), so a burst of chunk loads never stalls a tick. A queued chunk that
+ * unloads before its turn is captured immediately, while it is still readable.
+ */
+public final class CachedWorldManager {
+
+    private static final CachedWorldManager INSTANCE = new CachedWorldManager();
+
+    // Max time spent capturing chunks per server tick
+    private static final long BUILD_BUDGET_NANOS = 2_000_000;
+
+    private final Map<ResourceKey<Level>, CachedWorld> worlds = new ConcurrentHashMap<>();
+    // Chunks waiting to be (re)captured, per dimension (server thread only)
+    private final Map<ResourceKey<Level>, LinkedHashSet<Long>> pending = new ConcurrentHashMap<>();
+    private long capturedChunks;
+
+    private CachedWorldManager() {
+    }
+
+    public static CachedWorldManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The cached world for a level, created on first use. MUST be called on the server thread.
+     */
+    public CachedWorld forLevel(ServerLevel level) {
+        return worlds.computeIfAbsent(level.dimension(), key -> {
+            ResourceLocation dim = key.location();
+            Path dir = level.getServer().getWorldPath(LevelResource.ROOT)
+                    .resolve("craftai").resolve("cache").resolve(dim.getNamespace()).resolve(dim.getPath());
+            BridgeMod.LOGGER.info("CachedWorld: {} cached at {}", dim, dir);
+            return new CachedWorld(dir, level.getMinBuildHeight(), level.getHeight());
+        });
+    }
+
+    private void enqueue(LevelAccessor accessor, int cx, int cz) {
+        if (!(accessor instanceof ServerLevel level)) return;
+        pending.computeIfAbsent(level.dimension(), k -> new LinkedHashSet<>()).add(ChunkPos.asLong(cx, cz));
+    }
+
+    private void enqueue(LevelAccessor accessor, BlockPos pos) {
+        enqueue(accessor, pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        enqueue(event.getLevel(), event.getChunk().getPos().x, event.getChunk().getPos().z);
+    }
+
+    @SubscribeEvent
+    public void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        enqueue(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onBlockBreak(BlockEvent.BreakEvent event) {
+        enqueue(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        enqueue(event.getLevel(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        if (!(event.getChunk() instanceof LevelChunk chunk)) return;
+        LinkedHashSet<Long> queue = pending.get(level.dimension());
+        if (queue != null && queue.remove(chunk.getPos().toLong())) {
+            capture(level, chunk);
+        }
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        long deadline = System.nanoTime() + BUILD_BUDGET_NANOS;
+        for (ServerLevel level : event.getServer().getAllLevels()) {
+            LinkedHashSet<Long> queue = pending.get(level.dimension());
+            if (queue == null) continue;
+            Iterator<Long> it = queue.iterator();
+            while (it.hasNext() && System.nanoTime() < deadline) {
+                long key = it.next();
+                it.remove();
+                LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(key), ChunkPos.getZ(key));
+                if (chunk != null) {
+                    capture(level, chunk);
+                }
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void onLevelUnload(LevelEvent.Unload event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        pending.remove(level.dimension());
+        CachedWorld world = worlds.remove(level.dimension());
+        if (world != null) {
+            world.close();
+            BridgeMod.LOGGER.info("CachedWorld: closed {} ({} chunks captured this session)",
+                    level.dimension().location(), capturedChunks);
+        }
+    }
+
+    private void capture(ServerLevel level, LevelChunk chunk) {
+        forLevel(level).put(chunk.getPos().x, chunk.getPos().z, CachedChunk.capture(chunk));
+        capturedChunks++;
+    }
+}
@@ -0,0 +1,261 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.pathfinding.CalculationContext;
+import com.playstudio.bridgemod.pathfinding.PathNode;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Complete paths from earlier searches, reused when a bot plans the same trip again
+ * (patrols, pursuit re-targeting the same cell, retries after moving back to the start).
+ *
+ * Entries are keyed on level, start cell, goal (GoalBlock / GoalNear compare by value) and
+ * CalculationContext.capabilityFingerprint(), and remember the sections their path touches:
+ * the floor, feet and head section of every node. BlockChangeTracker reports every section
+ * it bumps, which evicts the entries touching it; since a border change also bumps the
+ * section across that face, changes next to a path evict it too.
+ *
+ * A hit first checks the blocks along the path that change without an event (doors, gates)
+ * against the live world (SectionSnapshotCache.revalidate); a change evicts the entry.
+ *
+ * A search runs on a snapshot, so blocks can change between capture and put(). put() gets
+ * the tracker's latest version from before the capture and refuses paths through sections
+ * changed since then. Only paths that reached their goal are stored; partial paths depend
+ * on timeouts and corridor size. The least recently used entry goes beyond MAX_ENTRIES.
+ *
+ * All methods run on the server thread.
+ */
+public final class PathCache {
+
+    public static final int MAX_ENTRIES = 256;
+
+    private static final PathCache INSTANCE = new PathCache();
+
+    /** Identifies a search: same key, same path (as long as its sections are unchanged). */
+    public static final class Key {
+        final ResourceKey<Level> dimension;
+        final int x, y, z;
+        final Goal goal;
+        final long capabilities;
+
+        private Key(ResourceKey<Level> dimension, int x, int y, int z, Goal goal, long capabilities) {
+            this.dimension = dimension;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.goal = goal;
+            this.capabilities = capabilities;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && other.x == x && other.y == y && other.z == z
+                    && other.capabilities == capabilities && other.dimension == dimension
+                    && other.goal.equals(goal);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dimension, x, y, z, goal, capabilities);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final List<PathNode> path;
+        final long[] sections;
+
+        Entry(Key key, List<PathNode> path, long[] sections) {
+            this.key = key;
+            this.path = path;
+            this.sections = sections;
+        }
+    }
+
+    // Access order, for LRU eviction
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            unindex(eldest.getValue());
+            return true;
+        }
+    };
+    // Section key -> entries whose path touches it, per level
+    private final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<List<Entry>>> bySection = new HashMap<>();
+
+    // Stats (server thread only)
+    private long hits;
+    private long misses;
+    private long stored;
+    private long invalidated;
+    private long rejectedStale;
+
+    private PathCache() {
+    }
+
+    public static PathCache getInstance() {
+        return INSTANCE;
+    }
+
+    public static Key key(ServerLevel level, int startX, int startY, int startZ, Goal goal, CalculationContext ctx) {
+        return new Key(level.dimension(), startX, startY, startZ, goal, ctx.capabilityFingerprint());
+    }
+
+    /**
+     * Cached path for this search, or null. Counts a hit or a miss.
+     */
+    public List<PathNode> get(ServerLevel level, Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && SectionSnapshotCache.getInstance().revalidate(level, entry.sections)) {
+            entry = entries.get(key); // evicted if a change touched its sections
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.path;
+    }
+
+    /**
+     * Remember a complete path found for this key.
+     *
+     * @param snapshotVersion BlockChangeTracker.getLatestVersion() from before the search's
+     *                        chunks were captured
+     */
+    public void put(ServerLevel level, Key key, List<PathNode> path, long snapshotVersion) {
+        if (path.isEmpty()) return;
+        long[] sections = sectionsOf(path);
+        BlockChangeTracker tracker = BlockChangeTracker.getInstance();
+        for (long section : sections) {
+            if (tracker.getVersion(level, SectionPos.x(section), SectionPos.y(section), SectionPos.z(section))
+                    > snapshotVersion) {
+                rejectedStale++;
+                return;
+            }
+        }
+        remove(key);
+        Entry entry = new Entry(key, List.copyOf(path), sections);
+        entries.put(key, entry);
+        Long2ObjectOpenHashMap<List<Entry>> levelIndex =
+                bySection.computeIfAbsent(key.dimension, k -> new Long2ObjectOpenHashMap<>());
+        for (long section : sections) {
+            List<Entry> list = levelIndex.get(section);
+            if (list == null) {
+                list = new ArrayList<>(2);
+                levelIndex.put(section, list);
+            }
+            list.add(entry);
+        }
+        stored++;
+    }
+
+    /**
+     * Forget the path for this key (e.g. the bot got stuck following it).
+     */
+    public void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(entry);
+        }
+    }
+
+    /**
+     * Called by BlockChangeTracker for every section whose version it bumps.
+     */
+    void onSectionChanged(Level level, long section) {
+        Long2ObjectOpenHashMap<List<Entry>> levelIndex = bySection.get(level.dimension());
+        if (levelIndex == null) return;
+        List<Entry> touching = levelIndex.remove(section);
+        if (touching == null) return;
+        for (Entry entry : touching) {
+            if (entries.remove(entry.key) != null) {
+                unindex(entry);
+                invalidated++;
+            }
+        }
+    }
+
+    void evictLevel(Level level) {
+        bySection.remove(level.dimension());
+        Iterator<Key> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().dimension == level.dimension()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void unindex(Entry entry) {
+        Long2ObjectOpenHashMap<List<Entry>> levelIndex = bySection.get(entry.key.dimension);
+        if (levelIndex == null) return;
+        for (long section : entry.sections) {
+            List<Entry> list = levelIndex.get(section);
+            if (list != null) {
+                list.remove(entry);
+                if (list.isEmpty()) {
+                    levelIndex.remove(section);
+                }
+            }
+        }
+    }
+
+    /** Distinct sections holding the floor, feet or head block of any node. */
+    private static long[] sectionsOf(List<PathNode> path) {
+        long[] sections = new long[path.size() * 3];
+        int n = 0;
+        for (PathNode node : path) {
+            int sx = node.x >> 4;
+            int sz = node.z >> 4;
+            sections[n++] = SectionPos.asLong(sx, (node.y - 1) >> 4, sz);
+            sections[n++] = SectionPos.asLong(sx, node.y >> 4, sz);
+            sections[n++] = SectionPos.asLong(sx, (node.y + 1) >> 4, sz);
+        }
+        Arrays.sort(sections);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || sections[i] != sections[i - 1]) {
+                sections[unique++] = sections[i];
+            }
+        }
+        return Arrays.copyOf(sections, unique);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    public long getStoredCount() {
+        return stored;
+    }
+
+    public long getInvalidatedCount() {
+        return invalidated;
+    }
+
+    public long getRejectedStaleCount() {
+        return rejectedStale;
+    }
+}
@@ -0,0 +1,52 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import com.playstudio.bridgemod.BridgeMod;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads chunks ahead of a search whose goal lies outside loaded terrain.
+ *
+ * Adds short-lived region tickets (distance 0: the chunk itself, at FULL status, not ticking)
+ * so the server's chunk system loads them in the background. Once loaded they are captured
+ * by CachedWorldManager and included in the next segment's live snapshot. Tickets expire on
+ * their own after TICKET_LIFESPAN ticks, so nothing has to be released.
+ */
+public final class PathChunkLoader {
+
+    private static final int TICKET_LIFESPAN = 20 * 15;
+    private static final TicketType<ChunkPos> PATH_PREFETCH = TicketType.create(
+            "craftai_path_prefetch", Comparator.comparingLong(ChunkPos::toLong), TICKET_LIFESPAN);
+
+    // Bound the load one search can put on the chunk system
+    private static final int MAX_TICKETS_PER_REQUEST = 48;
+
+    private PathChunkLoader() {
+    }
+
+    /**
+     * Request background loading of the given chunks, in order, up to MAX_TICKETS_PER_REQUEST.
+     * MUST be called on the server thread.
+     *
+     * @return number of tickets added
+     */
+    public static int requestLoad(ServerLevel level, List<ChunkPos> chunks) {
+        ServerChunkCache chunkSource = level.getChunkSource();
+        int added = 0;
+        for (ChunkPos pos : chunks) {
+            if (added >= MAX_TICKETS_PER_REQUEST) break;
+            chunkSource.addRegionTicket(PATH_PREFETCH, pos, 0, pos);
+            added++;
+        }
+        if (added > 0) {
+            BridgeMod.LOGGER.debug("PathChunkLoader: requested {} of {} unloaded corridor chunks",
+                    added, chunks.size());
+        }
+        return added;
+    }
+}
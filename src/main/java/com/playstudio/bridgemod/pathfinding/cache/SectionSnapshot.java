@@ -0,0 +1,194 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.BushBlock;
+import net.minecraft.world.level.block.CocoaBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+/**
+ * Immutable copy of one 16x16x16 chunk section, safe to read from any thread.
+ *
+ * Block states are stored as packed registry ids (Block.BLOCK_STATE_REGISTRY) in a flat array
+ * indexed (y << 8) | (z << 4) | x. Sections holding a single state (all air, solid stone,
+ * ocean water...) are collapsed to that state and cost no array at all.
+ *
+ * Captured on the server thread by SectionSnapshotCache and tagged with the section's
+ * BlockChangeTracker version, so unchanged sections are shared across searches.
+ * Each snapshot also carries a lazily created SectionWalkability, the memoized
+ * walkability bits every search through this section shares.
+ *
+ * Some blocks change state through setBlock calls that fire no event BlockChangeTracker sees
+ * (doors, trapdoors and fence gates opened by hand or redstone, crops and cocoa growing,
+ * dripleaves tilting). A snapshot remembers where those blocks are, and changedSince()
+ * compares just them with the live section before the snapshot is reused.
+ */
+public final class SectionSnapshot {
+
+    /** Registry ids fit in a char unless a modpack registers more than 65536 states. */
+    private static final boolean NARROW_IDS = Block.BLOCK_STATE_REGISTRY.size() <= 0x10000;
+
+    private final long version;
+    private final BlockState uniform;   // non-null if every block is this state
+    private final int uniformId;        // registry id of uniform
+    private final char[] ids;           // packed registry ids (NARROW_IDS)
+    private final int[] wideIds;        // packed registry ids (!NARROW_IDS)
+    private final short[] silent;       // indices of blocks that can change without an event
+    private volatile SectionWalkability walkability;
+
+    // Per registry id: 0 = not classified yet, 1 = changes fire events, 2 = can change silently
+    private static final byte[] SILENT_STATES = new byte[Block.BLOCK_STATE_REGISTRY.size()];
+
+    private SectionSnapshot(long version, BlockState uniform, char[] ids, int[] wideIds) {
+        this(version, uniform, ids, wideIds, null);
+    }
+
+    private SectionSnapshot(long version, BlockState uniform, char[] ids, int[] wideIds, short[] silent) {
+        this.version = version;
+        this.silent = silent;
+        this.uniform = uniform;
+        this.uniformId = uniform != null ? Block.BLOCK_STATE_REGISTRY.getId(uniform) : -1;
+        this.ids = ids;
+        this.wideIds = wideIds;
+    }
+
+    /**
+     * Copy a live section. MUST be called on the server thread.
+     *
+     * @param section the section, or null for a missing (all-air) section
+     * @param version BlockChangeTracker version of the section at capture time
+     */
+    public static SectionSnapshot capture(LevelChunkSection section, long version) {
+        if (section == null || section.hasOnlyAir()) {
+            return new SectionSnapshot(version, Blocks.AIR.defaultBlockState(), null, null);
+        }
+        // Palette check: a single-entry palette means the whole section is one state
+        BlockState first = section.getBlockState(0, 0, 0);
+        if (!section.getStates().maybeHas(state -> state != first)) {
+            return new SectionSnapshot(version, first, null, null);
+        }
+
+        char[] ids = NARROW_IDS ? new char[4096] : null;
+        int[] wideIds = NARROW_IDS ? null : new int[4096];
+        boolean isUniform = true;
+        ShortArrayList silent = null;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BlockState state = section.getBlockState(x, y, z);
+                    isUniform &= state == first;
+                    int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+                    int index = (y << 8) | (z << 4) | x;
+                    if (NARROW_IDS) {
+                        ids[index] = (char) id;
+                    } else {
+                        wideIds[index] = id;
+                    }
+                    if (changesSilently(state, id)) {
+                        if (silent == null) silent = new ShortArrayList();
+                        silent.add((short) index);
+                    }
+                }
+            }
+        }
+        // The palette can still list states that were since overwritten
+        if (isUniform) {
+            return new SectionSnapshot(version, first, null, null);
+        }
+        return new SectionSnapshot(version, null, ids, wideIds,
+                silent != null ? silent.toShortArray() : null);
+    }
+
+    private static boolean changesSilently(BlockState state, int id) {
+        byte known = SILENT_STATES[id];
+        if (known == 0) {
+            Block block = state.getBlock();
+            boolean silent = state.hasProperty(BlockStateProperties.OPEN)
+                    || state.hasProperty(BlockStateProperties.TILT)
+                    || block instanceof CocoaBlock
+                    || block instanceof BushBlock && state.isRandomlyTicking();
+            known = silent ? (byte) 2 : (byte) 1;
+            SILENT_STATES[id] = known;
+        }
+        return known == 2;
+    }
+
+    /**
+     * Section-local indices ((y << 8) | (z << 4) | x) of the blocks that can change without an
+     * event and no longer match the live section, or null if none changed.
+     * MUST be called on the server thread.
+     */
+    public short[] changedSince(LevelChunkSection section) {
+        if (silent == null) {
+            return null;
+        }
+        ShortArrayList changed = null;
+        for (short index : silent) {
+            int x = index & 15, z = (index >> 4) & 15, y = index >> 8;
+            int live = section == null ? 0 : Block.BLOCK_STATE_REGISTRY.getId(section.getBlockState(x, y, z));
+            if (live != getId(x, y, z)) {
+                if (changed == null) changed = new ShortArrayList();
+                changed.add(index);
+            }
+        }
+        return changed != null ? changed.toShortArray() : null;
+    }
+
+    /**
+     * Block state at section-local coordinates (each 0-15).
+     */
+    public BlockState get(int x, int y, int z) {
+        if (uniform != null) {
+            return uniform;
+        }
+        int index = (y << 8) | (z << 4) | x;
+        return Block.BLOCK_STATE_REGISTRY.byId(NARROW_IDS ? ids[index] : wideIds[index]);
+    }
+
+    /**
+     * Registry id of the block state at section-local coordinates (each 0-15).
+     */
+    public int getId(int x, int y, int z) {
+        if (uniform != null) {
+            return uniformId;
+        }
+        int index = (y << 8) | (z << 4) | x;
+        return NARROW_IDS ? ids[index] : wideIds[index];
+    }
+
+    /**
+     * Shared walkability bits for this section, created on first use.
+     */
+    public SectionWalkability walkability() {
+        SectionWalkability w = walkability;
+        if (w == null) {
+            synchronized (this) {
+                w = walkability;
+                if (w == null) {
+                    w = new SectionWalkability();
+                    walkability = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** True if the whole section is one block state (no per-block array). */
+    public boolean isUniform() {
+        return uniform != null;
+    }
+
+    /** Approximate retained size in bytes. */
+    public long footprintBytes() {
+        long size = 32 + (walkability != null ? 2048 : 0);
+        if (uniform != null) return size;
+        return size + (NARROW_IDS ? 2L * 4096 : 4L * 4096);
+    }
+}
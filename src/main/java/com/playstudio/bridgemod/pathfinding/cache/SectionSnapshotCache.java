@@ -0,0 +1,143 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared store of SectionSnapshots, one per loaded section that a search has needed.
+ *
+ * captureColumn() is called on the server thread while a CalculationContext is being built.
+ * A cached snapshot is reused as long as its version equals the section's current
+ * BlockChangeTracker version and its silently changing blocks (SectionSnapshot.changedSince)
+ * still match the live section, so only sections that changed since the last search are copied.
+ * Entries are dropped when their chunk or level unloads.
+ */
+public final class SectionSnapshotCache {
+
+    private static final SectionSnapshotCache INSTANCE = new SectionSnapshotCache();
+
+    private final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<SectionSnapshot>> snapshots = new HashMap<>();
+
+    // Stats (server thread only)
+    private long captured;
+    private long reused;
+    private long silentChanges;
+
+    private SectionSnapshotCache() {
+    }
+
+    public static SectionSnapshotCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Snapshot every section of a loaded chunk, reusing cached snapshots that are still current.
+     * MUST be called on the server thread.
+     *
+     * @return snapshots indexed by section index (0 = lowest section of the level)
+     */
+    public SectionSnapshot[] captureColumn(ServerLevel level, LevelChunk chunk) {
+        BlockChangeTracker tracker = BlockChangeTracker.getInstance();
+        Long2ObjectOpenHashMap<SectionSnapshot> levelSnapshots =
+                snapshots.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+        int cx = chunk.getPos().x;
+        int cz = chunk.getPos().z;
+        int minSection = chunk.getMinSection();
+        LevelChunkSection[] sections = chunk.getSections();
+        SectionSnapshot[] column = new SectionSnapshot[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            int sy = minSection + i;
+            long key = SectionPos.asLong(cx, sy, cz);
+            long version = tracker.getVersion(level, cx, sy, cz);
+            SectionSnapshot snapshot = levelSnapshots.get(key);
+            if (snapshot != null && snapshot.getVersion() == version
+                    && reportSilentChanges(level, snapshot, sections[i], cx, sy, cz)) {
+                version = tracker.getVersion(level, cx, sy, cz);
+            }
+            if (snapshot == null || snapshot.getVersion() != version) {
+                snapshot = SectionSnapshot.capture(sections[i], version);
+                levelSnapshots.put(key, snapshot);
+                captured++;
+            } else {
+                reused++;
+            }
+            column[i] = snapshot;
+        }
+        return column;
+    }
+
+    /**
+     * Check the cached snapshots of these sections (SectionPos keys) against the live chunks
+     * and report the blocks that changed without an event to BlockChangeTracker, which bumps
+     * their sections (and evicts paths through them). MUST be called on the server thread.
+     *
+     * @return true if any block had changed
+     */
+    public boolean revalidate(ServerLevel level, long[] sectionKeys) {
+        Long2ObjectOpenHashMap<SectionSnapshot> levelSnapshots = snapshots.get(level.dimension());
+        if (levelSnapshots == null) return false;
+        BlockChangeTracker tracker = BlockChangeTracker.getInstance();
+        boolean changed = false;
+        for (long key : sectionKeys) {
+            SectionSnapshot snapshot = levelSnapshots.get(key);
+            int cx = SectionPos.x(key), sy = SectionPos.y(key), cz = SectionPos.z(key);
+            if (snapshot == null || snapshot.getVersion() != tracker.getVersion(level, cx, sy, cz)) {
+                continue;
+            }
+            LevelChunk chunk = level.getChunkSource().getChunkNow(cx, cz);
+            int index = sy - level.getMinSection();
+            if (chunk == null || index < 0 || index >= chunk.getSections().length) {
+                continue;
+            }
+            changed |= reportSilentChanges(level, snapshot, chunk.getSections()[index], cx, sy, cz);
+        }
+        return changed;
+    }
+
+    private boolean reportSilentChanges(ServerLevel level, SectionSnapshot snapshot, LevelChunkSection section,
+                                        int cx, int sy, int cz) {
+        short[] changed = snapshot.changedSince(section);
+        if (changed == null) {
+            return false;
+        }
+        for (short index : changed) {
+            BlockChangeTracker.getInstance().onSilentChange(level,
+                    (cx << 4) | (index & 15), (sy << 4) | (index >> 8), (cz << 4) | ((index >> 4) & 15));
+        }
+        silentChanges += changed.length;
+        return true;
+    }
+
+    void evictChunk(ServerLevel level, int cx, int cz, int minSection, int sectionCount) {
+        Long2ObjectOpenHashMap<SectionSnapshot> levelSnapshots = snapshots.get(level.dimension());
+        if (levelSnapshots == null) return;
+        for (int sy = minSection; sy < minSection + sectionCount; sy++) {
+            levelSnapshots.remove(SectionPos.asLong(cx, sy, cz));
+        }
+    }
+
+    void evictLevel(ServerLevel level) {
+        snapshots.remove(level.dimension());
+    }
+
+    public long getCapturedCount() {
+        return captured;
+    }
+
+    public long getReusedCount() {
+        return reused;
+    }
+
+    /** Blocks found changed without an event when a snapshot or cached path was reused. */
+    public long getSilentChangeCount() {
+        return silentChanges;
+    }
+}
@@ -0,0 +1,51 @@
+package com.playstudio.bridgemod.pathfinding.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Memoized canWalkThrough / canWalkOn results for the blocks of one SectionSnapshot.
+ *
+ * Only position-dependent (WTH_MAYBE / WON_MAYBE) states are worth storing: YES/NO states
+ * are already answered by PrecomputedData in O(1). A MAYBE result depends on the block and
+ * its face neighbours (water above, flowing water beside), all of which are covered by the
+ * snapshot's version (see BlockChangeTracker), so the bits live exactly as long as the snapshot.
+ * Blocks that change without an event (a gate closing) are caught when the snapshot is reused
+ * (SectionSnapshot.changedSince): the section is bumped and recaptured with a fresh memo, and
+ * so are its neighbours when the block is on the border.
+ *
+ * 4 bits per block, packed 16 to a long. Shared by every search that holds the snapshot:
+ * reads are plain volatile loads, writes OR bits in with a CAS, so no locks are taken.
+ * Two searches racing to resolve the same block compute the same answer, so lost races
+ * are harmless.
+ */
+public final class SectionWalkability {
+
+    public static final int WTH_KNOWN = 1;
+    public static final int WTH_TRUE  = 1 << 1;
+    public static final int WON_KNOWN = 1 << 2;
+    public static final int WON_TRUE  = 1 << 3;
+
+    private final AtomicLongArray bits = new AtomicLongArray(4096 / 16);
+
+    /**
+     * Cached bits for section-local coordinates (each 0-15); 0 if nothing is known yet.
+     */
+    public int get(int x, int y, int z) {
+        int index = (y << 8) | (z << 4) | x;
+        return (int) (bits.get(index >>> 4) >>> ((index & 15) << 2)) & 0xF;
+    }
+
+    /**
+     * Add known bits (a KNOWN flag plus its TRUE flag if set) for section-local coordinates.
+     */
+    public void add(int x, int y, int z, int value) {
+        int index = (y << 8) | (z << 4) | x;
+        int word = index >>> 4;
+        long mask = (long) (value & 0xF) << ((index & 15) << 2);
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current | mask) == current) return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+}
@@ -0,0 +1,154 @@
+package com.playstudio.bridgemod.pathfinding.calibration;
+
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import com.playstudio.bridgemod.pathfinding.CalculationContext;
+import com.playstudio.bridgemod.pathfinding.PathNode;
+import com.playstudio.bridgemod.pathfinding.moves.MoveResult;
+import com.playstudio.bridgemod.pathfinding.moves.MovementHelper;
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+
+import java.util.List;
+
+/**
+ * Multipliers on the model move costs (Moves / ActionCosts), one per move kind and terrain
+ * class, learned by CostCalibrationManager from how long executed moves actually took.
+ * CalculationContext.calibrate() applies them to every move a search relaxes.
+ *
+ * Terrain class is read at the move's destination (see terrain()): MINING if its feet or head
+ * block is solid, PLACING if there is nothing to stand on (bridge, pillar), WATER if its feet or
+ * head is in water, else OPEN. Kinds whose terrain classes all share one scale skip the lookup;
+ * otherwise the context memoizes each destination cell's class (CalculationContext.terrainAt), so
+ * a cell is classified once per search rather than once per move into it.
+ *
+ * The heuristics estimate model costs, so with a move kind calibrated cheaper than its model
+ * cost they could overestimate. Searches multiply them by minScale() (the smallest scale, see
+ * CalculationContext.heuristicScale), which keeps them below every calibrated path cost.
+ *
+ * Immutable: the manager hands out a new instance when its table changes, and a search
+ * keeps the one it started with, from any thread.
+ */
+public final class CostCalibration {
+
+    // Move kinds (the Movement class executing the move)
+    public static final int TRAVERSE = 0;
+    public static final int ASCEND = 1;
+    public static final int DESCEND = 2;
+    public static final int DIAGONAL = 3;
+    public static final int PILLAR = 4;
+    public static final int DOWNWARD = 5;
+    public static final int PARKOUR = 6;
+    static final int KINDS = 7;
+    static final String[] KIND_NAMES = {"traverse", "ascend", "descend", "diagonal", "pillar", "downward", "parkour"};
+
+    // Terrain classes
+    public static final int OPEN = 0;
+    public static final int WATER = 1;
+    public static final int MINING = 2;
+    public static final int PLACING = 3;
+    static final int TERRAINS = 4;
+    static final String[] TERRAIN_NAMES = {"open", "water", "mining", "placing"};
+
+    private static final int[] KIND_OF_MOVE = new int[Moves.values().length];
+
+    static {
+        for (Moves move : Moves.values()) {
+            KIND_OF_MOVE[move.ordinal()] = switch (move) {
+                case TRAVERSE_NORTH, TRAVERSE_SOUTH, TRAVERSE_EAST, TRAVERSE_WEST -> TRAVERSE;
+                case ASCEND_NORTH, ASCEND_SOUTH, ASCEND_EAST, ASCEND_WEST -> ASCEND;
+                case DESCEND_NORTH, DESCEND_SOUTH, DESCEND_EAST, DESCEND_WEST -> DESCEND;
+                case DIAGONAL_NORTHEAST, DIAGONAL_NORTHWEST, DIAGONAL_SOUTHEAST, DIAGONAL_SOUTHWEST -> DIAGONAL;
+                case PILLAR_UP -> PILLAR;
+                case DOWNWARD -> DOWNWARD;
+                case PARKOUR_NORTH, PARKOUR_SOUTH, PARKOUR_EAST, PARKOUR_WEST -> PARKOUR;
+            };
+        }
+    }
+
+    // kind * TERRAINS + terrain → multiplier
+    private final double[] scales;
+    // Per kind: every terrain class has the same scale (no terrain lookup needed)
+    private final boolean[] uniform = new boolean[KINDS];
+    private final double minScale;
+
+    CostCalibration(double[] scales) {
+        this.scales = scales;
+        for (int kind = 0; kind < KINDS; kind++) {
+            boolean same = true;
+            for (int terrain = 1; terrain < TERRAINS; terrain++) {
+                same &= scales[kind * TERRAINS + terrain] == scales[kind * TERRAINS];
+            }
+            uniform[kind] = same;
+        }
+        double min = Double.MAX_VALUE;
+        for (double scale : scales) {
+            min = Math.min(min, scale);
+        }
+        minScale = min;
+    }
+
+    public static int kind(Moves move) {
+        return KIND_OF_MOVE[move.ordinal()];
+    }
+
+    /** Model cost scaled for a move of this kind ending at (x, y, z). */
+    public double apply(CalculationContext ctx, Moves move, int x, int y, int z, double cost) {
+        int kind = KIND_OF_MOVE[move.ordinal()];
+        if (uniform[kind]) {
+            return cost * scales[kind * TERRAINS];
+        }
+        int terrain = kind == PILLAR ? PLACING : ctx.terrainAt(x, y, z);
+        return cost * scales[kind * TERRAINS + terrain];
+    }
+
+    /** Smallest scale of any move kind and terrain class. */
+    public double minScale() {
+        return minScale;
+    }
+
+    public double scale(int kind, int terrain) {
+        return scales[kind * TERRAINS + terrain];
+    }
+
+    /** Terrain class of a move of this kind ending at (x, y, z), from the context's snapshot. */
+    public static int terrain(CalculationContext ctx, int kind, int x, int y, int z) {
+        return kind == PILLAR ? PLACING : cellTerrain(ctx, x, y, z);
+    }
+
+    /** Terrain class of the cell (x, y, z) as the destination of any move but a pillar. */
+    public static int cellTerrain(CalculationContext ctx, int x, int y, int z) {
+        if (!MovementHelper.canWalkThrough(ctx, x, y, z) || !MovementHelper.canWalkThrough(ctx, x, y + 1, z)) {
+            return MINING;
+        }
+        if (!MovementHelper.canWalkOn(ctx, x, y - 1, z)) {
+            return PLACING;
+        }
+        if (MovementHelper.isWater(ctx, x, y, z) || MovementHelper.isWater(ctx, x, y + 1, z)) {
+            return WATER;
+        }
+        return OPEN;
+    }
+
+    /**
+     * Fill in modelCost and terrain of the nodes of a path found over this context, so the
+     * executor can compare each move's model cost with the ticks it took. Nodes whose move
+     * doesn't reproduce from the previous node (world changed) are left unmeasured.
+     * Call after the search has finished with the context.
+     */
+    public static void annotate(CalculationContext ctx, List<PathNode> path) {
+        MoveResult res = new MoveResult();
+        for (int i = 1; i < path.size(); i++) {
+            PathNode prev = path.get(i - 1);
+            PathNode node = path.get(i);
+            if (node.moveType == null) {
+                continue;
+            }
+            res.reset();
+            node.moveType.apply(ctx, prev.x, prev.y, prev.z, res);
+            if (res.cost >= ActionCosts.COST_INF || res.x != node.x || res.y != node.y || res.z != node.z) {
+                continue;
+            }
+            node.modelCost = res.cost;
+            node.terrain = (byte) terrain(ctx, kind(node.moveType), node.x, node.y, node.z);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.playstudio.bridgemod.pathfinding.calibration;
+
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Learns CostCalibration from executed moves. PathExecutor reports, for every move it
+ * completes, the model cost the search used (PathNode.modelCost) and the ticks the move
+ * actually took; each (move kind, terrain class) bucket keeps a histogram of the actual ticks
+ * and the sums of both. A bucket's scale is its actual / model ratio, pulled towards 1 by
+ * PRIOR_SAMPLES pseudo-samples and clamped to [MIN_SCALE, MAX_SCALE], so a few odd moves
+ * can't reshape every search. Moves that run faster than modelled get cheaper (down to
+ * MIN_SCALE); searches scale their heuristics by the smallest scale to stay admissible.
+ *
+ * Buckets are halved once they reach MAX_SAMPLES, so the table follows changes (server
+ * lag, new mods) instead of averaging over its whole history. The table is persisted by
+ * CostCalibrationStorage, loaded with the first bot and saved every SAVE_EVERY samples and
+ * when the server stops (BotHandler).
+ *
+ * -Dcraftai.pathfinding.uncalibrated=true keeps recording but searches use the model costs.
+ *
+ * All methods run on the server thread.
+ */
+public final class CostCalibrationManager {
+
+    private static final CostCalibrationManager INSTANCE = new CostCalibrationManager();
+
+    private static final boolean ENABLED = !Boolean.getBoolean("craftai.pathfinding.uncalibrated");
+
+    static final double PRIOR_SAMPLES = 20;
+    static final double MIN_SCALE = 0.5;
+    static final double MAX_SCALE = 3.0;
+    static final long MAX_SAMPLES = 4000;
+    // A sample counts as at most this many times (or at least its inverse) the model cost:
+    // a move that stalled on a lag spike shouldn't weigh like fifty ordinary ones
+    private static final double MAX_SAMPLE_RATIO = 4.0;
+    private static final int SAVE_EVERY = 200;
+    // snapshot() keeps handing out the current table until some scale moves by more than this:
+    // a new table restarts every SearchSession, and one sample barely moves a scale
+    private static final double REPUBLISH_DELTA = 0.02;
+
+    /** Lower edge (ticks) of each histogram bin; the last bin is open-ended. */
+    static final int[] BIN_EDGES = {0, 1, 2, 3, 4, 6, 8, 12, 16, 24, 32, 48, 64, 96, 128, 192};
+
+    /** One (move kind, terrain class) bucket. */
+    static final class Bucket {
+        final long[] histogram = new long[BIN_EDGES.length];
+        long samples;
+        double actualTicks;
+        double modelCost;
+
+        double scale() {
+            if (samples == 0 || modelCost <= 0) {
+                return 1.0;
+            }
+            double prior = PRIOR_SAMPLES * modelCost / samples;
+            double scale = (actualTicks + prior) / (modelCost + prior);
+            return Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+        }
+
+        /** Lower edge of the bin holding the given fraction of samples, in ticks. */
+        int percentile(double fraction) {
+            long target = (long) Math.ceil(samples * fraction);
+            long seen = 0;
+            for (int bin = 0; bin < histogram.length; bin++) {
+                seen += histogram[bin];
+                if (seen >= Math.max(1, target)) {
+                    return BIN_EDGES[bin];
+                }
+            }
+            return BIN_EDGES[BIN_EDGES.length - 1];
+        }
+
+        void halve() {
+            for (int bin = 0; bin < histogram.length; bin++) {
+                histogram[bin] >>= 1;
+            }
+            samples >>= 1;
+            actualTicks *= 0.5;
+            modelCost *= 0.5;
+        }
+
+        void clear() {
+            Arrays.fill(histogram, 0);
+            samples = 0;
+            actualTicks = 0;
+            modelCost = 0;
+        }
+    }
+
+    final Bucket[] buckets = new Bucket[CostCalibration.KINDS * CostCalibration.TERRAINS];
+
+    private CostCalibration current;
+    private boolean dirty = true;
+    private Path gameDir;
+    private int unsaved;
+
+    // Stats (server thread only)
+    private long recorded;
+
+    private CostCalibrationManager() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public static CostCalibrationManager getInstance() {
+        return INSTANCE;
+    }
+
+    /** Load the persisted table from this game directory, once per server run. */
+    public void load(Path gameDir) {
+        if (gameDir.equals(this.gameDir)) {
+            return;
+        }
+        this.gameDir = gameDir;
+        for (Bucket bucket : buckets) {
+            bucket.clear();
+        }
+        CostCalibrationStorage.load(this, gameDir);
+        dirty = true;
+        unsaved = 0;
+    }
+
+    /**
+     * Record one completed move.
+     *
+     * @param modelCost model cost (ticks) the search gave the move, before calibration
+     * @param ticks     ticks the move took to execute
+     */
+    public void record(Moves move, int terrain, double modelCost, int ticks) {
+        if (!(modelCost > 0) || terrain < 0 || terrain >= CostCalibration.TERRAINS) {
+            return;
+        }
+        Bucket bucket = buckets[CostCalibration.kind(move) * CostCalibration.TERRAINS + terrain];
+        int bin = BIN_EDGES.length - 1;
+        while (bin > 0 && ticks < BIN_EDGES[bin]) {
+            bin--;
+        }
+        bucket.histogram[bin]++;
+        bucket.samples++;
+        bucket.actualTicks += Math.max(modelCost / MAX_SAMPLE_RATIO, Math.min(ticks, modelCost * MAX_SAMPLE_RATIO));
+        bucket.modelCost += modelCost;
+        if (bucket.samples >= MAX_SAMPLES) {
+            bucket.halve();
+        }
+        recorded++;
+        dirty = true;
+        if (++unsaved >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    /** The table for a search about to start, or null to use the model costs. */
+    public CostCalibration snapshot() {
+        if (!ENABLED) {
+            return null;
+        }
+        if (dirty) {
+            double[] scales = new double[buckets.length];
+            boolean moved = current == null;
+            for (int i = 0; i < buckets.length; i++) {
+                scales[i] = buckets[i].scale();
+                moved |= current != null && Math.abs(scales[i]
+                        - current.scale(i / CostCalibration.TERRAINS, i % CostCalibration.TERRAINS)) > REPUBLISH_DELTA;
+            }
+            if (moved) {
+                current = new CostCalibration(scales);
+            }
+            dirty = false;
+        }
+        return current;
+    }
+
+    /** Write the table now, if there is anything new since the last save. */
+    public void save() {
+        if (gameDir != null && unsaved > 0) {
+            CostCalibrationStorage.save(this, gameDir);
+            unsaved = 0;
+        }
+    }
+
+    /** Forget everything learned (and the persisted table) and go back to the model costs. */
+    public void reset() {
+        for (Bucket bucket : buckets) {
+            bucket.clear();
+        }
+        dirty = true;
+        unsaved = 0;
+        if (gameDir != null) {
+            CostCalibrationStorage.save(this, gameDir);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /** Moves recorded since the server started. */
+    public long getRecordedCount() {
+        return recorded;
+    }
+}
@@ -0,0 +1,140 @@
+package com.playstudio.bridgemod.pathfinding.calibration;
+
+import com.google.gson.*;
+import com.playstudio.bridgemod.BridgeMod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JSON persistence for the move cost calibration table.
+ * Saves/loads config/craftai/move_costs.json: one entry per (move kind, terrain class)
+ * bucket with its histogram and sums; scales are recomputed on load.
+ */
+public class CostCalibrationStorage {
+
+    private static final String FILE_NAME = "config/craftai/move_costs.json";
+
+    private CostCalibrationStorage() {} // utility class
+
+    /**
+     * Save every bucket that has samples.
+     */
+    static void save(CostCalibrationManager manager, Path gameDir) {
+        Path file = gameDir.resolve(FILE_NAME);
+        try {
+            Files.createDirectories(file.getParent());
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Files.writeString(file, gson.toJson(tableToJson(manager)));
+        } catch (IOException e) {
+            BridgeMod.LOGGER.error("Failed to save move cost calibration to {}", file, e);
+        }
+    }
+
+    /**
+     * Load the saved buckets into the manager (nothing if there is no saved table).
+     */
+    static void load(CostCalibrationManager manager, Path gameDir) {
+        Path file = gameDir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return; // nothing learned yet
+        }
+        int loaded = 0;
+        try {
+            JsonObject obj = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+            for (JsonElement e : obj.getAsJsonArray("buckets")) {
+                JsonObject entry = e.getAsJsonObject();
+                int kind = indexOf(CostCalibration.KIND_NAMES, entry.get("kind").getAsString());
+                int terrain = indexOf(CostCalibration.TERRAIN_NAMES, entry.get("terrain").getAsString());
+                if (kind < 0 || terrain < 0) {
+                    continue;
+                }
+                CostCalibrationManager.Bucket bucket = manager.buckets[kind * CostCalibration.TERRAINS + terrain];
+                bucket.samples = entry.get("samples").getAsLong();
+                bucket.actualTicks = entry.get("actualTicks").getAsDouble();
+                bucket.modelCost = entry.get("modelCost").getAsDouble();
+                JsonArray histogram = entry.getAsJsonArray("histogram");
+                for (int bin = 0; bin < histogram.size() && bin < bucket.histogram.length; bin++) {
+                    bucket.histogram[bin] = histogram.get(bin).getAsLong();
+                }
+                loaded++;
+            }
+        } catch (Exception e) {
+            BridgeMod.LOGGER.warn("Failed to load move cost calibration from {}", file, e);
+            return;
+        }
+        if (loaded > 0) {
+            BridgeMod.LOGGER.info("Loaded move cost calibration ({} buckets) from {}", loaded, file);
+        }
+    }
+
+    // ==================== JSON Serialization ====================
+
+    private static JsonObject tableToJson(CostCalibrationManager manager) {
+        JsonArray buckets = new JsonArray();
+        for (int kind = 0; kind < CostCalibration.KINDS; kind++) {
+            for (int terrain = 0; terrain < CostCalibration.TERRAINS; terrain++) {
+                CostCalibrationManager.Bucket bucket = manager.buckets[kind * CostCalibration.TERRAINS + terrain];
+                if (bucket.samples == 0) {
+                    continue;
+                }
+                JsonObject entry = new JsonObject();
+                entry.addProperty("kind", CostCalibration.KIND_NAMES[kind]);
+                entry.addProperty("terrain", CostCalibration.TERRAIN_NAMES[terrain]);
+                entry.addProperty("samples", bucket.samples);
+                entry.addProperty("actualTicks", bucket.actualTicks);
+                entry.addProperty("modelCost", bucket.modelCost);
+                JsonArray histogram = new JsonArray();
+                for (long count : bucket.histogram) histogram.add(count);
+                entry.add("histogram", histogram);
+                // Also store the scale for quick reference (not loaded back — recomputed)
+                entry.addProperty("_scale", Math.round(bucket.scale() * 1000.0) / 1000.0);
+                buckets.add(entry);
+            }
+        }
+        JsonObject obj = new JsonObject();
+        obj.add("buckets", buckets);
+        return obj;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    // ==================== WebSocket Response ====================
+
+    /**
+     * Build a JSON response with every bucket that has samples, for WebSocket query.
+     */
+    public static JsonObject toJsonResponse(CostCalibrationManager manager) {
+        JsonObject resp = new JsonObject();
+        JsonArray buckets = new JsonArray();
+        for (int kind = 0; kind < CostCalibration.KINDS; kind++) {
+            for (int terrain = 0; terrain < CostCalibration.TERRAINS; terrain++) {
+                CostCalibrationManager.Bucket bucket = manager.buckets[kind * CostCalibration.TERRAINS + terrain];
+                if (bucket.samples == 0) {
+                    continue;
+                }
+                JsonObject obj = new JsonObject();
+                obj.addProperty("kind", CostCalibration.KIND_NAMES[kind]);
+                obj.addProperty("terrain", CostCalibration.TERRAIN_NAMES[terrain]);
+                obj.addProperty("samples", bucket.samples);
+                obj.addProperty("scale", Math.round(bucket.scale() * 1000.0) / 1000.0);
+                obj.addProperty("avgModelCost", Math.round(bucket.modelCost / bucket.samples * 100.0) / 100.0);
+                obj.addProperty("avgTicks", Math.round(bucket.actualTicks / bucket.samples * 100.0) / 100.0);
+                obj.addProperty("p50Ticks", bucket.percentile(0.5));
+                obj.addProperty("p90Ticks", bucket.percentile(0.9));
+                buckets.add(obj);
+            }
+        }
+        resp.add("buckets", buckets);
+        resp.addProperty("count", buckets.size());
+        resp.addProperty("recorded", manager.getRecordedCount());
+        resp.addProperty("enabled", CostCalibrationManager.isEnabled());
+        return resp;
+    }
+}
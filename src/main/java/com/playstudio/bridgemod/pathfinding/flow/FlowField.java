@@ -0,0 +1,641 @@
+package com.playstudio.bridgemod.pathfinding.flow;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.bot.FakePlayer;
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import com.playstudio.bridgemod.pathfinding.CalculationContext;
+import com.playstudio.bridgemod.pathfinding.CancellationToken;
+import com.playstudio.bridgemod.pathfinding.NodeStore;
+import com.playstudio.bridgemod.pathfinding.OpenSet;
+import com.playstudio.bridgemod.pathfinding.PathNode;
+import com.playstudio.bridgemod.pathfinding.PathPlanningExecutor;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.moves.MoveResult;
+import com.playstudio.bridgemod.pathfinding.moves.Moves;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cost-to-goal and next move for every cell around one destination, shared by all bots
+ * heading there (bot_rally). One reverse Dijkstra from the goal replaces a PathFinder search
+ * per bot: a bot standing on a field cell gets its whole path by following successor pointers.
+ *
+ * The field grows backwards from the goal cells with PathFinder's reverse rule (every
+ * backward edge is a forward move run from the candidate cell, with its exact cost), over a
+ * snapshot of radiusChunks around the goal, up to MAX_CELLS cells. Bots outside it search on
+ * their own until a segment starts inside.
+ *
+ * Block changes are repaired rather than recomputed, like SearchSession.resume on the
+ * reversed tree: a cell whose move to its successor touches a changed section is dropped
+ * along with every cell routed through it; the successors they could fall back on (cells
+ * flagged sharedSuccessor when they were expanded that lie within one move of a dropped cell)
+ * and cells next to a change are reopened, and Dijkstra runs again from there. Cells whose
+ * route avoids the changes keep their costs.
+ *
+ * Server-thread state (current field, pending refresh, assigned bots) is driven by
+ * FlowFieldManager; the work store is only touched by the refresh job on a planning worker.
+ */
+public final class FlowField {
+
+    /** Stop growing the field beyond this many cells. */
+    public static final int MAX_CELLS = 1 << 18;
+    /** Largest snapshot radius around the goal. */
+    public static final int MAX_RADIUS_CHUNKS = CalculationContext.MAX_CORRIDOR_MARGIN;
+
+    private static final double MIN_IMPROVEMENT = 0.01;
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 6;
+    private static final Moves[] MOVES = Moves.values();
+
+    // Dropped cells are bucketed by (x >> DROP_SHIFT, z >> DROP_SHIFT), as in SearchSession
+    private static final int DROP_SHIFT = 2;
+
+    // sectionFlags bits, as in SearchSession
+    private static final long CHANGE_KNOWN = 1;
+    private static final long CHANGED = 2;
+    private static final long NEAR_KNOWN = 4;
+    private static final long NEAR_CHANGE = 8;
+
+    // Reverse search: seeds are the goal cells, costs are ticks to the goal
+    private static final Goal NO_HEURISTIC = new Goal() {
+        @Override
+        public boolean isInGoal(int x, int y, int z) {
+            return false;
+        }
+
+        @Override
+        public double heuristic(int x, int y, int z) {
+            return 0;
+        }
+    };
+
+    /**
+     * An immutable field: cells packed as BlockPos longs, each with its cost to the goal,
+     * the index of its successor (-1 on goal cells) and the move taken to reach it.
+     */
+    public static final class Snapshot {
+        private final Long2IntOpenHashMap index;
+        private final long[] cells;
+        private final float[] costs;
+        private final int[] next;
+        private final byte[] moves;
+        private final LongOpenHashSet sections;
+        private final boolean truncated;
+        private final long computeMs;
+
+        private Snapshot(long[] cells, float[] costs, int[] next, byte[] moves, boolean truncated, long computeMs) {
+            this.cells = cells;
+            this.costs = costs;
+            this.next = next;
+            this.moves = moves;
+            this.truncated = truncated;
+            this.computeMs = computeMs;
+            index = new Long2IntOpenHashMap(cells.length);
+            index.defaultReturnValue(-1);
+            for (int i = 0; i < cells.length; i++) {
+                index.put(cells[i], i);
+            }
+            sections = watchedSections(cells);
+        }
+
+        /**
+         * The path from (x, y, z) to the goal along the successor pointers,
+         * or null if the cell isn't in the field.
+         */
+        public List<PathNode> pathFrom(int x, int y, int z, Goal goal) {
+            int cell = index.get(BlockPos.asLong(x, y, z));
+            if (cell < 0) {
+                return null;
+            }
+            List<PathNode> path = new ArrayList<>();
+            double startCost = costs[cell];
+            int previous = -1;
+            PathNode last = null;
+            while (cell >= 0) {
+                int cx = BlockPos.getX(cells[cell]);
+                int cy = BlockPos.getY(cells[cell]);
+                int cz = BlockPos.getZ(cells[cell]);
+                PathNode node = new PathNode(cx, cy, cz, goal.heuristic(cx, cy, cz));
+                node.cost = startCost - costs[cell];
+                node.combinedCost = node.cost + node.estimatedCostToGoal;
+                node.moveType = previous < 0 ? null : MOVES[moves[previous]];
+                node.previous = last;
+                path.add(node);
+                last = node;
+                previous = cell;
+                cell = next[cell];
+            }
+            return path;
+        }
+
+        /** Cost to the goal from (x, y, z), or -1 if the cell isn't in the field. */
+        public double costAt(int x, int y, int z) {
+            int cell = index.get(BlockPos.asLong(x, y, z));
+            return cell < 0 ? -1 : costs[cell];
+        }
+
+        boolean watches(long section) {
+            return sections.contains(section);
+        }
+
+        public int size() {
+            return cells.length;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        public long getComputeMs() {
+            return computeMs;
+        }
+    }
+
+    final FlowFieldManager.Key key;
+    private final ServerLevel level;
+    private final Goal goal;
+    private final int goalX, goalY, goalZ;
+    private final int range;
+    private final int radiusChunks;
+
+    // Server thread
+    private final Set<FakePlayer> assigned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile Snapshot current;
+    private CompletableFuture<Snapshot> next = new CompletableFuture<>();
+    private CompletableFuture<Snapshot> inFlight;
+    private boolean dirty = true;
+    private boolean discarded;
+    private int refreshes;
+
+    // Refresh job (guarded by this)
+    private final NodeStore store = new NodeStore();
+    private final OpenSet openSet = OpenSet.create(store);
+    private CalculationContext lastContext;
+    private final Long2LongOpenHashMap sectionFlags = new Long2LongOpenHashMap();
+    private final LongOpenHashSet droppedBuckets = new LongOpenHashSet();
+    private CalculationContext before;
+    private CalculationContext after;
+
+    FlowField(FlowFieldManager.Key key, ServerLevel level, Goal goal, int goalX, int goalY, int goalZ,
+              int range, int radiusChunks) {
+        this.key = key;
+        this.level = level;
+        this.goal = goal;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.goalZ = goalZ;
+        this.range = range;
+        this.radiusChunks = radiusChunks;
+    }
+
+    /**
+     * The field to follow: completed now if no refresh is pending, otherwise once the
+     * running (or next) refresh is published. Server thread only.
+     */
+    public CompletableFuture<Snapshot> ready() {
+        if (next != null) {
+            return next;
+        }
+        return CompletableFuture.completedFuture(current);
+    }
+
+    public Goal getGoal() {
+        return goal;
+    }
+
+    public Snapshot getCurrent() {
+        return current;
+    }
+
+    public int getAssignedCount() {
+        return assigned.size();
+    }
+
+    public int getRefreshCount() {
+        return refreshes;
+    }
+
+    void assign(FakePlayer bot) {
+        assigned.add(bot);
+    }
+
+    /** @return true if no bot is left */
+    boolean unassign(FakePlayer bot) {
+        assigned.remove(bot);
+        return assigned.isEmpty();
+    }
+
+    ServerLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Whether a change in this section can affect the field. Until the first field is
+     * published (or while a refresh runs on an older snapshot) any section in the snapshot
+     * area counts.
+     */
+    boolean isAffectedBy(long section) {
+        Snapshot field = current;
+        if (field != null && inFlight == null) {
+            return field.watches(section);
+        }
+        int dx = SectionPos.x(section) - (goalX >> 4);
+        int dz = SectionPos.z(section) - (goalZ >> 4);
+        return dx * dx + dz * dz <= (radiusChunks + 1) * (radiusChunks + 1);
+    }
+
+    void markDirty() {
+        dirty = true;
+        if (next == null) {
+            next = new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * Publish a finished refresh and start the next one if blocks changed meanwhile.
+     * Called every server tick by FlowFieldManager.
+     */
+    void tick() {
+        if (discarded) return;
+        if (inFlight != null) {
+            if (!inFlight.isDone()) return;
+            Snapshot result = null;
+            try {
+                result = inFlight.getNow(null);
+            } catch (Exception e) {
+                BridgeMod.LOGGER.warn("FlowField {}: refresh failed: {}", goal, e.getMessage());
+            }
+            inFlight = null;
+            if (result != null) {
+                current = result;
+            } else if (current == null) {
+                // Nothing to follow: bots plan on their own
+                current = new Snapshot(new long[0], new float[0], new int[0], new byte[0], false, 0);
+            }
+            // Waiting bots get this field even if blocks changed meanwhile (a busy area would
+            // otherwise keep them waiting); later requests wait for the next refresh
+            next.complete(current);
+            next = dirty ? new CompletableFuture<>() : null;
+        }
+        if (dirty) {
+            startRefresh();
+        }
+    }
+
+    private void startRefresh() {
+        FakePlayer representative = null;
+        for (FakePlayer bot : assigned) {
+            if (bot.isAlive()) {
+                representative = bot;
+                break;
+            }
+        }
+        if (representative == null) return;
+        dirty = false;
+        CalculationContext ctx = new CalculationContext(level,
+                representative.getFoodData().getFoodLevel() > 6, representative);
+        ctx.cacheCorridor(goalX, goalZ, goalX, goalZ, radiusChunks);
+        refreshes++;
+        inFlight = PathPlanningExecutor.get().submit(this, PathPlanningExecutor.Priority.GOTO,
+                token -> refresh(ctx, token));
+    }
+
+    void discard() {
+        discarded = true;
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+        if (next != null) {
+            next.complete(current != null ? current
+                    : new Snapshot(new long[0], new float[0], new int[0], new byte[0], false, 0));
+            next = null;
+        }
+        assigned.clear();
+    }
+
+    /**
+     * Build or repair the field on the new snapshot. Runs on a planning worker.
+     *
+     * @return the new field, or null if cancelled
+     */
+    private synchronized Snapshot refresh(CalculationContext ctx, CancellationToken token) {
+        long startTime = System.currentTimeMillis();
+        CalculationContext previous = lastContext;
+        lastContext = null;
+        int reopened;
+        if (previous == null) {
+            store.clear();
+            openSet.clear();
+            reopened = seed();
+        } else {
+            reopened = repair(previous, ctx);
+        }
+        int kept = store.size();
+
+        MoveResult res = new MoveResult();
+        int minY = ctx.getLevel().getMinBuildHeight();
+        int maxY = ctx.getLevel().getMaxBuildHeight();
+        int expanded = 0;
+        while (!openSet.isEmpty() && store.size() < MAX_CELLS) {
+            if ((expanded & (CANCEL_CHECK_INTERVAL - 1)) == 0 && token.isCancelled()) {
+                return null;
+            }
+            expand(ctx, openSet.removeLowest(), res, minY, maxY);
+            expanded++;
+        }
+        lastContext = ctx;
+
+        Snapshot field = snapshot(!openSet.isEmpty(), System.currentTimeMillis() - startTime);
+        BridgeMod.LOGGER.debug("FlowField {}: {} cells ({} kept, {} reopened, {} expanded) in {}ms",
+                goal, field.size(), previous == null ? 0 : kept, reopened, expanded, field.getComputeMs());
+        return field;
+    }
+
+    /** Open every goal cell at cost 0. */
+    private int seed() {
+        int radius = range <= 1 ? 0 : range;
+        int seeds = 0;
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    int x = goalX + dx, y = goalY + dy, z = goalZ + dz;
+                    if (!goal.isInGoal(x, y, z)) continue;
+                    int node = store.getOrCreate(x, y, z, PathNode.longHash(x, y, z), NO_HEURISTIC);
+                    store.cost[node] = 0;
+                    store.combinedCost[node] = 0;
+                    openSet.insert(node);
+                    seeds++;
+                }
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * Find every cell with a move landing on node (PathFinder's reverse rule) and relax it.
+     */
+    private void expand(CalculationContext ctx, int node, MoveResult res, int minY, int maxY) {
+        int x = store.x[node];
+        int y = store.y[node];
+        int z = store.z[node];
+        int maxDrop = ctx.maxFallHeightNoWater;
+        for (Moves move : MOVES) {
+            if (move.dynamicXZ) {
+                int dirX = Integer.signum(move.xOffset);
+                int dirZ = Integer.signum(move.zOffset);
+                for (int dist = 2; dist <= 4; dist++) {
+                    relax(ctx, move, x - dirX * dist, y, z - dirZ * dist, node, res, minY, maxY);
+                }
+            } else if (move.dynamicY && move.xOffset != 0 && move.zOffset != 0) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    relax(ctx, move, x - move.xOffset, y - dy, z - move.zOffset, node, res, minY, maxY);
+                }
+            } else if (move.dynamicY) {
+                for (int drop = 1; drop <= maxDrop; drop++) {
+                    relax(ctx, move, x - move.xOffset, y + drop, z - move.zOffset, node, res, minY, maxY);
+                }
+            } else {
+                relax(ctx, move, x - move.xOffset, y - move.yOffset, z - move.zOffset, node, res, minY, maxY);
+            }
+        }
+    }
+
+    private void relax(CalculationContext ctx, Moves move, int px, int py, int pz, int node, MoveResult res,
+                       int minY, int maxY) {
+        if (py > maxY || py < minY || !ctx.isLive(px, pz)) {
+            return;
+        }
+        int x = store.x[node];
+        int y = store.y[node];
+        int z = store.z[node];
+        res.reset();
+        move.apply(ctx, px, py, pz, res);
+        double actionCost = res.cost;
+        if (actionCost >= ActionCosts.COST_INF || res.x != x || res.y != y || res.z != z) {
+            return;
+        }
+        if (actionCost <= 0 || Double.isNaN(actionCost)) {
+            throw new IllegalStateException(move + " calculated implausible cost " + actionCost);
+        }
+        int predecessor = store.getOrCreate(px, py, pz, PathNode.longHash(px, py, pz), NO_HEURISTIC);
+        double tentativeCost = store.cost[node] + actionCost;
+        if (store.cost[predecessor] - tentativeCost > MIN_IMPROVEMENT) {
+            // Track cells that lose (or never get) a predecessor, for repair()
+            int oldNext = store.previous[predecessor];
+            if (oldNext != NodeStore.NO_NODE && oldNext != node) {
+                store.sharedSuccessor[oldNext] = true;
+            }
+            store.previous[predecessor] = node;
+            store.cost[predecessor] = tentativeCost;
+            store.setMoveType(predecessor, move);
+            store.combinedCost[predecessor] = tentativeCost;
+            if (store.isOpen(predecessor)) {
+                openSet.update(predecessor);
+            } else {
+                openSet.insert(predecessor);
+            }
+        } else if (store.previous[predecessor] != node) {
+            store.sharedSuccessor[node] = true;
+        }
+    }
+
+    /**
+     * Drop the cells whose route to the goal touches a changed section and reopen the cells
+     * the search must expand again (see class comment).
+     *
+     * @return number of reopened cells
+     */
+    private int repair(CalculationContext previous, CalculationContext ctx) {
+        NodeStore s = store;
+        int n = s.size();
+        sectionFlags.clear();
+        before = previous;
+        after = ctx;
+
+        // Classify each cell by walking its successor chain to a classified cell or a goal cell
+        byte[] mark = new byte[n];
+        int[] stack = new int[n];
+        boolean[] reopen = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (mark[i] != 0) continue;
+            int depth = 0;
+            int node = i;
+            while (node != NodeStore.NO_NODE && mark[node] == 0) {
+                stack[depth++] = node;
+                node = s.previous[node];
+            }
+            byte result = node == NodeStore.NO_NODE ? 1 : mark[node];
+            while (depth > 0) {
+                int cell = stack[--depth];
+                int successor = s.previous[cell];
+                if (result == 1 && successor != NodeStore.NO_NODE && moveTouchesChange(cell, successor)) {
+                    reopen[successor] = true;
+                    result = 2;
+                }
+                mark[cell] = result;
+            }
+        }
+
+        boolean[] keep = new boolean[n];
+        droppedBuckets.clear();
+        for (int i = 0; i < n; i++) {
+            keep[i] = mark[i] == 1;
+            if (!keep[i]) {
+                droppedBuckets.add(ChunkPos.asLong(s.x[i] >> DROP_SHIFT, s.z[i] >> DROP_SHIFT));
+            }
+        }
+        int[] remap = s.compact(keep);
+        int reopened = 0;
+        for (int old = 0; old < n; old++) {
+            int id = remap[old];
+            if (id == NodeStore.NO_NODE) continue;
+            boolean open = s.heapPosition[id] != -1;
+            s.heapPosition[id] = -1;
+            if (open || reopen[old] || (s.sharedSuccessor[id] && nearDropped(s.x[id], s.z[id]))
+                    || nearChange(s.x[id], s.y[id], s.z[id])) {
+                s.sharedSuccessor[id] = false;
+                stack[reopened++] = id;
+            }
+        }
+        openSet.clear();
+        for (int i = 0; i < reopened; i++) {
+            openSet.insert(stack[i]);
+        }
+        before = null;
+        after = null;
+        droppedBuckets.clear();
+        return reopened;
+    }
+
+    /** Whether a cell dropped by this repair may be one move away from (x, z). */
+    private boolean nearDropped(int x, int z) {
+        int bx = x >> DROP_SHIFT;
+        int bz = z >> DROP_SHIFT;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (droppedBuckets.contains(ChunkPos.asLong(bx + dx, bz + dz))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Same section box as SearchSession: floor below the lower cell to head room above the higher. */
+    private boolean moveTouchesChange(int from, int to) {
+        NodeStore s = store;
+        int minX = Math.min(s.x[from], s.x[to]) >> 4;
+        int maxX = Math.max(s.x[from], s.x[to]) >> 4;
+        int minY = (Math.min(s.y[from], s.y[to]) - 1) >> 4;
+        int maxY = (Math.max(s.y[from], s.y[to]) + 2) >> 4;
+        int minZ = Math.min(s.z[from], s.z[to]) >> 4;
+        int maxZ = Math.max(s.z[from], s.z[to]) >> 4;
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    if (sectionChanged(sx, sy, sz)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nearChange(int x, int y, int z) {
+        int sx = x >> 4;
+        int sy = y >> 4;
+        int sz = z >> 4;
+        long key = SectionPos.asLong(sx, sy, sz);
+        long flags = sectionFlags.get(key);
+        if ((flags & NEAR_KNOWN) == 0) {
+            boolean near = false;
+            for (int dx = -1; dx <= 1 && !near; dx++) {
+                for (int dy = -1; dy <= 1 && !near; dy++) {
+                    for (int dz = -1; dz <= 1 && !near; dz++) {
+                        near = sectionChanged(sx + dx, sy + dy, sz + dz);
+                    }
+                }
+            }
+            flags = sectionFlags.get(key) | NEAR_KNOWN | (near ? NEAR_CHANGE : 0);
+            sectionFlags.put(key, flags);
+        }
+        return (flags & NEAR_CHANGE) != 0;
+    }
+
+    private boolean sectionChanged(int sx, int sy, int sz) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        long flags = sectionFlags.get(key);
+        if ((flags & CHANGE_KNOWN) == 0) {
+            long version = before.sectionVersion(sx, sy, sz);
+            boolean changed = version == -1 || version != after.sectionVersion(sx, sy, sz);
+            flags |= CHANGE_KNOWN | (changed ? CHANGED : 0);
+            sectionFlags.put(key, flags);
+        }
+        return (flags & CHANGED) != 0;
+    }
+
+    private Snapshot snapshot(boolean truncated, long computeMs) {
+        NodeStore s = store;
+        int n = s.size();
+        long[] cells = new long[n];
+        float[] costs = new float[n];
+        int[] next = Arrays.copyOf(s.previous, n);
+        byte[] moves = Arrays.copyOf(s.moveType, n);
+        for (int i = 0; i < n; i++) {
+            cells[i] = BlockPos.asLong(s.x[i], s.y[i], s.z[i]);
+            costs[i] = (float) s.cost[i];
+        }
+        return new Snapshot(cells, costs, next, moves, truncated, computeMs);
+    }
+
+    /**
+     * Sections whose changes can affect the field: those holding a cell's floor, feet or head,
+     * and their neighbours (a change there can open a move into or next to the field).
+     */
+    private static LongOpenHashSet watchedSections(long[] cells) {
+        LongOpenHashSet own = new LongOpenHashSet();
+        List<Long> unique = new ArrayList<>();
+        for (long cell : cells) {
+            int sx = BlockPos.getX(cell) >> 4;
+            int y = BlockPos.getY(cell);
+            int sz = BlockPos.getZ(cell) >> 4;
+            for (int dy = -1; dy <= 1; dy++) {
+                long section = SectionPos.asLong(sx, (y + dy) >> 4, sz);
+                if (own.add(section)) {
+                    unique.add(section);
+                }
+            }
+        }
+        LongOpenHashSet watched = new LongOpenHashSet(unique.size() * 4);
+        for (long section : unique) {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        watched.add(SectionPos.asLong(SectionPos.x(section) + dx,
+                                SectionPos.y(section) + dy, SectionPos.z(section) + dz));
+                    }
+                }
+            }
+        }
+        return watched;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowField{" + goal + ", " + assigned.size() + " bots}";
+    }
+}
@@ -0,0 +1,170 @@
+package com.playstudio.bridgemod.pathfinding.flow;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.bot.FakePlayer;
+import com.playstudio.bridgemod.pathfinding.CalculationContext;
+import com.playstudio.bridgemod.pathfinding.goals.Goal;
+import com.playstudio.bridgemod.pathfinding.goals.GoalBlock;
+import com.playstudio.bridgemod.pathfinding.goals.GoalNear;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The flow fields in use, one per destination (level, goal, capabilities) shared by every
+ * bot assigned to it. A field is built when its first bot is assigned, refreshed after block
+ * changes it watches (reported by BlockChangeTracker, coalesced per tick) and discarded once
+ * its last bot arrives, gives up or is stopped.
+ *
+ * All methods run on the server thread.
+ */
+public final class FlowFieldManager {
+
+    private static final FlowFieldManager INSTANCE = new FlowFieldManager();
+
+    /** Fields are shared by bots with the same destination and the same capabilities. */
+    static final class Key {
+        final ResourceKey<Level> dimension;
+        final Goal goal;
+        final long capabilities;
+
+        Key(ResourceKey<Level> dimension, Goal goal, long capabilities) {
+            this.dimension = dimension;
+            this.goal = goal;
+            this.capabilities = capabilities;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && other.capabilities == capabilities
+                    && other.dimension == dimension && other.goal.equals(goal);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dimension, goal, capabilities);
+        }
+    }
+
+    private final Map<Key, FlowField> fields = new HashMap<>();
+
+    // Stats (server thread only)
+    private long built;
+    private long shared;
+    private long refreshes;
+
+    private FlowFieldManager() {
+    }
+
+    public static FlowFieldManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Assign a bot to the field towards (x, y, z), creating it if no bot with the same
+     * capabilities is heading there yet.
+     *
+     * @param radiusChunks snapshot radius around the goal for a new field
+     *                     (clamped to FlowField.MAX_RADIUS_CHUNKS)
+     */
+    public FlowField acquire(FakePlayer bot, int x, int y, int z, int range, int radiusChunks) {
+        Goal goal = range <= 1 ? new GoalBlock(x, y, z) : new GoalNear(x, y, z, range);
+        CalculationContext ctx = new CalculationContext(bot.serverLevel(), bot.getFoodData().getFoodLevel() > 6, bot);
+        Key key = new Key(bot.serverLevel().dimension(), goal, ctx.capabilityFingerprint());
+        FlowField field = fields.get(key);
+        if (field == null) {
+            int radius = Math.max(1, Math.min(radiusChunks, FlowField.MAX_RADIUS_CHUNKS));
+            field = new FlowField(key, bot.serverLevel(), goal, x, y, z, range, radius);
+            fields.put(key, field);
+            field.assign(bot);
+            field.tick();
+            built++;
+            BridgeMod.LOGGER.info("FlowField {}: building, radius {} chunks", goal, radius);
+        } else {
+            field.assign(bot);
+            shared++;
+        }
+        return field;
+    }
+
+    /**
+     * The bot no longer follows this field; the field is discarded with its last bot.
+     */
+    public void release(FlowField field, FakePlayer bot) {
+        if (field.unassign(bot) && fields.get(field.key) == field) {
+            fields.remove(field.key);
+            refreshes += field.getRefreshCount();
+            field.discard();
+            BridgeMod.LOGGER.info("FlowField {}: discarded after {} refreshes", field.getGoal(), field.getRefreshCount());
+        }
+    }
+
+    /** Publish finished refreshes and start pending ones. Called once per server tick. */
+    public void tick() {
+        if (fields.isEmpty()) return;
+        for (FlowField field : new ArrayList<>(fields.values())) {
+            field.tick();
+        }
+    }
+
+    /**
+     * Called by BlockChangeTracker for every section whose version it bumps.
+     */
+    public void onSectionChanged(Level level, long section) {
+        if (fields.isEmpty()) return;
+        for (FlowField field : fields.values()) {
+            if (field.getLevel() == level && field.isAffectedBy(section)) {
+                field.markDirty();
+            }
+        }
+    }
+
+    public void evictLevel(Level level) {
+        Iterator<FlowField> it = fields.values().iterator();
+        while (it.hasNext()) {
+            FlowField field = it.next();
+            if (field.getLevel() == level) {
+                field.discard();
+                it.remove();
+            }
+        }
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    public long getBuiltCount() {
+        return built;
+    }
+
+    public long getSharedCount() {
+        return shared;
+    }
+
+    /** Refreshes (initial builds included) of the fields discarded so far and the live ones. */
+    public long getRefreshCount() {
+        long total = refreshes;
+        for (FlowField field : fields.values()) {
+            total += field.getRefreshCount();
+        }
+        return total;
+    }
+
+    /** Cells in all live fields. */
+    public long getCellCount() {
+        long total = 0;
+        for (FlowField field : fields.values()) {
+            FlowField.Snapshot current = field.getCurrent();
+            if (current != null) {
+                total += current.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,209 @@
+package com.playstudio.bridgemod.pathfinding.goals;
+
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Goal: get within range of any one of many targets (bot_goto_any).
+ *
+ * One search reaches whichever candidate is cheapest by path, instead of a goto to the
+ * Euclidean-nearest hit of findBlocks followed by another full search per fallback.
+ *
+ * - isInGoal is one lookup in a set of every cell within range of some target
+ *   (BlockPos.asLong keys), built once in the constructor.
+ * - heuristic is the minimum of GoalBlock.calculate over the targets. Targets are bucketed
+ *   by XZ into a dense grid, and buckets are visited in rings around the query's bucket until
+ *   the ring's nearest possible Chebyshev distance times SPRINT_ONE_BLOCK_COST (a lower bound
+ *   of GoalBlock.calculate) reaches the best value found, so distant targets are never scanned.
+ *
+ * As in bot_goto, a range of 1 or less means standing on a target cell exactly.
+ */
+public class GoalAnyOf implements Goal {
+
+    /** Largest supported range: the goal cell set grows with range cubed. */
+    public static final int MAX_RANGE = 4;
+
+    // Keep the bucket grid at most this many cells, coarsening buckets for spread-out targets
+    private static final int MAX_BUCKETS = 4096;
+
+    private final int[] tx;
+    private final int[] ty;
+    private final int[] tz;
+    private final int range;
+    private final LongOpenHashSet goalCells;
+
+    // Bucket grid: cell (i, j) covers bucket column (minBucketX + i, minBucketZ + j);
+    // its targets are bucketTargets[bucketStart[c] .. bucketStart[c + 1]) with c = i * depth + j
+    private final int shift;
+    private final int minBucketX;
+    private final int minBucketZ;
+    private final int width;
+    private final int depth;
+    private final int[] bucketStart;
+    private final int[] bucketTargets;
+
+    // Sorted packed targets, for equals/hashCode (PathCache, SearchSession retargeting)
+    private final long[] packed;
+    private final int hash;
+
+    public GoalAnyOf(Collection<BlockPos> targets, int range) {
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("GoalAnyOf needs at least one target");
+        }
+        if (range > MAX_RANGE) {
+            throw new IllegalArgumentException("GoalAnyOf range " + range + " exceeds " + MAX_RANGE);
+        }
+        this.range = range;
+        int n = targets.size();
+        tx = new int[n];
+        ty = new int[n];
+        tz = new int[n];
+        int i = 0;
+        for (BlockPos target : targets) {
+            tx[i] = target.getX();
+            ty[i] = target.getY();
+            tz[i] = target.getZ();
+            i++;
+        }
+
+        int radius = range <= 1 ? 0 : range;
+        int radiusSq = radius * radius;
+        goalCells = new LongOpenHashSet(n * (radius == 0 ? 1 : 4 * radiusSq * radius + 1));
+        for (int t = 0; t < n; t++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dy = -radius; dy <= radius; dy++) {
+                    for (int dz = -radius; dz <= radius; dz++) {
+                        if (dx * dx + dy * dy + dz * dz <= radiusSq) {
+                            goalCells.add(BlockPos.asLong(tx[t] + dx, ty[t] + dy, tz[t] + dz));
+                        }
+                    }
+                }
+            }
+        }
+
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int t = 0; t < n; t++) {
+            minX = Math.min(minX, tx[t]);
+            maxX = Math.max(maxX, tx[t]);
+            minZ = Math.min(minZ, tz[t]);
+            maxZ = Math.max(maxZ, tz[t]);
+        }
+        int s = 4;
+        while ((long) ((maxX >> s) - (minX >> s) + 1) * ((maxZ >> s) - (minZ >> s) + 1) > MAX_BUCKETS) {
+            s++;
+        }
+        shift = s;
+        minBucketX = minX >> s;
+        minBucketZ = minZ >> s;
+        width = (maxX >> s) - minBucketX + 1;
+        depth = (maxZ >> s) - minBucketZ + 1;
+        bucketStart = new int[width * depth + 1];
+        for (int t = 0; t < n; t++) {
+            bucketStart[bucketOf(t) + 1]++;
+        }
+        for (int c = 0; c < width * depth; c++) {
+            bucketStart[c + 1] += bucketStart[c];
+        }
+        bucketTargets = new int[n];
+        int[] fill = Arrays.copyOf(bucketStart, width * depth);
+        for (int t = 0; t < n; t++) {
+            bucketTargets[fill[bucketOf(t)]++] = t;
+        }
+
+        packed = new long[n];
+        for (int t = 0; t < n; t++) {
+            packed[t] = BlockPos.asLong(tx[t], ty[t], tz[t]);
+        }
+        Arrays.sort(packed);
+        hash = Arrays.hashCode(packed) * 31 + range;
+    }
+
+    private int bucketOf(int target) {
+        return ((tx[target] >> shift) - minBucketX) * depth + (tz[target] >> shift) - minBucketZ;
+    }
+
+    @Override
+    public boolean isInGoal(int x, int y, int z) {
+        return goalCells.contains(BlockPos.asLong(x, y, z));
+    }
+
+    @Override
+    public double heuristic(int x, int y, int z) {
+        int bi = Math.max(0, Math.min(width - 1, (x >> shift) - minBucketX));
+        int bj = Math.max(0, Math.min(depth - 1, (z >> shift) - minBucketZ));
+        int maxRing = Math.max(Math.max(bi, width - 1 - bi), Math.max(bj, depth - 1 - bj));
+        int bucketSize = 1 << shift;
+        double best = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every target in this ring is at least (ring - 1) * bucketSize + 1 blocks away on X or Z
+            if (ring > 0 && ((ring - 1) * (double) bucketSize + 1) * ActionCosts.SPRINT_ONE_BLOCK_COST >= best) {
+                break;
+            }
+            for (int i = bi - ring; i <= bi + ring; i++) {
+                if (i < 0 || i >= width) continue;
+                boolean edgeRow = i == bi - ring || i == bi + ring;
+                for (int j = bj - ring; j <= bj + ring; j += edgeRow ? 1 : 2 * ring) {
+                    if (j >= 0 && j < depth) {
+                        best = Math.min(best, bestInBucket(i * depth + j, x, y, z));
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private double bestInBucket(int bucket, int x, int y, int z) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int k = bucketStart[bucket]; k < bucketStart[bucket + 1]; k++) {
+            int t = bucketTargets[k];
+            best = Math.min(best, GoalBlock.calculate(x - tx[t], y - ty[t], z - tz[t]));
+        }
+        return best;
+    }
+
+    /**
+     * The target whose range contains (x, y, z) (the nearest one if several do), or null.
+     */
+    public BlockPos targetAt(int x, int y, int z) {
+        int radius = range <= 1 ? 0 : range;
+        long bestSq = (long) radius * radius;
+        BlockPos best = null;
+        for (int t = 0; t < tx.length; t++) {
+            long dx = x - tx[t];
+            long dy = y - ty[t];
+            long dz = z - tz[t];
+            long distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq <= bestSq) {
+                bestSq = distSq;
+                best = new BlockPos(tx[t], ty[t], tz[t]);
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return tx.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GoalAnyOf other && other.range == range && other.hash == hash
+                && Arrays.equals(other.packed, packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "GoalAnyOf{" + tx.length + " targets, range=" + range + "}";
+    }
+}
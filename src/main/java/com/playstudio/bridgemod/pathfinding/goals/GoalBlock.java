@@ -101,6 +101,16 @@ public class GoalBlock implements Goal {
         return (diagonal + straight) * ActionCosts.SPRINT_ONE_BLOCK_COST;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GoalBlock other && other.x == x && other.y == y && other.z == z;
+    }
+
+    @Override
+    public int hashCode() {
+        return (x * 31 + y) * 31 + z;
+    }
+
     @Override
     public String toString() {
         return "GoalBlock{" + x + ", " + y + ", " + z + "}";
@@ -0,0 +1,84 @@
+package com.playstudio.bridgemod.pathfinding.goals;
+
+/**
+ * Goal: get within range of where a moving target will be by the time the bot gets there,
+ * rather than where it is now (combat pursuit).
+ *
+ * solve() extrapolates the target's horizontal velocity and finds the earliest lead time t
+ * (ticks) at which a bot covering one block per ticksPerBlock in a straight line is within
+ * range of the extrapolated position, i.e. the smallest t >= 0 with
+ *
+ *     |target + velocity * t - bot| <= t / ticksPerBlock + range
+ *
+ * (a quadratic in t), capped at MAX_LEAD_TICKS. A target the bot can't catch, or a lead past
+ * the cap, uses MAX_LEAD_TICKS. The goal itself is a GoalNear around the predicted cell, so
+ * the search, its heuristic and SearchSession retargeting treat it like any other GoalNear.
+ */
+public class GoalIntercept extends GoalNear {
+
+    /** Longest extrapolation (2 s): mobs rarely hold a heading longer than that. */
+    public static final int MAX_LEAD_TICKS = 40;
+
+    private final int leadTicks;
+
+    private GoalIntercept(int x, int y, int z, int range, int leadTicks) {
+        super(x, y, z, range);
+        this.leadTicks = leadTicks;
+    }
+
+    /**
+     * @param velocityX     target velocity along X, blocks per tick
+     * @param velocityZ     target velocity along Z, blocks per tick
+     * @param ticksPerBlock the bot's path cost per block of straight-line distance
+     * @param range         goal range around the predicted cell
+     */
+    public static GoalIntercept solve(double botX, double botZ,
+                                      double targetX, double targetY, double targetZ,
+                                      double velocityX, double velocityZ,
+                                      double ticksPerBlock, int range) {
+        double dx = targetX - botX;
+        double dz = targetZ - botZ;
+        double speed = 1.0 / ticksPerBlock;
+        double a = velocityX * velocityX + velocityZ * velocityZ - speed * speed;
+        double b = 2 * (dx * velocityX + dz * velocityZ - speed * range);
+        double c = dx * dx + dz * dz - (double) range * range;
+
+        double lead;
+        if (c <= 0) {
+            lead = 0; // already within range
+        } else if (Math.abs(a) < 1e-9) {
+            lead = b < 0 ? -c / b : MAX_LEAD_TICKS;
+        } else {
+            double discriminant = b * b - 4 * a * c;
+            if (discriminant < 0) {
+                lead = MAX_LEAD_TICKS;
+            } else {
+                double root = Math.sqrt(discriminant);
+                double t1 = Math.min((-b - root) / (2 * a), (-b + root) / (2 * a));
+                double t2 = Math.max((-b - root) / (2 * a), (-b + root) / (2 * a));
+                if (a < 0) {
+                    // Bot faster: the inequality holds from the positive root on (c > 0, so t1 < 0)
+                    lead = t2;
+                } else {
+                    // Target faster: it only holds between the roots, if they are ahead
+                    lead = t1 >= 0 ? t1 : MAX_LEAD_TICKS;
+                }
+            }
+        }
+        int leadTicks = (int) Math.ceil(Math.max(0, Math.min(lead, MAX_LEAD_TICKS)));
+        int x = (int) Math.floor(targetX + velocityX * leadTicks);
+        int z = (int) Math.floor(targetZ + velocityZ * leadTicks);
+        return new GoalIntercept(x, (int) Math.floor(targetY), z, range, leadTicks);
+    }
+
+    /** Ticks ahead the target was extrapolated. */
+    public int getLeadTicks() {
+        return leadTicks;
+    }
+
+    @Override
+    public String toString() {
+        return "GoalIntercept{" + getX() + ", " + getY() + ", " + getZ() + ", range=" + getRange()
+                + ", lead=" + leadTicks + "t}";
+    }
+}
@@ -18,6 +18,22 @@ public class GoalNear implements Goal {
         this.rangeSq = range * range;
     }
 
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public int getRange() {
+        return (int) Math.sqrt(rangeSq);
+    }
+
     @Override
     public boolean isInGoal(int x, int y, int z) {
         int xDiff = x - this.x;
@@ -34,6 +50,17 @@ public class GoalNear implements Goal {
         return GoalBlock.calculate(xDiff, yDiff, zDiff);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GoalNear other && other.x == x && other.y == y && other.z == z
+                && other.rangeSq == rangeSq;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((x * 31 + y) * 31 + z) * 31 + rangeSq;
+    }
+
     @Override
     public String toString() {
         return "GoalNear{" + x + ", " + y + ", " + z + ", range=" + (int) Math.sqrt(rangeSq) + "}";
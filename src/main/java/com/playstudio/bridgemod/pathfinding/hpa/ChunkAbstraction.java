@@ -0,0 +1,178 @@
+package com.playstudio.bridgemod.pathfinding.hpa;
+
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import net.minecraft.core.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Abstract view of one chunk column: its border portals and the cost of travelling between
+ * them inside the chunk (HPA*, Botea et al.).
+ *
+ * An entrance is a connected run of standable cell pairs across a chunk border; each entrance
+ * becomes one portal, placed at its middle cell. A portal is stored as the cell on this side
+ * (portals[i]) and the cell across the border (partners[i]), which is in turn a portal of the
+ * neighbouring chunk's abstraction. Both chunks derive the pair from the same two columns, so
+ * the two sides agree as long as neither column changed in between (PortalGraph rebuilds both).
+ *
+ * Immutable once built; shared by every search on the graph.
+ */
+final class ChunkAbstraction {
+
+    final int cx;
+    final int cz;
+    final long[] portals;      // BlockPos.asLong of the portal cell in this chunk
+    final long[] partners;     // BlockPos.asLong of the matching cell in the neighbour
+    final float[] crossCosts;  // portals[i] → partners[i]
+    final float[] costs;       // portals[i] → portals[j] at [i * n + j], COST_INF if unreachable
+
+    private ChunkAbstraction(int cx, int cz, long[] portals, long[] partners, float[] crossCosts, float[] costs) {
+        this.cx = cx;
+        this.cz = cz;
+        this.portals = portals;
+        this.partners = partners;
+        this.crossCosts = crossCosts;
+        this.costs = costs;
+    }
+
+    int size() {
+        return portals.length;
+    }
+
+    int indexOf(long pos) {
+        for (int i = 0; i < portals.length; i++) {
+            if (portals[i] == pos) return i;
+        }
+        return -1;
+    }
+
+    float cost(int from, int to) {
+        return costs[from * portals.length + to];
+    }
+
+    /**
+     * Build the abstraction of chunk (cx, cz). Neighbour grids may be null (not cached),
+     * in which case that border has no portals.
+     */
+    static ChunkAbstraction build(int cx, int cz, ChunkGrid center,
+                                  ChunkGrid east, ChunkGrid west, ChunkGrid south, ChunkGrid north) {
+        List<int[]> pairs = new ArrayList<>();
+        // Each entry: {localX, y, localZ, partnerCx, partnerCz, partnerLocalX, partnerY, partnerLocalZ}
+        if (east != null) {
+            for (int[] e : entrances(center, east)) {
+                pairs.add(new int[]{15, e[1], e[0], cx + 1, cz, 0, e[2], e[0]});
+            }
+        }
+        if (west != null) {
+            for (int[] e : entrances(west, center)) {
+                pairs.add(new int[]{0, e[2], e[0], cx - 1, cz, 15, e[1], e[0]});
+            }
+        }
+        if (south != null) {
+            for (int[] e : entrances(center.transposed(), south.transposed())) {
+                pairs.add(new int[]{e[0], e[1], 15, cx, cz + 1, e[0], e[2], 0});
+            }
+        }
+        if (north != null) {
+            for (int[] e : entrances(north.transposed(), center.transposed())) {
+                pairs.add(new int[]{e[0], e[2], 0, cx, cz - 1, e[0], e[1], 15});
+            }
+        }
+
+        int n = pairs.size();
+        long[] portals = new long[n];
+        long[] partners = new long[n];
+        float[] crossCosts = new float[n];
+        int[] cells = new int[n];
+        int minY = center.getMinY();
+        for (int i = 0; i < n; i++) {
+            int[] p = pairs.get(i);
+            portals[i] = BlockPos.asLong((cx << 4) + p[0], p[1], (cz << 4) + p[2]);
+            partners[i] = BlockPos.asLong((p[3] << 4) + p[5], p[6], (p[4] << 4) + p[7]);
+            crossCosts[i] = crossCost(p[6] - p[1]);
+            cells[i] = ChunkGrid.cell(p[0], p[1], p[2], minY);
+        }
+
+        float[] costs = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            float[] row = center.costsFrom(cells[i], cells);
+            System.arraycopy(row, 0, costs, i * n, n);
+        }
+        return new ChunkAbstraction(cx, cz, portals, partners, crossCosts, costs);
+    }
+
+    /**
+     * Cost of stepping across a border between cells dy blocks apart (-1, 0 or 1).
+     */
+    static float crossCost(int dy) {
+        if (dy > 0) {
+            return (float) (ActionCosts.WALK_ONE_BLOCK_COST + ActionCosts.JUMP_ONE_BLOCK_COST);
+        }
+        if (dy < 0) {
+            return (float) (ActionCosts.WALK_OFF_BLOCK_COST + ActionCosts.FALL_N_BLOCKS_COST[1]
+                    + ActionCosts.CENTER_AFTER_FALL_COST);
+        }
+        return (float) ActionCosts.WALK_ONE_BLOCK_COST;
+    }
+
+    /**
+     * Entrances across the border between a (local x = 15) and b (local x = 0, one chunk east).
+     * Returns one {z, yA, yB} per entrance, at the entrance's middle cell.
+     * Transposed grids are used for north/south borders, where z plays the role of x.
+     */
+    static List<int[]> entrances(ChunkGrid a, ChunkGrid b) {
+        // Candidate crossings: {z, yA, yB}, ordered by z then yA
+        List<int[]> candidates = new ArrayList<>();
+        int minY = Math.max(a.getMinY(), b.getMinY());
+        int maxY = Math.min(a.getMaxY(), b.getMaxY());
+        for (int z = 0; z < 16; z++) {
+            for (int y = minY; y < maxY; y++) {
+                if (!a.standable(15, y, z)) continue;
+                int yB;
+                if (b.standable(0, y, z)) {
+                    yB = y;
+                } else if (b.standable(0, y + 1, z) && a.passable(15, y + 2, z)) {
+                    yB = y + 1;
+                } else if (b.standable(0, y - 1, z) && b.passable(0, y + 1, z)) {
+                    yB = y - 1;
+                } else {
+                    continue;
+                }
+                candidates.add(new int[]{z, y, yB});
+            }
+        }
+
+        // Group adjacent candidates (neighbouring z within one block of height, or stacked)
+        int count = candidates.size();
+        int[] group = new int[count];
+        Arrays.fill(group, -1);
+        int[] queue = new int[count];
+        List<int[]> result = new ArrayList<>();
+        for (int start = 0; start < count; start++) {
+            if (group[start] != -1) continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            group[start] = start;
+            while (head < tail) {
+                int[] cur = candidates.get(queue[head++]);
+                for (int other = 0; other < count; other++) {
+                    if (group[other] != -1) continue;
+                    int[] o = candidates.get(other);
+                    int dz = Math.abs(o[0] - cur[0]);
+                    int dy = Math.abs(o[1] - cur[1]);
+                    if ((dz == 1 && dy <= 1) || (dz == 0 && dy == 1)) {
+                        group[other] = start;
+                        queue[tail++] = other;
+                    }
+                }
+            }
+            // Members were discovered in BFS order; take the middle one in (z, y) order
+            Arrays.sort(queue, 0, tail);
+            result.add(candidates.get(queue[tail / 2]));
+        }
+        return result;
+    }
+}
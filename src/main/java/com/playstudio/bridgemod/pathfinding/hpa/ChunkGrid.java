@@ -0,0 +1,247 @@
+package com.playstudio.bridgemod.pathfinding.hpa;
+
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import com.playstudio.bridgemod.pathfinding.cache.CachedChunk;
+
+import java.util.Arrays;
+
+/**
+ * Coarse movement model over one CachedChunk, used to cost paths inside a chunk for the
+ * abstract graph. Only walk, one-block jump, falls of up to 3 blocks and swimming are modelled;
+ * no mining or placing. Moves never leave the chunk.
+ *
+ * Cells are indexed like CachedChunk: ((y - minY) << 8) | (z << 4) | x.
+ */
+final class ChunkGrid {
+
+    private static final int MAX_FALL = 3;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final CachedChunk chunk;
+    private final int minY;
+    private final int maxY;
+    // x and z swapped, so north/south borders can be scanned like east/west ones
+    private final boolean transposed;
+    private ChunkGrid transposedView;
+
+    ChunkGrid(CachedChunk chunk) {
+        this(chunk, false);
+    }
+
+    private ChunkGrid(CachedChunk chunk, boolean transposed) {
+        this.chunk = chunk;
+        this.minY = chunk.getMinY();
+        this.maxY = minY + chunk.getHeight();
+        this.transposed = transposed;
+    }
+
+    ChunkGrid transposed() {
+        if (transposedView == null) {
+            transposedView = new ChunkGrid(chunk, !transposed);
+        }
+        return transposedView;
+    }
+
+    private int type(int x, int y, int z) {
+        return transposed ? chunk.getType(z, y, x) : chunk.getType(x, y, z);
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    int getMaxY() {
+        return maxY;
+    }
+
+    static int cell(int x, int y, int z, int minY) {
+        return ((y - minY) << 8) | (z << 4) | x;
+    }
+
+    boolean passable(int x, int y, int z) {
+        if (y >= maxY) return true;
+        if (y < minY) return false;
+        int type = type(x, y, z);
+        return type == CachedChunk.AIR || type == CachedChunk.WATER;
+    }
+
+    boolean inWater(int x, int y, int z) {
+        return y >= minY && y < maxY && type(x, y, z) == CachedChunk.WATER;
+    }
+
+    /**
+     * Whether the bot can occupy (x, y, z) with its feet: two passable blocks over a solid floor,
+     * or feet in water.
+     */
+    boolean standable(int x, int y, int z) {
+        if (y <= minY || y >= maxY) return false;
+        if (!passable(x, y, z) || !passable(x, y + 1, z)) return false;
+        return inWater(x, y, z) || type(x, y - 1, z) == CachedChunk.SOLID;
+    }
+
+    /**
+     * Standable y closest to y in [y - range, y + range], or Integer.MIN_VALUE if none.
+     */
+    int nearestStandable(int x, int y, int z, int range) {
+        for (int d = 0; d <= range; d++) {
+            if (standable(x, y - d, z)) return y - d;
+            if (d > 0 && standable(x, y + d, z)) return y + d;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Cheapest in-chunk cost from a standable cell to each of the target cells
+     * (ActionCosts.COST_INF if unreachable). Stops once every target is settled.
+     */
+    float[] costsFrom(int from, int[] targets) {
+        Scratch s = SCRATCH.get();
+        int cells = (maxY - minY) << 8;
+        s.begin(cells);
+
+        float[] result = new float[targets.length];
+        Arrays.fill(result, (float) ActionCosts.COST_INF);
+        int remaining = 0;
+        for (int target : targets) {
+            if (s.targetStamp[target] != s.generation) {
+                s.targetStamp[target] = s.generation;
+                remaining++;
+            }
+        }
+
+        s.relax(from, 0f);
+        while (s.heapSize > 0 && remaining > 0) {
+            long top = s.pop();
+            int cur = (int) top;
+            float cost = Float.intBitsToFloat((int) (top >>> 32));
+            if (cost > s.dist[cur]) continue; // stale entry
+            if (s.settled[cur] == s.generation) continue;
+            s.settled[cur] = s.generation;
+            if (s.targetStamp[cur] == s.generation) {
+                remaining--;
+            }
+            expand(s, cur, cost);
+        }
+
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            if (s.settled[target] == s.generation) {
+                result[i] = s.dist[target];
+            }
+        }
+        return result;
+    }
+
+    private void expand(Scratch s, int cur, float cost) {
+        int x = cur & 15;
+        int z = (cur >> 4) & 15;
+        int y = minY + (cur >> 8);
+        boolean water = inWater(x, y, z);
+
+        // Swim up / down
+        if (water) {
+            if (standable(x, y + 1, z)) {
+                s.relax(cell(x, y + 1, z, minY), cost + (float) ActionCosts.WALK_ONE_IN_WATER_COST);
+            }
+            if (standable(x, y - 1, z)) {
+                s.relax(cell(x, y - 1, z, minY), cost + (float) ActionCosts.WALK_ONE_IN_WATER_COST);
+            }
+        }
+
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + (dir == 0 ? 1 : dir == 1 ? -1 : 0);
+            int nz = z + (dir == 2 ? 1 : dir == 3 ? -1 : 0);
+            if (nx < 0 || nx > 15 || nz < 0 || nz > 15) continue;
+
+            if (standable(nx, y, nz)) {
+                double walk = water || inWater(nx, y, nz)
+                        ? ActionCosts.WALK_ONE_IN_WATER_COST : ActionCosts.WALK_ONE_BLOCK_COST;
+                s.relax(cell(nx, y, nz, minY), cost + (float) walk);
+                continue;
+            }
+            if (standable(nx, y + 1, nz) && passable(x, y + 2, z)) {
+                s.relax(cell(nx, y + 1, nz, minY),
+                        cost + (float) (ActionCosts.WALK_ONE_BLOCK_COST + ActionCosts.JUMP_ONE_BLOCK_COST));
+                continue;
+            }
+            if (!passable(nx, y, nz) || !passable(nx, y + 1, nz)) continue;
+            for (int d = 1; d <= MAX_FALL; d++) {
+                if (standable(nx, y - d, nz)) {
+                    s.relax(cell(nx, y - d, nz, minY), cost + (float) (ActionCosts.WALK_OFF_BLOCK_COST
+                            + ActionCosts.FALL_N_BLOCKS_COST[d] + ActionCosts.CENTER_AFTER_FALL_COST));
+                    break;
+                }
+                if (!passable(nx, y - d, nz)) break;
+            }
+        }
+    }
+
+    /**
+     * Per-thread Dijkstra state, generation-stamped so it is never cleared between runs.
+     */
+    private static final class Scratch {
+        int generation;
+        int[] stamp = new int[0];
+        int[] settled = new int[0];
+        int[] targetStamp = new int[0];
+        float[] dist = new float[0];
+        // (float bits of cost << 32) | cell; non-negative floats order like their bits
+        long[] heap = new long[256];
+        int heapSize;
+
+        void begin(int cells) {
+            if (stamp.length < cells) {
+                stamp = new int[cells];
+                settled = new int[cells];
+                targetStamp = new int[cells];
+                dist = new float[cells];
+                generation = 0;
+            }
+            if (++generation == 0) {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(settled, 0);
+                Arrays.fill(targetStamp, 0);
+                generation = 1;
+            }
+            heapSize = 0;
+        }
+
+        void relax(int cell, float cost) {
+            if (stamp[cell] == generation && dist[cell] <= cost) return;
+            stamp[cell] = generation;
+            dist[cell] = cost;
+            push(((long) Float.floatToIntBits(cost) << 32) | cell);
+        }
+
+        private void push(long entry) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize << 1);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= entry) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = entry;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = (i << 1) + 1;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+                if (last <= heap[child]) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (heapSize > 0) heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.playstudio.bridgemod.pathfinding.hpa;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.ActionCosts;
+import com.playstudio.bridgemod.pathfinding.CancellationToken;
+import com.playstudio.bridgemod.pathfinding.goals.GoalBlock;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Abstract search over the PortalGraph for long gotos (HPA*).
+ *
+ * Finds a chain of chunk-border portals from the start to the target's chunk. BotController
+ * then refines it with the regular block-level PathFinder, one short segment between
+ * consecutive waypoints at a time, instead of running one flat search over the whole distance.
+ *
+ * Runs on a path planning worker. Costs come from the 2-bit cached world, so the route is an
+ * estimate: a segment the block-level search can't complete falls back to flat planning.
+ */
+public final class HierarchicalPlanner {
+
+    private static final int MAX_EXPANSIONS = 200_000;
+    private static final int TIME_CHECK_INTERVAL = 64;
+    // How far up/down from the requested start to look for a standable cell
+    private static final int START_SEARCH_RANGE = 3;
+
+    private final PortalGraph graph;
+
+    public HierarchicalPlanner(PortalGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Plan a portal route from (sx, sy, sz) to the chunk containing (tx, ty, tz).
+     *
+     * @return waypoints in travel order (empty if the start is already in the target chunk),
+     *         or null if no route exists in the cached world or the search was cancelled
+     */
+    public List<BlockPos> plan(int sx, int sy, int sz, int tx, int ty, int tz, CancellationToken token) {
+        long startTime = System.currentTimeMillis();
+        int targetCX = tx >> 4;
+        int targetCZ = tz >> 4;
+        if (sx >> 4 == targetCX && sz >> 4 == targetCZ) {
+            return Collections.emptyList();
+        }
+
+        ChunkAbstraction startChunk = graph.get(sx >> 4, sz >> 4);
+        ChunkGrid startGrid = graph.grid(sx >> 4, sz >> 4);
+        if (startChunk == null || startGrid == null) {
+            BridgeMod.LOGGER.debug("HierarchicalPlanner: start chunk not cached");
+            return null;
+        }
+        int startY = startGrid.nearestStandable(sx & 15, sy, sz & 15, START_SEARCH_RANGE);
+        if (startY == Integer.MIN_VALUE) {
+            BridgeMod.LOGGER.debug("HierarchicalPlanner: no standable cell near start ({},{},{})", sx, sy, sz);
+            return null;
+        }
+
+        // Seed the open set with the start chunk's portals, costed from the start cell
+        int[] cells = new int[startChunk.size()];
+        for (int i = 0; i < cells.length; i++) {
+            long p = startChunk.portals[i];
+            cells[i] = ChunkGrid.cell(BlockPos.getX(p) & 15, BlockPos.getY(p), BlockPos.getZ(p) & 15,
+                    startGrid.getMinY());
+        }
+        float[] startCosts = startGrid.costsFrom(
+                ChunkGrid.cell(sx & 15, startY, sz & 15, startGrid.getMinY()), cells);
+
+        Long2ObjectOpenHashMap<Node> nodes = new Long2ObjectOpenHashMap<>();
+        PriorityQueue<Entry> open = new PriorityQueue<>();
+        for (int i = 0; i < cells.length; i++) {
+            if (startCosts[i] < ActionCosts.COST_INF) {
+                relax(nodes, open, startChunk.portals[i], startCosts[i], null, tx, ty, tz);
+            }
+        }
+
+        int expansions = 0;
+        while (!open.isEmpty()) {
+            Entry entry = open.poll();
+            Node node = entry.node;
+            if (node.closed || entry.cost > node.cost) continue; // stale entry
+            node.closed = true;
+
+            if (++expansions > MAX_EXPANSIONS) {
+                BridgeMod.LOGGER.info("HierarchicalPlanner: gave up after {} expansions", MAX_EXPANSIONS);
+                return null;
+            }
+            if (expansions % TIME_CHECK_INTERVAL == 0 && token.isCancelled()) {
+                return null;
+            }
+
+            int nx = BlockPos.getX(node.pos);
+            int nz = BlockPos.getZ(node.pos);
+            if (nx >> 4 == targetCX && nz >> 4 == targetCZ) {
+                List<BlockPos> waypoints = new ArrayList<>();
+                for (Node n = node; n != null; n = n.parent) {
+                    waypoints.add(BlockPos.of(n.pos));
+                }
+                Collections.reverse(waypoints);
+                BridgeMod.LOGGER.info("HierarchicalPlanner: {} waypoints, est. cost {}, {} expansions, {}ms",
+                        waypoints.size(), (int) node.cost, expansions, System.currentTimeMillis() - startTime);
+                return waypoints;
+            }
+
+            ChunkAbstraction chunk = graph.get(nx >> 4, nz >> 4);
+            if (chunk == null) continue;
+            int index = chunk.indexOf(node.pos);
+            if (index < 0) continue; // chunk was rebuilt since this portal was generated
+
+            relax(nodes, open, chunk.partners[index], node.cost + chunk.crossCosts[index], node, tx, ty, tz);
+            for (int j = 0; j < chunk.size(); j++) {
+                if (j == index) continue;
+                float cost = chunk.cost(index, j);
+                if (cost < ActionCosts.COST_INF) {
+                    relax(nodes, open, chunk.portals[j], node.cost + cost, node, tx, ty, tz);
+                }
+            }
+        }
+        BridgeMod.LOGGER.info("HierarchicalPlanner: no abstract route ({} expansions, {}ms)",
+                expansions, System.currentTimeMillis() - startTime);
+        return null;
+    }
+
+    private static void relax(Long2ObjectOpenHashMap<Node> nodes, PriorityQueue<Entry> open,
+                              long pos, double cost, Node parent, int tx, int ty, int tz) {
+        Node node = nodes.get(pos);
+        if (node == null) {
+            node = new Node(pos, GoalBlock.calculate(BlockPos.getX(pos) - tx, BlockPos.getY(pos) - ty,
+                    BlockPos.getZ(pos) - tz));
+            nodes.put(pos, node);
+        } else if (node.closed || cost >= node.cost) {
+            return;
+        }
+        node.cost = cost;
+        node.parent = parent;
+        open.add(new Entry(node, cost));
+    }
+
+    private static final class Node {
+        final long pos;
+        final double heuristic;
+        double cost = Double.MAX_VALUE;
+        Node parent;
+        boolean closed;
+
+        Node(long pos, double heuristic) {
+            this.pos = pos;
+            this.heuristic = heuristic;
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final Node node;
+        final double cost;
+        final double combinedCost;
+
+        Entry(Node node, double cost) {
+            this.node = node;
+            this.cost = cost;
+            this.combinedCost = cost + node.heuristic;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(combinedCost, other.combinedCost);
+        }
+    }
+}
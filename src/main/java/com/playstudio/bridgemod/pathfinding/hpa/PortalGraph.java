@@ -0,0 +1,98 @@
+package com.playstudio.bridgemod.pathfinding.hpa;
+
+import com.playstudio.bridgemod.BridgeMod;
+import com.playstudio.bridgemod.pathfinding.cache.CachedChunk;
+import com.playstudio.bridgemod.pathfinding.cache.CachedWorld;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Abstract graph of chunk-border portals over one CachedWorld (the HPA* abstraction layer).
+ *
+ * Chunk abstractions are built lazily, on whichever planner thread first needs them, and kept
+ * until the chunk or one of its four neighbours is re-captured (invalidate(), called by
+ * CachedWorld.put()). Border portals depend on both columns, hence the neighbours.
+ *
+ * Thread-safe: abstractions are immutable, and a build that raced with an invalidation
+ * is used once but not cached.
+ */
+public final class PortalGraph {
+
+    // Drop everything beyond this many abstractions (~1 KB each)
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    private final CachedWorld world;
+    private final ConcurrentHashMap<Long, ChunkAbstraction> chunks = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+
+    // Metrics
+    private final AtomicLong built = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+
+    public PortalGraph(CachedWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Abstraction of chunk (cx, cz), or null if the chunk isn't in the cached world.
+     */
+    ChunkAbstraction get(int cx, int cz) {
+        long key = ChunkPos.asLong(cx, cz);
+        ChunkAbstraction abstraction = chunks.get(key);
+        if (abstraction != null) {
+            return abstraction;
+        }
+        long modCount = modifications.get();
+        ChunkGrid center = grid(cx, cz);
+        if (center == null) {
+            return null;
+        }
+        abstraction = ChunkAbstraction.build(cx, cz, center,
+                grid(cx + 1, cz), grid(cx - 1, cz), grid(cx, cz + 1), grid(cx, cz - 1));
+        built.incrementAndGet();
+        if (chunks.size() >= MAX_CHUNKS) {
+            BridgeMod.LOGGER.debug("PortalGraph: {} chunk abstractions cached, clearing", chunks.size());
+            chunks.clear();
+        }
+        if (modifications.get() == modCount) {
+            chunks.putIfAbsent(key, abstraction);
+        }
+        return abstraction;
+    }
+
+    /**
+     * Coarse movement grid of chunk (cx, cz), or null if it isn't cached.
+     */
+    ChunkGrid grid(int cx, int cz) {
+        CachedChunk chunk = world.getChunk(cx, cz);
+        return chunk != null ? new ChunkGrid(chunk) : null;
+    }
+
+    /**
+     * Chunk (cx, cz) was re-captured: its abstraction and its neighbours' are stale.
+     */
+    public void invalidate(int cx, int cz) {
+        modifications.incrementAndGet();
+        int removed = 0;
+        if (chunks.remove(ChunkPos.asLong(cx, cz)) != null) removed++;
+        if (chunks.remove(ChunkPos.asLong(cx + 1, cz)) != null) removed++;
+        if (chunks.remove(ChunkPos.asLong(cx - 1, cz)) != null) removed++;
+        if (chunks.remove(ChunkPos.asLong(cx, cz + 1)) != null) removed++;
+        if (chunks.remove(ChunkPos.asLong(cx, cz - 1)) != null) removed++;
+        invalidated.addAndGet(removed);
+    }
+
+    public int getCachedChunks() {
+        return chunks.size();
+    }
+
+    public long getBuiltCount() {
+        return built.get();
+    }
+
+    public long getInvalidatedCount() {
+        return invalidated.get();
+    }
+}
@@ -3,6 +3,7 @@ package com.playstudio.bridgemod.pathfinding.moves;
 import com.playstudio.bridgemod.pathfinding.ActionCosts;
 import com.playstudio.bridgemod.pathfinding.CalculationContext;
 import com.playstudio.bridgemod.pathfinding.PrecomputedData;
+import com.playstudio.bridgemod.pathfinding.cache.SectionWalkability;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.*;
 import net.minecraft.world.level.block.state.BlockState;
@@ -16,7 +17,8 @@ import net.minecraft.world.level.material.Fluids;
  *
  * Uses PrecomputedData for O(1) block state flag lookups,
  * eliminating instanceof chains for ~85% of calls.
- * Only falls through to position-dependent checks for MAYBE states.
+ * Only falls through to position-dependent checks for MAYBE states, whose results are
+ * memoized in the snapshot-shared SectionWalkability (see CalculationContext.walkabilityAt).
  *
  * Omits: door/gate passability, block placement helpers, tool selection,
  * avoidBreaking, fullyPassable. getMiningDurationTicks returns COST_INF
@@ -38,11 +40,27 @@ public final class MovementHelper {
     }
 
     public static boolean canWalkThrough(CalculationContext ctx, int x, int y, int z, BlockState state) {
-        int flags = ctx.precomputed.getFlags(state);
+        int flags = ctx.flagsAt(x, y, z, state);
         int wth = flags & PrecomputedData.WTH_MASK;
         if (wth == PrecomputedData.WTH_YES) return true;
         if (wth == PrecomputedData.WTH_NO) return false;
-        // MAYBE: position-dependent check
+        // MAYBE: position-dependent check, resolved once per block and shared across searches
+        SectionWalkability cache = ctx.walkabilityAt(x, y, z);
+        if (cache != null) {
+            int bits = cache.get(x & 15, y & 15, z & 15);
+            if ((bits & SectionWalkability.WTH_KNOWN) != 0) {
+                return (bits & SectionWalkability.WTH_TRUE) != 0;
+            }
+        }
+        boolean result = canWalkThroughPositional(ctx, x, y, z, state);
+        if (cache != null) {
+            cache.add(x & 15, y & 15, z & 15,
+                    SectionWalkability.WTH_KNOWN | (result ? SectionWalkability.WTH_TRUE : 0));
+        }
+        return result;
+    }
+
+    private static boolean canWalkThroughPositional(CalculationContext ctx, int x, int y, int z, BlockState state) {
         // Baritone water logic: only still, surface (no water above), 1-block-deep water is passable.
         // Deep water (water above) acts as a wall → forces bot to swim at surface.
         // Uses FluidState check to match waterlogged blocks (seagrass, kelp, etc.)
@@ -74,11 +92,27 @@ public final class MovementHelper {
     }
 
     public static boolean canWalkOn(CalculationContext ctx, int x, int y, int z, BlockState state) {
-        int flags = ctx.precomputed.getFlags(state);
+        int flags = ctx.flagsAt(x, y, z, state);
         int won = flags & PrecomputedData.WON_MASK;
         if (won == PrecomputedData.WON_YES) return true;
         if (won == PrecomputedData.WON_NO) return false;
-        // MAYBE: position-dependent check
+        // MAYBE: position-dependent check, resolved once per block and shared across searches
+        SectionWalkability cache = ctx.walkabilityAt(x, y, z);
+        if (cache != null) {
+            int bits = cache.get(x & 15, y & 15, z & 15);
+            if ((bits & SectionWalkability.WON_KNOWN) != 0) {
+                return (bits & SectionWalkability.WON_TRUE) != 0;
+            }
+        }
+        boolean result = canWalkOnPositional(ctx, x, y, z, state);
+        if (cache != null) {
+            cache.add(x & 15, y & 15, z & 15,
+                    SectionWalkability.WON_KNOWN | (result ? SectionWalkability.WON_TRUE : 0));
+        }
+        return result;
+    }
+
+    private static boolean canWalkOnPositional(CalculationContext ctx, int x, int y, int z, BlockState state) {
         // Baritone water logic: deep water (water above this block) acts as walkable floor.
         // The bot "stands" on this block and swims at the surface level above.
         // Uses FluidState check to match waterlogged blocks (seagrass, kelp, etc.)
@@ -224,6 +258,20 @@ public final class MovementHelper {
             return 0;  // Already passable, no mining needed
         }
 
+        // Everything below depends only on the state and the context's hotbar snapshot,
+        // so it is computed once per state per search (the same few stone/dirt states
+        // come up for almost every dig candidate).
+        int stateId = Block.BLOCK_STATE_REGISTRY.getId(state);
+        double cached = ctx.getMiningTicks(stateId);
+        if (cached >= 0) {
+            return cached;
+        }
+        double ticks = computeMiningTicks(ctx, x, y, z, state);
+        ctx.putMiningTicks(stateId, ticks);
+        return ticks;
+    }
+
+    private static double computeMiningTicks(CalculationContext ctx, int x, int y, int z, BlockState state) {
         // Unbreakable blocks (bedrock, barriers, etc.) — hardness < 0
         BlockPos pos = new BlockPos(x, y, z);
         float hardness = state.getDestroySpeed(ctx.getLevel(), pos);
@@ -0,0 +1,211 @@
+package com.playstudio.bridgemod.pathfinding.threat;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Arrays;
+
+/**
+ * Coarse 2D influence map of hostile mobs for one level, added to A* move costs
+ * (CalculationContext.threatCost) so paths bend around groups of hostiles instead of
+ * leaving CombatPotentialField to push the bot off them every tick.
+ *
+ * The map covers AREA_SIZE-block square areas around the bots it was built for, in
+ * CELL_SIZE-block cells. Each hostile adds THREAT_COST × its threat level to the cells within
+ * its reach, falling off linearly with distance; a cell's total is capped at MAX_CELL_COST.
+ * Areas no hostile reaches hold no array, so most lookups return 0 after one hash probe.
+ * Each stamp is also kept, so a bot pursuing a hostile can use the grid without() it.
+ *
+ * Immutable once built: ThreatGridManager builds a new grid every server tick (and for
+ * single bots on demand) and searches keep the one they started with, from any thread.
+ * A search resumed through a SearchSession compares its old grid with the new one and searches
+ * again from the nodes whose cell cost changed.
+ */
+public final class ThreatGrid {
+
+    static final int CELL_SHIFT = 1;
+    static final int AREA_SHIFT = 7;
+    /** Side of one cell in blocks. */
+    public static final int CELL_SIZE = 1 << CELL_SHIFT;
+    /** Side of one area in blocks. */
+    public static final int AREA_SIZE = 1 << AREA_SHIFT;
+    static final int CELLS = AREA_SIZE / CELL_SIZE;
+
+    /** Cost (ticks) added at a hostile of threat level 1.0, about four blocks of walking. */
+    static final double THREAT_COST = 20.0;
+    /** Upper bound on a cell's cost, however many hostiles overlap it. */
+    static final float MAX_CELL_COST = 60.0f;
+
+    private final LongOpenHashSet covered;
+    // Area key (ChunkPos.asLong of the area coordinates) → CELLS × CELLS costs, row-major by z
+    private final Long2ObjectOpenHashMap<float[]> areas = new Long2ObjectOpenHashMap<>();
+    // Every hostile that reached a covered area (entity id, position, peak cost, reach), so
+    // without() can rebuild the areas one of them reached
+    private int[] stampIds = new int[0];
+    private double[] stampX = new double[0];
+    private double[] stampZ = new double[0];
+    private double[] stampPeak = new double[0];
+    private double[] stampReach = new double[0];
+    private int stampCount;
+
+    ThreatGrid(LongOpenHashSet covered) {
+        this.covered = covered;
+    }
+
+    public static long areaKey(int x, int z) {
+        return ChunkPos.asLong(x >> AREA_SHIFT, z >> AREA_SHIFT);
+    }
+
+    /**
+     * The cost array of an area (areaKey of a position in it), or null if no hostile reaches it.
+     * Index it with cellIndex(x, z).
+     */
+    public float[] area(long areaKey) {
+        return areas.get(areaKey);
+    }
+
+    public static int cellIndex(int x, int z) {
+        return ((z >> CELL_SHIFT) & (CELLS - 1)) * CELLS + ((x >> CELL_SHIFT) & (CELLS - 1));
+    }
+
+    /** Extra cost (ticks) of ending a move at (x, z). */
+    public double cost(int x, int z) {
+        float[] cells = areas.get(areaKey(x, z));
+        return cells == null ? 0 : cells[cellIndex(x, z)];
+    }
+
+    /** Whether any hostile reached a covered area. */
+    public boolean isEmpty() {
+        return areas.isEmpty();
+    }
+
+    /** Whether every one of these areas is covered. */
+    boolean coversAll(LongOpenHashSet areaKeys) {
+        LongIterator it = areaKeys.iterator();
+        while (it.hasNext()) {
+            if (!covered.contains(it.nextLong())) return false;
+        }
+        return true;
+    }
+
+    /** Areas covered (around bots), with or without hostiles. */
+    public int coveredAreas() {
+        return covered.size();
+    }
+
+    /** Areas some hostile reaches. */
+    public int threatenedAreas() {
+        return areas.size();
+    }
+
+    /** Hostiles that were stamped into the grid. */
+    public int getThreatCount() {
+        return stampCount;
+    }
+
+    /**
+     * This grid without one hostile's cost (the one a bot is pursuing), or this grid itself if
+     * that hostile wasn't stamped. The copy shares every area the hostile didn't reach and
+     * rebuilds the ones it did from the other hostiles' stamps; capped sums don't depend on
+     * stamp order, so those areas match a grid built without the hostile.
+     */
+    public ThreatGrid without(int entityId) {
+        int removed = -1;
+        for (int i = 0; i < stampCount; i++) {
+            if (stampIds[i] == entityId) {
+                removed = i;
+                break;
+            }
+        }
+        if (removed < 0) {
+            return this;
+        }
+        ThreatGrid copy = new ThreatGrid(covered);
+        copy.areas.putAll(areas);
+        // Areas the removed hostile reached get new arrays; the shared ones are never written
+        LongOpenHashSet rebuilt = new LongOpenHashSet();
+        double x = stampX[removed], z = stampZ[removed], reach = stampReach[removed];
+        for (int ax = (int) Math.floor(x - reach) >> AREA_SHIFT; ax <= (int) Math.floor(x + reach) >> AREA_SHIFT; ax++) {
+            for (int az = (int) Math.floor(z - reach) >> AREA_SHIFT; az <= (int) Math.floor(z + reach) >> AREA_SHIFT; az++) {
+                long key = ChunkPos.asLong(ax, az);
+                if (copy.areas.remove(key) != null) {
+                    rebuilt.add(key);
+                }
+            }
+        }
+        for (int i = 0; i < stampCount; i++) {
+            if (i == removed) continue;
+            copy.stampAreas(stampX[i], stampZ[i], stampPeak[i], stampReach[i], rebuilt);
+            copy.record(stampIds[i], stampX[i], stampZ[i], stampPeak[i], stampReach[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Add one hostile at (x, z): threatLevel × THREAT_COST at its position, down to 0 at
+     * reach blocks, in every covered area it reaches.
+     */
+    void stamp(int entityId, double x, double z, double threatLevel, double reach) {
+        if (threatLevel <= 0 || reach <= 0) {
+            return;
+        }
+        double peak = THREAT_COST * threatLevel;
+        if (stampAreas(x, z, peak, reach, null)) {
+            record(entityId, x, z, peak, reach);
+        }
+    }
+
+    /** Add a stamp to the covered areas it reaches (only those in onlyAreas, if not null). */
+    private boolean stampAreas(double x, double z, double peak, double reach, LongOpenHashSet onlyAreas) {
+        int minX = (int) Math.floor(x - reach), maxX = (int) Math.floor(x + reach);
+        int minZ = (int) Math.floor(z - reach), maxZ = (int) Math.floor(z + reach);
+        boolean stamped = false;
+        for (int ax = minX >> AREA_SHIFT; ax <= maxX >> AREA_SHIFT; ax++) {
+            for (int az = minZ >> AREA_SHIFT; az <= maxZ >> AREA_SHIFT; az++) {
+                long key = ChunkPos.asLong(ax, az);
+                if (!covered.contains(key)) continue;
+                if (onlyAreas != null && !onlyAreas.contains(key)) continue;
+                float[] cells = areas.get(key);
+                if (cells == null) {
+                    cells = new float[CELLS * CELLS];
+                    areas.put(key, cells);
+                }
+                int fromX = Math.max(minX, ax << AREA_SHIFT) >> CELL_SHIFT;
+                int toX = Math.min(maxX, (ax << AREA_SHIFT) + AREA_SIZE - 1) >> CELL_SHIFT;
+                int fromZ = Math.max(minZ, az << AREA_SHIFT) >> CELL_SHIFT;
+                int toZ = Math.min(maxZ, (az << AREA_SHIFT) + AREA_SIZE - 1) >> CELL_SHIFT;
+                for (int cz = fromZ; cz <= toZ; cz++) {
+                    double dz = (cz << CELL_SHIFT) + CELL_SIZE * 0.5 - z;
+                    for (int cx = fromX; cx <= toX; cx++) {
+                        double dx = (cx << CELL_SHIFT) + CELL_SIZE * 0.5 - x;
+                        double dist = Math.sqrt(dx * dx + dz * dz);
+                        if (dist >= reach) continue;
+                        int index = (cz & (CELLS - 1)) * CELLS + (cx & (CELLS - 1));
+                        cells[index] = Math.min(MAX_CELL_COST, cells[index] + (float) (peak * (1 - dist / reach)));
+                        stamped = true;
+                    }
+                }
+            }
+        }
+        return stamped;
+    }
+
+    private void record(int entityId, double x, double z, double peak, double reach) {
+        if (stampCount == stampIds.length) {
+            int capacity = Math.max(8, stampCount << 1);
+            stampIds = Arrays.copyOf(stampIds, capacity);
+            stampX = Arrays.copyOf(stampX, capacity);
+            stampZ = Arrays.copyOf(stampZ, capacity);
+            stampPeak = Arrays.copyOf(stampPeak, capacity);
+            stampReach = Arrays.copyOf(stampReach, capacity);
+        }
+        stampIds[stampCount] = entityId;
+        stampX[stampCount] = x;
+        stampZ[stampCount] = z;
+        stampPeak[stampCount] = peak;
+        stampReach[stampCount] = reach;
+        stampCount++;
+    }
+}
@@ -0,0 +1,212 @@
+package com.playstudio.bridgemod.pathfinding.threat;
+
+import com.playstudio.bridgemod.bot.FakePlayer;
+import com.playstudio.bridgemod.bot.combat.MobProfile;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.monster.Enemy;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Builds the ThreatGrid of every level once per server tick, over the areas around the
+ * bots that are navigating (each bot's area and the 8 around it), so one grid serves every
+ * bot in the same area. A search started by a bot outside those areas gets a grid built for
+ * it alone; a bot pursuing a hostile (which must not repel its own pursuer) gets the grid
+ * without that hostile (forBot). Only the entities around the covered areas are looked at.
+ * Hostiles are weighted by their learned MobProfile: threat level scales the cost, attack
+ * range (plus REACH_MARGIN, at most MAX_REACH) sets the radius.
+ *
+ * -Dcraftai.pathfinding.ignoreThreats=true builds no grids, so searches ignore hostiles.
+ *
+ * All methods run on the server thread.
+ */
+public final class ThreatGridManager {
+
+    private static final ThreatGridManager INSTANCE = new ThreatGridManager();
+
+    private static final boolean ENABLED = !Boolean.getBoolean("craftai.pathfinding.ignoreThreats");
+
+    // Blocks added to a mob's attack range: room to dodge, and mobs move between rebuilds
+    private static final double REACH_MARGIN = 2.0;
+    // Ranged mobs' range would cover whole areas; their cost is bounded to this radius
+    private static final double MAX_REACH = 8.0;
+    // Hostiles this far above or below every bot in the level are not stamped
+    private static final double MAX_DY = 24.0;
+
+    private Map<Level, ThreatGrid> grids = new IdentityHashMap<>();
+    // Grids without a pursued hostile, by grid and entity id; cleared every tick
+    private Map<ThreatGrid, Map<Integer, ThreatGrid>> exempted = new IdentityHashMap<>();
+
+    // Learned profiles passed to the last tick, reused by forBot
+    private Function<LivingEntity, MobProfile> profiles = living -> null;
+
+    // Stats (server thread only)
+    private long builds;
+    private long botBuilds;
+
+    private ThreatGridManager() {
+    }
+
+    public static ThreatGridManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Rebuild the grids for this tick.
+     *
+     * @param bots     bots whose searches should see hostiles (navigating bots)
+     * @param profiles learned profile of a hostile's type, or null to use the defaults
+     */
+    public void tick(Collection<FakePlayer> bots, Function<LivingEntity, MobProfile> profiles) {
+        this.profiles = profiles;
+        if (!ENABLED || bots.isEmpty()) {
+            if (!grids.isEmpty()) {
+                grids = new IdentityHashMap<>();
+                exempted = new IdentityHashMap<>();
+            }
+            return;
+        }
+        Map<Level, LongOpenHashSet> areasByLevel = new IdentityHashMap<>();
+        Map<Level, double[]> yRange = new IdentityHashMap<>();
+        for (FakePlayer bot : bots) {
+            ServerLevel level = bot.serverLevel();
+            addAreasAround(bot, areasByLevel.computeIfAbsent(level, l -> new LongOpenHashSet()));
+            double[] range = yRange.computeIfAbsent(level, l -> new double[]{Double.MAX_VALUE, -Double.MAX_VALUE});
+            range[0] = Math.min(range[0], bot.getY() - MAX_DY);
+            range[1] = Math.max(range[1], bot.getY() + MAX_DY);
+        }
+
+        Map<Level, ThreatGrid> built = new IdentityHashMap<>();
+        for (Map.Entry<Level, LongOpenHashSet> entry : areasByLevel.entrySet()) {
+            ServerLevel level = (ServerLevel) entry.getKey();
+            double[] range = yRange.get(level);
+            built.put(level, build(level, entry.getValue(), range[0], range[1]));
+        }
+        grids = built;
+        exempted = new IdentityHashMap<>();
+        builds++;
+    }
+
+    /**
+     * Grid for a search the bot is about to start, or null if no hostile is near it.
+     * This tick's grid is shared when it covers the bot's areas; otherwise (the bot wasn't
+     * navigating when the tick's grids were built, e.g. the first search of a goto or pursuit)
+     * a grid over the bot's areas is built now. exempt (the hostile the bot is pursuing, or null)
+     * is left out: the search is meant to reach it, not route around it. The grid without it
+     * is derived from the shared one (ThreatGrid.without) and shared by every bot pursuing the
+     * same hostile this tick.
+     */
+    public ThreatGrid forBot(FakePlayer bot, Entity exempt) {
+        if (!ENABLED) {
+            return null;
+        }
+        ServerLevel level = bot.serverLevel();
+        LongOpenHashSet areas = new LongOpenHashSet();
+        addAreasAround(bot, areas);
+        ThreatGrid grid = grids.get(level);
+        if (grid == null || !grid.coversAll(areas)) {
+            grid = build(level, areas, bot.getY() - MAX_DY, bot.getY() + MAX_DY);
+            botBuilds++;
+        }
+        if (exempt != null) {
+            ThreatGrid shared = grid;
+            grid = exempted.computeIfAbsent(shared, g -> new HashMap<>())
+                    .computeIfAbsent(exempt.getId(), shared::without);
+        }
+        return grid.isEmpty() ? null : grid;
+    }
+
+    /**
+     * Stamp the hostiles within MAX_REACH of these areas and between minY and maxY. Only the
+     * entity sections around the areas are queried, one box per area; a hostile near an area
+     * edge falls in two boxes and is stamped once.
+     */
+    private ThreatGrid build(ServerLevel level, LongOpenHashSet areas, double minY, double maxY) {
+        ThreatGrid grid = new ThreatGrid(areas);
+        Set<LivingEntity> stamped = Collections.newSetFromMap(new IdentityHashMap<>());
+        LongIterator it = areas.iterator();
+        while (it.hasNext()) {
+            long key = it.nextLong();
+            int minX = ChunkPos.getX(key) << ThreatGrid.AREA_SHIFT;
+            int minZ = ChunkPos.getZ(key) << ThreatGrid.AREA_SHIFT;
+            AABB box = new AABB(minX - MAX_REACH, minY, minZ - MAX_REACH,
+                    minX + ThreatGrid.AREA_SIZE + MAX_REACH, maxY, minZ + ThreatGrid.AREA_SIZE + MAX_REACH);
+            for (LivingEntity living : level.getEntitiesOfClass(LivingEntity.class, box, ThreatGridManager::isHostile)) {
+                if (stamped.add(living)) {
+                    stamp(grid, living);
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static void addAreasAround(FakePlayer bot, LongOpenHashSet areas) {
+        int ax = bot.getBlockX() >> ThreatGrid.AREA_SHIFT;
+        int az = bot.getBlockZ() >> ThreatGrid.AREA_SHIFT;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                areas.add(ChunkPos.asLong(ax + dx, az + dz));
+            }
+        }
+    }
+
+    private static boolean isHostile(LivingEntity living) {
+        return living instanceof Enemy && living.isAlive();
+    }
+
+    private void stamp(ThreatGrid grid, LivingEntity living) {
+        MobProfile profile = profiles.apply(living);
+        double threatLevel = profile != null ? profile.getThreatLevel() : 1.0;
+        double attackRange = profile != null ? profile.getAttackRange() : 3.0;
+        grid.stamp(living.getId(), living.getX(), living.getZ(), threatLevel, Math.min(attackRange + REACH_MARGIN, MAX_REACH));
+    }
+
+    public long getBuildCount() {
+        return builds;
+    }
+
+    /** Grids built by forBot for a single bot not covered by the tick's grid. */
+    public long getBotBuildCount() {
+        return botBuilds;
+    }
+
+    /** Areas covered by this tick's grids. */
+    public int getCoveredAreas() {
+        int total = 0;
+        for (ThreatGrid grid : grids.values()) {
+            total += grid.coveredAreas();
+        }
+        return total;
+    }
+
+    /** Areas some hostile reaches in this tick's grids. */
+    public int getThreatenedAreas() {
+        int total = 0;
+        for (ThreatGrid grid : grids.values()) {
+            total += grid.threatenedAreas();
+        }
+        return total;
+    }
+
+    /** Hostiles stamped into this tick's grids. */
+    public int getThreatCount() {
+        int total = 0;
+        for (ThreatGrid grid : grids.values()) {
+            total += grid.getThreatCount();
+        }
+        return total;
+    }
+}